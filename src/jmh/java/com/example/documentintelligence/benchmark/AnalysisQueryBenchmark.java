@@ -0,0 +1,87 @@
+package com.example.documentintelligence.benchmark;
+
+import com.example.documentintelligence.domain.model.AnalysisPage;
+import com.example.documentintelligence.domain.model.AnalysisQuery;
+import com.example.documentintelligence.domain.model.AnalysisSnapshot;
+import com.example.documentintelligence.domain.model.AnalysisStatus;
+import com.example.documentintelligence.domain.model.DocumentAnalysis;
+import com.example.documentintelligence.domain.model.DocumentType;
+import com.example.documentintelligence.infrastructure.adapter.InMemoryDocumentRepository;
+import com.example.documentintelligence.infrastructure.persistence.BoundedAnalysisStore;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * "Which matrículas failed in the last hour" over a repository of finished analyses spread over six days:
+ * one page through the secondary indexes against a scan of every snapshot.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AnalysisQueryBenchmark {
+
+    private static final int PAGE_SIZE = 50;
+
+    @Param("100000")
+    public int analyses;
+
+    private InMemoryDocumentRepository repository;
+    private LocalDateTime lastHour;
+
+    @Setup
+    public void setUp() {
+        BoundedAnalysisStore store = new BoundedAnalysisStore(Duration.ofDays(7), Long.MAX_VALUE, 1024,
+                new SimpleMeterRegistry(), event -> { });
+        repository = new InMemoryDocumentRepository(store);
+        Random random = new Random(42);
+        LocalDateTime now = LocalDateTime.now();
+        DocumentType[] types = DocumentType.values();
+        for (int i = 0; i < analyses; i++) {
+            repository.save(DocumentAnalysis.builder()
+                    .protocol("protocol-" + i)
+                    .documentType(types[random.nextInt(types.length)])
+                    .status(random.nextInt(10) == 0 ? AnalysisStatus.FAILED : AnalysisStatus.COMPLETED)
+                    .analysisDate(now.minusSeconds(random.nextInt((int) Duration.ofDays(6).toSeconds())))
+                    .currentState(null)
+                    .build());
+        }
+        lastHour = now.minusHours(1);
+    }
+
+    @Benchmark
+    public AnalysisPage indexedQuery() {
+        return repository.query(new AnalysisQuery(AnalysisStatus.FAILED, DocumentType.REGISTRO_MATRICULA,
+                lastHour, null, null, PAGE_SIZE));
+    }
+
+    @Benchmark
+    public List<AnalysisSnapshot> fullScan() {
+        return repository.findSnapshots(snapshot -> snapshot.getStatus() == AnalysisStatus.FAILED
+                        && snapshot.getDocumentType() == DocumentType.REGISTRO_MATRICULA
+                        && !snapshot.getAnalysisDate().isBefore(lastHour))
+                .stream()
+                .sorted(Comparator.comparing(AnalysisSnapshot::getAnalysisDate).reversed())
+                .limit(PAGE_SIZE)
+                .toList();
+    }
+}
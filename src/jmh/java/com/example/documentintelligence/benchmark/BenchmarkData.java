@@ -0,0 +1,93 @@
+package com.example.documentintelligence.benchmark;
+
+import com.example.documentintelligence.infrastructure.metrics.PipelineMetrics;
+import com.example.documentintelligence.infrastructure.scheduling.SchedulingPolicy;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Deterministic sample inputs shared by the benchmarks.
+ */
+final class BenchmarkData {
+
+    static final String PROMPT = """
+            Avalie o seguinte conteúdo e extraia as seguintes informações específicas em formato JSON,
+            garantindo que os nomes dos campos sejam interpretados como caminhos para a criação de objetos aninhados:
+
+            %s
+
+            Conteúdo a ser avaliado:
+
+            %s
+
+            Observações importantes:
+            * Se alguma das informações solicitadas não for encontrada, o campo correspondente deve conter o valor "null".
+            * A resposta deve conter somente o json com as informações solicitadas. Deve iniciar com "{" e terminar com "}"
+            """;
+
+    static final String EXTRACTION = """
+            {"propriedadeUrbana": {"proprietarios": [{"nome": "MARIA DA SILVA SANTOS"}, {"nome": "JOSÉ SANTOS"}],
+             "area": "250,00 m²", "logradouro": "Rua das Palmeiras, 123, Apto 45", "bairro": "Jardim América",
+             "cidade": "São Paulo", "uf": "SP", "dataMatricula": "12/03/2015", "numeroMatricula": "12.345",
+             "valorVenda": "R$ 450.000,00"}}""";
+
+    private BenchmarkData() {
+    }
+
+    /**
+     * Scheduling policy with the default thresholds and weights of application.yml.
+     */
+    static SchedulingPolicy schedulingPolicy(boolean enabled) {
+        return new SchedulingPolicy(enabled, 5, 1048576, 50, 10485760, 8, 3, 1, Duration.ofSeconds(30),
+                new PipelineMetrics(new SimpleMeterRegistry()));
+    }
+
+    /**
+     * Layout content resembling a property registration, about the given number of characters.
+     */
+    static String layoutContent(int length) {
+        String paragraph = "REGISTRO DE IMÓVEIS - MATRÍCULA Nº 12.345\n"
+                + "IMÓVEL: Apartamento nº 45, localizado no 4º andar do Edifício Palmeiras, situado na Rua das "
+                + "Palmeiras, 123, Jardim América, São Paulo - SP, com área privativa de 250,00 m².\n"
+                + "PROPRIETÁRIA: MARIA DA SILVA SANTOS, brasileira, casada, CPF 123.456.789-09.\n"
+                + "R.1/12.345 - Data: 12/03/2015 - Compra e venda pelo valor de R$ 450.000,00.\n";
+        StringBuilder content = new StringBuilder(length + paragraph.length());
+        while (content.length() < length) {
+            content.append(paragraph);
+        }
+        return content.toString();
+    }
+
+    /**
+     * A PDF-like document of the given size, one page object per 16 KB, the rest random bytes, with a
+     * catalog and page tree up front and a trailer at the end.
+     */
+    static byte[] pdf(int size) {
+        byte[] document = new byte[size];
+        new Random(42).nextBytes(document);
+        byte[] trailer = "\ntrailer << /Root 1 0 R >>\n%%EOF\n".getBytes(StandardCharsets.US_ASCII);
+        List<byte[]> pages = new ArrayList<>();
+        for (int offset = 1024; offset + 64 < size - trailer.length; offset += 16 * 1024) {
+            pages.add(("\n" + (pages.size() + 3) + " 0 obj << /Type /Page /Parent 2 0 R >> endobj\n")
+                    .getBytes(StandardCharsets.US_ASCII));
+        }
+        byte[] header = ("%PDF-1.7\n1 0 obj << /Type /Catalog /Pages 2 0 R >> endobj\n2 0 obj << /Type /Pages /Count "
+                + pages.size() + " >> endobj\n").getBytes(StandardCharsets.US_ASCII);
+        System.arraycopy(header, 0, document, 0, header.length);
+        for (int page = 0; page < pages.size(); page++) {
+            System.arraycopy(pages.get(page), 0, document, 1024 + page * 16 * 1024, pages.get(page).length);
+        }
+        System.arraycopy(trailer, 0, document, size - trailer.length, trailer.length);
+        return document;
+    }
+
+    static String base64Pdf(int size) {
+        return Base64.getEncoder().encodeToString(pdf(size));
+    }
+}
@@ -0,0 +1,52 @@
+package com.example.documentintelligence.benchmark;
+
+import com.azure.core.util.BinaryData;
+import com.example.documentintelligence.infrastructure.spool.DocumentDigest;
+import com.example.documentintelligence.infrastructure.spool.DocumentSpool;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Work done on a base64 submission before it is sent to Document Intelligence: hashing it and counting its
+ * pages when it is accepted, as in {@code DocumentService}, and building the analyze request body, as in
+ * {@code AzureDocumentIntelligenceAnalyzer}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DocumentDecodingBenchmark {
+
+    @Param({"65536", "1048576"})
+    private int documentBytes;
+
+    private String base64Document;
+
+    @Setup
+    public void setUp() {
+        base64Document = BenchmarkData.base64Pdf(documentBytes);
+    }
+
+    @Benchmark
+    public DocumentDigest digestAndCountPages() {
+        return DocumentDigest.of(base64Document);
+    }
+
+    @Benchmark
+    public BinaryData analyzeRequestBody() {
+        return BinaryData.fromListByteBuffer(DocumentSpool.requestBody(base64Document));
+    }
+}
@@ -0,0 +1,55 @@
+package com.example.documentintelligence.benchmark;
+
+import com.example.documentintelligence.domain.model.DocumentType;
+import com.example.documentintelligence.infrastructure.extraction.DocumentFields;
+import com.example.documentintelligence.infrastructure.extraction.FieldPathTrie;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * One walk of the precompiled field paths of {@link DocumentFields} over a fully extracted registration
+ * and over one missing a field, building the extracted data and listing the missing fields.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DocumentFieldsBenchmark {
+
+    private DocumentFields documentFields;
+    private JsonNode complete;
+    private JsonNode incomplete;
+
+    @Setup
+    public void setUp() throws Exception {
+        documentFields = new DocumentFields();
+        complete = new ObjectMapper().readTree(BenchmarkData.EXTRACTION);
+        incomplete = complete.deepCopy();
+        ((ObjectNode) incomplete.get("propriedadeUrbana")).put("valorVenda", " ");
+    }
+
+    @Benchmark
+    public FieldPathTrie.Result extractComplete() {
+        return documentFields.extract(DocumentType.REGISTRO_MATRICULA, complete);
+    }
+
+    @Benchmark
+    public FieldPathTrie.Result extractIncomplete() {
+        return documentFields.extract(DocumentType.REGISTRO_MATRICULA, incomplete);
+    }
+}
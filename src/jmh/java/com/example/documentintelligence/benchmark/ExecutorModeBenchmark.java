@@ -0,0 +1,80 @@
+package com.example.documentintelligence.benchmark;
+
+import com.example.documentintelligence.infrastructure.config.AsyncConfig;
+import com.example.documentintelligence.infrastructure.config.AsyncConfig.ExecutorMode;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Time to get a burst of documents through the analysis executor when each one blocks on a simulated remote
+ * call, comparing the bounded pool with a thread per document. Executors are built by {@link AsyncConfig}
+ * with its default sizes; fair scheduling is off, so the pool is the arrival-order thread pool (see
+ * {@link FairSchedulingBenchmark}). On JDK 17 the VIRTUAL mode falls back to a platform thread per document.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 2)
+@Fork(1)
+public class ExecutorModeBenchmark {
+
+    private static final int DOCUMENTS = 100;
+
+    @Param({"POOL", "VIRTUAL"})
+    private ExecutorMode mode;
+
+    @Param({"20"})
+    private int latencyMillis;
+
+    private Executor executor;
+
+    @Setup
+    public void setUp() {
+        AsyncConfig config = new AsyncConfig();
+        ReflectionTestUtils.setField(config, "mode", mode);
+        ReflectionTestUtils.setField(config, "corePoolSize", 2);
+        ReflectionTestUtils.setField(config, "maxPoolSize", 4);
+        executor = config.documentAnalysisExecutor(BenchmarkData.schedulingPolicy(false));
+    }
+
+    @TearDown
+    public void tearDown() throws Exception {
+        if (executor instanceof DisposableBean disposable) {
+            disposable.destroy();
+        }
+    }
+
+    @Benchmark
+    public void analyzeBurst() throws InterruptedException {
+        CountDownLatch done = new CountDownLatch(DOCUMENTS);
+        for (int i = 0; i < DOCUMENTS; i++) {
+            executor.execute(() -> {
+                try {
+                    Thread.sleep(latencyMillis);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } finally {
+                    done.countDown();
+                }
+            });
+        }
+        done.await();
+    }
+}
@@ -0,0 +1,78 @@
+package com.example.documentintelligence.benchmark;
+
+import com.example.documentintelligence.domain.model.DocumentType;
+import com.example.documentintelligence.infrastructure.extraction.IncrementalJsonReader;
+import com.example.documentintelligence.infrastructure.extraction.TokenCounter;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-completion work of {@code AzureOpenAIAnalyzer}: assembling and token-counting the prompt for a layout
+ * content of a few pages, and validating the answer, whole or as streamed fragments.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ExtractionPromptBenchmark {
+
+    private final ObjectMapper mapper = new ObjectMapper();
+    private TokenCounter tokenCounter;
+    private String fieldList;
+    private String content;
+    private List<String> fragments;
+
+    @Setup
+    public void setUp() {
+        tokenCounter = new TokenCounter("o200k_base");
+        fieldList = String.join("\n", DocumentType.REGISTRO_MATRICULA.getFields());
+        content = BenchmarkData.layoutContent(8 * 1024);
+        // Streamed answers arrive a few characters per delta
+        fragments = new ArrayList<>();
+        for (int i = 0; i < BenchmarkData.EXTRACTION.length(); i += 6) {
+            fragments.add(BenchmarkData.EXTRACTION.substring(i, Math.min(i + 6, BenchmarkData.EXTRACTION.length())));
+        }
+    }
+
+    @Benchmark
+    public String assemblePrompt() {
+        return String.format(BenchmarkData.PROMPT, fieldList, content);
+    }
+
+    @Benchmark
+    public int assembleAndCountPrompt() {
+        return tokenCounter.count(String.format(BenchmarkData.PROMPT, fieldList, content));
+    }
+
+    @Benchmark
+    public JsonNode validateCompletion() throws Exception {
+        return mapper.readTree(BenchmarkData.EXTRACTION);
+    }
+
+    @Benchmark
+    public JsonNode validateStreamedCompletion() {
+        IncrementalJsonReader reader = new IncrementalJsonReader();
+        for (String fragment : fragments) {
+            if (reader.feed(fragment)) {
+                break;
+            }
+        }
+        return reader.getTree();
+    }
+}
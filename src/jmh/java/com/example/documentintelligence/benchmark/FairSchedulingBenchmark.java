@@ -0,0 +1,98 @@
+package com.example.documentintelligence.benchmark;
+
+import com.example.documentintelligence.domain.model.DocumentType;
+import com.example.documentintelligence.infrastructure.config.AsyncConfig;
+import com.example.documentintelligence.infrastructure.config.AsyncConfig.ExecutorMode;
+import com.example.documentintelligence.infrastructure.scheduling.ClassifiedExecutor;
+import com.example.documentintelligence.infrastructure.scheduling.JobClass;
+import com.example.documentintelligence.infrastructure.scheduling.SizeClass;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Time until a handful of small CPF tasks complete when they are queued right behind the page-range tasks of a
+ * large matricula, with the analysis executor serving in arrival order and with fair scheduling. The large
+ * document's tasks are left to drain after each measurement.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 2)
+@Fork(1)
+public class FairSchedulingBenchmark {
+
+    private static final int LARGE_TASKS = 40;
+    private static final int SMALL_TASKS = 8;
+    private static final JobClass LARGE = new JobClass(DocumentType.REGISTRO_MATRICULA, SizeClass.LARGE);
+    private static final JobClass SMALL = new JobClass(DocumentType.CPF, SizeClass.SMALL);
+
+    @Param({"false", "true"})
+    private boolean fair;
+
+    @Param({"5"})
+    private int latencyMillis;
+
+    private ClassifiedExecutor executor;
+    private CountDownLatch largeDone;
+
+    @Setup
+    public void setUp() {
+        AsyncConfig config = new AsyncConfig();
+        ReflectionTestUtils.setField(config, "mode", ExecutorMode.POOL);
+        ReflectionTestUtils.setField(config, "corePoolSize", 4);
+        ReflectionTestUtils.setField(config, "maxPoolSize", 4);
+        executor = config.documentAnalysisExecutor(BenchmarkData.schedulingPolicy(fair));
+    }
+
+    @TearDown
+    public void tearDown() throws Exception {
+        if (executor instanceof DisposableBean disposable) {
+            disposable.destroy();
+        }
+    }
+
+    @TearDown(Level.Invocation)
+    public void drainLarge() throws InterruptedException {
+        largeDone.await();
+    }
+
+    @Benchmark
+    public void smallBehindLarge() throws InterruptedException {
+        largeDone = submit(executor.forClass(LARGE), LARGE_TASKS);
+        submit(executor.forClass(SMALL), SMALL_TASKS).await();
+    }
+
+    private CountDownLatch submit(Executor classExecutor, int tasks) {
+        CountDownLatch done = new CountDownLatch(tasks);
+        for (int i = 0; i < tasks; i++) {
+            classExecutor.execute(() -> {
+                try {
+                    Thread.sleep(latencyMillis);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } finally {
+                    done.countDown();
+                }
+            });
+        }
+        return done;
+    }
+}
@@ -0,0 +1,92 @@
+package com.example.documentintelligence.benchmark;
+
+import com.example.documentintelligence.domain.model.AnalysisSnapshot;
+import com.example.documentintelligence.domain.model.AnalysisStatus;
+import com.example.documentintelligence.domain.model.DocumentAnalysis;
+import com.example.documentintelligence.domain.model.DocumentType;
+import com.example.documentintelligence.infrastructure.adapter.InMemoryDocumentRepository;
+import com.example.documentintelligence.infrastructure.persistence.BoundedAnalysisStore;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import static com.example.documentintelligence.domain.workflow.AnalyzerQualifiers.AZURE_DOCUMENT_INTELLIGENCE_ANALYZER;
+import static com.example.documentintelligence.domain.workflow.AnalyzerQualifiers.AZURE_OPENAI_ANALYZER;
+
+/**
+ * {@link InMemoryDocumentRepository} under contention: workers saving checkpoints while status requests read
+ * snapshots of the same protocols, one writer per three readers.
+ */
+@State(Scope.Group)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RepositoryBenchmark {
+
+    private static final int PROTOCOLS = 1024;
+
+    private InMemoryDocumentRepository repository;
+    private DocumentAnalysis[] analyses;
+
+    @Setup
+    public void setUp() {
+        BoundedAnalysisStore store = new BoundedAnalysisStore(Duration.ofDays(7), 256L * 1024 * 1024, 1024,
+                new SimpleMeterRegistry(), event -> { });
+        repository = new InMemoryDocumentRepository(store);
+        String content = BenchmarkData.layoutContent(4 * 1024);
+        analyses = new DocumentAnalysis[PROTOCOLS];
+        for (int i = 0; i < PROTOCOLS; i++) {
+            Map<String, Object> stepResults = new HashMap<>();
+            stepResults.put(AZURE_DOCUMENT_INTELLIGENCE_ANALYZER, content);
+            stepResults.put(AZURE_OPENAI_ANALYZER, BenchmarkData.EXTRACTION);
+            analyses[i] = DocumentAnalysis.builder()
+                    .protocol("protocol-" + i)
+                    .documentType(DocumentType.REGISTRO_MATRICULA)
+                    .valid(true)
+                    .stepResults(stepResults)
+                    .status(AnalysisStatus.PENDING)
+                    .build();
+            repository.save(analyses[i]);
+        }
+    }
+
+    @Benchmark
+    @Group("contended")
+    @GroupThreads(1)
+    public void save() {
+        repository.save(analyses[ThreadLocalRandom.current().nextInt(PROTOCOLS)]);
+    }
+
+    @Benchmark
+    @Group("contended")
+    @GroupThreads(3)
+    public Optional<AnalysisSnapshot> findSnapshot() {
+        return repository.findSnapshot(analyses[ThreadLocalRandom.current().nextInt(PROTOCOLS)].getProtocol());
+    }
+
+    @Benchmark
+    @Group("contended")
+    @GroupThreads(1)
+    public Optional<DocumentAnalysis> findByProtocol() {
+        return repository.findByProtocol(analyses[ThreadLocalRandom.current().nextInt(PROTOCOLS)].getProtocol());
+    }
+}
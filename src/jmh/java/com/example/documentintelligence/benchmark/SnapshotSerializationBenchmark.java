@@ -0,0 +1,71 @@
+package com.example.documentintelligence.benchmark;
+
+import com.example.documentintelligence.domain.model.AnalysisSnapshot;
+import com.example.documentintelligence.domain.model.AnalysisStatus;
+import com.example.documentintelligence.domain.model.DocumentType;
+import com.example.documentintelligence.domain.workflow.DocumentProcessingState;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.time.LocalDateTime;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static com.example.documentintelligence.domain.workflow.AnalyzerQualifiers.AZURE_DOCUMENT_INTELLIGENCE_ANALYZER;
+import static com.example.documentintelligence.domain.workflow.AnalyzerQualifiers.AZURE_OPENAI_ANALYZER;
+
+/**
+ * Serialization of a finished analysis for the status endpoint, with the object mapper Spring MVC uses.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SnapshotSerializationBenchmark {
+
+    private ObjectMapper mapper;
+    private AnalysisSnapshot snapshot;
+
+    @Setup
+    public void setUp() throws Exception {
+        mapper = Jackson2ObjectMapperBuilder.json().build();
+        JsonNode extraction = mapper.readTree(BenchmarkData.EXTRACTION);
+        Map<DocumentProcessingState, Long> timings = new EnumMap<>(DocumentProcessingState.class);
+        for (DocumentProcessingState state : DocumentProcessingState.values()) {
+            timings.put(state, 1000L);
+        }
+        snapshot = AnalysisSnapshot.builder()
+                .protocol("5e8d5d1b-1071-4455-8d36-8092644995ab")
+                .documentType(DocumentType.REGISTRO_MATRICULA)
+                .valid(true)
+                .status(AnalysisStatus.COMPLETED)
+                .version(5)
+                .analysisDate(LocalDateTime.of(2024, 3, 12, 10, 15))
+                .extractedData(extraction)
+                .stepResults(Map.of(AZURE_DOCUMENT_INTELLIGENCE_ANALYZER, BenchmarkData.layoutContent(4 * 1024),
+                        AZURE_OPENAI_ANALYZER, extraction))
+                .completedStages(EnumSet.allOf(DocumentProcessingState.class))
+                .stageTimings(timings)
+                .build();
+    }
+
+    @Benchmark
+    public byte[] serializeSnapshot() throws Exception {
+        return mapper.writeValueAsBytes(snapshot);
+    }
+}
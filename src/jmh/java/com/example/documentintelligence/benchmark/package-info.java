@@ -0,0 +1,7 @@
+/**
+ * JMH benchmarks of the in-process hot paths: document decoding, prompt assembly and completion validation,
+ * the analysis repository under contention and its indexed queries, field checks, status serialization, the executor modes and fair scheduling.
+ * Run with {@code mvn -Pbenchmark test-compile exec:exec}; the GC profiler is on by default so every result
+ * carries its allocation rate. The committed baseline is in {@code src/jmh/baseline}.
+ */
+package com.example.documentintelligence.benchmark;
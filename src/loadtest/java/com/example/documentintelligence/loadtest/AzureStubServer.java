@@ -0,0 +1,315 @@
+package com.example.documentintelligence.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpsConfigurator;
+import com.sun.net.httpserver.HttpsServer;
+import lombok.extern.slf4j.Slf4j;
+
+import javax.net.ssl.KeyManagerFactory;
+import javax.net.ssl.SSLContext;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.KeyStore;
+import java.time.Duration;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Local stand-in for Azure Document Intelligence and Azure OpenAI, so the service can be load tested without
+ * spending quota. It speaks the analyze-and-poll protocol and the chat completions API, plain and streamed,
+ * over HTTPS with a self-signed certificate (the Azure clients refuse to send keys over plain HTTP).
+ * Each service has its own latency distribution, throttling rate and error rate.
+ *
+ * <p>Options, all {@code --name=value}: {@code port} (8443), {@code keystore} (target/loadtest/stub-keystore.p12,
+ * created with keytool when missing, password {@code changeit}, also usable as the service's trust store),
+ * {@code di-latency} (lognormal:3000:15000), {@code di-throttle-rate} (0), {@code di-error-rate} (0),
+ * {@code openai-latency} (lognormal:1500:6000), {@code openai-throttle-rate} (0), {@code openai-error-rate} (0),
+ * {@code content-lines} (40). Rates are fractions of calls between 0 and 1; see {@link LatencyDistribution}
+ * for latency specs.
+ */
+@Slf4j
+public class AzureStubServer {
+
+    private static final String KEYSTORE_PASSWORD = "changeit";
+    private static final Pattern ANALYZE = Pattern.compile("/documentintelligence/documentModels/([^/:]+):analyze");
+    private static final Pattern ANALYZE_RESULT = Pattern.compile("/documentintelligence/documentModels/([^/]+)/analyzeResults/([^/?]+)");
+    private static final Pattern SECTION = Pattern.compile("(?m)^### (documento-\\d+)");
+    private static final int STREAM_CHUNK_CHARS = 8;
+
+    private final ObjectMapper mapper = new ObjectMapper();
+    private final Map<String, Long> operations = new ConcurrentHashMap<>();
+    private final Map<String, LongAdder> counters = new ConcurrentHashMap<>();
+    private final String baseUrl;
+    private final Behavior documentIntelligence;
+    private final Behavior openAI;
+    private final String content;
+
+    AzureStubServer(int port, Behavior documentIntelligence, Behavior openAI, int contentLines) {
+        this.baseUrl = "https://localhost:" + port;
+        this.documentIntelligence = documentIntelligence;
+        this.openAI = openAI;
+        StringBuilder layout = new StringBuilder("REGISTRO DE IMÓVEIS\nMATRÍCULA Nº 12.345\n");
+        for (int line = 1; line <= contentLines; line++) {
+            layout.append("Linha ").append(line).append(" do conteúdo extraído do documento, com algumas palavras.\n");
+        }
+        this.content = layout.toString();
+    }
+
+    public static void main(String[] args) throws Exception {
+        Arguments arguments = new Arguments(args);
+        int port = arguments.getInt("port", 8443);
+        Path keystore = Path.of(arguments.get("keystore", "target/loadtest/stub-keystore.p12"));
+        AzureStubServer stub = new AzureStubServer(port,
+                new Behavior(LatencyDistribution.parse(arguments.get("di-latency", "lognormal:3000:15000")),
+                        arguments.getDouble("di-throttle-rate", 0), arguments.getDouble("di-error-rate", 0)),
+                new Behavior(LatencyDistribution.parse(arguments.get("openai-latency", "lognormal:1500:6000")),
+                        arguments.getDouble("openai-throttle-rate", 0), arguments.getDouble("openai-error-rate", 0)),
+                arguments.getInt("content-lines", 40));
+
+        HttpsServer server = HttpsServer.create(new InetSocketAddress("localhost", port), 1024);
+        server.setHttpsConfigurator(new HttpsConfigurator(sslContext(keystore)));
+        server.setExecutor(Executors.newCachedThreadPool());
+        server.createContext("/", stub::handle);
+        server.start();
+        log.info("Azure stubs listening on {}, trust store {}", stub.baseUrl, keystore.toAbsolutePath());
+
+        Executors.newSingleThreadScheduledExecutor().scheduleAtFixedRate(stub::logCounters, 10, 10, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Routes on the path with repeated slashes collapsed, as the clients join the endpoint and the API path
+     * with a slash of their own. Chat completions are matched on their suffix, as the OpenAI client leaves out
+     * the {@code /openai} prefix for endpoints outside Azure.
+     */
+    private void handle(HttpExchange exchange) throws IOException {
+        String path = exchange.getRequestURI().getPath().replaceAll("/{2,}", "/");
+        if (path.startsWith("/documentintelligence/")) {
+            handleDocumentIntelligence(exchange, path);
+        } else if (path.endsWith("/chat/completions")) {
+            handleOpenAI(exchange, path);
+        } else {
+            try (exchange) {
+                respond(exchange, 404, error("NotFound", "Unknown path " + path));
+            }
+        }
+    }
+
+    private void handleDocumentIntelligence(HttpExchange exchange, String path) throws IOException {
+        try (exchange) {
+            Matcher analyze = ANALYZE.matcher(path);
+            Matcher result = ANALYZE_RESULT.matcher(path);
+            if ("POST".equals(exchange.getRequestMethod()) && analyze.matches()) {
+                exchange.getRequestBody().transferTo(OutputStream.nullOutputStream());
+                if (misbehave(exchange, "di", documentIntelligence, "Retry-After", "1")) {
+                    return;
+                }
+                String id = UUID.randomUUID().toString();
+                operations.put(id, System.nanoTime() + documentIntelligence.latency().sample().toNanos());
+                count("di.analyze");
+                exchange.getResponseHeaders().set("Operation-Location", baseUrl + "/documentintelligence/documentModels/"
+                        + analyze.group(1) + "/analyzeResults/" + id + "?" + exchange.getRequestURI().getQuery());
+                respond(exchange, 202, null);
+            } else if ("GET".equals(exchange.getRequestMethod()) && result.matches()) {
+                Long completesAt = operations.get(result.group(2));
+                count("di.poll");
+                if (completesAt == null) {
+                    respond(exchange, 404, error("NotFound", "Unknown operation"));
+                } else if (System.nanoTime() < completesAt) {
+                    respond(exchange, 200, mapper.createObjectNode().put("status", "running"));
+                } else {
+                    operations.remove(result.group(2));
+                    ObjectNode succeeded = mapper.createObjectNode().put("status", "succeeded");
+                    succeeded.putObject("analyzeResult").put("modelId", result.group(1)).put("content", content);
+                    respond(exchange, 200, succeeded);
+                }
+            } else {
+                respond(exchange, 404, error("NotFound", "Unknown path " + path));
+            }
+        }
+    }
+
+    private void handleOpenAI(HttpExchange exchange, String path) throws IOException {
+        try (exchange) {
+            if (!"POST".equals(exchange.getRequestMethod())) {
+                respond(exchange, 404, error("NotFound", "Unknown path " + path));
+                return;
+            }
+            JsonNode request;
+            try (InputStream body = exchange.getRequestBody()) {
+                request = mapper.readTree(body);
+            }
+            if (misbehave(exchange, "openai", openAI, "retry-after-ms", "1000")) {
+                return;
+            }
+            JsonNode messages = request.path("messages");
+            String answer = answer(messages.path(messages.size() - 1).path("content").asText());
+            Duration latency = openAI.latency().sample();
+            if (request.path("stream").asBoolean()) {
+                count("openai.stream");
+                stream(exchange, answer, latency);
+            } else {
+                count("openai.completion");
+                sleep(latency.toMillis());
+                ObjectNode completion = chatCompletion("chat.completion");
+                completion.withArray("choices").addObject().put("index", 0).put("finish_reason", "stop")
+                        .putObject("message").put("role", "assistant").put("content", answer);
+                completion.putObject("usage").put("prompt_tokens", 1000).put("completion_tokens", answer.length() / 4)
+                        .put("total_tokens", 1000 + answer.length() / 4);
+                respond(exchange, 200, completion);
+            }
+        }
+    }
+
+    /**
+     * Answers a packed prompt with one object per section, and any other prompt with a single object.
+     */
+    private String answer(String prompt) {
+        ObjectNode answer = mapper.createObjectNode();
+        Matcher sections = SECTION.matcher(prompt);
+        boolean packed = false;
+        while (sections.find()) {
+            packed = true;
+            answer.putObject(sections.group(1)).put("NOME", "FULANO DE TAL");
+        }
+        if (!packed) {
+            answer.put("NOME", "FULANO DE TAL").put("NUMERO_CPF", "123.456.789-09");
+        }
+        return answer.toString();
+    }
+
+    /**
+     * Streams the answer as server-sent chunks spread evenly over the latency.
+     */
+    private void stream(HttpExchange exchange, String answer, Duration latency) throws IOException {
+        exchange.getResponseHeaders().set("Content-Type", "text/event-stream");
+        exchange.sendResponseHeaders(200, 0);
+        int chunks = (answer.length() + STREAM_CHUNK_CHARS - 1) / STREAM_CHUNK_CHARS;
+        long pause = latency.toMillis() / Math.max(chunks, 1);
+        try (OutputStream out = exchange.getResponseBody()) {
+            for (int start = 0; start < answer.length(); start += STREAM_CHUNK_CHARS) {
+                sleep(pause);
+                ObjectNode chunk = chatCompletion("chat.completion.chunk");
+                ObjectNode choice = chunk.withArray("choices").addObject().put("index", 0);
+                choice.putObject("delta").put("content", answer.substring(start, Math.min(start + STREAM_CHUNK_CHARS, answer.length())));
+                choice.putNull("finish_reason");
+                out.write(("data: " + chunk + "\n\n").getBytes(StandardCharsets.UTF_8));
+                out.flush();
+            }
+            out.write("data: [DONE]\n\n".getBytes(StandardCharsets.UTF_8));
+        } catch (IOException e) {
+            // The client cancels the stream once the JSON object closes
+            count("openai.stream.cancelled");
+        }
+    }
+
+    /**
+     * Answers the call with a throttling or server error at the configured rates.
+     *
+     * @return Whether the call was answered
+     */
+    private boolean misbehave(HttpExchange exchange, String service, Behavior behavior,
+                              String retryAfterHeader, String retryAfter) throws IOException {
+        double draw = ThreadLocalRandom.current().nextDouble();
+        if (draw < behavior.throttleRate()) {
+            count(service + ".throttled");
+            exchange.getResponseHeaders().set(retryAfterHeader, retryAfter);
+            respond(exchange, 429, error("TooManyRequests", "Rate limit exceeded"));
+            return true;
+        }
+        if (draw < behavior.throttleRate() + behavior.errorRate()) {
+            count(service + ".error");
+            respond(exchange, 500, error("InternalServerError", "Simulated failure"));
+            return true;
+        }
+        return false;
+    }
+
+    private ObjectNode chatCompletion(String object) {
+        return mapper.createObjectNode().put("id", "chatcmpl-stub").put("object", object)
+                .put("created", System.currentTimeMillis() / 1000).put("model", "stub");
+    }
+
+    private ObjectNode error(String code, String message) {
+        ObjectNode error = mapper.createObjectNode();
+        error.putObject("error").put("code", code).put("message", message);
+        return error;
+    }
+
+    private void respond(HttpExchange exchange, int status, JsonNode body) throws IOException {
+        if (body == null) {
+            exchange.sendResponseHeaders(status, -1);
+            return;
+        }
+        byte[] bytes = mapper.writeValueAsBytes(body);
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        exchange.sendResponseHeaders(status, bytes.length);
+        exchange.getResponseBody().write(bytes);
+    }
+
+    private void count(String name) {
+        counters.computeIfAbsent(name, key -> new LongAdder()).increment();
+    }
+
+    private void logCounters() {
+        StringBuilder line = new StringBuilder();
+        new java.util.TreeMap<>(counters).forEach((name, value) -> line.append(name).append('=').append(value.sum()).append(' '));
+        log.info("Calls: {}operations in flight={}", line, operations.size());
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static SSLContext sslContext(Path keystore) throws Exception {
+        if (!Files.exists(keystore)) {
+            Files.createDirectories(keystore.toAbsolutePath().getParent());
+            Process keytool = new ProcessBuilder(Path.of(System.getProperty("java.home"), "bin", "keytool").toString(),
+                    "-genkeypair", "-alias", "azure-stub", "-keyalg", "RSA", "-keysize", "2048", "-validity", "3650",
+                    "-dname", "CN=localhost", "-ext", "SAN=dns:localhost,ip:127.0.0.1", "-storetype", "PKCS12",
+                    "-keystore", keystore.toString(), "-storepass", KEYSTORE_PASSWORD)
+                    .inheritIO()
+                    .start();
+            if (keytool.waitFor() != 0) {
+                throw new IllegalStateException("keytool failed to create " + keystore);
+            }
+        }
+        KeyStore keyStore = KeyStore.getInstance("PKCS12");
+        try (InputStream in = Files.newInputStream(keystore)) {
+            keyStore.load(in, KEYSTORE_PASSWORD.toCharArray());
+        }
+        KeyManagerFactory keyManagers = KeyManagerFactory.getInstance(KeyManagerFactory.getDefaultAlgorithm());
+        keyManagers.init(keyStore, KEYSTORE_PASSWORD.toCharArray());
+        SSLContext context = SSLContext.getInstance("TLS");
+        context.init(keyManagers.getKeyManagers(), null, null);
+        return context;
+    }
+
+    /**
+     * How one stubbed service behaves.
+     *
+     * @param latency      Time until an analyze operation completes, or a completion is fully answered
+     * @param throttleRate Fraction of calls answered with 429
+     * @param errorRate    Fraction of calls answered with 500
+     */
+    record Behavior(LatencyDistribution latency, double throttleRate, double errorRate) {
+    }
+}
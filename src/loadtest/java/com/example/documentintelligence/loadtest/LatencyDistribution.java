@@ -0,0 +1,42 @@
+package com.example.documentintelligence.loadtest;
+
+import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Latency the stubs add to each call, parsed from a short spec with values in milliseconds:
+ * {@code fixed:<ms>}, {@code uniform:<min>:<max>} or {@code lognormal:<median>:<p99>}.
+ * The log-normal form models the long tail of remote services.
+ */
+public interface LatencyDistribution {
+
+    // z-score of the 99th percentile of a standard normal distribution
+    double Z_99 = 2.326;
+
+    Duration sample();
+
+    static LatencyDistribution parse(String spec) {
+        String[] parts = spec.split(":");
+        try {
+            switch (parts[0]) {
+                case "fixed" -> {
+                    Duration latency = Duration.ofMillis(Long.parseLong(parts[1]));
+                    return () -> latency;
+                }
+                case "uniform" -> {
+                    long min = Long.parseLong(parts[1]);
+                    long max = Long.parseLong(parts[2]);
+                    return () -> Duration.ofMillis(ThreadLocalRandom.current().nextLong(min, max + 1));
+                }
+                case "lognormal" -> {
+                    double mu = Math.log(Double.parseDouble(parts[1]));
+                    double sigma = (Math.log(Double.parseDouble(parts[2])) - mu) / Z_99;
+                    return () -> Duration.ofMillis(Math.round(Math.exp(mu + sigma * ThreadLocalRandom.current().nextGaussian())));
+                }
+                default -> throw new IllegalArgumentException("Unknown latency distribution: " + spec);
+            }
+        } catch (ArrayIndexOutOfBoundsException | NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid latency distribution: " + spec, e);
+        }
+    }
+}
@@ -0,0 +1,341 @@
+package com.example.documentintelligence.loadtest;
+
+import com.example.documentintelligence.domain.model.DocumentType;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Open-loop load generator for the analysis API. Submits documents to {@code POST /api/documents/analyze}
+ * at a fixed rate whatever the response times, follows each protocol on the status endpoint until the
+ * analysis finishes, and logs throughput, latency percentiles and a breakdown of every outcome.
+ * End-to-end latency is measured from the moment a submission was due, so a backed-up client or server
+ * does not hide queueing delay.
+ *
+ * <p>Options, all {@code --name=value}: {@code base-url} (http://localhost:8080), {@code rate} (documents per
+ * second, 2), {@code duration} (PT1M), {@code types} (weighted mix such as {@code CPF:3,RG:1}, CPF),
+ * {@code document} (file to submit, a synthetic PDF otherwise), {@code document-size} (KB of the synthetic PDF, 64),
+ * {@code pages} (pages of the synthetic PDF, 1), {@code long-poll} (use the {@code /wait} endpoint, false),
+ * {@code poll-interval} (PT1S), {@code timeout} (time allowed per document, PT5M), {@code report} (file the
+ * results are also written to, none). PDFs get a unique trailing comment per submission so the service's
+ * result cache does not answer them.
+ */
+@Slf4j
+public class LoadGenerator {
+
+    private static final String PENDING = "PENDING";
+    private static final String COMPLETED = "COMPLETED";
+
+    private final ObjectMapper mapper = new ObjectMapper();
+    private final ScheduledExecutorService scheduler = Executors.newScheduledThreadPool(2);
+    private final HttpClient client = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_1_1)
+            .executor(Executors.newCachedThreadPool())
+            .connectTimeout(Duration.ofSeconds(10))
+            .build();
+    private final Map<String, LongAdder> outcomes = new ConcurrentHashMap<>();
+    private final Latencies submitLatency = new Latencies();
+    private final Latencies statusLatency = new Latencies();
+    private final Latencies endToEndLatency = new Latencies();
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicLong submitted = new AtomicLong();
+    private final AtomicLong lastFinishedAt = new AtomicLong();
+
+    private final URI baseUrl;
+    private final List<DocumentType> typeMix;
+    private final byte[] document;
+    private final boolean longPoll;
+    private final Duration pollInterval;
+    private final Duration timeout;
+    private final Path reportFile;
+
+    LoadGenerator(URI baseUrl, List<DocumentType> typeMix, byte[] document, boolean longPoll,
+                  Duration pollInterval, Duration timeout, Path reportFile) {
+        this.baseUrl = baseUrl;
+        this.typeMix = typeMix;
+        this.document = document;
+        this.longPoll = longPoll;
+        this.pollInterval = pollInterval;
+        this.timeout = timeout;
+        this.reportFile = reportFile;
+    }
+
+    public static void main(String[] args) throws Exception {
+        Arguments arguments = new Arguments(args);
+        String documentPath = arguments.get("document", null);
+        String reportPath = arguments.get("report", null);
+        byte[] document = documentPath != null
+                ? Files.readAllBytes(Path.of(documentPath))
+                : syntheticPdf(arguments.getInt("document-size", 64) * 1024, arguments.getInt("pages", 1));
+        LoadGenerator generator = new LoadGenerator(
+                URI.create(arguments.get("base-url", "http://localhost:8080")),
+                typeMix(arguments.get("types", "CPF")),
+                document,
+                Boolean.parseBoolean(arguments.get("long-poll", "false")),
+                arguments.getDuration("poll-interval", Duration.ofSeconds(1)),
+                arguments.getDuration("timeout", Duration.ofMinutes(5)),
+                reportPath != null ? Path.of(reportPath) : null);
+        generator.run(arguments.getDouble("rate", 2), arguments.getDuration("duration", Duration.ofMinutes(1)));
+        System.exit(0);
+    }
+
+    void run(double rate, Duration duration) throws InterruptedException, IOException {
+        log.info("Submitting {} documents/s for {} to {}", rate, duration, baseUrl);
+        long startedAt = System.nanoTime();
+        long period = Math.max(1, Math.round(TimeUnit.SECONDS.toNanos(1) / rate));
+        long total = (long) Math.floor(rate * duration.toNanos() / TimeUnit.SECONDS.toNanos(1));
+        ScheduledFuture<?> progress = scheduler.scheduleAtFixedRate(this::logProgress, 10, 10, TimeUnit.SECONDS);
+        ScheduledFuture<?> arrivals = scheduler.scheduleAtFixedRate(() -> {
+            long sequence = submitted.getAndIncrement();
+            if (sequence < total) {
+                submit(sequence, startedAt + sequence * period);
+            }
+        }, 0, period, TimeUnit.NANOSECONDS);
+
+        long deadline = startedAt + duration.toNanos() + timeout.toNanos();
+        while (submitted.get() < total && System.nanoTime() < deadline) {
+            Thread.sleep(100);
+        }
+        arrivals.cancel(false);
+        long submittedAt = System.nanoTime();
+        while (inFlight.get() > 0 && System.nanoTime() < deadline) {
+            Thread.sleep(100);
+        }
+        progress.cancel(false);
+        outcomes.computeIfAbsent("abandoned at end of run", key -> new LongAdder()).add(inFlight.get());
+        report(rate, Math.min(total, submitted.get()), submittedAt - startedAt,
+                Math.max(lastFinishedAt.get(), startedAt) - startedAt);
+    }
+
+    private void submit(long sequence, long dueAt) {
+        DocumentType type = typeMix.get(ThreadLocalRandom.current().nextInt(typeMix.size()));
+        byte[] body;
+        try {
+            body = mapper.writeValueAsBytes(Map.of(
+                    "base64Document", Base64.getEncoder().encodeToString(unique(document, sequence)),
+                    "documentType", type.name()));
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+        inFlight.incrementAndGet();
+        long sentAt = System.nanoTime();
+        HttpRequest request = HttpRequest.newBuilder(baseUrl.resolve("/api/documents/analyze"))
+                .header("Content-Type", "application/json")
+                .timeout(Duration.ofSeconds(30))
+                .POST(HttpRequest.BodyPublishers.ofByteArray(body))
+                .build();
+        client.sendAsync(request, HttpResponse.BodyHandlers.ofByteArray()).whenComplete((response, error) -> {
+            if (error != null) {
+                finish("submit error: " + describe(error));
+                return;
+            }
+            submitLatency.record(System.nanoTime() - sentAt);
+            if (response.statusCode() != 200) {
+                finish("submit HTTP " + response.statusCode());
+                return;
+            }
+            try {
+                poll(readTree(response.body()).path("protocol").asText(), dueAt);
+            } catch (IllegalStateException e) {
+                finish("submit unreadable response");
+            }
+        });
+    }
+
+    private void poll(String protocol, long dueAt) {
+        String path = "/api/documents/analysis/" + protocol + (longPoll ? "/wait?timeout=PT30S" : "");
+        HttpRequest request = HttpRequest.newBuilder(baseUrl.resolve(path))
+                .timeout(longPoll ? Duration.ofSeconds(90) : Duration.ofSeconds(30))
+                .GET()
+                .build();
+        long sentAt = System.nanoTime();
+        client.sendAsync(request, HttpResponse.BodyHandlers.ofByteArray()).whenComplete((response, error) -> {
+            if (error != null) {
+                finish("status error: " + describe(error));
+                return;
+            }
+            if (!longPoll) {
+                statusLatency.record(System.nanoTime() - sentAt);
+            }
+            if (response.statusCode() != 200) {
+                finish("status HTTP " + response.statusCode());
+                return;
+            }
+            JsonNode snapshot;
+            try {
+                snapshot = readTree(response.body());
+            } catch (IllegalStateException e) {
+                finish("status unreadable response");
+                return;
+            }
+            String status = snapshot.path("status").asText();
+            if (PENDING.equals(status)) {
+                if (System.nanoTime() - dueAt > timeout.toNanos()) {
+                    finish("timed out while " + snapshot.path("currentState").asText());
+                } else if (longPoll) {
+                    poll(protocol, dueAt);
+                } else {
+                    scheduler.schedule(() -> poll(protocol, dueAt), pollInterval.toNanos(), TimeUnit.NANOSECONDS);
+                }
+                return;
+            }
+            if (COMPLETED.equals(status)) {
+                endToEndLatency.record(System.nanoTime() - dueAt);
+                finish(snapshot.path("valid").asBoolean() ? "COMPLETED valid" : "COMPLETED invalid");
+            } else {
+                finish(status + ": " + snapshot.path("errorMessage").asText());
+            }
+        });
+    }
+
+    private void finish(String outcome) {
+        outcomes.computeIfAbsent(outcome, key -> new LongAdder()).increment();
+        lastFinishedAt.accumulateAndGet(System.nanoTime(), Math::max);
+        inFlight.decrementAndGet();
+    }
+
+    private void logProgress() {
+        log.info("Submitted {}, in flight {}, finished {}", submitted.get(), inFlight.get(),
+                outcomes.values().stream().mapToLong(LongAdder::sum).sum());
+    }
+
+    private void report(double rate, long total, long submitNanos, long finishNanos) throws IOException {
+        long completed = outcomes.entrySet().stream()
+                .filter(outcome -> outcome.getKey().startsWith(COMPLETED))
+                .mapToLong(outcome -> outcome.getValue().sum())
+                .sum();
+        StringBuilder report = new StringBuilder("\n");
+        report.append(String.format("Offered rate          %10.2f documents/s%n", rate));
+        report.append(String.format("Submitted             %10d in %.1f s (%.2f/s)%n", total, seconds(submitNanos), total / seconds(submitNanos)));
+        report.append(String.format("Completed             %10d in %.1f s (%.2f/s)%n", completed, seconds(finishNanos),
+                finishNanos > 0 ? completed / seconds(finishNanos) : 0.0));
+        report.append(String.format("%nLatency (ms)          %10s %10s %10s %10s %10s%n", "count", "p50", "p90", "p99", "max"));
+        submitLatency.appendTo(report, "submit");
+        statusLatency.appendTo(report, "status query");
+        endToEndLatency.appendTo(report, "end to end");
+        report.append(String.format("%nOutcomes%n"));
+        new TreeMap<>(outcomes).forEach((outcome, count) -> {
+            if (count.sum() > 0) {
+                report.append(String.format("%10d  %s%n", count.sum(), outcome));
+            }
+        });
+        log.info("Load test results:{}", report);
+        if (reportFile != null) {
+            Files.writeString(reportFile, report);
+        }
+    }
+
+    private JsonNode readTree(byte[] body) {
+        try {
+            return mapper.readTree(body);
+        } catch (IOException e) {
+            throw new IllegalStateException("Unreadable response: " + new String(body, StandardCharsets.UTF_8), e);
+        }
+    }
+
+    private static String describe(Throwable error) {
+        Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+        return cause.getClass().getSimpleName();
+    }
+
+    private static double seconds(long nanos) {
+        return nanos / 1e9;
+    }
+
+    /**
+     * Makes each submitted PDF distinct with a trailing comment, which PDF readers ignore.
+     */
+    private static byte[] unique(byte[] document, long sequence) {
+        if (!new String(document, 0, Math.min(5, document.length), StandardCharsets.US_ASCII).equals("%PDF-")) {
+            return document;
+        }
+        byte[] nonce = ("\n%load-" + System.nanoTime() + "-" + sequence + "\n").getBytes(StandardCharsets.US_ASCII);
+        byte[] unique = new byte[document.length + nonce.length];
+        System.arraycopy(document, 0, unique, 0, document.length);
+        System.arraycopy(nonce, 0, unique, document.length, nonce.length);
+        return unique;
+    }
+
+    /**
+     * A PDF-like document of the given size holding a page tree of the given number of pages, padded with text.
+     */
+    static byte[] syntheticPdf(int size, int pages) {
+        StringBuilder pdf = new StringBuilder("%PDF-1.7\n")
+                .append("1 0 obj << /Type /Catalog /Pages 2 0 R >> endobj\n")
+                .append("2 0 obj << /Type /Pages /Count ").append(pages).append(" >> endobj\n");
+        for (int page = 1; page <= pages; page++) {
+            pdf.append(page + 2).append(" 0 obj << /Type /Page /Parent 2 0 R >> endobj\n");
+        }
+        while (pdf.length() < size) {
+            pdf.append("% conteúdo de preenchimento do documento sintético\n");
+        }
+        return pdf.append("trailer << /Root 1 0 R >>\n%%EOF\n").toString().getBytes(StandardCharsets.ISO_8859_1);
+    }
+
+    /**
+     * Expands a weighted mix such as {@code CPF:3,RG:1} into a list to draw from uniformly.
+     */
+    static List<DocumentType> typeMix(String spec) {
+        List<DocumentType> mix = new ArrayList<>();
+        for (String entry : spec.split(",")) {
+            String[] parts = entry.trim().split(":");
+            int weight = parts.length > 1 ? Integer.parseInt(parts[1]) : 1;
+            for (int i = 0; i < weight; i++) {
+                mix.add(DocumentType.valueOf(parts[0]));
+            }
+        }
+        return mix;
+    }
+
+    /**
+     * Latencies of one kind of call, kept whole so percentiles are exact.
+     */
+    private static final class Latencies {
+
+        private final ConcurrentLinkedQueue<Long> nanos = new ConcurrentLinkedQueue<>();
+
+        void record(long elapsed) {
+            nanos.add(elapsed);
+        }
+
+        void appendTo(StringBuilder report, String name) {
+            long[] sorted = nanos.stream().mapToLong(Long::longValue).sorted().toArray();
+            if (sorted.length == 0) {
+                report.append(String.format("%-21s %10d%n", name, 0));
+                return;
+            }
+            report.append(String.format("%-21s %10d %10.1f %10.1f %10.1f %10.1f%n", name, sorted.length,
+                    millis(sorted, 0.50), millis(sorted, 0.90), millis(sorted, 0.99), sorted[sorted.length - 1] / 1e6));
+        }
+
+        private static double millis(long[] sorted, double quantile) {
+            return sorted[(int) Math.min(sorted.length - 1, Math.ceil(quantile * sorted.length) - 1)] / 1e6;
+        }
+    }
+}
@@ -0,0 +1,15 @@
+/**
+ * End-to-end load testing without Azure: {@link com.example.documentintelligence.loadtest.AzureStubServer}
+ * stands in for Document Intelligence and OpenAI, and {@link com.example.documentintelligence.loadtest.LoadGenerator}
+ * drives the API at a target rate. Sources are compiled as test sources by the {@code loadtest} Maven profile.
+ *
+ * <pre>
+ * mvn -Ploadtest test-compile exec:java -Dexec.mainClass=com.example.documentintelligence.loadtest.AzureStubServer \
+ *     -Dexec.args="--di-latency=lognormal:3000:15000 --openai-throttle-rate=0.05"
+ * java -Djavax.net.ssl.trustStore=target/loadtest/stub-keystore.p12 -Djavax.net.ssl.trustStorePassword=changeit \
+ *     -jar target/document-intelligence-poc-0.0.1-SNAPSHOT.jar \
+ *     --spring.config.additional-location=src/loadtest/resources/application-loadtest.yml
+ * mvn -Ploadtest test-compile exec:java -Dexec.args="--rate=10 --duration=PT2M --types=CPF:3,RG:1"
+ * </pre>
+ */
+package com.example.documentintelligence.loadtest;
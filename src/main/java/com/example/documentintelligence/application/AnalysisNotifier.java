@@ -0,0 +1,78 @@
+package com.example.documentintelligence.application;
+
+import com.example.documentintelligence.domain.model.AnalysisSnapshot;
+import com.example.documentintelligence.domain.model.AnalysisUpdatedEvent;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.Consumer;
+
+/**
+ * Pushes analysis updates to the clients waiting on them, driven by the events the pipeline publishes
+ * rather than by re-reading the repository. Listeners run on the notification executor, so a slow client
+ * never holds up the worker that saved the analysis; they may therefore see updates out of order and
+ * should use the snapshot version to discard stale ones.
+ */
+@Component
+@Slf4j
+public class AnalysisNotifier {
+
+    private final Map<String, List<Consumer<AnalysisSnapshot>>> listeners = new ConcurrentHashMap<>();
+    private final Executor executor;
+
+    public AnalysisNotifier(@Qualifier("notificationExecutor") Executor executor) {
+        this.executor = executor;
+    }
+
+    /**
+     * Registers a listener for the updates of one analysis.
+     *
+     * @param protocol Protocol of the analysis
+     * @param listener Receives every snapshot published after registration
+     * @return Action removing the listener
+     */
+    public Runnable subscribe(String protocol, Consumer<AnalysisSnapshot> listener) {
+        listeners.computeIfAbsent(protocol, key -> new CopyOnWriteArrayList<>()).add(listener);
+        return () -> listeners.computeIfPresent(protocol, (key, registered) -> {
+            registered.remove(listener);
+            return registered.isEmpty() ? null : registered;
+        });
+    }
+
+    @EventListener
+    public void onAnalysisUpdated(AnalysisUpdatedEvent event) {
+        AnalysisSnapshot snapshot = event.snapshot();
+        List<Consumer<AnalysisSnapshot>> registered = listeners.get(snapshot.getProtocol());
+        if (registered == null) {
+            return;
+        }
+        for (Consumer<AnalysisSnapshot> listener : registered) {
+            try {
+                executor.execute(() -> notify(listener, snapshot));
+            } catch (RejectedExecutionException e) {
+                log.warn("Dropped update {} of protocol: {}, notification queue is full",
+                        snapshot.getVersion(), snapshot.getProtocol());
+            }
+        }
+    }
+
+    public int getSubscriberCount() {
+        return listeners.values().stream().mapToInt(List::size).sum();
+    }
+
+    private static void notify(Consumer<AnalysisSnapshot> listener, AnalysisSnapshot snapshot) {
+        try {
+            listener.accept(snapshot);
+        } catch (RuntimeException e) {
+            log.debug("Analysis listener for protocol: {} failed: {}", snapshot.getProtocol(), e.getMessage());
+        }
+    }
+}
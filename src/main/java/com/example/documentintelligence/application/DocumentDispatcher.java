@@ -0,0 +1,126 @@
+package com.example.documentintelligence.application;
+
+import com.example.documentintelligence.infrastructure.scheduling.ClassifiedExecutor;
+import com.example.documentintelligence.infrastructure.scheduling.JobClass;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.function.Supplier;
+
+/**
+ * Admits documents into the analysis executor with bounded capacity.
+ * A slot must be reserved before the pending analysis is persisted, so a full queue is reported
+ * to the client immediately instead of blocking the request thread or leaving orphaned protocols.
+ * The slot is released once the document's analysis completes, whatever its outcome, so it also covers the
+ * time a document spends waiting on Azure without holding a worker thread. Admitted documents wait for a worker
+ * under their job class, so a backlog of large documents does not delay the small ones admitted after them.
+ */
+@Component
+@Slf4j
+public class DocumentDispatcher {
+
+    private final ClassifiedExecutor executor;
+    private final Semaphore slots;
+    private final int capacity;
+    private final Duration retryAfter;
+
+    public DocumentDispatcher(@Qualifier("documentAnalysisExecutor") ClassifiedExecutor executor,
+                              @Value("${document-analysis.dispatch.capacity:100}") int capacity,
+                              @Value("${document-analysis.dispatch.retry-after:PT5S}") Duration retryAfter,
+                              MeterRegistry meterRegistry) {
+        this.executor = executor;
+        this.capacity = capacity;
+        this.retryAfter = retryAfter;
+        this.slots = new Semaphore(capacity);
+
+        Gauge.builder("document.dispatch.slots.in-use", this, dispatcher -> dispatcher.capacity - dispatcher.getAvailableSlots())
+                .description("Documents admitted and not finished yet, queued or running")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Reserves a slot for a new document.
+     *
+     * @throws DocumentQueueFullException if every slot is taken
+     */
+    public void reserve() {
+        if (!slots.tryAcquire()) {
+            log.warn("Rejecting document submission, dispatch queue is full. Capacity: {}", capacity);
+            throw new DocumentQueueFullException(capacity, retryAfter);
+        }
+    }
+
+    /**
+     * Reserves slots for a batch of documents, all of them or none.
+     *
+     * @throws DocumentQueueFullException if fewer slots than documents are free
+     */
+    public void reserve(int documents) {
+        if (!slots.tryAcquire(documents)) {
+            log.warn("Rejecting batch of {} documents, dispatch queue is full. Capacity: {}, available: {}",
+                    documents, capacity, slots.availablePermits());
+            throw new DocumentQueueFullException(capacity, retryAfter);
+        }
+    }
+
+    /**
+     * Reserves a slot for a document, waiting until one is free.
+     *
+     * @throws InterruptedException if interrupted while waiting
+     */
+    public void reserveWhenAvailable() throws InterruptedException {
+        slots.acquire();
+    }
+
+    /**
+     * Releases a slot reserved with {@link #reserve()} that will not be dispatched.
+     */
+    public void release() {
+        slots.release();
+    }
+
+    /**
+     * Releases slots reserved with {@link #reserve(int)} that will not be dispatched.
+     */
+    public void release(int documents) {
+        slots.release(documents);
+    }
+
+    /**
+     * Hands a task to the analysis executor using a previously reserved slot.
+     *
+     * @param jobClass Class the task waits for a worker under
+     * @param task     Work to start on the analysis executor; the slot is held until its future completes
+     * @throws DocumentQueueFullException if the executor rejects the task
+     */
+    public void dispatch(JobClass jobClass, Supplier<CompletableFuture<?>> task) {
+        try {
+            executor.forClass(jobClass).execute(() -> {
+                CompletableFuture<?> completion;
+                try {
+                    completion = task.get();
+                } catch (RuntimeException e) {
+                    slots.release();
+                    throw e;
+                }
+                completion.whenComplete((result, error) -> slots.release());
+            });
+        } catch (RejectedExecutionException e) {
+            slots.release();
+            log.warn("Analysis executor rejected dispatched task: {}", e.getMessage());
+            throw new DocumentQueueFullException(capacity, retryAfter);
+        }
+    }
+
+    public int getAvailableSlots() {
+        return slots.availablePermits();
+    }
+}
@@ -0,0 +1,22 @@
+package com.example.documentintelligence.application;
+
+import lombok.Getter;
+
+import java.time.Duration;
+
+/**
+ * Thrown when a document cannot be admitted because the analysis queue is at capacity.
+ * Carries the delay clients should wait before retrying the submission.
+ */
+@Getter
+public class DocumentQueueFullException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    private final Duration retryAfter;
+
+    public DocumentQueueFullException(int capacity, Duration retryAfter) {
+        super("Document analysis queue is full (capacity: " + capacity + "). Retry later.");
+        this.retryAfter = retryAfter;
+    }
+}
@@ -0,0 +1,47 @@
+package com.example.documentintelligence.application;
+
+import com.example.documentintelligence.domain.model.AnalysisStatus;
+import com.example.documentintelligence.domain.model.DocumentAnalysis;
+import com.example.documentintelligence.domain.port.DocumentRepositoryPort;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Resumes the analyses that were still pending when the application stopped, once it is ready to serve.
+ * Recovered documents are fed to the dispatcher from a background thread as slots become free,
+ * so they never compete with new submissions for more than the dispatch capacity.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class DocumentRecovery {
+
+    private final DocumentRepositoryPort documentRepository;
+    private final DocumentService documentService;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void resumePendingAnalyses() {
+        List<DocumentAnalysis> pending = documentRepository.findByStatus(AnalysisStatus.PENDING);
+        if (pending.isEmpty()) {
+            return;
+        }
+        log.info("Resuming {} pending document analyses", pending.size());
+        Thread recovery = new Thread(() -> {
+            try {
+                for (DocumentAnalysis analysis : pending) {
+                    documentService.resumeDocument(analysis);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                log.warn("Document recovery interrupted");
+            }
+        }, "document-recovery");
+        recovery.setDaemon(true);
+        recovery.start();
+    }
+}
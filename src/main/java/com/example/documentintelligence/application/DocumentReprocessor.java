@@ -0,0 +1,256 @@
+package com.example.documentintelligence.application;
+
+import com.example.documentintelligence.domain.model.AnalysisSnapshot;
+import com.example.documentintelligence.domain.model.AnalysisStatus;
+import com.example.documentintelligence.domain.model.DocumentAnalysis;
+import com.example.documentintelligence.domain.model.InvalidRequestException;
+import com.example.documentintelligence.domain.model.ReprocessingCriteria;
+import com.example.documentintelligence.domain.model.ReprocessingSnapshot;
+import com.example.documentintelligence.domain.model.ReprocessingStatus;
+import com.example.documentintelligence.domain.port.DocumentRepositoryPort;
+import com.example.documentintelligence.domain.workflow.DocumentProcessingState;
+import com.example.documentintelligence.domain.workflow.StageGraph;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.EnumSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs a stage and the stages downstream of it again over finished analyses selected in bulk, reusing the
+ * stored results of the stages upstream. Meant for rolling out prompt or field changes: only the stages
+ * that do not read the document can run again, since the document is not kept once an analysis finishes.
+ * Each job feeds its analyses to the dispatcher from a background thread; at most {@code max-concurrency}
+ * analyses of all jobs run at a time, and they take dispatch slots like any other document, so new
+ * submissions keep the rest of the capacity.
+ */
+@Component
+@Slf4j
+public class DocumentReprocessor {
+
+    private final DocumentRepositoryPort documentRepository;
+    private final DocumentService documentService;
+    private final StageGraph stageGraph;
+    private final Semaphore permits;
+    private final int retainedJobs;
+
+    // Protocols being reprocessed by any job, so two jobs never run the same analysis at once
+    private final Set<String> reprocessing = ConcurrentHashMap.newKeySet();
+    // In start order; guarded by itself
+    private final Map<String, Job> jobs = new LinkedHashMap<>();
+
+    public DocumentReprocessor(DocumentRepositoryPort documentRepository,
+                               DocumentService documentService,
+                               StageGraph stageGraph,
+                               @Value("${document-analysis.reprocessing.max-concurrency:4}") int maxConcurrency,
+                               @Value("${document-analysis.reprocessing.retained-jobs:100}") int retainedJobs) {
+        this.documentRepository = documentRepository;
+        this.documentService = documentService;
+        this.stageGraph = stageGraph;
+        this.permits = new Semaphore(Math.max(1, maxConcurrency));
+        this.retainedJobs = retainedJobs;
+    }
+
+    /**
+     * Selects the analyses matching the criteria and starts running them again in the background.
+     *
+     * @param criteria Analyses to select and stage to restart them from
+     * @return Progress of the new job
+     * @throws InvalidRequestException if the stage reads the document, or pending analyses are selected
+     */
+    public ReprocessingSnapshot start(ReprocessingCriteria criteria) {
+        Set<DocumentProcessingState> stages = stageGraph.downstreamOf(criteria.fromState());
+        for (DocumentProcessingState state : stages) {
+            if (stageGraph.get(state).readsDocument()) {
+                throw new InvalidRequestException("Stage " + state + " reads the document, which is not kept after "
+                        + "analysis; resubmit the documents instead");
+            }
+        }
+        if (criteria.statuses().isEmpty() || criteria.statuses().contains(AnalysisStatus.PENDING)) {
+            throw new InvalidRequestException("Only COMPLETED and FAILED analyses can be reprocessed");
+        }
+
+        Set<DocumentProcessingState> upstream = EnumSet.complementOf(EnumSet.copyOf(stages));
+        List<String> protocols = documentRepository.findSnapshots(snapshot -> criteria.matches(snapshot)
+                        && snapshot.getCompletedStages().containsAll(upstream))
+                .stream()
+                .sorted(Comparator.comparing(AnalysisSnapshot::getAnalysisDate, Comparator.nullsFirst(Comparator.naturalOrder())))
+                .map(AnalysisSnapshot::getProtocol)
+                .toList();
+
+        Job job = new Job(UUID.randomUUID().toString(), criteria, Collections.unmodifiableSet(stages), upstream, protocols);
+        synchronized (jobs) {
+            jobs.put(job.id, job);
+            prune();
+        }
+        log.info("Starting reprocessing job {} of {} analyses from stage {}", job.id, protocols.size(), criteria.fromState());
+        Thread runner = new Thread(job::run, "document-reprocessing-" + job.id);
+        runner.setDaemon(true);
+        runner.start();
+        return job.snapshot();
+    }
+
+    public Optional<ReprocessingSnapshot> getJob(String jobId) {
+        synchronized (jobs) {
+            return Optional.ofNullable(jobs.get(jobId)).map(Job::snapshot);
+        }
+    }
+
+    /**
+     * Stops a job from starting more analyses; those already running finish normally.
+     *
+     * @return Progress of the job, empty if the job is unknown
+     */
+    public Optional<ReprocessingSnapshot> cancel(String jobId) {
+        Job job;
+        synchronized (jobs) {
+            job = jobs.get(jobId);
+        }
+        if (job == null) {
+            return Optional.empty();
+        }
+        if (job.finishedAt == null) {
+            log.info("Cancelling reprocessing job {}", jobId);
+            job.cancelled = true;
+        }
+        return Optional.of(job.snapshot());
+    }
+
+    /**
+     * Forgets the oldest finished jobs beyond the retained count. Must hold the jobs lock.
+     */
+    private void prune() {
+        int finished = (int) jobs.values().stream().filter(job -> job.finishedAt != null).count();
+        Iterator<Job> iterator = jobs.values().iterator();
+        while (finished > retainedJobs && iterator.hasNext()) {
+            if (iterator.next().finishedAt != null) {
+                iterator.remove();
+                finished--;
+            }
+        }
+    }
+
+    private final class Job {
+
+        private final String id;
+        private final ReprocessingCriteria criteria;
+        private final Set<DocumentProcessingState> stages;
+        private final Set<DocumentProcessingState> upstream;
+        private final List<String> protocols;
+        private final LocalDateTime startedAt = LocalDateTime.now();
+        private final AtomicInteger running = new AtomicInteger();
+        private final AtomicInteger completed = new AtomicInteger();
+        private final AtomicInteger failed = new AtomicInteger();
+        private final AtomicInteger skipped = new AtomicInteger();
+        private volatile boolean cancelled;
+        private volatile LocalDateTime finishedAt;
+
+        Job(String id, ReprocessingCriteria criteria, Set<DocumentProcessingState> stages,
+            Set<DocumentProcessingState> upstream, List<String> protocols) {
+            this.id = id;
+            this.criteria = criteria;
+            this.stages = stages;
+            this.upstream = upstream;
+            this.protocols = protocols;
+        }
+
+        void run() {
+            List<CompletableFuture<?>> outcomes = new ArrayList<>();
+            int started = 0;
+            try {
+                for (String protocol : protocols) {
+                    if (cancelled) {
+                        break;
+                    }
+                    permits.acquire();
+                    CompletableFuture<?> outcome;
+                    try {
+                        outcome = reprocess(protocol);
+                    } catch (InterruptedException e) {
+                        permits.release();
+                        throw e;
+                    }
+                    started++;
+                    outcomes.add(outcome.whenComplete((result, error) -> permits.release()));
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                log.warn("Reprocessing job {} interrupted", id);
+                cancelled = true;
+            }
+            skipped.addAndGet(protocols.size() - started);
+            CompletableFuture.allOf(outcomes.toArray(CompletableFuture[]::new)).whenComplete((result, error) -> {
+                finishedAt = LocalDateTime.now();
+                log.info("Reprocessing job {} {}: {} completed, {} failed, {} skipped", id,
+                        cancelled ? "cancelled" : "finished", completed.get(), failed.get(), skipped.get());
+            });
+        }
+
+        /**
+         * Runs the job's stages again for one analysis, unless it no longer qualifies.
+         *
+         * @return Future completed once the analysis has been saved or skipped
+         */
+        private CompletableFuture<?> reprocess(String protocol) throws InterruptedException {
+            Optional<DocumentAnalysis> analysis = documentRepository.findByProtocol(protocol)
+                    .filter(candidate -> criteria.statuses().contains(candidate.getStatus())
+                            && candidate.getCompletedStages().containsAll(upstream));
+            if (analysis.isEmpty() || !reprocessing.add(protocol)) {
+                log.debug("Skipping reprocessing of protocol: {}, it changed since it was selected", protocol);
+                skipped.incrementAndGet();
+                return CompletableFuture.completedFuture(null);
+            }
+
+            running.incrementAndGet();
+            CompletableFuture<AnalysisStatus> outcome;
+            try {
+                outcome = documentService.reprocessDocument(analysis.get(), EnumSet.copyOf(stages));
+            } catch (RuntimeException e) {
+                log.error("Failed to reprocess protocol: {}", protocol, e);
+                outcome = CompletableFuture.completedFuture(AnalysisStatus.FAILED);
+            } catch (InterruptedException e) {
+                running.decrementAndGet();
+                reprocessing.remove(protocol);
+                throw e;
+            }
+            return outcome.whenComplete((status, error) -> {
+                reprocessing.remove(protocol);
+                running.decrementAndGet();
+                (status == AnalysisStatus.COMPLETED ? completed : failed).incrementAndGet();
+            });
+        }
+
+        ReprocessingSnapshot snapshot() {
+            LocalDateTime finished = finishedAt;
+            return ReprocessingSnapshot.builder()
+                    .jobId(id)
+                    .status(finished == null ? ReprocessingStatus.RUNNING
+                            : cancelled ? ReprocessingStatus.CANCELLED : ReprocessingStatus.COMPLETED)
+                    .criteria(criteria)
+                    .stages(stages)
+                    .total(protocols.size())
+                    .running(running.get())
+                    .completed(completed.get())
+                    .failed(failed.get())
+                    .skipped(skipped.get())
+                    .startedAt(startedAt)
+                    .finishedAt(finished)
+                    .build();
+        }
+    }
+}
@@ -1,20 +1,46 @@
 package com.example.documentintelligence.application;
 
+import com.example.documentintelligence.domain.model.AnalysisPage;
+import com.example.documentintelligence.domain.model.AnalysisQuery;
+import com.example.documentintelligence.domain.model.AnalysisSnapshot;
 import com.example.documentintelligence.domain.model.AnalysisStatus;
+import com.example.documentintelligence.domain.model.BatchSnapshot;
+import com.example.documentintelligence.domain.model.BatchSubmission;
 import com.example.documentintelligence.domain.model.DocumentAnalysis;
+import com.example.documentintelligence.domain.model.DocumentSubmission;
 import com.example.documentintelligence.domain.model.DocumentType;
+import com.example.documentintelligence.domain.model.InvalidRequestException;
 import com.example.documentintelligence.domain.port.DocumentRepositoryPort;
 import com.example.documentintelligence.domain.workflow.DocumentProcessingState;
+import com.example.documentintelligence.domain.workflow.StageGraph;
 import com.example.documentintelligence.infrastructure.adapter.DocumentAnalyzer;
+import com.example.documentintelligence.infrastructure.cache.AnalysisResultCache;
+import com.example.documentintelligence.infrastructure.extraction.DocumentFields;
+import com.example.documentintelligence.infrastructure.extraction.FieldPathTrie;
+import com.example.documentintelligence.infrastructure.metrics.PipelineMetrics;
+import com.example.documentintelligence.infrastructure.scheduling.SchedulingPolicy;
+import com.example.documentintelligence.infrastructure.spool.DocumentDigest;
+import com.example.documentintelligence.infrastructure.spool.DocumentSpool;
+import com.example.documentintelligence.infrastructure.spool.SpooledDocument;
 import lombok.RequiredArgsConstructor;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.springframework.scheduling.annotation.Async;
 import org.springframework.stereotype.Service;
 
+import java.io.InputStream;
+import java.nio.file.Files;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.EnumSet;
 import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 
 @Service
 @RequiredArgsConstructor
@@ -23,80 +49,346 @@ public class DocumentService {
     
     private final DocumentAnalyzer documentAnalyzer;
     private final DocumentRepositoryPort documentRepository;
+    private final DocumentDispatcher documentDispatcher;
+    private final AnalysisResultCache analysisResultCache;
+    private final DocumentSpool documentSpool;
+    private final PipelineMetrics metrics;
+    private final DocumentFields documentFields;
+    private final SchedulingPolicy schedulingPolicy;
+    private final StageGraph stageGraph;
 
     public String submitDocument(String base64Document, DocumentType documentType) {
         String protocol = UUID.randomUUID().toString();
         log.info("Received document submission request. Type: {}, Protocol: {}", documentType, protocol);
-        
-        // Create initial pending analysis
-        DocumentAnalysis pendingAnalysis = DocumentAnalysis.builder()
+
+        DocumentDigest digest = digest(base64Document);
+        documentDispatcher.reserve();
+        metrics.recordPayload(documentType, digest.size());
+
+        DocumentAnalysis pendingAnalysis = pendingAnalysis(protocol, documentType)
+                .base64Document(base64Document)
+                .contentHash(digest.contentHash())
+                .pageCount(digest.pageCount())
+                .build();
+
+        return saveAndDispatch(pendingAnalysis);
+    }
+
+    /**
+     * Submits a document provided as a raw byte stream. The stream is spooled to disk so the document
+     * never has to be held on the heap, neither while uploading nor while waiting for analysis. The slot is
+     * only reserved once the upload has been spooled, so a slow client holds no capacity.
+     *
+     * @param content Raw document bytes
+     * @param documentType Type of the document
+     * @return Protocol to query the analysis
+     */
+    public String submitDocument(InputStream content, DocumentType documentType) {
+        String protocol = UUID.randomUUID().toString();
+        log.info("Received streamed document submission request. Type: {}, Protocol: {}", documentType, protocol);
+
+        SpooledDocument spooled = documentSpool.spool(content);
+        log.debug("Document spooled for protocol: {}, size: {} bytes", protocol, spooled.size());
+        try {
+            documentDispatcher.reserve();
+        } catch (DocumentQueueFullException e) {
+            documentSpool.delete(spooled.path());
+            throw e;
+        }
+        metrics.recordPayload(documentType, spooled.size());
+
+        DocumentAnalysis pendingAnalysis = pendingAnalysis(protocol, documentType)
+                .documentFile(spooled.path())
+                .contentHash(spooled.contentHash())
+                .pageCount(spooled.pageCount())
+                .build();
+
+        return saveAndDispatch(pendingAnalysis);
+    }
+
+    /**
+     * Submits several documents at once. Slots for the whole batch are reserved up front, so a batch is
+     * either admitted entirely or rejected. Documents of a batch may share completions in the extraction
+     * stage, and their progress can be queried together with the returned batch id.
+     *
+     * @param documents Documents to analyze
+     * @return Batch id and the protocol of each document, in submission order
+     * @throws DocumentQueueFullException if the dispatch queue cannot take the whole batch
+     * @throws InvalidRequestException if a document is not valid base64
+     */
+    public BatchSubmission submitBatch(List<DocumentSubmission> documents) {
+        String batchId = UUID.randomUUID().toString();
+        log.info("Received batch submission request. Documents: {}, Batch: {}", documents.size(), batchId);
+
+        List<DocumentDigest> digests = documents.stream()
+                .map(document -> digest(document.base64Document()))
+                .toList();
+        documentDispatcher.reserve(documents.size());
+
+        List<String> protocols = new ArrayList<>(documents.size());
+        for (int i = 0; i < documents.size(); i++) {
+            DocumentSubmission document = documents.get(i);
+            metrics.recordPayload(document.documentType(), digests.get(i).size());
+            DocumentAnalysis pendingAnalysis = pendingAnalysis(UUID.randomUUID().toString(), document.documentType())
+                    .batchId(batchId)
+                    .base64Document(document.base64Document())
+                    .contentHash(digests.get(i).contentHash())
+                    .pageCount(digests.get(i).pageCount())
+                    .build();
+            try {
+                protocols.add(saveAndDispatch(pendingAnalysis));
+            } catch (DocumentQueueFullException e) {
+                // Already recorded as failed, the rest of the batch still has its slots
+                protocols.add(pendingAnalysis.getProtocol());
+            } catch (RuntimeException e) {
+                documentDispatcher.release(documents.size() - i - 1);
+                throw e;
+            }
+        }
+        return new BatchSubmission(batchId, protocols);
+    }
+
+    private DocumentAnalysis.DocumentAnalysisBuilder pendingAnalysis(String protocol, DocumentType documentType) {
+        return DocumentAnalysis.builder()
                 .protocol(protocol)
                 .documentType(documentType)
-                .valid(true)
-                .base64Document(base64Document)
                 .stepResults(new HashMap<>())
                 .currentState(DocumentProcessingState.getInitialState())
                 .status(AnalysisStatus.PENDING)
-                .analysisDate(LocalDateTime.now())
-                .build();
+                .analysisDate(LocalDateTime.now());
+    }
+
+    /**
+     * Persists a pending analysis and hands it to the dispatcher. Expects a slot to be reserved already.
+     */
+    private String saveAndDispatch(DocumentAnalysis pendingAnalysis) {
+        String protocol = pendingAnalysis.getProtocol();
+        try {
+            log.debug("Saving initial pending analysis record");
+            documentRepository.save(pendingAnalysis);
+        } catch (RuntimeException e) {
+            documentDispatcher.release();
+            documentSpool.delete(pendingAnalysis.getDocumentFile());
+            throw e;
+        }
+
+        log.info("Dispatching async document processing for protocol: {}", protocol);
+        try {
+            long dispatchedAt = System.nanoTime();
+            documentDispatcher.dispatch(schedulingPolicy.classify(pendingAnalysis),
+                    () -> processDocument(pendingAnalysis, dispatchedAt, false));
+        } catch (DocumentQueueFullException e) {
+            documentSpool.delete(pendingAnalysis.getDocumentFile());
+            documentRepository.save(pendingAnalysis.updateStatus(AnalysisStatus.FAILED, e.getMessage()));
+            throw e;
+        }
 
-        log.debug("Saving initial pending analysis record");
-        documentRepository.save(pendingAnalysis);
-        
-        // Start async processing
-        log.info("Starting async document processing for protocol: {}", protocol);
-        processDocumentAsync(pendingAnalysis);
-        
         log.debug("Returning protocol to client: {}", protocol);
         return protocol;
     }
 
-    @Async("documentAnalysisExecutor")
-    protected void processDocumentAsync(DocumentAnalysis documentAnalysis) {
+    /**
+     * Re-dispatches an analysis interrupted by a restart. It resumes at its checkpointed state, waiting for
+     * a dispatch slot instead of being rejected. A document with a pending stage that reads the original
+     * content is failed if that content did not survive the restart.
+     *
+     * @param analysis Pending analysis recovered from the repository
+     * @throws InterruptedException if interrupted while waiting for a slot
+     */
+    public void resumeDocument(DocumentAnalysis analysis) throws InterruptedException {
+        boolean contentAvailable = analysis.getBase64Document() != null
+                || (analysis.getDocumentFile() != null && Files.exists(analysis.getDocumentFile()));
+        if (stageGraph.needsDocument(analysis.getCompletedStages()) && !contentAvailable) {
+            log.warn("Cannot resume protocol: {}, document content was lost", analysis.getProtocol());
+            documentRepository.save(analysis.updateStatus(AnalysisStatus.FAILED,
+                    "Document content was lost before analysis could resume"));
+            return;
+        }
+
+        documentDispatcher.reserveWhenAvailable();
+        log.info("Resuming document analysis. Protocol: {}, State: {}", analysis.getProtocol(), analysis.getCurrentState());
+        try {
+            long dispatchedAt = System.nanoTime();
+            documentDispatcher.dispatch(schedulingPolicy.classify(analysis), () -> processDocument(analysis, dispatchedAt, false));
+        } catch (DocumentQueueFullException e) {
+            documentRepository.save(analysis.updateStatus(AnalysisStatus.FAILED, e.getMessage()));
+        }
+    }
+
+    /**
+     * Runs the given stages of a finished analysis again, keeping the results of every other stage, so a
+     * prompt or field change is applied without repeating the stages that read the document. The analysis
+     * is pending until the stages complete, and waits for a dispatch slot like a resumed analysis.
+     *
+     * @param analysis Finished analysis whose other stages have all completed
+     * @param stages   Stages to run again, closed under their dependents (see {@link StageGraph#downstreamOf})
+     * @return Future completed with the final status once the analysis has been saved
+     * @throws InterruptedException if interrupted while waiting for a slot
+     */
+    public CompletableFuture<AnalysisStatus> reprocessDocument(DocumentAnalysis analysis,
+                                                               Set<DocumentProcessingState> stages) throws InterruptedException {
+        documentDispatcher.reserveWhenAvailable();
+        log.info("Reprocessing document analysis. Protocol: {}, Stages: {}", analysis.getProtocol(), stages);
+
+        analysis.getCompletedStages().removeAll(stages);
+        for (DocumentProcessingState state : stages) {
+            analysis.getStepResults().remove(state.getQualifierName());
+            analysis.getStageTimings().remove(state);
+        }
+        analysis.setCurrentState(stages.iterator().next());
+        analysis.updateStatus(AnalysisStatus.PENDING, null);
+        try {
+            documentRepository.save(analysis);
+        } catch (RuntimeException e) {
+            documentDispatcher.release();
+            throw e;
+        }
+
+        CompletableFuture<AnalysisStatus> outcome = new CompletableFuture<>();
+        try {
+            long dispatchedAt = System.nanoTime();
+            documentDispatcher.dispatch(schedulingPolicy.classify(analysis), () -> processDocument(analysis, dispatchedAt, true)
+                    .whenComplete((status, error) -> outcome.complete(error != null ? AnalysisStatus.FAILED : status)));
+        } catch (DocumentQueueFullException e) {
+            documentRepository.save(analysis.updateStatus(AnalysisStatus.FAILED, e.getMessage()));
+            outcome.complete(AnalysisStatus.FAILED);
+        }
+        return outcome;
+    }
+
+    /**
+     * @param dispatchedAt {@link System#nanoTime()} when the analysis was handed to the dispatcher
+     * @param reprocessing Whether stages of a finished analysis run again, which must not be answered from the cache
+     * @return Future completed with the saved status of the analysis
+     */
+    private CompletableFuture<AnalysisStatus> processDocument(DocumentAnalysis documentAnalysis, long dispatchedAt,
+                                                              boolean reprocessing) {
         log.info("Starting async document analysis. Protocol: {}, Type: {}",
                 documentAnalysis.getProtocol(),
                 documentAnalysis.getDocumentType());
+        metrics.recordQueueWait(documentAnalysis.getDocumentType(), System.nanoTime() - dispatchedAt);
 
-        try {
-            log.debug("Calling document analyzer service");
-            DocumentAnalysis analysis = documentAnalyzer.analyzeDocument(documentAnalysis);
-            
+        log.debug("Calling document analyzer service");
+        CompletableFuture<DocumentAnalysis> run = reprocessing
+                ? analysisResultCache.refresh(documentAnalysis, documentAnalyzer::analyzeDocument)
+                : analysisResultCache.analyze(documentAnalysis, documentAnalyzer::analyzeDocument);
+        return run.handle((analysis, error) -> {
+                    AnalysisStatus status = AnalysisStatus.FAILED;
+                    try {
+                        if (error != null) {
+                            saveFailedAnalysis(documentAnalysis, error instanceof CompletionException ? error.getCause() : error);
+                        } else {
+                            saveFinishedAnalysis(analysis);
+                            status = analysis.getStatus();
+                        }
+                        metrics.recordAnalysis(documentAnalysis.getDocumentType(), status, System.nanoTime() - dispatchedAt);
+                    } finally {
+                        documentSpool.delete(documentAnalysis.getDocumentFile());
+                        documentAnalysis.setDocumentFile(null);
+                    }
+                    return status;
+                });
+    }
+
+    private void saveFinishedAnalysis(DocumentAnalysis analysis) {
+        analysis.setAnalysisDate(LocalDateTime.now());
+        if (analysis.getStatus() != AnalysisStatus.FAILED) {
             log.debug("Updating analysis with status complete and datetime");
-            analysis.setExtractedData(analysis.getStepResults().get(DocumentProcessingState.getLastState().getQualifierName()));
-            analysis.setAnalysisDate(LocalDateTime.now());
+            FieldPathTrie.Result extraction = documentFields.extract(analysis.getDocumentType(),
+                    DocumentProcessingState.extractionResult(analysis.getStepResults()));
+            analysis.setExtractedData(extraction.data());
+            analysis.setMissingFields(extraction.missingFields());
+            analysis.setValid(extraction.isComplete());
             analysis.setStatus(AnalysisStatus.COMPLETED);
-            
-            log.debug("Saving completed analysis result");
-            documentRepository.save(analysis);
-            log.info("Document analysis completed successfully. Protocol: {}, Valid: {}",
-                    analysis.getProtocol(),
-                    analysis.isValid());
-            
-        } catch (Exception e) {
-            log.error("Error processing document. Protocol: {}, Type: {}, Error: {}", 
-                    documentAnalysis.getProtocol(), documentAnalysis.getDocumentType(), e.getMessage(), e);
-            
-            DocumentAnalysis failedAnalysis = DocumentAnalysis.builder()
-                    .protocol(documentAnalysis.getProtocol())
-                    .documentType(documentAnalysis.getDocumentType())
-                    .status(AnalysisStatus.FAILED)
-                    .errorMessage(e.getMessage())
-                    .analysisDate(LocalDateTime.now())
-                    .build();
-            
-            log.debug("Saving failed analysis result");
-            documentRepository.save(failedAnalysis);
         }
+
+        log.debug("Saving analysis result with status: {}", analysis.getStatus());
+        documentRepository.save(analysis);
+        log.info("Document analysis finished. Protocol: {}, Status: {}, Valid: {}",
+                analysis.getProtocol(),
+                analysis.getStatus(),
+                analysis.isValid());
     }
 
-    public DocumentAnalysis getAnalysisResult(String protocol) {
-        log.debug("Retrieving analysis result for protocol: {}", protocol);
-        DocumentAnalysis result = documentRepository.findByProtocol(protocol)
-                .orElseThrow(() -> {
-                    log.error("Protocol not found: {}", protocol);
-                    return new IllegalArgumentException("Protocol not found: " + protocol);
-                });
-        log.debug("Found analysis result. Status: {}, Type: {}", result.getStatus(), result.getDocumentType());
-        return result;
+    /**
+     * Size of the document encoded in base64, without decoding it.
+     */
+    /**
+     * Hashes the document and counts its pages when it is accepted, as the spool does for streamed uploads,
+     * so no later stage has to decode it again.
+     *
+     * @throws InvalidRequestException if the document is not valid base64
+     */
+    private static DocumentDigest digest(String base64Document) {
+        try {
+            return DocumentDigest.of(base64Document);
+        } catch (IllegalArgumentException e) {
+            throw new InvalidRequestException("Document is not valid base64", e);
+        }
+    }
+
+
+    private void saveFailedAnalysis(DocumentAnalysis documentAnalysis, Throwable e) {
+        log.error("Error processing document. Protocol: {}, Type: {}, Error: {}",
+                documentAnalysis.getProtocol(), documentAnalysis.getDocumentType(), e.getMessage(), e);
+
+        // Keeps what the completed stages produced, so the analysis can be reprocessed from the stage that failed
+        Set<DocumentProcessingState> completedStages = EnumSet.noneOf(DocumentProcessingState.class);
+        completedStages.addAll(documentAnalysis.getCompletedStages());
+        Map<DocumentProcessingState, Long> stageTimings = new EnumMap<>(DocumentProcessingState.class);
+        stageTimings.putAll(documentAnalysis.getStageTimings());
+        DocumentAnalysis failedAnalysis = DocumentAnalysis.builder()
+                .protocol(documentAnalysis.getProtocol())
+                .documentType(documentAnalysis.getDocumentType())
+                .batchId(documentAnalysis.getBatchId())
+                .contentHash(documentAnalysis.getContentHash())
+                .pageCount(documentAnalysis.getPageCount())
+                .stepResults(new HashMap<>(documentAnalysis.getStepResults()))
+                .completedStages(completedStages)
+                .stageTimings(stageTimings)
+                .currentState(documentAnalysis.getCurrentState())
+                .status(AnalysisStatus.FAILED)
+                .errorMessage(e.getMessage())
+                .analysisDate(LocalDateTime.now())
+                .build();
+
+        log.debug("Saving failed analysis result");
+        documentRepository.save(failedAnalysis);
+    }
+
+    /**
+     * Returns the latest published snapshot of an analysis. Safe to call at any rate: it never locks and
+     * never touches the object a worker may be updating.
+     *
+     * @param protocol Protocol returned on submission
+     * @return Snapshot of the analysis, empty if the protocol is unknown or expired
+     */
+    public Optional<AnalysisSnapshot> getAnalysisSnapshot(String protocol) {
+        return documentRepository.findSnapshot(protocol);
+    }
+
+    /**
+     * Lists stored analyses matching the query, newest first, one page at a time.
+     *
+     * @param query Filters, cursor and size of the page
+     * @return Projections of the analyses in the page and the cursor of the next one
+     * @throws InvalidRequestException if the cursor is malformed
+     */
+    public AnalysisPage queryAnalyses(AnalysisQuery query) {
+        return documentRepository.query(query);
+    }
+
+    /**
+     * Returns the status of every document of a batch in one read.
+     *
+     * @param batchId Batch id returned on submission
+     * @return Aggregated batch status, empty if the batch is unknown or all its analyses expired
+     */
+    public Optional<BatchSnapshot> getBatchSnapshot(String batchId) {
+        List<AnalysisSnapshot> documents = documentRepository.findSnapshotsByBatch(batchId);
+        if (documents.isEmpty()) {
+            return Optional.empty();
+        }
+        return Optional.of(BatchSnapshot.of(batchId, documents));
     }
 }
@@ -0,0 +1,12 @@
+package com.example.documentintelligence.domain.model;
+
+import java.util.List;
+
+/**
+ * One page of a query over stored analyses.
+ *
+ * @param analyses   Analyses of the page, newest first
+ * @param nextCursor Cursor to request the next page with, null on the last page
+ */
+public record AnalysisPage(List<AnalysisSummary> analyses, String nextCursor) {
+}
@@ -0,0 +1,21 @@
+package com.example.documentintelligence.domain.model;
+
+import java.time.LocalDateTime;
+
+/**
+ * Filters and page of a query over stored analyses, answered newest first.
+ *
+ * @param status       Status to match, null for any
+ * @param documentType Document type to match, null for any
+ * @param analyzedFrom Earliest analysis date, inclusive; null for no lower bound
+ * @param analyzedTo   Latest analysis date, exclusive; null for no upper bound
+ * @param cursor       Cursor returned with the previous page, null for the first page
+ * @param limit        Most analyses returned in the page
+ */
+public record AnalysisQuery(AnalysisStatus status,
+                            DocumentType documentType,
+                            LocalDateTime analyzedFrom,
+                            LocalDateTime analyzedTo,
+                            String cursor,
+                            int limit) {
+}
@@ -0,0 +1,60 @@
+package com.example.documentintelligence.domain.model;
+
+import com.example.documentintelligence.domain.workflow.DocumentProcessingState;
+import lombok.Builder;
+import lombok.Value;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Immutable, versioned view of a {@link DocumentAnalysis} published each time the analysis is saved.
+ * It carries everything a status read needs and never the document payload, so readers can share it
+ * freely while workers keep updating the analysis itself.
+ */
+@Value
+@Builder
+public class AnalysisSnapshot {
+
+    String protocol;
+
+    /**
+     * Incremented on every save of the analysis.
+     */
+    long version;
+
+    DocumentType documentType;
+
+    String batchId;
+
+    boolean valid;
+
+    Object extractedData;
+
+    /**
+     * Expected field paths the extraction left empty; {@code valid} is false while there are any.
+     */
+    List<String> missingFields;
+
+    /**
+     * Unmodifiable copy of the step results at the time of the save.
+     */
+    Map<String, Object> stepResults;
+
+    LocalDateTime analysisDate;
+
+    DocumentProcessingState currentState;
+
+    Set<DocumentProcessingState> completedStages;
+
+    /**
+     * Milliseconds taken by each stage that has run.
+     */
+    Map<DocumentProcessingState, Long> stageTimings;
+
+    AnalysisStatus status;
+
+    String errorMessage;
+}
@@ -0,0 +1,53 @@
+package com.example.documentintelligence.domain.model;
+
+import com.example.documentintelligence.domain.workflow.DocumentProcessingState;
+import lombok.Builder;
+import lombok.Value;
+
+import java.time.LocalDateTime;
+
+/**
+ * Projection of an analysis returned by queries, without extracted data, step results or document payload.
+ */
+@Value
+@Builder
+public class AnalysisSummary {
+
+    String protocol;
+
+    long version;
+
+    DocumentType documentType;
+
+    String batchId;
+
+    AnalysisStatus status;
+
+    boolean valid;
+
+    /**
+     * Number of expected fields the extraction left empty.
+     */
+    int missingFields;
+
+    DocumentProcessingState currentState;
+
+    LocalDateTime analysisDate;
+
+    String errorMessage;
+
+    public static AnalysisSummary of(AnalysisSnapshot snapshot) {
+        return AnalysisSummary.builder()
+                .protocol(snapshot.getProtocol())
+                .version(snapshot.getVersion())
+                .documentType(snapshot.getDocumentType())
+                .batchId(snapshot.getBatchId())
+                .status(snapshot.getStatus())
+                .valid(snapshot.isValid())
+                .missingFields(snapshot.getMissingFields() != null ? snapshot.getMissingFields().size() : 0)
+                .currentState(snapshot.getCurrentState())
+                .analysisDate(snapshot.getAnalysisDate())
+                .errorMessage(snapshot.getErrorMessage())
+                .build();
+    }
+}
@@ -0,0 +1,10 @@
+package com.example.documentintelligence.domain.model;
+
+/**
+ * Published each time a new snapshot of an analysis is stored: on submission, after every processing
+ * state and when the analysis completes or fails.
+ *
+ * @param snapshot The snapshot just published
+ */
+public record AnalysisUpdatedEvent(AnalysisSnapshot snapshot) {
+}
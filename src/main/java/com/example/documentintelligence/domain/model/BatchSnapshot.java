@@ -0,0 +1,58 @@
+package com.example.documentintelligence.domain.model;
+
+import lombok.Builder;
+import lombok.Value;
+
+import java.util.List;
+
+/**
+ * Aggregated view of the analyses submitted in one batch, built from their latest snapshots.
+ * The batch is PENDING while any of its documents is, FAILED when every document failed and
+ * COMPLETED otherwise; the per-document snapshots tell which ones failed.
+ */
+@Value
+@Builder
+public class BatchSnapshot {
+
+    String batchId;
+
+    AnalysisStatus status;
+
+    int total;
+
+    int pending;
+
+    int completed;
+
+    int failed;
+
+    /**
+     * Snapshots of the batch's analyses, in submission order.
+     */
+    List<AnalysisSnapshot> documents;
+
+    public static BatchSnapshot of(String batchId, List<AnalysisSnapshot> documents) {
+        int pending = 0;
+        int completed = 0;
+        int failed = 0;
+        for (AnalysisSnapshot document : documents) {
+            switch (document.getStatus()) {
+                case PENDING -> pending++;
+                case COMPLETED -> completed++;
+                case FAILED -> failed++;
+            }
+        }
+        AnalysisStatus status = pending > 0 ? AnalysisStatus.PENDING
+                : failed == documents.size() ? AnalysisStatus.FAILED
+                : AnalysisStatus.COMPLETED;
+        return BatchSnapshot.builder()
+                .batchId(batchId)
+                .status(status)
+                .total(documents.size())
+                .pending(pending)
+                .completed(completed)
+                .failed(failed)
+                .documents(List.copyOf(documents))
+                .build();
+    }
+}
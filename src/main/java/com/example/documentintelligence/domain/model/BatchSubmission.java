@@ -0,0 +1,12 @@
+package com.example.documentintelligence.domain.model;
+
+import java.util.List;
+
+/**
+ * Result of submitting a batch of documents.
+ *
+ * @param batchId   Identifier to query the batch status
+ * @param protocols Protocol of each document, in the order they were submitted
+ */
+public record BatchSubmission(String batchId, List<String> protocols) {
+}
@@ -1,14 +1,20 @@
 package com.example.documentintelligence.domain.model;
 
 import com.example.documentintelligence.domain.workflow.DocumentProcessingState;
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
 import lombok.Builder;
 import lombok.Data;
 
+import java.nio.file.Path;
 import java.time.LocalDateTime;
+import java.util.EnumMap;
+import java.util.EnumSet;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 /**
  * Represents the analysis of a document, including its metadata, extracted data, and processing state.
@@ -16,7 +22,7 @@ import java.util.Map;
  * of document processing through multiple analysis steps.
  */
 @Data
-@Builder
+@Builder(toBuilder = true)
 public class DocumentAnalysis {
     
     @NotBlank(message = "Protocol is required")
@@ -24,13 +30,43 @@ public class DocumentAnalysis {
     
     @NotNull(message = "Document type is required")
     private DocumentType documentType;
-    
+
+    /**
+     * Whether the analysis completed with every expected field extracted.
+     */
     private boolean valid;
+
+    /**
+     * Batch the document was submitted with, null for documents submitted on their own.
+     */
+    private String batchId;
     
-    @NotBlank(message = "Document content is required")
     private String base64Document;
+
+    /**
+     * Spooled analyze request body for documents uploaded as a stream, used instead of base64Document.
+     */
+    @JsonIgnore
+    private Path documentFile;
+
+    /**
+     * SHA-256 of the raw document bytes, when known at submission time.
+     */
+    @JsonIgnore
+    private String contentHash;
+
+    /**
+     * Estimated number of pages, zero or null when unknown.
+     */
+    @JsonIgnore
+    private Integer pageCount;
     
     private Object extractedData;
+
+    /**
+     * Expected field paths the extraction left empty, set when the analysis completes.
+     */
+    private List<String> missingFields;
     
     @Builder.Default
     private Map<String, Object> stepResults = new HashMap<>();
@@ -38,8 +74,23 @@ public class DocumentAnalysis {
     @Builder.Default
     private LocalDateTime analysisDate = LocalDateTime.now();
     
+    /**
+     * Stage most recently started, null once the workflow has finished.
+     */
     @Builder.Default
     private DocumentProcessingState currentState = DocumentProcessingState.getInitialState();
+
+    /**
+     * Stages that have completed, including those skipped or not part of the document type's pipeline.
+     */
+    @Builder.Default
+    private Set<DocumentProcessingState> completedStages = EnumSet.noneOf(DocumentProcessingState.class);
+
+    /**
+     * Wall-clock milliseconds taken by each stage that has run.
+     */
+    @Builder.Default
+    private Map<DocumentProcessingState, Long> stageTimings = new EnumMap<>(DocumentProcessingState.class);
     
     @NotNull(message = "Analysis status is required")
     @Builder.Default
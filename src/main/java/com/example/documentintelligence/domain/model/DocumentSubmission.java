@@ -0,0 +1,10 @@
+package com.example.documentintelligence.domain.model;
+
+/**
+ * A document submitted as part of a batch.
+ *
+ * @param base64Document Document content in base64
+ * @param documentType   Type of the document
+ */
+public record DocumentSubmission(String base64Document, DocumentType documentType) {
+}
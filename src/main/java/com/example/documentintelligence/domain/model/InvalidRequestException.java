@@ -0,0 +1,19 @@
+package com.example.documentintelligence.domain.model;
+
+/**
+ * Thrown when a client request is invalid: a malformed upload or cursor, an unknown document type, or
+ * reprocessing criteria that cannot be met. Only this exception is answered as a client error; any other
+ * {@link IllegalArgumentException} is a bug and surfaces as a server error.
+ */
+public class InvalidRequestException extends IllegalArgumentException {
+
+    private static final long serialVersionUID = 1L;
+
+    public InvalidRequestException(String message) {
+        super(message);
+    }
+
+    public InvalidRequestException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
@@ -0,0 +1,30 @@
+package com.example.documentintelligence.domain.model;
+
+import com.example.documentintelligence.domain.workflow.DocumentProcessingState;
+
+import java.time.LocalDateTime;
+import java.util.Set;
+
+/**
+ * Selects the finished analyses a reprocessing job runs again, and the stage it restarts them from.
+ *
+ * @param fromState    Stage to run again; every stage downstream of it runs again too
+ * @param documentType Type of the documents to select, null for every type
+ * @param statuses     Statuses of the analyses to select, COMPLETED or FAILED
+ * @param analyzedFrom Earliest analysis date selected, inclusive; null for no lower bound
+ * @param analyzedTo   Latest analysis date selected, exclusive; null for no upper bound
+ */
+public record ReprocessingCriteria(DocumentProcessingState fromState,
+                                   DocumentType documentType,
+                                   Set<AnalysisStatus> statuses,
+                                   LocalDateTime analyzedFrom,
+                                   LocalDateTime analyzedTo) {
+
+    public boolean matches(AnalysisSnapshot snapshot) {
+        LocalDateTime analysisDate = snapshot.getAnalysisDate();
+        return statuses.contains(snapshot.getStatus())
+                && (documentType == null || documentType == snapshot.getDocumentType())
+                && (analyzedFrom == null || (analysisDate != null && !analysisDate.isBefore(analyzedFrom)))
+                && (analyzedTo == null || (analysisDate != null && analysisDate.isBefore(analyzedTo)));
+    }
+}
@@ -0,0 +1,51 @@
+package com.example.documentintelligence.domain.model;
+
+import com.example.documentintelligence.domain.workflow.DocumentProcessingState;
+import lombok.Builder;
+import lombok.Value;
+
+import java.time.LocalDateTime;
+import java.util.Set;
+
+/**
+ * Progress of a reprocessing job. Every selected analysis ends up completed, failed or skipped; an analysis
+ * is skipped when it changed since it was selected, for instance because it expired or another job took it.
+ */
+@Value
+@Builder
+public class ReprocessingSnapshot {
+
+    String jobId;
+
+    ReprocessingStatus status;
+
+    ReprocessingCriteria criteria;
+
+    /**
+     * Stages run again for each analysis.
+     */
+    Set<DocumentProcessingState> stages;
+
+    /**
+     * Analyses selected when the job started.
+     */
+    int total;
+
+    /**
+     * Analyses being processed right now.
+     */
+    int running;
+
+    int completed;
+
+    int failed;
+
+    int skipped;
+
+    LocalDateTime startedAt;
+
+    /**
+     * When the last analysis of the job finished, null while it is running.
+     */
+    LocalDateTime finishedAt;
+}
@@ -0,0 +1,7 @@
+package com.example.documentintelligence.domain.model;
+
+public enum ReprocessingStatus {
+    RUNNING,
+    COMPLETED,
+    CANCELLED
+}
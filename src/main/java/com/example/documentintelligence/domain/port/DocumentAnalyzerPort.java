@@ -1,10 +1,33 @@
 package com.example.documentintelligence.domain.port;
 
 import com.example.documentintelligence.domain.model.DocumentAnalysis;
-import com.example.documentintelligence.domain.model.DocumentType;
-import com.example.documentintelligence.domain.workflow.DocumentProcessingState;
+import com.example.documentintelligence.domain.workflow.AnalysisStage;
+
+import java.util.concurrent.CompletableFuture;
 
 public interface DocumentAnalyzerPort {
 
+    /**
+     * Stage this analyzer runs and where it sits in the workflow graph.
+     */
+    AnalysisStage stage();
+
     DocumentAnalysis analyzeDocument(DocumentAnalysis currentAnalysis);
+
+    /**
+     * Analyzes the document without blocking the caller while the downstream service works.
+     * Analyzers backed by a blocking client run synchronously and return a completed future.
+     * The analysis given is the stage's own copy; only its result under the stage's qualifier name, its page
+     * count and a failed status are carried back to the workflow.
+     *
+     * @param currentAnalysis The analysis to update
+     * @return Future completed with the updated analysis
+     */
+    default CompletableFuture<DocumentAnalysis> analyzeDocumentAsync(DocumentAnalysis currentAnalysis) {
+        try {
+            return CompletableFuture.completedFuture(analyzeDocument(currentAnalysis));
+        } catch (RuntimeException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
 }
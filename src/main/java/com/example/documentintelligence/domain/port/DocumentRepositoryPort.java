@@ -1,9 +1,50 @@
 package com.example.documentintelligence.domain.port;
 
+import com.example.documentintelligence.domain.model.AnalysisPage;
+import com.example.documentintelligence.domain.model.AnalysisQuery;
+import com.example.documentintelligence.domain.model.AnalysisSnapshot;
+import com.example.documentintelligence.domain.model.AnalysisStatus;
 import com.example.documentintelligence.domain.model.DocumentAnalysis;
+import com.example.documentintelligence.domain.model.InvalidRequestException;
+
+import java.util.List;
 import java.util.Optional;
+import java.util.function.Predicate;
 
 public interface DocumentRepositoryPort {
     void save(DocumentAnalysis analysis);
     Optional<DocumentAnalysis> findByProtocol(String protocol);
+
+    /**
+     * Returns the latest immutable snapshot of an analysis, without locking and without its document payload.
+     */
+    Optional<AnalysisSnapshot> findSnapshot(String protocol);
+
+    /**
+     * Returns the latest snapshots of the analyses submitted in a batch, in submission order.
+     */
+    List<AnalysisSnapshot> findSnapshotsByBatch(String batchId);
+
+    List<DocumentAnalysis> findByStatus(AnalysisStatus status);
+
+    /**
+     * Returns the latest snapshots of the analyses matching the filter, without materializing the analyses.
+     */
+    List<AnalysisSnapshot> findSnapshots(Predicate<AnalysisSnapshot> filter);
+
+    /**
+     * Returns one page of projections of the analyses matching the query, newest first, read from indexes
+     * kept up to date on every save.
+     *
+     * @throws InvalidRequestException if the query cursor is malformed
+     */
+    AnalysisPage query(AnalysisQuery query);
+
+    /**
+     * Records the progress of an analysis after one of its processing states has finished,
+     * so it can resume from the next state after a restart.
+     */
+    default void checkpoint(DocumentAnalysis analysis) {
+        save(analysis);
+    }
 }
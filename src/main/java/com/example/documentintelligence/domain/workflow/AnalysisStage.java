@@ -0,0 +1,26 @@
+package com.example.documentintelligence.domain.workflow;
+
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.Set;
+
+/**
+ * Node of the analysis workflow graph, declared by the analyzer that runs the stage.
+ *
+ * @param state                 Stage the analyzer runs; its output is the step result under the stage's qualifier name
+ * @param dependencies          Stages whose outputs this stage reads
+ * @param skippedWhenProducedBy Stage whose output, when present, makes this one unnecessary; null if it always runs
+ * @param readsDocument         Whether the stage reads the submitted document itself, which must be kept until
+ *                              such stages complete
+ */
+public record AnalysisStage(DocumentProcessingState state,
+                            Set<DocumentProcessingState> dependencies,
+                            DocumentProcessingState skippedWhenProducedBy,
+                            boolean readsDocument) {
+
+    public AnalysisStage {
+        dependencies = dependencies.isEmpty()
+                ? Set.of()
+                : Collections.unmodifiableSet(EnumSet.copyOf(dependencies));
+    }
+}
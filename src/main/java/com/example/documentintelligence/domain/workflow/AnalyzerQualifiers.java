@@ -2,5 +2,7 @@ package com.example.documentintelligence.domain.workflow;
 
 public interface AnalyzerQualifiers {
     String AZURE_DOCUMENT_INTELLIGENCE_ANALYZER = "azureDocumentIntelligenceAnalyzer";
+    String DOCUMENT_QUALITY_ANALYZER = "documentQualityAnalyzer";
+    String RULE_BASED_ANALYZER = "ruleBasedAnalyzer";
     String AZURE_OPENAI_ANALYZER = "azureOpenAIAnalyzer";
-}
\ No newline at end of file
+}
@@ -2,14 +2,28 @@ package com.example.documentintelligence.domain.workflow;
 
 import lombok.Getter;
 
-import static com.example.documentintelligence.domain.workflow.AnalyzerQualifiers.AZURE_OPENAI_ANALYZER;
-import static com.example.documentintelligence.domain.workflow.AnalyzerQualifiers.AZURE_DOCUMENT_INTELLIGENCE_ANALYZER;
+import java.util.EnumSet;
+import java.util.Map;
+import java.util.Set;
 
+import static com.example.documentintelligence.domain.workflow.AnalyzerQualifiers.AZURE_DOCUMENT_INTELLIGENCE_ANALYZER;
+import static com.example.documentintelligence.domain.workflow.AnalyzerQualifiers.AZURE_OPENAI_ANALYZER;
+import static com.example.documentintelligence.domain.workflow.AnalyzerQualifiers.DOCUMENT_QUALITY_ANALYZER;
+import static com.example.documentintelligence.domain.workflow.AnalyzerQualifiers.RULE_BASED_ANALYZER;
+
+/**
+ * Stages of the analysis workflow. How they depend on each other is declared by the analyzer running each
+ * stage, as an {@link AnalysisStage}; the declarations are assembled into a {@link StageGraph}.
+ * Each stage's output is stored in the step results under its qualifier name.
+ */
 @Getter
 public enum DocumentProcessingState {
 
     AZURE_DOCUMENT_INTELLIGENCE(AZURE_DOCUMENT_INTELLIGENCE_ANALYZER),
+    DOCUMENT_QUALITY(DOCUMENT_QUALITY_ANALYZER),
+    RULE_BASED_EXTRACTION(RULE_BASED_ANALYZER),
     AZURE_OPENAI(AZURE_OPENAI_ANALYZER);
+
     private final String qualifierName;
 
     DocumentProcessingState(String qualifierName) {
@@ -24,10 +38,26 @@ public enum DocumentProcessingState {
         return DocumentProcessingState.AZURE_OPENAI;
     }
 
-    public DocumentProcessingState nextState() {
-        return switch (this) {
-            case AZURE_DOCUMENT_INTELLIGENCE -> AZURE_OPENAI;
-            case AZURE_OPENAI -> null;
-        };
+    /**
+     * Stages that had completed when an analysis stored before stages were tracked individually
+     * was at the given state. Such analyses ran the stages one at a time, in declaration order.
+     */
+    public static Set<DocumentProcessingState> completedBefore(DocumentProcessingState state) {
+        Set<DocumentProcessingState> completed = EnumSet.noneOf(DocumentProcessingState.class);
+        for (DocumentProcessingState candidate : values()) {
+            if (state == null || candidate.ordinal() < state.ordinal()) {
+                completed.add(candidate);
+            }
+        }
+        return completed;
+    }
+
+    /**
+     * Returns the extracted fields of a finished analysis: the OpenAI result, or the rule-based one when
+     * the OpenAI extraction was skipped.
+     */
+    public static Object extractionResult(Map<String, Object> stepResults) {
+        Object extracted = stepResults.get(getLastState().getQualifierName());
+        return extracted != null ? extracted : stepResults.get(RULE_BASED_ANALYZER);
     }
-}
\ No newline at end of file
+}
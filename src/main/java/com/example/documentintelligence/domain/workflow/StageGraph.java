@@ -0,0 +1,117 @@
+package com.example.documentintelligence.domain.workflow;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Dependency graph of the analysis workflow, assembled from the {@link AnalysisStage} each analyzer declares.
+ * A stage runs once every stage it depends on has completed, so stages without a path between them run in
+ * parallel. A stage may also be skipped when another stage already produced an output that makes it unnecessary.
+ */
+public final class StageGraph {
+
+    private final Map<DocumentProcessingState, AnalysisStage> stages = new EnumMap<>(DocumentProcessingState.class);
+    // Every stage comes after the stages it depends on or may be skipped because of
+    private final List<DocumentProcessingState> order;
+
+    /**
+     * @param declared Stage declared by each analyzer
+     * @throws IllegalStateException if a stage is declared twice or not at all, or the stages depend on each
+     *                               other in a cycle
+     */
+    public StageGraph(Collection<AnalysisStage> declared) {
+        for (AnalysisStage stage : declared) {
+            if (stages.putIfAbsent(stage.state(), stage) != null) {
+                throw new IllegalStateException("Stage " + stage.state() + " is declared by more than one analyzer");
+            }
+        }
+        for (DocumentProcessingState state : DocumentProcessingState.values()) {
+            if (!stages.containsKey(state)) {
+                throw new IllegalStateException("No analyzer found for state: " + state);
+            }
+        }
+        this.order = Collections.unmodifiableList(sort());
+    }
+
+    /**
+     * @return Every stage, each after the stages it depends on
+     */
+    public List<DocumentProcessingState> order() {
+        return order;
+    }
+
+    public AnalysisStage get(DocumentProcessingState state) {
+        return stages.get(state);
+    }
+
+    public boolean isReady(DocumentProcessingState state, Collection<DocumentProcessingState> completed) {
+        return completed.containsAll(stages.get(state).dependencies());
+    }
+
+    public boolean isSkipped(DocumentProcessingState state, Map<String, Object> stepResults) {
+        DocumentProcessingState producer = stages.get(state).skippedWhenProducedBy();
+        return producer != null && stepResults.containsKey(producer.getQualifierName());
+    }
+
+    /**
+     * Whether the submitted document is still needed once the given stages have completed.
+     */
+    public boolean needsDocument(Collection<DocumentProcessingState> completed) {
+        for (AnalysisStage stage : stages.values()) {
+            if (stage.readsDocument() && !completed.contains(stage.state())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * The given stage and every stage reading its output, directly or through other stages, or skipped
+     * because of it: the stages whose results are stale once the given stage runs again.
+     */
+    public Set<DocumentProcessingState> downstreamOf(DocumentProcessingState state) {
+        Set<DocumentProcessingState> downstream = EnumSet.of(state);
+        // Stages are visited after their dependencies, so one pass reaches every transitive dependent
+        for (DocumentProcessingState candidate : order) {
+            if (!Collections.disjoint(upstreamOf(stages.get(candidate)), downstream)) {
+                downstream.add(candidate);
+            }
+        }
+        return downstream;
+    }
+
+    private List<DocumentProcessingState> sort() {
+        List<DocumentProcessingState> sorted = new ArrayList<>(stages.size());
+        EnumSet<DocumentProcessingState> placed = EnumSet.noneOf(DocumentProcessingState.class);
+        while (sorted.size() < stages.size()) {
+            boolean progressed = false;
+            for (AnalysisStage stage : stages.values()) {
+                if (!placed.contains(stage.state()) && placed.containsAll(upstreamOf(stage))) {
+                    sorted.add(stage.state());
+                    placed.add(stage.state());
+                    progressed = true;
+                }
+            }
+            if (!progressed) {
+                throw new IllegalStateException("Analysis stages depend on each other in a cycle: "
+                        + EnumSet.complementOf(placed));
+            }
+        }
+        return sorted;
+    }
+
+    private static Set<DocumentProcessingState> upstreamOf(AnalysisStage stage) {
+        if (stage.skippedWhenProducedBy() == null) {
+            return stage.dependencies();
+        }
+        Set<DocumentProcessingState> upstream = EnumSet.of(stage.skippedWhenProducedBy());
+        upstream.addAll(stage.dependencies());
+        return upstream;
+    }
+}
@@ -1,56 +1,175 @@
 package com.example.documentintelligence.infrastructure.adapter;
 
-import com.azure.ai.documentintelligence.DocumentIntelligenceClient;
-import com.azure.ai.documentintelligence.models.AnalyzeDocumentOptions;
 import com.azure.core.util.BinaryData;
+import com.azure.core.util.Context;
 import com.example.documentintelligence.domain.model.DocumentAnalysis;
-import com.example.documentintelligence.domain.model.DocumentType;
 import com.example.documentintelligence.domain.port.DocumentAnalyzerPort;
+import com.example.documentintelligence.domain.workflow.AnalysisStage;
+import com.example.documentintelligence.infrastructure.concurrency.DownstreamLimiter;
+import com.example.documentintelligence.infrastructure.metrics.PipelineMetrics;
+import com.example.documentintelligence.infrastructure.pipeline.PipelineProfiles;
+import com.example.documentintelligence.infrastructure.polling.DocumentIntelligencePollScheduler;
+import com.example.documentintelligence.infrastructure.scheduling.JobClass;
+import com.example.documentintelligence.infrastructure.scheduling.SchedulingPolicy;
+import com.example.documentintelligence.infrastructure.spool.DocumentSpool;
+import com.fasterxml.jackson.databind.JsonNode;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
-import java.time.LocalDateTime;
-import java.util.Base64;
-import java.util.HashMap;
-import java.util.Map;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static com.example.documentintelligence.domain.workflow.AnalyzerQualifiers.AZURE_DOCUMENT_INTELLIGENCE_ANALYZER;
+import static com.example.documentintelligence.domain.workflow.DocumentProcessingState.AZURE_DOCUMENT_INTELLIGENCE;
 
 @Component
 @Qualifier(AZURE_DOCUMENT_INTELLIGENCE_ANALYZER)
 @Slf4j
 public class AzureDocumentIntelligenceAnalyzer implements DocumentAnalyzerPort {
+    // First stage: reads the document, everything downstream reads its layout
+    public static final AnalysisStage STAGE = new AnalysisStage(AZURE_DOCUMENT_INTELLIGENCE, Set.of(), null, true);
 
-    public static final String MODEL_ID = "prebuilt-layout";
-    private final DocumentIntelligenceClient client;
+
+    private final DocumentIntelligencePollScheduler pollScheduler;
+    private final PipelineProfiles profiles;
+    private final DownstreamLimiter limiter;
+    private final int pageRangeSize;
+    private final int maxParallelRanges;
+    private final PipelineMetrics metrics;
+    private final SchedulingPolicy schedulingPolicy;
 
     @Autowired
-    public AzureDocumentIntelligenceAnalyzer(DocumentIntelligenceClient client) {
-        this.client = client;
+    public AzureDocumentIntelligenceAnalyzer(DocumentIntelligencePollScheduler pollScheduler,
+                                             PipelineProfiles profiles,
+                                             @Qualifier("documentIntelligenceLimiter") DownstreamLimiter limiter,
+                                             @Value("${azure.document-intelligence.page-range.size:0}") int pageRangeSize,
+                                             @Value("${azure.document-intelligence.page-range.max-parallel:4}") int maxParallelRanges,
+                                             PipelineMetrics metrics,
+                                             SchedulingPolicy schedulingPolicy) {
+        this.pollScheduler = pollScheduler;
+        this.profiles = profiles;
+        this.limiter = limiter;
+        this.pageRangeSize = pageRangeSize;
+        this.maxParallelRanges = Math.max(1, maxParallelRanges);
+        this.metrics = metrics;
+        this.schedulingPolicy = schedulingPolicy;
+    }
+
+    @Override
+    public AnalysisStage stage() {
+        return STAGE;
     }
 
     @Override
     public DocumentAnalysis analyzeDocument(DocumentAnalysis currentAnalysis) {
+        try {
+            return analyzeDocumentAsync(currentAnalysis).join();
+        } catch (CompletionException e) {
+            throw e.getCause() instanceof RuntimeException cause ? cause : e;
+        }
+    }
+
+    @Override
+    public CompletableFuture<DocumentAnalysis> analyzeDocumentAsync(DocumentAnalysis currentAnalysis) {
 
         log.info("Starting document analysis for type: {}", currentAnalysis.getDocumentType());
 
-        log.debug("Decoding base64 document");
-        byte[] documentBytes = Base64.getDecoder().decode(currentAnalysis.getBase64Document());
-        log.debug("Document decoded, size: {} bytes", documentBytes.length);
+        BinaryData requestBody;
+        if (currentAnalysis.getDocumentFile() != null) {
+            log.debug("Using spooled document {}", currentAnalysis.getDocumentFile());
+            requestBody = BinaryData.fromFile(currentAnalysis.getDocumentFile());
+        } else {
+            // Pages were counted when the document was accepted
+            requestBody = BinaryData.fromListByteBuffer(DocumentSpool.requestBody(currentAnalysis.getBase64Document()));
+        }
+
+        String modelId = profiles.forType(currentAnalysis.getDocumentType()).layoutModel();
+        int pageCount = currentAnalysis.getPageCount() == null ? 0 : currentAnalysis.getPageCount();
+        metrics.recordPages(currentAnalysis.getDocumentType(), pageCount);
+        Context context = PipelineMetrics.callContext(currentAnalysis.getDocumentType());
+        JobClass jobClass = schedulingPolicy.classify(currentAnalysis);
+        List<PageRange> pageRanges = pageRanges(pageCount);
+        CompletableFuture<String> content = pageRanges.size() > 1
+                ? analyzePageRanges(modelId, requestBody, pageRanges, jobClass, context)
+                : analyzePages(modelId, requestBody, null, pageCount, jobClass, context);
 
-        log.debug("Creating analyze options with prebuilt-document model");
-        AnalyzeDocumentOptions options = new AnalyzeDocumentOptions(BinaryData.fromBytes(documentBytes));
+        return content.thenApply(result -> {
+            if (result != null) {
+                currentAnalysis.getStepResults().put(AZURE_DOCUMENT_INTELLIGENCE_ANALYZER, result);
+            }
+            log.info("Document analysis completed successfully for protocol: {}", currentAnalysis.getProtocol());
+            return currentAnalysis;
+        });
+    }
+
+    /**
+     * Analyzes page ranges concurrently, at most {@code maxParallelRanges} at a time, and merges their
+     * content back in page order. A new range starts as soon as a previous one finishes; no thread waits.
+     */
+    private CompletableFuture<String> analyzePageRanges(String modelId, BinaryData requestBody, List<PageRange> pageRanges,
+                                                        JobClass jobClass, Context context) {
+        log.info("Fanning out document analysis over {} page ranges", pageRanges.size());
+        List<CompletableFuture<String>> results = new ArrayList<>(pageRanges.size());
+        pageRanges.forEach(range -> results.add(new CompletableFuture<>()));
+        AtomicInteger next = new AtomicInteger();
+
+        Runnable startNext = new Runnable() {
+            @Override
+            public void run() {
+                int index = next.getAndIncrement();
+                if (index >= pageRanges.size() || results.get(index).isDone()) {
+                    return;
+                }
+                PageRange range = pageRanges.get(index);
+                analyzePages(modelId, requestBody, range.pages(), range.pageCount(), jobClass, context).whenComplete((content, error) -> {
+                    if (error != null) {
+                        // Ranges not started yet are abandoned, so the merged result fails right away
+                        results.forEach(result -> result.completeExceptionally(error));
+                    } else {
+                        results.get(index).complete(content);
+                        run();
+                    }
+                });
+            }
+        };
+        for (int i = 0; i < Math.min(maxParallelRanges, pageRanges.size()); i++) {
+            startNext.run();
+        }
+
+        return CompletableFuture.allOf(results.toArray(CompletableFuture[]::new))
+                .thenApply(done -> String.join("\n", results.stream().map(CompletableFuture::join).toList()));
+    }
 
-        log.info("Sending document to Azure for analysis");
-        var result = client.beginAnalyzeDocument(MODEL_ID, options)
-                           .getFinalResult();
+    private CompletableFuture<String> analyzePages(String modelId, BinaryData requestBody, String pages, int pageCount,
+                                                   JobClass jobClass, Context context) {
+        log.info("Sending document to Azure for analysis with {}, pages: {}", modelId, pages != null ? pages : "all");
+        return limiter.executeAsync(jobClass, 1, () -> pollScheduler.analyze(modelId, requestBody, pages, pageCount, context))
+                      .thenApply(AzureDocumentIntelligenceAnalyzer::content);
+    }
 
-        currentAnalysis.getStepResults().put(AZURE_DOCUMENT_INTELLIGENCE_ANALYZER, result.getContent());
+    private List<PageRange> pageRanges(int pageCount) {
+        List<PageRange> ranges = new ArrayList<>();
+        if (pageRangeSize <= 0 || pageCount <= pageRangeSize) {
+            return ranges;
+        }
+        for (int first = 1; first <= pageCount; first += pageRangeSize) {
+            int last = Math.min(first + pageRangeSize - 1, pageCount);
+            ranges.add(new PageRange(first == last ? String.valueOf(first) : first + "-" + last, last - first + 1));
+        }
+        return ranges;
+    }
 
-        log.info("Document analysis completed successfully");
+    private static String content(JsonNode analyzeResult) {
+        return analyzeResult.path("content").asText(null);
+    }
 
-        return currentAnalysis;
+    private record PageRange(String pages, int pageCount) {
     }
 }
@@ -1,9 +1,25 @@
 package com.example.documentintelligence.infrastructure.adapter;
 
-import com.azure.ai.openai.OpenAIClient;
+import com.azure.ai.openai.OpenAIAsyncClient;
 import com.azure.ai.openai.models.*;
 import com.example.documentintelligence.domain.model.DocumentAnalysis;
+import com.example.documentintelligence.domain.model.DocumentType;
 import com.example.documentintelligence.domain.port.DocumentAnalyzerPort;
+import com.example.documentintelligence.domain.workflow.AnalysisStage;
+import com.example.documentintelligence.infrastructure.concurrency.DownstreamLimiter;
+import com.example.documentintelligence.infrastructure.extraction.ContentChunker;
+import com.example.documentintelligence.infrastructure.extraction.ContentChunker.Chunk;
+import com.example.documentintelligence.infrastructure.extraction.DocumentFields;
+import com.example.documentintelligence.infrastructure.extraction.ExtractionMerger;
+import com.example.documentintelligence.infrastructure.extraction.ExtractionPacker;
+import com.example.documentintelligence.infrastructure.extraction.ExtractionPacker.PackedDocument;
+import com.example.documentintelligence.infrastructure.extraction.IncrementalJsonReader;
+import com.example.documentintelligence.infrastructure.extraction.MalformedCompletionException;
+import com.example.documentintelligence.infrastructure.extraction.TokenCounter;
+import com.example.documentintelligence.infrastructure.metrics.PipelineMetrics;
+import com.example.documentintelligence.infrastructure.pipeline.PipelineProfiles;
+import com.example.documentintelligence.infrastructure.scheduling.JobClass;
+import com.example.documentintelligence.infrastructure.scheduling.SchedulingPolicy;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
@@ -12,78 +28,363 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+import reactor.util.context.Context;
 
+import java.time.Duration;
 import java.util.ArrayList;
+import java.util.EnumMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ScheduledExecutorService;
 
+import static com.example.documentintelligence.domain.workflow.AnalyzerQualifiers.AZURE_DOCUMENT_INTELLIGENCE_ANALYZER;
 import static com.example.documentintelligence.domain.workflow.AnalyzerQualifiers.AZURE_OPENAI_ANALYZER;
+import static com.example.documentintelligence.domain.workflow.DocumentProcessingState.AZURE_DOCUMENT_INTELLIGENCE;
+import static com.example.documentintelligence.domain.workflow.DocumentProcessingState.AZURE_OPENAI;
+import static com.example.documentintelligence.domain.workflow.DocumentProcessingState.RULE_BASED_EXTRACTION;
 
 @Component
 @Qualifier(AZURE_OPENAI_ANALYZER)
 @Slf4j
 public class AzureOpenAIAnalyzer implements DocumentAnalyzerPort {
-    private final OpenAIClient client;
-    private final String deploymentOrModelId;
+    // Skipped when the rules already extracted every field
+    public static final AnalysisStage STAGE = new AnalysisStage(AZURE_OPENAI,
+            Set.of(AZURE_DOCUMENT_INTELLIGENCE, RULE_BASED_EXTRACTION), RULE_BASED_EXTRACTION, false);
+
+    private final OpenAIAsyncClient client;
+    private final PipelineProfiles profiles;
     private final String azureOpenAIContext;
     private final String azureOpenAIPrompt;
+    private final DownstreamLimiter limiter;
+    private final int completionTokensEstimate;
+    private final TokenCounter tokenCounter;
+    private final ContentChunker chunker;
+    private final int maxPromptTokens;
+    private final boolean streaming;
+    private final int streamingMaxAttempts;
+    private final Map<DocumentType, ExtractionMerger> mergers = new EnumMap<>(DocumentType.class);
+    // Field list of each type and the prompt tokens it costs before any content, counted once
+    private final Map<DocumentType, String> fieldLists = new EnumMap<>(DocumentType.class);
+    private final Map<DocumentType, Integer> promptOverheadTokens = new EnumMap<>(DocumentType.class);
+    private final boolean packing;
+    private final String packedPrompt;
+    private final String packedSection;
+    private final int packingMaxDocumentTokens;
+    private final int packedOverheadTokens;
+    private final int sectionOverheadTokens;
+    private final ExtractionPacker packer;
+    private final PipelineMetrics metrics;
+    private final SchedulingPolicy schedulingPolicy;
 
     private final ObjectMapper mapper = new ObjectMapper();
 
     @Autowired
-    public AzureOpenAIAnalyzer(OpenAIClient client,
-                               @Value("${azure.openai.deployment-id}") String deploymentOrModelId,
+    public AzureOpenAIAnalyzer(OpenAIAsyncClient client,
+                               PipelineProfiles profiles,
                                @Value("${azure.openai.context}") String azureOpenAIContext,
-                               @Value("${azure.openai.prompt}") String azureOpenAIPrompt) {
+                               @Value("${azure.openai.prompt}") String azureOpenAIPrompt,
+                               @Qualifier("openAILimiter") DownstreamLimiter limiter,
+                               @Value("${azure.openai.rate-limit.completion-tokens-estimate:1000}") int completionTokensEstimate,
+                               TokenCounter tokenCounter,
+                               ContentChunker chunker,
+                               @Value("${azure.openai.chunking.max-prompt-tokens:8000}") int maxPromptTokens,
+                               @Value("${azure.openai.streaming.enabled:true}") boolean streaming,
+                               @Value("${azure.openai.streaming.max-attempts:2}") int streamingMaxAttempts,
+                               @Value("${azure.openai.packing.enabled:true}") boolean packing,
+                               @Value("${azure.openai.packing.prompt}") String packedPrompt,
+                               @Value("${azure.openai.packing.section}") String packedSection,
+                               @Value("${azure.openai.packing.max-document-tokens:1500}") int packingMaxDocumentTokens,
+                               @Value("${azure.openai.packing.max-documents:5}") int packingMaxDocuments,
+                               @Value("${azure.openai.packing.linger:PT1S}") Duration packingLinger,
+                               @Qualifier("limiterScheduler") ScheduledExecutorService scheduler,
+                               PipelineMetrics metrics,
+                               DocumentFields documentFields,
+                               SchedulingPolicy schedulingPolicy) {
         this.client = client;
-        this.deploymentOrModelId = deploymentOrModelId;
+        this.profiles = profiles;
         this.azureOpenAIContext = azureOpenAIContext;
         this.azureOpenAIPrompt = azureOpenAIPrompt;
+        this.limiter = limiter;
+        this.completionTokensEstimate = completionTokensEstimate;
+        this.tokenCounter = tokenCounter;
+        this.chunker = chunker;
+        this.maxPromptTokens = maxPromptTokens;
+        this.streaming = streaming;
+        this.streamingMaxAttempts = streamingMaxAttempts;
+        for (DocumentType type : DocumentType.values()) {
+            mergers.put(type, new ExtractionMerger(documentFields.forType(type)));
+            String fieldList = String.join("\n", type.getFields());
+            fieldLists.put(type, fieldList);
+            promptOverheadTokens.put(type, tokenCounter.count(azureOpenAIContext)
+                    + tokenCounter.count(String.format(azureOpenAIPrompt, fieldList, "")));
+        }
+        this.packing = packing;
+        this.packedPrompt = packedPrompt;
+        this.packedSection = packedSection;
+        this.packingMaxDocumentTokens = packingMaxDocumentTokens;
+        this.packedOverheadTokens = tokenCounter.count(azureOpenAIContext) + tokenCounter.count(String.format(packedPrompt, ""));
+        this.sectionOverheadTokens = tokenCounter.count(String.format(packedSection, sectionId(packingMaxDocuments - 1), "", "", ""));
+        this.packer = new ExtractionPacker(packingLinger, packingMaxDocuments, maxPromptTokens - packedOverheadTokens,
+                scheduler, this::extractPack);
+        this.metrics = metrics;
+        this.schedulingPolicy = schedulingPolicy;
+    }
+
+    @Override
+    public AnalysisStage stage() {
+        return STAGE;
     }
 
     @Override
     public DocumentAnalysis analyzeDocument(DocumentAnalysis currentAnalysis) {
         try {
+            return analyzeDocumentAsync(currentAnalysis).join();
+        } catch (CompletionException e) {
+            throw e.getCause() instanceof RuntimeException cause ? cause : e;
+        }
+    }
+
+    /**
+     * Splits the layout content of the document into chunks that keep each prompt under the token budget,
+     * extracts the fields from every chunk concurrently and merges the partial results per field path.
+     * Small documents of a batch are instead packed with other documents of the same batch into one completion.
+     * The chat deployment comes from the pipeline profile of the document type and the size of its content.
+     */
+    @Override
+    public CompletableFuture<DocumentAnalysis> analyzeDocumentAsync(DocumentAnalysis currentAnalysis) {
+        String fieldList = fieldLists.get(currentAnalysis.getDocumentType());
+        String content = Objects.toString(currentAnalysis.getStepResults().get(AZURE_DOCUMENT_INTELLIGENCE_ANALYZER), "");
 
-            String fieldList = String.join("\n", currentAnalysis.getDocumentType().getFields());
-            String content = String.join("\n", currentAnalysis.getStepResults().values().toString());
+        int overheadTokens = promptOverheadTokens.get(currentAnalysis.getDocumentType());
+        int contentBudget = maxPromptTokens - overheadTokens;
+        if (contentBudget <= 0) {
+            return CompletableFuture.failedFuture(new IllegalStateException("Prompt for " + currentAnalysis.getDocumentType()
+                    + " needs " + overheadTokens + " tokens before any content, over the budget of " + maxPromptTokens));
+        }
 
-            String formattedPrompt = String.format(azureOpenAIPrompt, fieldList, content);
+        List<Chunk> chunks = chunker.split(content, contentBudget);
+        if (chunks.size() > 1) {
+            log.info("Extracting {} fields of document {} from {} chunks", currentAnalysis.getDocumentType(),
+                    currentAnalysis.getProtocol(), chunks.size());
+        }
 
-            List<ChatRequestMessage> messages = new ArrayList<>();
-            messages.add(new ChatRequestSystemMessage(azureOpenAIContext));
-            messages.add(new ChatRequestUserMessage(formattedPrompt));
+        String deployment = profiles.forType(currentAnalysis.getDocumentType())
+                .deploymentFor(chunks.stream().mapToInt(Chunk::tokens).sum());
+        List<CompletableFuture<Optional<JsonNode>>> extractions = new ArrayList<>(chunks.size());
+        if (chunks.size() == 1 && isPackable(currentAnalysis, fieldList, chunks.get(0))) {
+            Chunk chunk = chunks.get(0);
+            extractions.add(packer.submit(currentAnalysis.getBatchId() + "/" + deployment, new PackedDocument(
+                    currentAnalysis.getDocumentType(), deployment, fieldList, chunk.text(),
+                    sectionOverheadTokens + tokenCounter.count(fieldList) + chunk.tokens())));
+        } else {
+            JobClass jobClass = schedulingPolicy.classify(currentAnalysis);
+            for (Chunk chunk : chunks) {
+                extractions.add(extract(currentAnalysis.getDocumentType(), jobClass, deployment, fieldList, chunk, overheadTokens));
+            }
+        }
 
-            ChatCompletions completions = client.getChatCompletions(
-                deploymentOrModelId,
-                new ChatCompletionsOptions(messages)
-            );
+        return CompletableFuture.allOf(extractions.toArray(CompletableFuture[]::new))
+                .thenApply(done -> {
+                    List<JsonNode> responses = extractions.stream()
+                            .map(CompletableFuture::join)
+                            .flatMap(Optional::stream)
+                            .toList();
+                    if (responses.isEmpty()) return currentAnalysis;
 
-            String response = completions.getChoices().get(0).getMessage().getContent()
-                                 .replace("```json", "")
-                                 .replace("```", "");
-            if (!isValidJson(response)) return currentAnalysis;
+                    JsonNode response = responses.size() == 1 && chunks.size() == 1
+                            ? responses.get(0)
+                            : mergers.get(currentAnalysis.getDocumentType()).merge(responses);
+                    currentAnalysis.getStepResults().put(AZURE_OPENAI_ANALYZER, response);
 
-            currentAnalysis.getStepResults().put(AZURE_OPENAI_ANALYZER, response);
+                    return currentAnalysis;
+                })
+                .whenComplete((analysis, error) -> {
+                    if (error != null) {
+                        log.error("Error processing document with OpenAI: {}", error.getMessage(), error);
+                    }
+                });
+    }
 
-            return currentAnalysis;
+    /**
+     * Only documents of a batch whose whole content fits in one small prompt are packed; anything larger
+     * gains little from sharing a completion and would crowd the other documents out of the pack.
+     */
+    private boolean isPackable(DocumentAnalysis analysis, String fieldList, Chunk chunk) {
+        return packing && analysis.getBatchId() != null
+                && chunk.tokens() + tokenCounter.count(fieldList) <= packingMaxDocumentTokens;
+    }
 
-        } catch (Exception e) {
-            log.error("Error processing document with OpenAI: {}", e.getMessage(), e);
-            throw e;
+    private CompletableFuture<Optional<JsonNode>> extract(DocumentType documentType, JobClass jobClass, String deployment,
+                                                          String fieldList, Chunk chunk, int overheadTokens) {
+        String formattedPrompt = String.format(azureOpenAIPrompt, fieldList, chunk.text());
+        int promptTokens = overheadTokens + chunk.tokens();
+        return complete(documentType, jobClass, deployment, formattedPrompt, promptTokens + completionTokensEstimate)
+                .thenApply(completion -> {
+                    if (completion.isEmpty()) {
+                        metrics.recordInvalidJson(documentType);
+                        return Optional.empty();
+                    }
+                    metrics.recordTokens(documentType, promptTokens, completion.get().tokens());
+                    return Optional.of(completion.get().content());
+                });
+    }
+
+    private CompletableFuture<Optional<JsonNode>> extract(PackedDocument document) {
+        Chunk chunk = new Chunk(document.content(), tokenCounter.count(document.content()));
+        return extract(document.documentType(), schedulingPolicy.classifyShared(document.documentType()),
+                document.deployment(), document.fieldList(), chunk, promptOverheadTokens.get(document.documentType()));
+    }
+
+    /**
+     * Extracts several documents with one completion. Each document gets its own section in the prompt and
+     * the model answers with one object per section id, which is split back per document. Documents whose
+     * section is missing from the answer, or all of them if the answer is not valid JSON, are extracted
+     * on their own instead. Tokens are recorded per document: its own section, and its share of the answer.
+     */
+    private CompletableFuture<List<Optional<JsonNode>>> extractPack(List<PackedDocument> documents) {
+        if (documents.size() == 1) {
+            return extract(documents.get(0)).thenApply(List::of);
+        }
+        StringBuilder sections = new StringBuilder();
+        int estimatedTokens = packedOverheadTokens;
+        for (int i = 0; i < documents.size(); i++) {
+            PackedDocument document = documents.get(i);
+            sections.append(String.format(packedSection, sectionId(i), document.documentType(),
+                    document.fieldList(), document.content()));
+            estimatedTokens += document.tokens() + completionTokensEstimate;
         }
+        log.info("Extracting {} documents with a single completion", documents.size());
+
+        DocumentType packType = documents.stream().allMatch(document -> document.documentType() == documents.get(0).documentType())
+                ? documents.get(0).documentType() : null;
+        return complete(packType, schedulingPolicy.classifyShared(packType), documents.get(0).deployment(),
+                        String.format(packedPrompt, sections), estimatedTokens)
+                .thenCompose(completion -> {
+                    JsonNode sectionsNode = completion.map(Completion::content).orElse(null);
+                    List<CompletableFuture<Optional<JsonNode>>> results = new ArrayList<>(documents.size());
+                    for (int i = 0; i < documents.size(); i++) {
+                        JsonNode section = sectionsNode != null ? sectionsNode.get(sectionId(i)) : null;
+                        if (section != null && section.isObject()) {
+                            PackedDocument document = documents.get(i);
+                            metrics.recordTokens(document.documentType(), document.tokens(),
+                                    tokenCounter.count(section.toString()));
+                            results.add(CompletableFuture.completedFuture(Optional.of(section)));
+                        } else {
+                            if (sectionsNode == null) {
+                                metrics.recordInvalidJson(documents.get(i).documentType());
+                            }
+                            log.warn("Packed completion has no result for section {}, extracting it on its own", sectionId(i));
+                            results.add(extract(documents.get(i)));
+                        }
+                    }
+                    return CompletableFuture.allOf(results.toArray(CompletableFuture[]::new))
+                            .thenApply(done -> results.stream().map(CompletableFuture::join).toList());
+                });
+    }
+
+    private static String sectionId(int index) {
+        return "documento-" + (index + 1);
+    }
+
+    /**
+     * @param documentType Type the completion extracts, tagging its throttled responses; null for packs of mixed types
+     * @param jobClass     Class the completion waits for the limits under
+     * @return Future completed with the JSON answer and its completion tokens, or empty if the answer was not valid JSON
+     */
+    private CompletableFuture<Optional<Completion>> complete(DocumentType documentType, JobClass jobClass, String deployment,
+                                                             String prompt, int estimatedTokens) {
+        List<ChatRequestMessage> messages = new ArrayList<>();
+        messages.add(new ChatRequestSystemMessage(azureOpenAIContext));
+        messages.add(new ChatRequestUserMessage(prompt));
+
+        Context callContext = documentType != null
+                ? Context.of(PipelineMetrics.DOCUMENT_TYPE_KEY, documentType.name())
+                : Context.empty();
+        if (streaming) {
+            return extractStreaming(jobClass, deployment, messages, estimatedTokens, callContext, 1);
+        }
+        return limiter.executeAsync(jobClass, estimatedTokens,
+                        () -> client.getChatCompletions(
+                                deployment,
+                                new ChatCompletionsOptions(messages)
+                        ).contextWrite(callContext).toFuture())
+                .thenApply(completions -> {
+                    String response = completions.getChoices().get(0).getMessage().getContent()
+                                         .replace("```json", "")
+                                         .replace("```", "");
+                    return readJson(response).map(json -> new Completion(json, completions.getUsage() != null
+                            ? completions.getUsage().getCompletionTokens()
+                            : tokenCounter.count(response)));
+                });
+    }
+
+    /**
+     * Streams the completion through an incremental JSON reader. The stream is cancelled as soon as the root
+     * object closes, so trailing tokens are not generated, or as soon as the output turns out malformed,
+     * in which case the extraction is retried right away up to the configured attempts.
+     */
+    private CompletableFuture<Optional<Completion>> extractStreaming(JobClass jobClass, String deployment,
+                                                                     List<ChatRequestMessage> messages, int estimatedTokens,
+                                                                     Context callContext, int attempt) {
+        return limiter.executeAsync(jobClass, estimatedTokens, () -> {
+                    IncrementalJsonReader reader = new IncrementalJsonReader();
+                    return client.getChatCompletionsStream(deployment, new ChatCompletionsOptions(messages))
+                            .concatMapIterable(ChatCompletions::getChoices)
+                            .mapNotNull(choice -> choice.getDelta() != null ? choice.getDelta().getContent() : null)
+                            .takeUntil(reader::feed)
+                            .then(Mono.fromSupplier(() -> {
+                                if (!reader.isComplete()) {
+                                    throw new MalformedCompletionException("Completion ended before the JSON object was closed");
+                                }
+                                return new Completion(reader.getTree(), tokenCounter.count(reader.getJson()));
+                            }))
+                            .contextWrite(callContext)
+                            .toFuture();
+                })
+                .thenApply(Optional::of)
+                .exceptionallyCompose(error -> {
+                    Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+                    if (!(cause instanceof MalformedCompletionException)) {
+                        return CompletableFuture.failedFuture(cause);
+                    }
+                    if (attempt >= streamingMaxAttempts) {
+                        log.error("AzureAI doesn't return a valid json as expected: {}", cause.getMessage());
+                        return CompletableFuture.completedFuture(Optional.empty());
+                    }
+                    log.warn("Retrying malformed completion (attempt {} of {}): {}", attempt + 1, streamingMaxAttempts, cause.getMessage());
+                    return extractStreaming(jobClass, deployment, messages, estimatedTokens, callContext, attempt + 1);
+                });
+    }
+
+    /**
+     * A valid JSON answer of the model.
+     *
+     * @param content JSON object answered, parsed
+     * @param tokens  Completion tokens, as reported by the service or counted on the streamed answer
+     */
+    private record Completion(JsonNode content, int tokens) {
     }
 
-    private boolean isValidJson(String response) {
+    /**
+     * Parses the answer once; the tree is what the pipeline keeps from here on.
+     */
+    private Optional<JsonNode> readJson(String response) {
         try {
             JsonNode root = mapper.readTree(response);
-            if (root == null || root.isNull()) {
+            if (root == null || root.isNull() || root.isMissingNode()) {
                 log.error("AzureAI response is empty or null.");
-                return false;
+                return Optional.empty();
             }
+            return Optional.of(root);
         } catch (JsonProcessingException e) {
             log.error("AzureAI doesn't return a valid json as expected.");
-            return false;
+            return Optional.empty();
         }
-        return true;
     }
 }
@@ -3,105 +3,281 @@ package com.example.documentintelligence.infrastructure.adapter;
 import com.example.documentintelligence.domain.model.AnalysisStatus;
 import com.example.documentintelligence.domain.model.DocumentAnalysis;
 import com.example.documentintelligence.domain.port.DocumentAnalyzerPort;
+import com.example.documentintelligence.domain.port.DocumentRepositoryPort;
 import com.example.documentintelligence.domain.workflow.DocumentProcessingState;
+import com.example.documentintelligence.domain.workflow.StageGraph;
+import com.example.documentintelligence.infrastructure.metrics.PipelineMetrics;
+import com.example.documentintelligence.infrastructure.pipeline.PipelineProfile;
+import com.example.documentintelligence.infrastructure.pipeline.PipelineProfiles;
+import com.example.documentintelligence.infrastructure.scheduling.ClassifiedExecutor;
+import com.example.documentintelligence.infrastructure.scheduling.SchedulingPolicy;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.beans.factory.NoSuchBeanDefinitionException;
-import org.springframework.context.ApplicationContext;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.stereotype.Component;
 
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
 /**
- * Coordinates the document analysis workflow by managing state transitions and delegating to appropriate analyzers.
- * Uses the State pattern to process documents through multiple analysis steps, with each state being independent
- * and unaware of other states.
+ * Runs the document analysis workflow as a dependency graph of stages, delegating each stage to its analyzer.
+ * A stage starts on the analysis executor as soon as every stage it depends on has completed, so independent
+ * stages run in parallel and the latency of a document is set by its critical path. Which stages a document
+ * runs is decided by the pipeline profile of its type, and stages queue for the executor under the class of
+ * their document, so the stages of large documents do not hold up those of small ones. Steps that wait on a
+ * remote service release the worker thread. The graph is assembled at startup from the stage each analyzer
+ * declares.
+ * A checkpoint is recorded after every successful stage, so an interrupted analysis resumes with the stages
+ * that had not completed yet.
  */
 @Component
 @Slf4j
 public class DocumentAnalyzer {
 
-    private final ApplicationContext context;
-
-    public DocumentAnalyzer(ApplicationContext context) {
-        this.context = context;
-    }
+    private final Map<DocumentProcessingState, DocumentAnalyzerPort> analyzers;
+    private final StageGraph stages;
+    private final ClassifiedExecutor executor;
+    private final DocumentRepositoryPort documentRepository;
+    private final PipelineProfiles profiles;
+    private final PipelineMetrics metrics;
+    private final SchedulingPolicy schedulingPolicy;
 
     /**
-     * Processes a document through all analysis states until completion or failure.
-     * Each state performs its analysis and updates the document analysis object.
-     *
-     * @param documentAnalysis The document analysis to process
-     * @return Updated document analysis with results from all processing steps
+     * @param analyzerBeans Analyzer beans, one per stage
+     * @param stages Workflow graph of the stages the analyzers declare
+     * @param executor Executor the stages are started on
+     * @param documentRepository Repository recording a checkpoint after each stage
+     * @param profiles Pipeline profiles deciding which stages each document type runs
+     * @param metrics Metrics recording the time spent in each stage
+     * @param schedulingPolicy Policy classifying the stages for the executor
      */
-    public DocumentAnalysis analyzeDocument(DocumentAnalysis documentAnalysis) {
-        try {
-            log.info("Starting document analysis for protocol: {}, type: {}", 
-                    documentAnalysis.getProtocol(), documentAnalysis.getDocumentType());
-            
-            DocumentAnalysis analysis = documentAnalysis;
-            while (analysis.getCurrentState() != null && analysis.getStatus() != AnalysisStatus.FAILED) {
-                analysis = executeAnalysisStep(analysis);
-            }
-            
-            log.info("Completed document analysis for protocol: {}, status: {}", 
-                    analysis.getProtocol(), analysis.getStatus());
-            return analysis;
-            
-        } catch (Exception e) {
-            log.error("Error during document analysis for protocol: {}", documentAnalysis.getProtocol(), e);
-            return documentAnalysis.updateStatus(AnalysisStatus.FAILED,
-                    "Unexpected error during analysis: " + e.getMessage());
+    public DocumentAnalyzer(List<DocumentAnalyzerPort> analyzerBeans,
+                            StageGraph stages,
+                            @Qualifier("documentAnalysisExecutor") ClassifiedExecutor executor,
+                            DocumentRepositoryPort documentRepository,
+                            PipelineProfiles profiles,
+                            PipelineMetrics metrics,
+                            SchedulingPolicy schedulingPolicy) {
+        this.analyzers = new EnumMap<>(DocumentProcessingState.class);
+        for (DocumentAnalyzerPort analyzer : analyzerBeans) {
+            analyzers.put(analyzer.stage().state(), analyzer);
         }
+        this.stages = stages;
+        this.executor = executor;
+        this.documentRepository = documentRepository;
+        this.profiles = profiles;
+        this.metrics = metrics;
+        this.schedulingPolicy = schedulingPolicy;
     }
 
     /**
-     * Executes a single analysis step using the current state's analyzer.
+     * Processes a document through all stages of its pipeline until completion or failure.
+     * Each stage performs its analysis and updates the document analysis object.
      *
-     * @param analysis Current document analysis
-     * @return Updated document analysis with results from the current step
+     * @param documentAnalysis The document analysis to process
+     * @return Future completed with the document analysis updated by all processing steps
      */
-    private DocumentAnalysis executeAnalysisStep(DocumentAnalysis analysis) {
+    public CompletableFuture<DocumentAnalysis> analyzeDocument(DocumentAnalysis documentAnalysis) {
+        log.info("Starting document analysis for protocol: {}, type: {}",
+                documentAnalysis.getProtocol(), documentAnalysis.getDocumentType());
+
+        return new WorkflowRun(documentAnalysis, profiles.forType(documentAnalysis.getDocumentType()))
+                .start()
+                .handle((analysis, error) -> {
+                    if (error != null) {
+                        Throwable cause = unwrap(error);
+                        log.error("Error during document analysis for protocol: {}", documentAnalysis.getProtocol(), cause);
+                        return documentAnalysis.updateStatus(AnalysisStatus.FAILED,
+                                "Unexpected error during analysis: " + cause.getMessage());
+                    }
+                    log.info("Completed document analysis for protocol: {}, status: {}, stage timings (ms): {}",
+                            analysis.getProtocol(), analysis.getStatus(), analysis.getStageTimings());
+                    return analysis;
+                });
+    }
+
+    private void checkpoint(DocumentAnalysis analysis) {
         try {
-            DocumentAnalyzerPort analyzer = getAnalyzer(analysis.getCurrentState());
-            DocumentAnalysis updatedAnalysis = analyzer.analyzeDocument(analysis);
-            
-            if (updatedAnalysis.getStatus() != AnalysisStatus.FAILED) {
-                updatedAnalysis.setCurrentState(getNextState(updatedAnalysis.getCurrentState()));
-            }
-            
-            return updatedAnalysis;
-            
-        } catch (Exception e) {
-            log.error("Error in analysis step: {}", analysis.getCurrentState(), e);
-            return analysis.updateStatus(AnalysisStatus.FAILED,
-                    "Error in " + analysis.getCurrentState() + ": " + e.getMessage());
+            documentRepository.checkpoint(analysis);
+        } catch (RuntimeException e) {
+            log.warn("Failed to checkpoint protocol: {} at state {}: {}",
+                    analysis.getProtocol(), analysis.getCurrentState(), e.getMessage());
         }
     }
 
-    /**
-     * Determines the next state in the analysis workflow.
-     *
-     * @param currentState Current processing state
-     * @return Next state or null if processing is complete
-     */
-    private DocumentProcessingState getNextState(DocumentProcessingState currentState) {
-        return currentState == null ? null : currentState.nextState();
+    private static Throwable unwrap(Throwable error) {
+        return error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
     }
 
     /**
-     * Retrieves the appropriate analyzer for the current state.
-     *
-     * @param state Current processing state
-     * @return Analyzer implementation for the current state
-     * @throws IllegalStateException if state is null or analyzer not found
+     * Execution of the graph for one analysis. Stage completions arrive on whichever thread finished the
+     * stage, so all bookkeeping happens holding the run's lock; analyzers themselves run outside of it.
+     * Each stage works on its own copy of the analysis, and its result is merged into the shared analysis
+     * holding the lock once the stage completes, so parallel stages never write to the same objects.
      */
-    private DocumentAnalyzerPort getAnalyzer(DocumentProcessingState state) {
-        if (state == null) {
-            throw new IllegalStateException("Analysis state not set");
+    private final class WorkflowRun {
+
+        private final DocumentAnalysis analysis;
+        private final PipelineProfile profile;
+        private final Set<DocumentProcessingState> running = EnumSet.noneOf(DocumentProcessingState.class);
+        private final CompletableFuture<DocumentAnalysis> completion = new CompletableFuture<>();
+
+        WorkflowRun(DocumentAnalysis analysis, PipelineProfile profile) {
+            this.analysis = analysis;
+            this.profile = profile;
         }
-        
-        try {
-            return context.getBean(state.getQualifierName(), DocumentAnalyzerPort.class);
-        } catch (NoSuchBeanDefinitionException e) {
-            throw new IllegalStateException("No analyzer found for state: " + state, e);
+
+        CompletableFuture<DocumentAnalysis> start() {
+            if (analysis.getCurrentState() == null || analysis.getStatus() == AnalysisStatus.FAILED) {
+                return CompletableFuture.completedFuture(analysis);
+            }
+            synchronized (this) {
+                // Also read through the repository, without the run's lock, while the analysis is pending
+                Map<String, Object> stepResults = new ConcurrentHashMap<>();
+                analysis.getStepResults().forEach((key, value) -> {
+                    if (value != null) {
+                        stepResults.put(key, value);
+                    }
+                });
+                analysis.setStepResults(stepResults);
+                if (analysis.getCompletedStages() == null) {
+                    analysis.setCompletedStages(EnumSet.noneOf(DocumentProcessingState.class));
+                }
+                for (DocumentProcessingState state : stages.order()) {
+                    if (!profile.runs(state)) {
+                        analysis.getCompletedStages().add(state);
+                    }
+                }
+                startStages(readyStages());
+            }
+            return completion;
+        }
+
+        /**
+         * Collects the stages whose dependencies have all completed, marking the skipped ones as completed
+         * along the way, and points the current state at the first of them. Must hold the run's lock.
+         */
+        private List<DocumentProcessingState> readyStages() {
+            Set<DocumentProcessingState> completed = analysis.getCompletedStages();
+            List<DocumentProcessingState> ready = new ArrayList<>();
+            boolean skipped;
+            do {
+                skipped = false;
+                for (DocumentProcessingState state : stages.order()) {
+                    if (completed.contains(state) || running.contains(state) || ready.contains(state)
+                            || !stages.isReady(state, completed)) {
+                        continue;
+                    }
+                    if (stages.isSkipped(state, analysis.getStepResults())) {
+                        log.debug("Skipping state {} for protocol: {}", state, analysis.getProtocol());
+                        completed.add(state);
+                        skipped = true;
+                    } else {
+                        ready.add(state);
+                    }
+                }
+            } while (skipped);
+
+            if (!ready.isEmpty()) {
+                analysis.setCurrentState(ready.get(0));
+            } else if (running.isEmpty()) {
+                analysis.setCurrentState(null);
+            }
+            return ready;
+        }
+
+        /**
+         * Must hold the run's lock. Completes the run once no stage is running or left to run.
+         */
+        private void startStages(List<DocumentProcessingState> ready) {
+            // All are marked running first, in case a stage completes on this thread and schedules others
+            running.addAll(ready);
+            Executor stageExecutor = executor.forClass(schedulingPolicy.classify(analysis));
+            for (DocumentProcessingState state : ready) {
+                AtomicLong startedAt = new AtomicLong(System.nanoTime());
+                DocumentAnalysis input = stageInput();
+                CompletableFuture<DocumentAnalysis> stage;
+                try {
+                    stage = CompletableFuture.supplyAsync(() -> {
+                        startedAt.set(System.nanoTime());
+                        return analyzers.get(state).analyzeDocumentAsync(input);
+                    }, stageExecutor).thenCompose(step -> step);
+                } catch (RuntimeException e) {
+                    stage = CompletableFuture.failedFuture(e);
+                }
+                stage.whenComplete((updated, error) -> onStageDone(state, System.nanoTime() - startedAt.get(), updated, error));
+            }
+            if (running.isEmpty()) {
+                completion.complete(analysis);
+            }
+        }
+
+        private synchronized void onStageDone(DocumentProcessingState state, long elapsedNanos,
+                                              DocumentAnalysis updated, Throwable error) {
+            running.remove(state);
+            analysis.getStageTimings().put(state, TimeUnit.NANOSECONDS.toMillis(elapsedNanos));
+            metrics.recordStage(analysis.getDocumentType(), state,
+                    error == null && updated.getStatus() != AnalysisStatus.FAILED, elapsedNanos);
+
+            if (analysis.getStatus() == AnalysisStatus.FAILED) {
+                // Another stage already failed; only wait for the stages still running
+                if (running.isEmpty()) {
+                    completion.complete(analysis);
+                }
+                return;
+            }
+            if (error != null || updated.getStatus() == AnalysisStatus.FAILED) {
+                analysis.setCurrentState(state);
+                if (error != null) {
+                    Throwable cause = unwrap(error);
+                    log.error("Error in analysis step: {}", state, cause);
+                    analysis.updateStatus(AnalysisStatus.FAILED, "Error in " + state + ": " + cause.getMessage());
+                } else {
+                    analysis.updateStatus(AnalysisStatus.FAILED, updated.getErrorMessage());
+                }
+                if (running.isEmpty()) {
+                    completion.complete(analysis);
+                }
+                return;
+            }
+
+            merge(state, updated);
+            analysis.getCompletedStages().add(state);
+            List<DocumentProcessingState> ready = readyStages();
+            checkpoint(analysis);
+            startStages(ready);
+        }
+
+        /**
+         * Copy of the analysis a stage works on, with step results of its own. Must hold the run's lock.
+         */
+        private DocumentAnalysis stageInput() {
+            return analysis.toBuilder()
+                    .stepResults(new HashMap<>(analysis.getStepResults()))
+                    .build();
+        }
+
+        /**
+         * Carries what a completed stage produced over to the shared analysis. Must hold the run's lock.
+         */
+        private void merge(DocumentProcessingState state, DocumentAnalysis updated) {
+            Object result = updated.getStepResults().get(state.getQualifierName());
+            if (result != null) {
+                analysis.getStepResults().put(state.getQualifierName(), result);
+            }
+            if (analysis.getPageCount() == null && updated.getPageCount() != null) {
+                analysis.setPageCount(updated.getPageCount());
+            }
         }
     }
-}
\ No newline at end of file
+}
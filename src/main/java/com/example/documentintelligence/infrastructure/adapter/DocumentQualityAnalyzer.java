@@ -0,0 +1,136 @@
+package com.example.documentintelligence.infrastructure.adapter;
+
+import com.example.documentintelligence.domain.model.DocumentAnalysis;
+import com.example.documentintelligence.domain.port.DocumentAnalyzerPort;
+import com.example.documentintelligence.domain.workflow.AnalysisStage;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Base64;
+import java.util.Iterator;
+import java.util.Set;
+
+import static com.example.documentintelligence.domain.workflow.AnalyzerQualifiers.DOCUMENT_QUALITY_ANALYZER;
+import static com.example.documentintelligence.domain.workflow.DocumentProcessingState.DOCUMENT_QUALITY;
+
+/**
+ * Checks the submitted document itself, in parallel with the layout analysis: its format and, for images,
+ * whether the resolution is high enough for reliable OCR. Only the head of the document is decoded, which
+ * holds the header of every supported format. Findings are recorded as a step result and never fail the
+ * analysis.
+ */
+@Component
+@Qualifier(DOCUMENT_QUALITY_ANALYZER)
+@Slf4j
+public class DocumentQualityAnalyzer implements DocumentAnalyzerPort {
+    // Reads the document only, so it runs alongside the layout analysis
+    public static final AnalysisStage STAGE = new AnalysisStage(DOCUMENT_QUALITY, Set.of(), null, true);
+
+
+    private static final byte[] PDF_HEADER = "%PDF-".getBytes(StandardCharsets.US_ASCII);
+    private static final int BODY_PREFIX_LENGTH = "{\"base64Source\":\"".length();
+    private static final int HEAD_SIZE = 64 * 1024;
+    // Base64 characters encoding HEAD_SIZE bytes
+    private static final int ENCODED_HEAD_SIZE = HEAD_SIZE / 3 * 4;
+
+    private final int minImageSide;
+
+    public DocumentQualityAnalyzer(@Value("${document-analysis.quality.min-image-side:600}") int minImageSide) {
+        this.minImageSide = minImageSide;
+    }
+
+    @Override
+    public AnalysisStage stage() {
+        return STAGE;
+    }
+
+    @Override
+    public DocumentAnalysis analyzeDocument(DocumentAnalysis currentAnalysis) {
+        ObjectNode quality = JsonNodeFactory.instance.objectNode();
+        try {
+            inspect(readHead(currentAnalysis), quality);
+        } catch (IOException | IllegalArgumentException e) {
+            log.warn("Could not inspect document of protocol: {}: {}", currentAnalysis.getProtocol(), e.getMessage());
+            quality.put("format", "unknown");
+        }
+        if (quality.path("lowResolution").asBoolean()) {
+            log.warn("Low resolution image for protocol: {}, {}x{} pixels", currentAnalysis.getProtocol(),
+                    quality.path("width").asInt(), quality.path("height").asInt());
+        }
+        currentAnalysis.getStepResults().put(DOCUMENT_QUALITY_ANALYZER, quality.toString());
+        return currentAnalysis;
+    }
+
+    private void inspect(byte[] head, ObjectNode quality) throws IOException {
+        if (startsWith(head, PDF_HEADER)) {
+            quality.put("format", "pdf");
+            return;
+        }
+        try (ImageInputStream image = ImageIO.createImageInputStream(new ByteArrayInputStream(head))) {
+            Iterator<ImageReader> readers = image == null ? null : ImageIO.getImageReaders(image);
+            if (readers == null || !readers.hasNext()) {
+                quality.put("format", "unknown");
+                return;
+            }
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(image, true, true);
+                int width = reader.getWidth(0);
+                int height = reader.getHeight(0);
+                quality.put("format", reader.getFormatName().toLowerCase());
+                quality.put("width", width);
+                quality.put("height", height);
+                quality.put("lowResolution", Math.min(width, height) < minImageSide);
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    /**
+     * Decodes the first bytes of the document, from the submitted base64 or from the spooled request body.
+     */
+    private static byte[] readHead(DocumentAnalysis analysis) throws IOException {
+        String encoded;
+        if (analysis.getDocumentFile() != null) {
+            try (InputStream body = Files.newInputStream(analysis.getDocumentFile())) {
+                body.skipNBytes(BODY_PREFIX_LENGTH);
+                encoded = new String(body.readNBytes(ENCODED_HEAD_SIZE), StandardCharsets.US_ASCII);
+            }
+        } else if (analysis.getBase64Document() != null) {
+            String document = analysis.getBase64Document();
+            encoded = document.substring(0, Math.min(document.length(), ENCODED_HEAD_SIZE));
+        } else {
+            throw new IOException("document content is not available");
+        }
+        int end = encoded.indexOf('"');
+        if (end >= 0) {
+            encoded = encoded.substring(0, end);
+        }
+        return Base64.getDecoder().decode(encoded.substring(0, encoded.length() - encoded.length() % 4));
+    }
+
+    private static boolean startsWith(byte[] bytes, byte[] prefix) {
+        if (bytes.length < prefix.length) {
+            return false;
+        }
+        for (int i = 0; i < prefix.length; i++) {
+            if (bytes[i] != prefix[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
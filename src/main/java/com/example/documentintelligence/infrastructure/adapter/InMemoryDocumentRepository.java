@@ -1,24 +1,58 @@
 package com.example.documentintelligence.infrastructure.adapter;
 
+import com.example.documentintelligence.domain.model.AnalysisPage;
+import com.example.documentintelligence.domain.model.AnalysisQuery;
+import com.example.documentintelligence.domain.model.AnalysisSnapshot;
+import com.example.documentintelligence.domain.model.AnalysisStatus;
 import com.example.documentintelligence.domain.model.DocumentAnalysis;
 import com.example.documentintelligence.domain.port.DocumentRepositoryPort;
+import com.example.documentintelligence.infrastructure.persistence.BoundedAnalysisStore;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.stereotype.Repository;
 
-import java.util.Map;
+import java.util.List;
 import java.util.Optional;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Predicate;
 
 @Repository
+@ConditionalOnProperty(name = "document-analysis.repository.type", havingValue = "memory", matchIfMissing = true)
+@RequiredArgsConstructor
 public class InMemoryDocumentRepository implements DocumentRepositoryPort {
-    private final Map<String, DocumentAnalysis> storage = new ConcurrentHashMap<>();
+    private final BoundedAnalysisStore storage;
 
     @Override
     public void save(DocumentAnalysis analysis) {
-        storage.put(analysis.getProtocol(), analysis);
+        storage.put(analysis);
     }
 
     @Override
     public Optional<DocumentAnalysis> findByProtocol(String protocol) {
-        return Optional.ofNullable(storage.get(protocol));
+        return storage.get(protocol);
+    }
+
+    @Override
+    public Optional<AnalysisSnapshot> findSnapshot(String protocol) {
+        return storage.getSnapshot(protocol);
+    }
+
+    @Override
+    public List<AnalysisSnapshot> findSnapshotsByBatch(String batchId) {
+        return storage.getBatchSnapshots(batchId);
+    }
+
+    @Override
+    public List<DocumentAnalysis> findByStatus(AnalysisStatus status) {
+        return storage.findAll(status);
+    }
+
+    @Override
+    public List<AnalysisSnapshot> findSnapshots(Predicate<AnalysisSnapshot> filter) {
+        return storage.findSnapshots(filter);
+    }
+
+    @Override
+    public AnalysisPage query(AnalysisQuery query) {
+        return storage.query(query);
     }
 }
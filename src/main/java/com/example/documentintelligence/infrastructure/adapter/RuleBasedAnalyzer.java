@@ -0,0 +1,118 @@
+package com.example.documentintelligence.infrastructure.adapter;
+
+import com.example.documentintelligence.domain.model.DocumentAnalysis;
+import com.example.documentintelligence.domain.model.DocumentType;
+import com.example.documentintelligence.domain.port.DocumentAnalyzerPort;
+import com.example.documentintelligence.domain.workflow.AnalysisStage;
+import com.example.documentintelligence.domain.workflow.DocumentProcessingState;
+import com.example.documentintelligence.infrastructure.extraction.RuleBasedExtractor;
+import com.example.documentintelligence.infrastructure.extraction.RuleBasedExtractor.Extraction;
+import com.example.documentintelligence.infrastructure.pipeline.PipelineProfiles;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.LongAdder;
+
+import static com.example.documentintelligence.domain.workflow.AnalyzerQualifiers.AZURE_DOCUMENT_INTELLIGENCE_ANALYZER;
+import static com.example.documentintelligence.domain.workflow.AnalyzerQualifiers.RULE_BASED_ANALYZER;
+import static com.example.documentintelligence.domain.workflow.DocumentProcessingState.AZURE_DOCUMENT_INTELLIGENCE;
+import static com.example.documentintelligence.domain.workflow.DocumentProcessingState.RULE_BASED_EXTRACTION;
+
+/**
+ * Deterministic extraction between the layout and the LLM stages. When the rules of the document type fill
+ * every field, the result is recorded and the OpenAI extraction is skipped; otherwise nothing is recorded
+ * and the document goes on to the LLM untouched, unless the profile of its type has no LLM stage. Hits and misses are counted per document type.
+ */
+@Component
+@Qualifier(RULE_BASED_ANALYZER)
+@Slf4j
+public class RuleBasedAnalyzer implements DocumentAnalyzerPort {
+    public static final AnalysisStage STAGE = new AnalysisStage(RULE_BASED_EXTRACTION,
+            Set.of(AZURE_DOCUMENT_INTELLIGENCE), null, false);
+
+
+    private final RuleBasedExtractor extractor;
+    private final PipelineProfiles profiles;
+    private final boolean enabled;
+    private final Timer duration;
+    private final Map<DocumentType, Counter> hits = new EnumMap<>(DocumentType.class);
+    private final Map<DocumentType, Counter> misses = new EnumMap<>(DocumentType.class);
+    private final LongAdder totalHits = new LongAdder();
+    private final LongAdder totalAttempts = new LongAdder();
+
+    public RuleBasedAnalyzer(RuleBasedExtractor extractor,
+                             PipelineProfiles profiles,
+                             @Value("${document-analysis.rules.enabled:true}") boolean enabled,
+                             MeterRegistry meterRegistry) {
+        this.extractor = extractor;
+        this.profiles = profiles;
+        this.enabled = enabled;
+        this.duration = Timer.builder("document.extraction.rules.duration")
+                .description("Time spent applying extraction rules to a document")
+                .register(meterRegistry);
+        for (DocumentType type : DocumentType.values()) {
+            if (extractor.supports(type)) {
+                hits.put(type, rulesCounter(meterRegistry, type, "hit"));
+                misses.put(type, rulesCounter(meterRegistry, type, "miss"));
+            }
+        }
+        Gauge.builder("document.extraction.rules.hit-ratio", this, RuleBasedAnalyzer::getHitRatio)
+                .description("Share of documents of rule-covered types whose LLM extraction was skipped")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public AnalysisStage stage() {
+        return STAGE;
+    }
+
+    @Override
+    public DocumentAnalysis analyzeDocument(DocumentAnalysis currentAnalysis) {
+        DocumentType documentType = currentAnalysis.getDocumentType();
+        if (!enabled || !extractor.supports(documentType)
+                || !(currentAnalysis.getStepResults().get(AZURE_DOCUMENT_INTELLIGENCE_ANALYZER) instanceof String content)) {
+            return currentAnalysis;
+        }
+
+        Extraction extraction = duration.record(() -> extractor.extract(documentType, content));
+        totalAttempts.increment();
+        if (extraction.isComplete()) {
+            hits.get(documentType).increment();
+            totalHits.increment();
+            log.info("Rules filled every field of {} document {}, skipping the LLM extraction",
+                    documentType, currentAnalysis.getProtocol());
+            currentAnalysis.getStepResults().put(RULE_BASED_ANALYZER, extraction.json());
+        } else {
+            misses.get(documentType).increment();
+            log.debug("Rules filled {} of {} fields of {} document {}", extraction.filled(), extraction.total(),
+                    documentType, currentAnalysis.getProtocol());
+            if (!profiles.forType(documentType).runs(DocumentProcessingState.AZURE_OPENAI)) {
+                // No LLM stage follows, so the partial extraction is the result
+                currentAnalysis.getStepResults().put(RULE_BASED_ANALYZER, extraction.json());
+            }
+        }
+        return currentAnalysis;
+    }
+
+    public double getHitRatio() {
+        long attempts = totalAttempts.sum();
+        return attempts == 0 ? 0 : (double) totalHits.sum() / attempts;
+    }
+
+    private static Counter rulesCounter(MeterRegistry meterRegistry, DocumentType type, String result) {
+        return Counter.builder("document.extraction.rules")
+                .description("Documents run through the extraction rules, by outcome")
+                .tag("documentType", type.name())
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+}
@@ -0,0 +1,111 @@
+package com.example.documentintelligence.infrastructure.api;
+
+import com.example.documentintelligence.domain.model.AnalysisSnapshot;
+import com.example.documentintelligence.domain.model.AnalysisStatus;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.AbstractHttpMessageConverter;
+import org.springframework.http.converter.HttpMessageNotReadableException;
+import org.springframework.http.converter.HttpMessageNotWritableException;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Writes analysis snapshots, including long-poll answers and server-sent events, as JSON with the application's
+ * object mapper. The JSON of a pending analysis is serialized once per snapshot version and kept for the most
+ * recently polled analyses, so polling clients are served the same bytes until the analysis changes. Finished
+ * analyses are serialized on every read instead: they are read rarely, and their JSON holds the uncompressed
+ * step results the analysis store keeps deflated. Registered ahead of the default Jackson converter.
+ */
+@Component
+public class AnalysisSnapshotConverter extends AbstractHttpMessageConverter<AnalysisSnapshot> {
+
+    private final ObjectMapper objectMapper;
+    private final int maxEntries;
+    // JSON of pending analyses by protocol, least recently read first
+    private final Map<String, CachedJson> pending;
+
+    public AnalysisSnapshotConverter(ObjectMapper objectMapper,
+                                     @Value("${document-analysis.snapshot-json.max-entries:1000}") int maxEntries) {
+        super(MediaType.APPLICATION_JSON);
+        this.objectMapper = objectMapper;
+        this.maxEntries = maxEntries;
+        this.pending = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, CachedJson> eldest) {
+                return size() > AnalysisSnapshotConverter.this.maxEntries;
+            }
+        };
+    }
+
+    @Override
+    protected boolean supports(Class<?> clazz) {
+        return AnalysisSnapshot.class == clazz;
+    }
+
+    @Override
+    public boolean canRead(Class<?> clazz, MediaType mediaType) {
+        return false;
+    }
+
+    @Override
+    protected AnalysisSnapshot readInternal(Class<? extends AnalysisSnapshot> clazz, HttpInputMessage inputMessage) {
+        throw new HttpMessageNotReadableException("Analysis snapshots are read-only", inputMessage);
+    }
+
+    /**
+     * Only the cached JSON of a pending analysis has a known length; finished ones are written chunked, so
+     * they are serialized once per read.
+     */
+    @Override
+    protected Long getContentLength(AnalysisSnapshot snapshot, MediaType contentType) {
+        return snapshot.getStatus() == AnalysisStatus.PENDING ? (long) toJson(snapshot).length : null;
+    }
+
+    @Override
+    protected void writeInternal(AnalysisSnapshot snapshot, HttpOutputMessage outputMessage) throws IOException {
+        outputMessage.getBody().write(toJson(snapshot));
+    }
+
+    private byte[] toJson(AnalysisSnapshot snapshot) {
+        if (snapshot.getStatus() != AnalysisStatus.PENDING) {
+            synchronized (this) {
+                pending.remove(snapshot.getProtocol());
+            }
+            return serialize(snapshot);
+        }
+        synchronized (this) {
+            CachedJson cached = pending.get(snapshot.getProtocol());
+            if (cached != null && cached.version() == snapshot.getVersion()) {
+                return cached.json();
+            }
+        }
+        // Serialized outside the lock; concurrent first reads of a version may both serialize it
+        byte[] json = serialize(snapshot);
+        synchronized (this) {
+            CachedJson cached = pending.get(snapshot.getProtocol());
+            if (cached == null || cached.version() < snapshot.getVersion()) {
+                pending.put(snapshot.getProtocol(), new CachedJson(snapshot.getVersion(), json));
+            }
+        }
+        return json;
+    }
+
+    private byte[] serialize(AnalysisSnapshot snapshot) {
+        try {
+            return objectMapper.writeValueAsBytes(snapshot);
+        } catch (JsonProcessingException e) {
+            throw new HttpMessageNotWritableException("Unable to serialize analysis " + snapshot.getProtocol(), e);
+        }
+    }
+
+    private record CachedJson(long version, byte[] json) {
+    }
+}
@@ -1,17 +1,48 @@
 package com.example.documentintelligence.infrastructure.api;
 
+import com.example.documentintelligence.application.AnalysisNotifier;
+import com.example.documentintelligence.application.DocumentReprocessor;
 import com.example.documentintelligence.application.DocumentService;
-import com.example.documentintelligence.domain.model.DocumentAnalysis;
+import com.example.documentintelligence.domain.model.AnalysisPage;
+import com.example.documentintelligence.domain.model.AnalysisQuery;
+import com.example.documentintelligence.domain.model.AnalysisSnapshot;
+import com.example.documentintelligence.domain.model.AnalysisStatus;
+import com.example.documentintelligence.domain.model.BatchSnapshot;
+import com.example.documentintelligence.domain.model.BatchSubmission;
+import com.example.documentintelligence.domain.model.DocumentSubmission;
+import com.example.documentintelligence.domain.model.DocumentType;
+import com.example.documentintelligence.domain.model.InvalidRequestException;
+import com.example.documentintelligence.domain.model.ReprocessingCriteria;
+import com.example.documentintelligence.domain.model.ReprocessingSnapshot;
+import com.example.documentintelligence.infrastructure.api.dto.BatchResponse;
+import com.example.documentintelligence.infrastructure.api.dto.BatchSubmissionRequest;
 import com.example.documentintelligence.infrastructure.api.dto.DocumentSubmissionRequest;
 import com.example.documentintelligence.infrastructure.api.dto.ProtocolResponse;
+import com.example.documentintelligence.infrastructure.api.dto.ReprocessingRequest;
 import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.async.DeferredResult;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.EnumSet;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
 
 @RestController
 @RequestMapping("/api/documents")
@@ -20,6 +51,20 @@ import org.springframework.web.bind.annotation.*;
 public class DocumentController {
 
     private final DocumentService documentService;
+    private final AnalysisNotifier analysisNotifier;
+    private final DocumentReprocessor documentReprocessor;
+
+    @Value("${document-analysis.notifications.max-wait:PT60S}")
+    private Duration maxWait;
+
+    @Value("${document-analysis.notifications.sse-timeout:PT10M}")
+    private Duration sseTimeout;
+
+    @Value("${document-analysis.query.max-limit:500}")
+    private int maxQueryLimit;
+
+    @Value("${document-analysis.upload.max-bytes:52428800}")
+    private long maxUploadBytes;
 
     @PostMapping("/analyze")
     @Operation(summary = "Submit a document for analysis",
@@ -27,7 +72,8 @@ public class DocumentController {
                     "Returns a protocol that can be used to check the analysis status and results.")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "Document submitted successfully for analysis"),
-            @ApiResponse(responseCode = "400", description = "Invalid request")
+            @ApiResponse(responseCode = "400", description = "Invalid request"),
+            @ApiResponse(responseCode = "429", description = "Analysis queue is full, retry after the delay in the Retry-After header")
     })
     public ResponseEntity<ProtocolResponse> submitDocument(
             @Valid @RequestBody DocumentSubmissionRequest request) {
@@ -38,6 +84,69 @@ public class DocumentController {
         return ResponseEntity.ok(new ProtocolResponse(protocol));
     }
 
+    @PostMapping("/analyze/batch")
+    @Operation(summary = "Submit a batch of documents for analysis",
+            description = "Submits up to 100 documents in base64 format for async analysis and validation. " +
+                    "Returns a batch id to check the status of the whole batch, and a protocol per document in the order submitted.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Batch submitted successfully for analysis"),
+            @ApiResponse(responseCode = "400", description = "Invalid request"),
+            @ApiResponse(responseCode = "429", description = "Analysis queue cannot take the whole batch, retry after the delay in the Retry-After header")
+    })
+    public ResponseEntity<BatchResponse> submitBatch(
+            @Valid @RequestBody BatchSubmissionRequest request) {
+        BatchSubmission batch = documentService.submitBatch(request.getDocuments().stream()
+                .map(document -> new DocumentSubmission(document.getBase64Document(), document.getDocumentType()))
+                .toList());
+        return ResponseEntity.ok(new BatchResponse(batch.batchId(), batch.protocols()));
+    }
+
+    @PostMapping(value = "/analyze/upload", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    @Operation(summary = "Upload a document file for analysis",
+            description = "Submits a document as the multipart part \"file\" for async analysis and validation. " +
+                    "The document type is given as a query parameter or as a \"documentType\" part sent before the file. " +
+                    "The file is streamed to disk as it arrives instead of being held in memory. " +
+                    "Returns a protocol that can be used to check the analysis status and results.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Document submitted successfully for analysis"),
+            @ApiResponse(responseCode = "400", description = "Invalid request"),
+            @ApiResponse(responseCode = "413", description = "File is larger than the upload limit"),
+            @ApiResponse(responseCode = "429", description = "Analysis queue is full, retry after the delay in the Retry-After header")
+    })
+    public ResponseEntity<ProtocolResponse> uploadDocument(
+            @RequestParam(value = "documentType", required = false) DocumentType documentType,
+            @Parameter(hidden = true) HttpServletRequest request) throws IOException {
+        MultipartReader reader = new MultipartReader(request.getInputStream(), request.getContentType(), maxUploadBytes);
+        for (MultipartReader.Part part = reader.next(); part != null; part = reader.next()) {
+            if ("documentType".equals(part.name())) {
+                documentType = documentType(part.text());
+            } else if ("file".equals(part.name())) {
+                if (documentType == null) {
+                    throw new InvalidRequestException("documentType must be given before the file part");
+                }
+                return ResponseEntity.ok(new ProtocolResponse(documentService.submitDocument(part.content(), documentType)));
+            }
+        }
+        throw new InvalidRequestException("Multipart request has no file part");
+    }
+
+    @PostMapping(value = "/analyze/upload", consumes = MediaType.APPLICATION_OCTET_STREAM_VALUE)
+    @Operation(summary = "Stream a document for analysis",
+            description = "Submits the raw document bytes as the request body for async analysis and validation. " +
+                    "The body is streamed to disk instead of being held in memory. " +
+                    "Returns a protocol that can be used to check the analysis status and results.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Document submitted successfully for analysis"),
+            @ApiResponse(responseCode = "400", description = "Invalid request"),
+            @ApiResponse(responseCode = "413", description = "Body is larger than the upload limit"),
+            @ApiResponse(responseCode = "429", description = "Analysis queue is full, retry after the delay in the Retry-After header")
+    })
+    public ResponseEntity<ProtocolResponse> streamDocument(
+            @RequestParam("documentType") DocumentType documentType,
+            InputStream content) {
+        return ResponseEntity.ok(new ProtocolResponse(documentService.submitDocument(content, documentType)));
+    }
+
     @GetMapping("/analysis/{protocol}")
     @Operation(summary = "Get analysis results",
             description = "Retrieves the analysis results for a given protocol. The analysis may be in one of three states: " +
@@ -46,10 +155,186 @@ public class DocumentController {
             @ApiResponse(responseCode = "200", description = "Analysis results retrieved successfully"),
             @ApiResponse(responseCode = "404", description = "Protocol not found")
     })
-    public ResponseEntity<DocumentAnalysis> getAnalysisResult(
+    public ResponseEntity<AnalysisSnapshot> getAnalysisResult(
             @PathVariable String protocol) {
-        DocumentAnalysis analysisResult = documentService.getAnalysisResult(protocol);
-        analysisResult.setBase64Document(null);
-        return ResponseEntity.ok(analysisResult);
+        return documentService.getAnalysisSnapshot(protocol)
+                .map(ResponseEntity::ok)
+                .orElseGet(() -> ResponseEntity.notFound().build());
+    }
+
+    @GetMapping("/analysis")
+    @Operation(summary = "Query analyses",
+            description = "Lists analyses newest first, optionally filtered by status, document type and analysis date range " +
+                    "(from inclusive, to exclusive). Returns summaries without extracted data or step results, one page at a time: " +
+                    "pass the returned nextCursor to get the next page. Page size is capped by the server.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Page of analyses retrieved successfully"),
+            @ApiResponse(responseCode = "400", description = "Invalid filter or cursor")
+    })
+    public ResponseEntity<AnalysisPage> queryAnalyses(
+            @RequestParam(required = false) AnalysisStatus status,
+            @RequestParam(required = false) DocumentType documentType,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "50") int limit) {
+        int pageSize = limit > maxQueryLimit || limit < 1 ? maxQueryLimit : limit;
+        return ResponseEntity.ok(documentService.queryAnalyses(
+                new AnalysisQuery(status, documentType, from, to, cursor, pageSize)));
+    }
+
+    @GetMapping("/batch/{batchId}")
+    @Operation(summary = "Get batch results",
+            description = "Retrieves the status and results of every document of a batch. The batch is PENDING while any " +
+                    "document is, FAILED if every document failed, and COMPLETED otherwise.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Batch results retrieved successfully"),
+            @ApiResponse(responseCode = "404", description = "Batch not found")
+    })
+    public ResponseEntity<BatchSnapshot> getBatchResult(
+            @PathVariable String batchId) {
+        return documentService.getBatchSnapshot(batchId)
+                .map(ResponseEntity::ok)
+                .orElseGet(() -> ResponseEntity.notFound().build());
+    }
+
+    @GetMapping("/analysis/{protocol}/wait")
+    @Operation(summary = "Wait for analysis results",
+            description = "Long-poll variant of the analysis query. Answers as soon as the analysis is COMPLETED or FAILED, " +
+                    "or with the current PENDING state once the timeout (an ISO-8601 duration, capped by the server) elapses.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Analysis finished, or timeout elapsed while still pending"),
+            @ApiResponse(responseCode = "404", description = "Protocol not found")
+    })
+    public DeferredResult<ResponseEntity<AnalysisSnapshot>> waitForAnalysisResult(
+            @PathVariable String protocol,
+            @RequestParam(defaultValue = "PT30S") Duration timeout) {
+        Duration wait = timeout.compareTo(maxWait) > 0 || timeout.isNegative() ? maxWait : timeout;
+        DeferredResult<ResponseEntity<AnalysisSnapshot>> result = new DeferredResult<>(wait.toMillis());
+
+        Runnable unsubscribe = analysisNotifier.subscribe(protocol, snapshot -> {
+            if (isFinished(snapshot)) {
+                result.setResult(ResponseEntity.ok(snapshot));
+            }
+        });
+        result.onCompletion(unsubscribe);
+        result.onTimeout(() -> result.setResult(snapshotResponse(documentService.getAnalysisSnapshot(protocol))));
+
+        Optional<AnalysisSnapshot> current = documentService.getAnalysisSnapshot(protocol);
+        if (current.isEmpty() || isFinished(current.get())) {
+            result.setResult(snapshotResponse(current));
+        }
+        return result;
+    }
+
+    @GetMapping(value = "/analysis/{protocol}/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    @Operation(summary = "Stream analysis progress",
+            description = "Server-Sent Events stream of the analysis: the current state first, then a 'state' event for each " +
+                    "processing state transition and a final 'completed' or 'failed' event, after which the stream closes. " +
+                    "Event ids are snapshot versions.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Event stream opened"),
+            @ApiResponse(responseCode = "404", description = "Protocol not found")
+    })
+    public ResponseEntity<SseEmitter> streamAnalysisEvents(@PathVariable String protocol) {
+        SseEmitter emitter = new SseEmitter(sseTimeout.toMillis());
+        AtomicLong lastVersion = new AtomicLong();
+        Consumer<AnalysisSnapshot> sender = snapshot -> {
+            synchronized (emitter) {
+                if (snapshot.getVersion() <= lastVersion.get()) {
+                    return;
+                }
+                lastVersion.set(snapshot.getVersion());
+                try {
+                    emitter.send(SseEmitter.event()
+                            .id(Long.toString(snapshot.getVersion()))
+                            .name(isFinished(snapshot) ? snapshot.getStatus().name().toLowerCase() : "state")
+                            .data(snapshot, MediaType.APPLICATION_JSON));
+                    if (isFinished(snapshot)) {
+                        emitter.complete();
+                    }
+                } catch (IOException | IllegalStateException e) {
+                    emitter.completeWithError(e);
+                }
+            }
+        };
+
+        Runnable unsubscribe = analysisNotifier.subscribe(protocol, sender);
+        emitter.onCompletion(unsubscribe);
+        emitter.onError(error -> unsubscribe.run());
+
+        Optional<AnalysisSnapshot> current = documentService.getAnalysisSnapshot(protocol);
+        if (current.isEmpty()) {
+            unsubscribe.run();
+            return ResponseEntity.notFound().build();
+        }
+        sender.accept(current.get());
+        return ResponseEntity.ok(emitter);
+    }
+
+    @PostMapping("/reprocessing")
+    @Operation(summary = "Reprocess finished analyses",
+            description = "Runs a processing state and every state downstream of it again over the finished analyses matching " +
+                    "the filters, reusing the stored results of the states before it, such as the Document Intelligence layout. " +
+                    "Use it to apply prompt or field changes without resubmitting documents. Runs in the background; " +
+                    "returns a job whose progress can be queried.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "202", description = "Reprocessing job started"),
+            @ApiResponse(responseCode = "400", description = "Invalid request, or the state reads the document, which is not kept")
+    })
+    public ResponseEntity<ReprocessingSnapshot> startReprocessing(
+            @Valid @RequestBody ReprocessingRequest request) {
+        ReprocessingSnapshot job = documentReprocessor.start(new ReprocessingCriteria(
+                request.getFromState(),
+                request.getDocumentType(),
+                request.getStatuses() == null || request.getStatuses().isEmpty()
+                        ? EnumSet.of(AnalysisStatus.COMPLETED, AnalysisStatus.FAILED)
+                        : EnumSet.copyOf(request.getStatuses()),
+                request.getAnalyzedFrom(),
+                request.getAnalyzedTo()));
+        return ResponseEntity.accepted().body(job);
+    }
+
+    @GetMapping("/reprocessing/{jobId}")
+    @Operation(summary = "Get reprocessing progress",
+            description = "Retrieves how many analyses of a reprocessing job are running, completed, failed or skipped.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Reprocessing progress retrieved successfully"),
+            @ApiResponse(responseCode = "404", description = "Job not found")
+    })
+    public ResponseEntity<ReprocessingSnapshot> getReprocessing(@PathVariable String jobId) {
+        return documentReprocessor.getJob(jobId)
+                .map(ResponseEntity::ok)
+                .orElseGet(() -> ResponseEntity.notFound().build());
+    }
+
+    @DeleteMapping("/reprocessing/{jobId}")
+    @Operation(summary = "Cancel reprocessing",
+            description = "Stops a reprocessing job from starting more analyses. Analyses already running finish normally; " +
+                    "the ones not started are counted as skipped.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Job cancelled"),
+            @ApiResponse(responseCode = "404", description = "Job not found")
+    })
+    public ResponseEntity<ReprocessingSnapshot> cancelReprocessing(@PathVariable String jobId) {
+        return documentReprocessor.cancel(jobId)
+                .map(ResponseEntity::ok)
+                .orElseGet(() -> ResponseEntity.notFound().build());
+    }
+
+    private static DocumentType documentType(String name) {
+        try {
+            return DocumentType.valueOf(name);
+        } catch (IllegalArgumentException e) {
+            throw new InvalidRequestException("Unknown documentType: " + name);
+        }
+    }
+
+    private static ResponseEntity<AnalysisSnapshot> snapshotResponse(Optional<AnalysisSnapshot> snapshot) {
+        return snapshot.map(ResponseEntity::ok).orElseGet(() -> ResponseEntity.notFound().build());
+    }
+
+    private static boolean isFinished(AnalysisSnapshot snapshot) {
+        return snapshot.getStatus() != AnalysisStatus.PENDING;
     }
 }
@@ -0,0 +1,223 @@
+package com.example.documentintelligence.infrastructure.api;
+
+import com.example.documentintelligence.domain.model.InvalidRequestException;
+import org.springframework.web.multipart.MaxUploadSizeExceededException;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Reads a {@code multipart/form-data} body one part at a time straight from the request stream, so an
+ * uploaded file reaches the document spool as it arrives instead of first being copied to a container
+ * temporary file. Each part must be read, or skipped by moving to the next one, in body order.
+ */
+final class MultipartReader {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final int MAX_HEADER_BYTES = 8 * 1024;
+    private static final Pattern BOUNDARY = Pattern.compile("(?i)boundary=(?:\"([^\"]+)\"|([^;\\s]+))");
+    private static final Pattern NAME = Pattern.compile("(?i)(?:^|;)\\s*name=\"([^\"]*)\"");
+
+    private final InputStream in;
+    private final byte[] delimiter;
+    private final long maxPartBytes;
+    private final byte[] buffer;
+    private int head;
+    private int tail;
+    // No delimiter starts in the buffer before this index, so searches resume from it
+    private int searchFrom;
+    private boolean eof;
+    private PartStream current;
+    private boolean finished;
+
+    /**
+     * @param in           Request body
+     * @param contentType  Content type of the request, carrying the boundary
+     * @param maxPartBytes Largest part accepted
+     * @throws InvalidRequestException if the content type has no boundary
+     */
+    MultipartReader(InputStream in, String contentType, long maxPartBytes) {
+        Matcher boundary = BOUNDARY.matcher(contentType == null ? "" : contentType);
+        if (!boundary.find()) {
+            throw new InvalidRequestException("Multipart request has no boundary");
+        }
+        this.in = in;
+        this.delimiter = ("\r\n--" + (boundary.group(1) != null ? boundary.group(1) : boundary.group(2)))
+                .getBytes(StandardCharsets.ISO_8859_1);
+        this.maxPartBytes = maxPartBytes;
+        this.buffer = new byte[BUFFER_SIZE + delimiter.length];
+        // The first boundary has no line break before it; starting with one lets it match like the others
+        buffer[0] = '\r';
+        buffer[1] = '\n';
+        this.tail = 2;
+    }
+
+    /**
+     * Skips what is left of the current part and moves to the next one.
+     *
+     * @return The next part, null after the last one
+     * @throws IOException if the body cannot be read or ends before its closing boundary
+     */
+    Part next() throws IOException {
+        if (finished) {
+            return null;
+        }
+        // The preamble before the first boundary is skipped like the rest of a part
+        PartStream skipped = current != null ? current : new PartStream(Long.MAX_VALUE);
+        skipped.transferTo(OutputStream.nullOutputStream());
+        int first = readByte();
+        int second = readByte();
+        if (first == '-' && second == '-') {
+            finished = true;
+            return null;
+        }
+        if (first != '\r' || second != '\n') {
+            throw new IOException("Malformed multipart boundary");
+        }
+        String name = null;
+        int headerBytes = 0;
+        for (String line = readLine(); !line.isEmpty(); line = readLine()) {
+            headerBytes += line.length();
+            if (headerBytes > MAX_HEADER_BYTES) {
+                throw new IOException("Multipart part headers are too large");
+            }
+            int colon = line.indexOf(':');
+            if (colon > 0 && line.substring(0, colon).trim().equalsIgnoreCase("Content-Disposition")) {
+                Matcher matcher = NAME.matcher(line.substring(colon + 1));
+                name = matcher.find() ? matcher.group(1) : null;
+            }
+        }
+        current = new PartStream(maxPartBytes);
+        return new Part(name, current);
+    }
+
+    /**
+     * @param name    Form field name of the part, null if it has none
+     * @param content Body of the part, ending at the next boundary
+     */
+    record Part(String name, InputStream content) {
+
+        /**
+         * Reads a small text field.
+         */
+        String text() throws IOException {
+            return new String(content.readNBytes(MAX_HEADER_BYTES), StandardCharsets.UTF_8).trim();
+        }
+    }
+
+    private String readLine() throws IOException {
+        StringBuilder line = new StringBuilder();
+        for (int b = readByte(); b != '\n'; b = readByte()) {
+            if (line.length() > MAX_HEADER_BYTES) {
+                throw new IOException("Multipart part headers are too large");
+            }
+            if (b != '\r') {
+                line.append((char) b);
+            }
+        }
+        return line.toString();
+    }
+
+    private int readByte() throws IOException {
+        if (head == tail && !fill()) {
+            throw new EOFException("Multipart body ended before its closing boundary");
+        }
+        return buffer[head++] & 0xff;
+    }
+
+    /**
+     * Reads more of the body after the buffered bytes, compacting the buffer first.
+     *
+     * @return Whether anything was read
+     */
+    private boolean fill() throws IOException {
+        if (eof) {
+            return false;
+        }
+        if (head > 0) {
+            System.arraycopy(buffer, head, buffer, 0, tail - head);
+            tail -= head;
+            searchFrom = Math.max(0, searchFrom - head);
+            head = 0;
+        }
+        int read = in.read(buffer, tail, buffer.length - tail);
+        if (read < 0) {
+            eof = true;
+            return false;
+        }
+        tail += read;
+        return true;
+    }
+
+    private int indexOfDelimiter() {
+        outer:
+        for (int i = Math.max(head, searchFrom); i <= tail - delimiter.length; i++) {
+            for (int j = 0; j < delimiter.length; j++) {
+                if (buffer[i + j] != delimiter[j]) {
+                    continue outer;
+                }
+            }
+            return i;
+        }
+        searchFrom = Math.max(head, tail - delimiter.length + 1);
+        return -1;
+    }
+
+    /**
+     * Body of one part: the buffered bytes up to the next delimiter. Bytes that could be the start of a
+     * delimiter split across reads are held back until more of the body arrives.
+     */
+    private final class PartStream extends InputStream {
+
+        private final long maxBytes;
+        private long read;
+        private boolean done;
+
+        PartStream(long maxBytes) {
+            this.maxBytes = maxBytes;
+        }
+
+        @Override
+        public int read() throws IOException {
+            byte[] single = new byte[1];
+            return read(single, 0, 1) < 0 ? -1 : single[0] & 0xff;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            if (done) {
+                return -1;
+            }
+            if (len == 0) {
+                return 0;
+            }
+            while (true) {
+                int found = indexOfDelimiter();
+                int available = found >= 0 ? found - head : tail - head - (delimiter.length - 1);
+                if (found == head) {
+                    head += delimiter.length;
+                    done = true;
+                    return -1;
+                }
+                if (available > 0) {
+                    int count = Math.min(len, available);
+                    read += count;
+                    if (read > maxBytes) {
+                        throw new MaxUploadSizeExceededException(maxBytes);
+                    }
+                    System.arraycopy(buffer, head, b, off, count);
+                    head += count;
+                    return count;
+                }
+                if (!fill()) {
+                    throw new EOFException("Multipart body ended before its closing boundary");
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,13 @@
+package com.example.documentintelligence.infrastructure.api.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+public class BatchResponse {
+    private String batchId;
+    private List<String> protocols;
+}
@@ -0,0 +1,15 @@
+package com.example.documentintelligence.infrastructure.api.dto;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+public class BatchSubmissionRequest {
+    @NotEmpty(message = "At least one document is required")
+    @Size(max = 100, message = "A batch holds at most 100 documents")
+    private List<@Valid DocumentSubmissionRequest> documents;
+}
@@ -0,0 +1,27 @@
+package com.example.documentintelligence.infrastructure.api.dto;
+
+import com.example.documentintelligence.domain.model.AnalysisStatus;
+import com.example.documentintelligence.domain.model.DocumentType;
+import com.example.documentintelligence.domain.workflow.DocumentProcessingState;
+import jakarta.validation.constraints.NotNull;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+import java.util.Set;
+
+@Data
+public class ReprocessingRequest {
+    @NotNull(message = "Stage to reprocess from is required")
+    private DocumentProcessingState fromState;
+
+    private DocumentType documentType;
+
+    /**
+     * Statuses of the analyses to reprocess; COMPLETED and FAILED when empty.
+     */
+    private Set<AnalysisStatus> statuses;
+
+    private LocalDateTime analyzedFrom;
+
+    private LocalDateTime analyzedTo;
+}
@@ -0,0 +1,290 @@
+package com.example.documentintelligence.infrastructure.cache;
+
+import com.example.documentintelligence.domain.model.AnalysisStatus;
+import com.example.documentintelligence.domain.model.DocumentAnalysis;
+import com.example.documentintelligence.domain.model.DocumentType;
+import com.example.documentintelligence.domain.workflow.DocumentProcessingState;
+import com.example.documentintelligence.infrastructure.pipeline.PipelineProfiles;
+import com.example.documentintelligence.infrastructure.spool.DocumentDigest;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * Content-addressed cache of analysis step results, keyed by the SHA-256 of the decoded document bytes,
+ * the document type and the fingerprint of its pipeline profile. Entries are evicted by size (LRU) and TTL,
+ * and can optionally be persisted to a directory so they survive restarts. Concurrent analyses of the same
+ * content share one in-flight run.
+ */
+@Component
+@Slf4j
+public class AnalysisResultCache {
+
+    private final boolean enabled;
+    private final int maxEntries;
+    private final Duration ttl;
+    private final Path diskDirectory;
+    private final Map<DocumentType, String> profileFingerprints = new EnumMap<>(DocumentType.class);
+
+    private final Map<String, CachedResult> entries;
+    private final Map<String, CompletableFuture<Map<String, Object>>> inFlight = new ConcurrentHashMap<>();
+    private final ObjectMapper mapper = new ObjectMapper();
+
+    private final Counter hits;
+    private final Counter misses;
+    private final Counter coalesced;
+
+    public AnalysisResultCache(@Value("${document-analysis.cache.enabled:true}") boolean enabled,
+                               @Value("${document-analysis.cache.max-entries:1000}") int maxEntries,
+                               @Value("${document-analysis.cache.ttl:P1D}") Duration ttl,
+                               @Value("${document-analysis.cache.disk.directory:}") String diskDirectory,
+                               PipelineProfiles profiles,
+                               MeterRegistry meterRegistry) {
+        this.enabled = enabled;
+        for (DocumentType type : DocumentType.values()) {
+            profileFingerprints.put(type, profiles.forType(type).fingerprint());
+        }
+        this.maxEntries = maxEntries;
+        this.ttl = ttl;
+        this.diskDirectory = StringUtils.hasText(diskDirectory) ? Path.of(diskDirectory) : null;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, CachedResult> eldest) {
+                return size() > AnalysisResultCache.this.maxEntries;
+            }
+        };
+
+        this.hits = cacheCounter(meterRegistry, "hit");
+        this.misses = cacheCounter(meterRegistry, "miss");
+        this.coalesced = cacheCounter(meterRegistry, "coalesced");
+        Gauge.builder("document.analysis.cache.size", this, AnalysisResultCache::size)
+                .description("Analysis results held in the in-memory cache tier")
+                .register(meterRegistry);
+
+        if (this.diskDirectory != null) {
+            try {
+                Files.createDirectories(this.diskDirectory);
+                log.info("Analysis result cache disk tier enabled at {}", this.diskDirectory);
+            } catch (IOException e) {
+                throw new IllegalStateException("Cannot create analysis cache directory: " + diskDirectory, e);
+            }
+        }
+    }
+
+    /**
+     * Analyzes a document, reusing a cached or in-flight result for identical content when available.
+     * Only analyses that produced an extraction are cached; failed runs are never shared with other submissions.
+     * When a shared run fails, the submissions waiting on it start over, so one of them runs the analysis again
+     * and the others wait on it instead of each running their own.
+     *
+     * @param analysis The pending document analysis
+     * @param analyzer Function running the full analysis workflow
+     * @return Future completed with the analysis populated with step results
+     */
+    public CompletableFuture<DocumentAnalysis> analyze(DocumentAnalysis analysis,
+                                                       Function<DocumentAnalysis, CompletableFuture<DocumentAnalysis>> analyzer) {
+        if (!enabled || (analysis.getContentHash() == null && analysis.getBase64Document() == null)) {
+            return analyzer.apply(analysis);
+        }
+
+        String key = keyOf(analysis);
+        Map<String, Object> cached = lookup(key);
+        if (cached != null) {
+            hits.increment();
+            log.info("Analysis cache hit for protocol: {}", analysis.getProtocol());
+            return CompletableFuture.completedFuture(applyCachedResult(analysis, cached));
+        }
+
+        CompletableFuture<Map<String, Object>> leader = new CompletableFuture<>();
+        CompletableFuture<Map<String, Object>> existing = inFlight.putIfAbsent(key, leader);
+        if (existing != null) {
+            coalesced.increment();
+            log.info("Coalescing protocol: {} with an in-flight analysis of the same content", analysis.getProtocol());
+            return existing.thenCompose(shared -> shared != null
+                    ? CompletableFuture.completedFuture(applyCachedResult(analysis, shared))
+                    : analyze(analysis, analyzer));
+        }
+
+        cached = lookup(key);
+        if (cached != null) {
+            hits.increment();
+            inFlight.remove(key, leader);
+            leader.complete(cached);
+            return CompletableFuture.completedFuture(applyCachedResult(analysis, cached));
+        }
+
+        misses.increment();
+        CompletableFuture<DocumentAnalysis> run;
+        try {
+            run = analyzer.apply(analysis);
+        } catch (RuntimeException e) {
+            run = CompletableFuture.failedFuture(e);
+        }
+        return run.whenComplete((analyzed, error) -> {
+            Map<String, Object> result = null;
+            if (isCacheable(analyzed, error)) {
+                result = new HashMap<>(analyzed.getStepResults());
+                store(key, result);
+            }
+            inFlight.remove(key, leader);
+            leader.complete(result);
+        });
+    }
+
+    /**
+     * Analyzes a document again without reading the cache, then replaces the cached result for its content
+     * when the analysis succeeds, so later submissions of the same document get the refreshed result.
+     *
+     * @param analysis The analysis to run again
+     * @param analyzer Function running the analysis workflow
+     * @return Future completed with the analysis populated with step results
+     */
+    public CompletableFuture<DocumentAnalysis> refresh(DocumentAnalysis analysis,
+                                                       Function<DocumentAnalysis, CompletableFuture<DocumentAnalysis>> analyzer) {
+        if (!enabled || (analysis.getContentHash() == null && analysis.getBase64Document() == null)) {
+            return analyzer.apply(analysis);
+        }
+        String key = keyOf(analysis);
+        return analyzer.apply(analysis).whenComplete((analyzed, error) -> {
+            if (isCacheable(analyzed, error)) {
+                store(key, new HashMap<>(analyzed.getStepResults()));
+            }
+        });
+    }
+
+    /**
+     * SHA-256 of the decoded document, hex encoded, as the spool computes it for streamed uploads.
+     *
+     * @throws IllegalArgumentException if the document is not valid base64
+     */
+    public static String contentHash(String base64Document) {
+        return DocumentDigest.of(base64Document).contentHash();
+    }
+
+    public int size() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    private DocumentAnalysis applyCachedResult(DocumentAnalysis analysis, Map<String, Object> stepResults) {
+        analysis.getStepResults().putAll(stepResults);
+        analysis.getCompletedStages().addAll(EnumSet.allOf(DocumentProcessingState.class));
+        analysis.setCurrentState(null);
+        return analysis;
+    }
+
+    /**
+     * Whether the run succeeded with an extraction; an OpenAI completion that could not be parsed leaves
+     * none, and must be retried rather than served to later submissions.
+     */
+    private static boolean isCacheable(DocumentAnalysis analyzed, Throwable error) {
+        return error == null && analyzed.getStatus() != AnalysisStatus.FAILED
+                && DocumentProcessingState.extractionResult(analyzed.getStepResults()) != null;
+    }
+
+    private Map<String, Object> lookup(String key) {
+        CachedResult cached;
+        synchronized (entries) {
+            cached = entries.get(key);
+            if (cached != null && isExpired(cached)) {
+                entries.remove(key);
+                cached = null;
+            }
+        }
+        if (cached == null) {
+            cached = readFromDisk(key);
+            if (cached != null) {
+                synchronized (entries) {
+                    entries.put(key, cached);
+                }
+            }
+        }
+        return cached == null ? null : cached.stepResults();
+    }
+
+    private void store(String key, Map<String, Object> stepResults) {
+        CachedResult cached = new CachedResult(stepResults, Instant.now().toEpochMilli());
+        synchronized (entries) {
+            entries.put(key, cached);
+        }
+        writeToDisk(key, cached);
+    }
+
+    private CachedResult readFromDisk(String key) {
+        if (diskDirectory == null) {
+            return null;
+        }
+        Path file = diskDirectory.resolve(key + ".json");
+        if (!Files.exists(file)) {
+            return null;
+        }
+        try {
+            CachedResult cached = mapper.readValue(file.toFile(), CachedResult.class);
+            if (isExpired(cached)) {
+                Files.deleteIfExists(file);
+                return null;
+            }
+            return cached;
+        } catch (IOException e) {
+            log.warn("Discarding unreadable analysis cache entry {}: {}", file, e.getMessage());
+            return null;
+        }
+    }
+
+    private void writeToDisk(String key, CachedResult cached) {
+        if (diskDirectory == null) {
+            return;
+        }
+        try {
+            Path tmp = Files.createTempFile(diskDirectory, key, ".tmp");
+            mapper.writeValue(tmp.toFile(), cached);
+            Files.move(tmp, diskDirectory.resolve(key + ".json"),
+                    StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            log.warn("Failed to persist analysis cache entry {}: {}", key, e.getMessage());
+        }
+    }
+
+    private boolean isExpired(CachedResult cached) {
+        return Instant.ofEpochMilli(cached.storedAtMillis()).plus(ttl).isBefore(Instant.now());
+    }
+
+    private String keyOf(DocumentAnalysis analysis) {
+        String contentHash = analysis.getContentHash();
+        if (contentHash == null) {
+            contentHash = contentHash(analysis.getBase64Document());
+        }
+        return analysis.getDocumentType() + "-" + profileFingerprints.get(analysis.getDocumentType()) + "-" + contentHash;
+    }
+
+    private static Counter cacheCounter(MeterRegistry meterRegistry, String result) {
+        return Counter.builder("document.analysis.cache")
+                .description("Analysis cache lookups by outcome")
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+
+    record CachedResult(Map<String, Object> stepResults, long storedAtMillis) {
+    }
+}
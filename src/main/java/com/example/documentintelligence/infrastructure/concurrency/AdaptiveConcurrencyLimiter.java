@@ -0,0 +1,167 @@
+package com.example.documentintelligence.infrastructure.concurrency;
+
+import com.example.documentintelligence.infrastructure.scheduling.FairQueue;
+import com.example.documentintelligence.infrastructure.scheduling.JobClass;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Caps the number of concurrent calls to a single downstream service, adapting the cap with AIMD:
+ * every successful call raises the limit by roughly one per round of calls, and throttling halves it
+ * and pauses new calls until the service's Retry-After has passed.
+ * Calls beyond the limit wait in a {@link FairQueue} without holding a thread, each taking one share of it.
+ */
+@Slf4j
+public class AdaptiveConcurrencyLimiter {
+
+    private static final double DECREASE_FACTOR = 0.5;
+
+    @Getter
+    private final String name;
+    private final int minLimit;
+    private final int maxLimit;
+    private final ScheduledExecutorService scheduler;
+
+    private final FairQueue<Runnable> waiting;
+    private double limit;
+    private int inFlight;
+    private long pausedUntilNanos;
+    private boolean resumeScheduled;
+
+    public AdaptiveConcurrencyLimiter(String name, int minLimit, int maxLimit, ScheduledExecutorService scheduler,
+                                      FairQueue<Runnable> waiting) {
+        if (minLimit < 1 || maxLimit < minLimit) {
+            throw new IllegalArgumentException("Concurrency limits for " + name + " must satisfy 1 <= min <= max");
+        }
+        this.name = name;
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.scheduler = scheduler;
+        this.waiting = waiting;
+        this.limit = maxLimit;
+    }
+
+    /**
+     * Starts the asynchronous call once the concurrency limit allows it, releasing the slot when the
+     * returned future completes. The caller is never blocked.
+     *
+     * @param jobClass Class of the job the call belongs to
+     * @param call     Asynchronous call to the downstream service
+     * @return Future completed with the outcome of the call
+     */
+    public <T> CompletableFuture<T> executeAsync(JobClass jobClass, Supplier<CompletableFuture<T>> call) {
+        CompletableFuture<T> result = new CompletableFuture<>();
+        Runnable start = () -> {
+            CompletableFuture<T> started;
+            try {
+                started = call.get();
+            } catch (RuntimeException e) {
+                release();
+                result.completeExceptionally(e);
+                return;
+            }
+            started.whenComplete((value, error) -> {
+                release();
+                if (error != null) {
+                    result.completeExceptionally(error);
+                } else {
+                    result.complete(value);
+                }
+            });
+        };
+        synchronized (this) {
+            waiting.add(jobClass, 1, start);
+        }
+        drain();
+        return result;
+    }
+
+    /**
+     * Additive increase: grows the limit by 1/limit, i.e. about one slot per limit's worth of successes.
+     */
+    public void onSuccess() {
+        synchronized (this) {
+            limit = Math.min(maxLimit, limit + 1.0 / limit);
+        }
+        drain();
+    }
+
+    /**
+     * Multiplicative decrease: halves the limit and holds new calls until {@code retryAfter} has passed.
+     * Further throttling reported while already paused only extends the pause, so one burst of 429s
+     * counts as a single congestion signal.
+     *
+     * @param retryAfter Delay requested by the service
+     */
+    public void onThrottled(Duration retryAfter) {
+        long now = System.nanoTime();
+        synchronized (this) {
+            if (now - pausedUntilNanos >= 0) {
+                limit = Math.max(minLimit, limit * DECREASE_FACTOR);
+                log.warn("{} throttled, reducing concurrency limit to {} and pausing for {} ms",
+                        name, (int) limit, retryAfter.toMillis());
+            }
+            long resumeAt = now + retryAfter.toNanos();
+            if (resumeAt - pausedUntilNanos > 0) {
+                pausedUntilNanos = resumeAt;
+            }
+            scheduleResume(now);
+        }
+    }
+
+    public synchronized int getLimit() {
+        return (int) limit;
+    }
+
+    public synchronized int getInFlight() {
+        return inFlight;
+    }
+
+    public synchronized int getQueueLength() {
+        return waiting.size();
+    }
+
+    private void release() {
+        synchronized (this) {
+            inFlight--;
+        }
+        drain();
+    }
+
+    private void drain() {
+        List<Runnable> ready = new ArrayList<>();
+        synchronized (this) {
+            long now = System.nanoTime();
+            if (now - pausedUntilNanos < 0) {
+                scheduleResume(now);
+                return;
+            }
+            while (!waiting.isEmpty() && inFlight < (int) limit) {
+                inFlight++;
+                ready.add(waiting.poll());
+            }
+        }
+        ready.forEach(Runnable::run);
+    }
+
+    private void scheduleResume(long now) {
+        if (resumeScheduled || waiting.isEmpty()) {
+            return;
+        }
+        resumeScheduled = true;
+        scheduler.schedule(() -> {
+            synchronized (this) {
+                resumeScheduled = false;
+            }
+            drain();
+        }, Math.max(0, pausedUntilNanos - now), TimeUnit.NANOSECONDS);
+    }
+}
@@ -0,0 +1,89 @@
+package com.example.documentintelligence.infrastructure.concurrency;
+
+import com.azure.core.exception.HttpResponseException;
+import com.example.documentintelligence.infrastructure.scheduling.JobClass;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Supplier;
+
+/**
+ * Keeps calls to one Azure service under its quota. Each call first takes its cost from a token bucket
+ * (requests or estimated tokens), then waits for a slot from an {@link AdaptiveConcurrencyLimiter}.
+ * Calls the service still throttles shrink the concurrency limit, drain the bucket and are queued again
+ * after the requested delay instead of failing, up to a bounded number of attempts. Throttling is reported to
+ * the limiter only by the {@link ThrottlingPolicy} in the service's HTTP pipeline, which sees every 429 response,
+ * so a throttled call that fails here is retried without being counted a second time.
+ */
+@Slf4j
+public class DownstreamLimiter {
+
+    private static final int TOO_MANY_REQUESTS = 429;
+
+    @Getter
+    private final String name;
+    @Getter
+    private final TokenBucket rateLimit;
+    @Getter
+    private final AdaptiveConcurrencyLimiter concurrency;
+    private final int maxThrottledRetries;
+    private final Duration defaultRetryAfter;
+
+    public DownstreamLimiter(String name, TokenBucket rateLimit, AdaptiveConcurrencyLimiter concurrency,
+                             int maxThrottledRetries, Duration defaultRetryAfter) {
+        this.name = name;
+        this.rateLimit = rateLimit;
+        this.concurrency = concurrency;
+        this.maxThrottledRetries = maxThrottledRetries;
+        this.defaultRetryAfter = defaultRetryAfter;
+    }
+
+    /**
+     * Runs the call once both the rate and the concurrency limit allow it.
+     *
+     * @param jobClass Class of the job the call belongs to, deciding its share of both limits while calls wait
+     * @param cost     Tokens the call takes from the rate limit
+     * @param call     Asynchronous call to the service, invoked again if it is throttled
+     * @return Future completed with the outcome of the last attempt
+     */
+    public <T> CompletableFuture<T> executeAsync(JobClass jobClass, double cost, Supplier<CompletableFuture<T>> call) {
+        return attempt(jobClass, cost, call, 0);
+    }
+
+    /**
+     * Records throttling reported by the service.
+     *
+     * @param retryAfter Delay requested by the service, or null to use the configured default
+     */
+    public void onThrottled(Duration retryAfter) {
+        rateLimit.drain();
+        concurrency.onThrottled(retryAfter != null ? retryAfter : defaultRetryAfter);
+    }
+
+    private <T> CompletableFuture<T> attempt(JobClass jobClass, double cost, Supplier<CompletableFuture<T>> call, int retries) {
+        return rateLimit.acquire(jobClass, cost)
+                .thenCompose(ready -> concurrency.executeAsync(jobClass, call))
+                .handle((value, error) -> {
+                    if (error == null) {
+                        concurrency.onSuccess();
+                        return CompletableFuture.completedFuture(value);
+                    }
+                    Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+                    if (!isThrottled(cause) || retries >= maxThrottledRetries) {
+                        return CompletableFuture.<T>failedFuture(cause);
+                    }
+                    log.info("{} call throttled, queueing retry {} of {}", name, retries + 1, maxThrottledRetries);
+                    return attempt(jobClass, cost, call, retries + 1);
+                })
+                .thenCompose(future -> future);
+    }
+
+    private static boolean isThrottled(Throwable error) {
+        return error instanceof ThrottledException
+                || error instanceof HttpResponseException e && e.getResponse() != null
+                && e.getResponse().getStatusCode() == TOO_MANY_REQUESTS;
+    }
+}
@@ -0,0 +1,31 @@
+package com.example.documentintelligence.infrastructure.concurrency;
+
+import com.azure.core.http.policy.ExponentialBackoff;
+import com.azure.core.http.policy.RequestRetryCondition;
+import com.azure.core.http.policy.RetryPolicy;
+
+/**
+ * The SDK's exponential backoff for transient failures, except that throttled (429) responses are never
+ * retried by the HTTP pipeline. They are returned to the caller, and its {@link DownstreamLimiter} retries
+ * them after shrinking its concurrency and pausing every caller. If the pipeline retried them first, one
+ * throttled call could be attempted several times over, and the limiter would only learn of it afterwards.
+ */
+public class ThrottleAwareRetryStrategy extends ExponentialBackoff {
+
+    private static final int TOO_MANY_REQUESTS = 429;
+
+    /**
+     * @return Retry policy using this strategy
+     */
+    public static RetryPolicy retryPolicy() {
+        return new RetryPolicy(new ThrottleAwareRetryStrategy());
+    }
+
+    @Override
+    public boolean shouldRetryCondition(RequestRetryCondition condition) {
+        if (condition.getResponse() != null && condition.getResponse().getStatusCode() == TOO_MANY_REQUESTS) {
+            return false;
+        }
+        return super.shouldRetryCondition(condition);
+    }
+}
@@ -0,0 +1,21 @@
+package com.example.documentintelligence.infrastructure.concurrency;
+
+import lombok.Getter;
+
+import java.time.Duration;
+
+/**
+ * Signals that a downstream service rejected a call because its quota was exceeded.
+ */
+@Getter
+public class ThrottledException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    private final Duration retryAfter;
+
+    public ThrottledException(String message, Duration retryAfter) {
+        super(message);
+        this.retryAfter = retryAfter;
+    }
+}
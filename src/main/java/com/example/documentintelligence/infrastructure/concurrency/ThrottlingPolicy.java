@@ -0,0 +1,70 @@
+package com.example.documentintelligence.infrastructure.concurrency;
+
+import com.azure.core.http.HttpHeaderName;
+import com.azure.core.http.HttpPipelineCallContext;
+import com.azure.core.http.HttpPipelineNextPolicy;
+import com.azure.core.http.HttpResponse;
+import com.azure.core.http.policy.HttpPipelinePolicy;
+import com.example.documentintelligence.infrastructure.metrics.PipelineMetrics;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+
+/**
+ * Pipeline policy that reports every 429 response to a {@link DownstreamLimiter} as soon as it arrives, so the
+ * limiter reacts before the call fails back to it. The pipeline's retry policy leaves throttled responses to
+ * the limiter ({@link ThrottleAwareRetryStrategy}), so each one is reported once. Each one is also counted,
+ * tagged with the document type found in the call context.
+ */
+public class ThrottlingPolicy implements HttpPipelinePolicy {
+
+    private static final int TOO_MANY_REQUESTS = 429;
+    private static final HttpHeaderName RETRY_AFTER_MS = HttpHeaderName.fromString("retry-after-ms");
+    private static final HttpHeaderName X_MS_RETRY_AFTER_MS = HttpHeaderName.fromString("x-ms-retry-after-ms");
+
+    private final DownstreamLimiter limiter;
+    private final PipelineMetrics metrics;
+
+    public ThrottlingPolicy(DownstreamLimiter limiter, PipelineMetrics metrics) {
+        this.limiter = limiter;
+        this.metrics = metrics;
+    }
+
+    @Override
+    public Mono<HttpResponse> process(HttpPipelineCallContext context, HttpPipelineNextPolicy next) {
+        return next.process().doOnNext(response -> {
+            if (response.getStatusCode() == TOO_MANY_REQUESTS) {
+                metrics.recordThrottled(limiter.getName(), context.getData(PipelineMetrics.DOCUMENT_TYPE_KEY));
+                limiter.onThrottled(retryAfter(response));
+            }
+        });
+    }
+
+    /**
+     * Reads the delay requested by an Azure service, preferring the millisecond headers over Retry-After.
+     *
+     * @param response HTTP response
+     * @return Requested delay, or null when the response carries none
+     */
+    public static Duration retryAfter(HttpResponse response) {
+        for (HttpHeaderName header : new HttpHeaderName[]{RETRY_AFTER_MS, X_MS_RETRY_AFTER_MS}) {
+            String millis = response.getHeaderValue(header);
+            if (millis != null) {
+                try {
+                    return Duration.ofMillis(Long.parseLong(millis.trim()));
+                } catch (NumberFormatException ignored) {
+                    // fall through to the next header
+                }
+            }
+        }
+        String seconds = response.getHeaderValue(HttpHeaderName.RETRY_AFTER);
+        if (seconds == null) {
+            return null;
+        }
+        try {
+            return Duration.ofSeconds(Long.parseLong(seconds.trim()));
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+}
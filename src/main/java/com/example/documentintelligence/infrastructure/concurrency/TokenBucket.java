@@ -0,0 +1,122 @@
+package com.example.documentintelligence.infrastructure.concurrency;
+
+import com.example.documentintelligence.infrastructure.scheduling.FairQueue;
+import com.example.documentintelligence.infrastructure.scheduling.JobClass;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Token bucket rate limiter with asynchronous acquisition.
+ * Callers that find too few tokens get a future that completes once the bucket has refilled enough;
+ * no thread waits in the meantime. Waiting callers are served from a {@link FairQueue} charged with
+ * their cost, so one class of large requests does not take the whole refill.
+ */
+public class TokenBucket {
+
+    private final double capacity;
+    private final double refillPerNano;
+    private final ScheduledExecutorService scheduler;
+
+    private final FairQueue<Waiter> waiting;
+    private double tokens;
+    private long lastRefillNanos;
+    private boolean wakeupScheduled;
+
+    /**
+     * @param capacity  Maximum tokens the bucket holds, i.e. the largest burst allowed
+     * @param refill    Tokens added per {@code period}
+     * @param period    Refill period
+     * @param scheduler Scheduler used to wake waiting callers
+     * @param waiting   Queue of the callers waiting for tokens
+     */
+    public TokenBucket(double capacity, double refill, Duration period, ScheduledExecutorService scheduler,
+                       FairQueue<Waiter> waiting) {
+        if (capacity <= 0 || refill <= 0) {
+            throw new IllegalArgumentException("Token bucket capacity and refill must be positive");
+        }
+        this.capacity = capacity;
+        this.refillPerNano = refill / period.toNanos();
+        this.scheduler = scheduler;
+        this.waiting = waiting;
+        this.tokens = capacity;
+        this.lastRefillNanos = System.nanoTime();
+    }
+
+    /**
+     * Takes {@code cost} tokens, waiting for them if needed. Costs above the capacity are capped to it.
+     *
+     * @param jobClass Class of the job the call belongs to
+     * @param cost     Tokens the call consumes
+     * @return Future completed once the tokens have been taken
+     */
+    public CompletableFuture<Void> acquire(JobClass jobClass, double cost) {
+        double boundedCost = Math.min(cost, capacity);
+        synchronized (this) {
+            refill();
+            if (waiting.isEmpty() && tokens >= boundedCost) {
+                tokens -= boundedCost;
+                waiting.served(jobClass);
+                return CompletableFuture.completedFuture(null);
+            }
+            Waiter waiter = new Waiter(boundedCost, new CompletableFuture<>());
+            waiting.add(jobClass, boundedCost, waiter);
+            scheduleWakeup();
+            return waiter.ready();
+        }
+    }
+
+    /**
+     * Empties the bucket, used when the service reports throttling despite the client-side limit.
+     */
+    public synchronized void drain() {
+        refill();
+        tokens = 0;
+    }
+
+    public synchronized double getAvailableTokens() {
+        refill();
+        return tokens;
+    }
+
+    private void wakeup() {
+        List<CompletableFuture<Void>> ready = new ArrayList<>();
+        synchronized (this) {
+            wakeupScheduled = false;
+            refill();
+            while (!waiting.isEmpty() && tokens >= waiting.peek().cost()) {
+                Waiter waiter = waiting.poll();
+                tokens -= waiter.cost();
+                ready.add(waiter.ready());
+            }
+            scheduleWakeup();
+        }
+        ready.forEach(future -> future.complete(null));
+    }
+
+    private void scheduleWakeup() {
+        if (wakeupScheduled || waiting.isEmpty()) {
+            return;
+        }
+        wakeupScheduled = true;
+        double deficit = waiting.peek().cost() - tokens;
+        long delayNanos = (long) Math.ceil(Math.max(deficit, 0) / refillPerNano);
+        scheduler.schedule(this::wakeup, delayNanos, TimeUnit.NANOSECONDS);
+    }
+
+    private void refill() {
+        long now = System.nanoTime();
+        tokens = Math.min(capacity, tokens + (now - lastRefillNanos) * refillPerNano);
+        lastRefillNanos = now;
+    }
+
+    /**
+     * A caller waiting for tokens.
+     */
+    public record Waiter(double cost, CompletableFuture<Void> ready) {
+    }
+}
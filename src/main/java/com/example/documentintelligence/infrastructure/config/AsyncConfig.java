@@ -1,24 +1,107 @@
 package com.example.documentintelligence.infrastructure.config;
 
+import com.example.documentintelligence.infrastructure.scheduling.ClassifiedExecutor;
+import com.example.documentintelligence.infrastructure.scheduling.FairExecutor;
+import com.example.documentintelligence.infrastructure.scheduling.SchedulingPolicy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
 import org.springframework.scheduling.annotation.EnableAsync;
 import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 
 import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
 
 @Configuration
 @EnableAsync
+@Slf4j
 public class AsyncConfig {
 
+    /**
+     * Execution modes for the document analysis pipeline.
+     * POOL runs documents on a bounded platform thread pool; VIRTUAL runs each document on its own
+     * virtual thread and relies on dispatch admission and per-service limiters to bound concurrency.
+     */
+    public enum ExecutorMode {
+        POOL,
+        VIRTUAL
+    }
+
+    @Value("${document-analysis.executor.mode:POOL}")
+    private ExecutorMode mode;
+
+    @Value("${document-analysis.executor.core-pool-size:4}")
+    private int corePoolSize;
+
+    @Value("${document-analysis.executor.max-pool-size:4}")
+    private int maxPoolSize;
+
+    @Value("${document-analysis.notifications.threads:2}")
+    private int notificationThreads;
+
+    @Value("${document-analysis.notifications.queue-capacity:10000}")
+    private int notificationQueueCapacity;
+
+    /**
+     * In POOL mode with fair scheduling enabled, max-pool-size workers take tasks from a fair queue; otherwise
+     * tasks run in arrival order whatever their class. The queue is unbounded: every task belongs to a document
+     * dispatch admission has already let in, and one document may queue a task for each stage that is ready at
+     * the same time, so a bound of its own could only reject admitted documents. With an unbounded queue the
+     * thread pool never grows past core-pool-size; the two sizes default to the same value.
+     */
     @Bean(name = "documentAnalysisExecutor")
-    public Executor documentAnalysisExecutor() {
+    public ClassifiedExecutor documentAnalysisExecutor(SchedulingPolicy schedulingPolicy) {
+        if (mode == ExecutorMode.VIRTUAL) {
+            return ClassifiedExecutor.unclassified(virtualThreadExecutor());
+        }
+        if (schedulingPolicy.isEnabled()) {
+            return new FairExecutor("doc-analysis-", maxPoolSize, schedulingPolicy.newQueue("analysis-executor"));
+        }
         ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
-        executor.setCorePoolSize(2);        // Number of threads to keep alive at all times
-        executor.setMaxPoolSize(4);         // Maximum number of threads
-        executor.setQueueCapacity(100);     // Queue capacity for tasks when all threads are busy
+        executor.setCorePoolSize(corePoolSize);     // Number of threads to keep alive at all times
+        executor.setMaxPoolSize(maxPoolSize);       // Maximum number of threads
         executor.setThreadNamePrefix("doc-analysis-");
         executor.initialize();
+        return ClassifiedExecutor.unclassified(executor);
+    }
+
+    private Executor virtualThreadExecutor() {
+        SimpleAsyncTaskExecutor executor = new SimpleAsyncTaskExecutor("doc-analysis-vt-");
+        try {
+            executor.setVirtualThreads(true);
+            log.info("Document analysis executor running on virtual threads");
+        } catch (UnsupportedOperationException e) {
+            log.warn("Virtual threads require JDK 21+, falling back to a platform thread per document");
+        }
+        return executor;
+    }
+
+    /**
+     * Threads delivering analysis updates to long-poll and SSE clients, away from the pipeline workers.
+     */
+    @Bean(name = "notificationExecutor")
+    public Executor notificationExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(notificationThreads);
+        executor.setMaxPoolSize(notificationThreads);
+        executor.setQueueCapacity(notificationQueueCapacity);
+        executor.setThreadNamePrefix("analysis-notify-");
+        executor.initialize();
         return executor;
     }
+
+    /**
+     * Single daemon thread that wakes calls waiting on the Azure rate and concurrency limiters.
+     */
+    @Bean(name = "limiterScheduler", destroyMethod = "shutdownNow")
+    public ScheduledExecutorService limiterScheduler() {
+        return Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "azure-limiter-scheduler");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
 }
@@ -1,31 +1,91 @@
 package com.example.documentintelligence.infrastructure.config;
 
-import com.azure.ai.documentintelligence.DocumentIntelligenceClient;
-import com.azure.ai.documentintelligence.DocumentIntelligenceClientBuilder;
 import com.azure.core.credential.AzureKeyCredential;
+import com.azure.core.http.HttpPipeline;
+import com.azure.core.http.HttpPipelineBuilder;
+import com.azure.core.http.policy.AddDatePolicy;
+import com.azure.core.http.policy.HttpLogOptions;
+import com.azure.core.http.policy.HttpLoggingPolicy;
+import com.azure.core.http.policy.KeyCredentialPolicy;
+import com.azure.core.http.policy.RequestIdPolicy;
+import com.example.documentintelligence.infrastructure.concurrency.AdaptiveConcurrencyLimiter;
+import com.example.documentintelligence.infrastructure.concurrency.DownstreamLimiter;
+import com.example.documentintelligence.infrastructure.concurrency.ThrottleAwareRetryStrategy;
+import com.example.documentintelligence.infrastructure.concurrency.ThrottlingPolicy;
+import com.example.documentintelligence.infrastructure.concurrency.TokenBucket;
+import com.example.documentintelligence.infrastructure.metrics.PipelineMetrics;
+import com.example.documentintelligence.infrastructure.scheduling.SchedulingPolicy;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
+import java.time.Duration;
+import java.util.concurrent.ScheduledExecutorService;
+
 @Configuration
 @Slf4j
 public class DocumentIntelligenceConfig {
 
+    private static final String API_KEY_HEADER = "Ocp-Apim-Subscription-Key";
+
     @Value("${azure.document-intelligence.endpoint}")
     private String endpoint;
 
     @Value("${azure.document-intelligence.key}")
     private String key;
 
+    @Value("${azure.document-intelligence.max-concurrency:15}")
+    private int maxConcurrency;
+
+    @Value("${azure.document-intelligence.min-concurrency:1}")
+    private int minConcurrency;
+
+    @Value("${azure.document-intelligence.rate-limit.requests-per-second:14}")
+    private double requestsPerSecond;
+
+    @Value("${azure.document-intelligence.throttling.max-retries:5}")
+    private int maxThrottledRetries;
+
+    @Value("${azure.document-intelligence.throttling.default-retry-after:PT1S}")
+    private Duration defaultRetryAfter;
+
+    /**
+     * HTTP pipeline used to start and poll analyze operations. Mirrors the policies the SDK client builder
+     * applies (request id, retries, key authentication, logging) so raw operation calls behave like SDK calls,
+     * except that throttled responses are left to the limiter instead of being retried, and reports every
+     * throttled response to the limiter.
+     */
+    @Bean
+    public HttpPipeline documentIntelligencePipeline(@Qualifier("documentIntelligenceLimiter") DownstreamLimiter limiter,
+                                                     PipelineMetrics metrics) {
+        log.info("Initializing Azure Document Intelligence pipeline with endpoint: {}", endpoint);
+        var pipeline = new HttpPipelineBuilder()
+                .policies(new RequestIdPolicy(),
+                        ThrottleAwareRetryStrategy.retryPolicy(),
+                        new ThrottlingPolicy(limiter, metrics),
+                        new AddDatePolicy(),
+                        new KeyCredentialPolicy(API_KEY_HEADER, new AzureKeyCredential(key)),
+                        new HttpLoggingPolicy(new HttpLogOptions()))
+                .build();
+        log.info("Azure Document Intelligence pipeline initialized successfully");
+        return pipeline;
+    }
+
+    /**
+     * Limits analyze requests to the configured requests per second, a little under the resource's quota,
+     * and adapts concurrency between the configured bounds when the service throttles.
+     */
     @Bean
-    public DocumentIntelligenceClient documentIntelligenceClient() {
-        log.info("Initializing Azure Document Intelligence client with endpoint: {}", endpoint);
-        var client = new DocumentIntelligenceClientBuilder()
-                .endpoint(endpoint)
-                .credential(new AzureKeyCredential(key))
-                .buildClient();
-        log.info("Azure Document Intelligence client initialized successfully");
-        return client;
+    public DownstreamLimiter documentIntelligenceLimiter(@Qualifier("limiterScheduler") ScheduledExecutorService scheduler,
+                                                         SchedulingPolicy schedulingPolicy) {
+        log.info("Limiting Azure Document Intelligence to {} requests/s and {} concurrent calls", requestsPerSecond, maxConcurrency);
+        return new DownstreamLimiter("azure-document-intelligence",
+                new TokenBucket(Math.max(requestsPerSecond, 1), requestsPerSecond, Duration.ofSeconds(1), scheduler,
+                        schedulingPolicy.newQueue("azure-document-intelligence.rate")),
+                new AdaptiveConcurrencyLimiter("azure-document-intelligence", minConcurrency, maxConcurrency, scheduler,
+                        schedulingPolicy.newQueue("azure-document-intelligence.concurrency")),
+                maxThrottledRetries, defaultRetryAfter);
     }
 }
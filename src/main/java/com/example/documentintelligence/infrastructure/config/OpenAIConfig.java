@@ -1,13 +1,24 @@
 package com.example.documentintelligence.infrastructure.config;
 
-import com.azure.ai.openai.OpenAIClient;
+import com.azure.ai.openai.OpenAIAsyncClient;
 import com.azure.ai.openai.OpenAIClientBuilder;
 import com.azure.core.credential.AzureKeyCredential;
+import com.example.documentintelligence.infrastructure.concurrency.AdaptiveConcurrencyLimiter;
+import com.example.documentintelligence.infrastructure.concurrency.DownstreamLimiter;
+import com.example.documentintelligence.infrastructure.concurrency.ThrottleAwareRetryStrategy;
+import com.example.documentintelligence.infrastructure.concurrency.ThrottlingPolicy;
+import com.example.documentintelligence.infrastructure.concurrency.TokenBucket;
+import com.example.documentintelligence.infrastructure.metrics.PipelineMetrics;
+import com.example.documentintelligence.infrastructure.scheduling.SchedulingPolicy;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.util.StringUtils;
 
+import java.time.Duration;
+import java.util.concurrent.ScheduledExecutorService;
+
 /**
  * Configuration for Azure OpenAI service.
  * Provides beans for OpenAI client and related configuration.
@@ -21,20 +32,58 @@ public class OpenAIConfig {
     @Value("${azure.openai.key}")
     private String key;
 
+    @Value("${azure.openai.max-concurrency:8}")
+    private int maxConcurrency;
+
+    @Value("${azure.openai.min-concurrency:1}")
+    private int minConcurrency;
+
+    @Value("${azure.openai.rate-limit.tokens-per-minute:30000}")
+    private double tokensPerMinute;
+
+    @Value("${azure.openai.throttling.max-retries:5}")
+    private int maxThrottledRetries;
+
+    @Value("${azure.openai.throttling.default-retry-after:PT5S}")
+    private Duration defaultRetryAfter;
+
     /**
-     * Creates an OpenAI client configured with Azure credentials.
+     * Creates a non-blocking OpenAI client configured with Azure credentials.
      *
-     * @return Configured OpenAI client
+     * @param limiter Limiter notified of every throttled attempt
+     * @param metrics Metrics counting throttled attempts
+     * @return Configured OpenAI async client
      * @throws IllegalStateException if required configuration is missing
      */
     @Bean
-    public OpenAIClient openAIClient() {
+    public OpenAIAsyncClient openAIAsyncClient(@Qualifier("openAILimiter") DownstreamLimiter limiter, PipelineMetrics metrics) {
         validateConfiguration();
         
         return new OpenAIClientBuilder()
                 .endpoint(endpoint)
                 .credential(new AzureKeyCredential(key))
-                .buildClient();
+                .retryPolicy(ThrottleAwareRetryStrategy.retryPolicy())
+                .addPolicy(new ThrottlingPolicy(limiter, metrics))
+                .buildAsyncClient();
+    }
+
+    /**
+     * Creates the limiter for chat completion calls: a tokens-per-minute bucket charged with each call's
+     * estimated tokens, and a concurrency limit that adapts when the deployment throttles.
+     *
+     * @param scheduler        Scheduler waking calls waiting on the limits
+     * @param schedulingPolicy Policy sharing both limits between classes of jobs while calls wait
+     * @return Limiter for Azure OpenAI
+     */
+    @Bean
+    public DownstreamLimiter openAILimiter(@Qualifier("limiterScheduler") ScheduledExecutorService scheduler,
+                                           SchedulingPolicy schedulingPolicy) {
+        return new DownstreamLimiter("azure-openai",
+                new TokenBucket(tokensPerMinute, tokensPerMinute, Duration.ofMinutes(1), scheduler,
+                        schedulingPolicy.newQueue("azure-openai.rate")),
+                new AdaptiveConcurrencyLimiter("azure-openai", minConcurrency, maxConcurrency, scheduler,
+                        schedulingPolicy.newQueue("azure-openai.concurrency")),
+                maxThrottledRetries, defaultRetryAfter);
     }
 
     private void validateConfiguration() {
@@ -0,0 +1,26 @@
+package com.example.documentintelligence.infrastructure.config;
+
+import com.example.documentintelligence.domain.port.DocumentAnalyzerPort;
+import com.example.documentintelligence.domain.workflow.StageGraph;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.List;
+
+@Configuration
+@Slf4j
+public class WorkflowConfig {
+
+    /**
+     * Workflow graph assembled from the stage every analyzer bean declares.
+     *
+     * @throws IllegalStateException if a stage has no analyzer or more than one, or the stages form a cycle
+     */
+    @Bean
+    public StageGraph stageGraph(List<DocumentAnalyzerPort> analyzers) {
+        StageGraph graph = new StageGraph(analyzers.stream().map(DocumentAnalyzerPort::stage).toList());
+        log.info("Analysis stages in dependency order: {}", graph.order());
+        return graph;
+    }
+}
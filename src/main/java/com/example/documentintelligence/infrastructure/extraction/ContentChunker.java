@@ -0,0 +1,77 @@
+package com.example.documentintelligence.infrastructure.extraction;
+
+import com.knuddels.jtokkit.api.IntArrayList;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Splits document content into chunks that fit a token budget, breaking between lines so table rows and
+ * sentences stay whole. Only a single line longer than the budget is cut inside the line.
+ */
+@Component
+@RequiredArgsConstructor
+public class ContentChunker {
+
+    private final TokenCounter tokenCounter;
+
+    /**
+     * @param content      Content to split
+     * @param budgetTokens Maximum tokens per chunk
+     * @return Chunks in content order; a single chunk when the content already fits
+     */
+    public List<Chunk> split(String content, int budgetTokens) {
+        if (budgetTokens <= 0) {
+            throw new IllegalArgumentException("Chunk token budget must be positive");
+        }
+        List<Chunk> chunks = new ArrayList<>();
+        int total = tokenCounter.count(content);
+        if (total <= budgetTokens) {
+            chunks.add(new Chunk(content, total));
+            return chunks;
+        }
+
+        StringBuilder current = new StringBuilder();
+        int currentTokens = 0;
+        for (String line : content.split("(?<=\n)")) {
+            int lineTokens = tokenCounter.count(line);
+            if (currentTokens + lineTokens > budgetTokens && currentTokens > 0) {
+                chunks.add(new Chunk(current.toString(), currentTokens));
+                current.setLength(0);
+                currentTokens = 0;
+            }
+            if (lineTokens > budgetTokens) {
+                chunks.addAll(splitLine(line, budgetTokens));
+                continue;
+            }
+            current.append(line);
+            currentTokens += lineTokens;
+        }
+        if (currentTokens > 0) {
+            chunks.add(new Chunk(current.toString(), currentTokens));
+        }
+        return chunks;
+    }
+
+    private List<Chunk> splitLine(String line, int budgetTokens) {
+        List<Chunk> pieces = new ArrayList<>();
+        IntArrayList tokens = tokenCounter.encode(line);
+        for (int start = 0; start < tokens.size(); start += budgetTokens) {
+            int end = Math.min(tokens.size(), start + budgetTokens);
+            IntArrayList piece = new IntArrayList(end - start);
+            for (int i = start; i < end; i++) {
+                piece.add(tokens.get(i));
+            }
+            pieces.add(new Chunk(tokenCounter.decode(piece), end - start));
+        }
+        return pieces;
+    }
+
+    /**
+     * A slice of the content and its token count.
+     */
+    public record Chunk(String text, int tokens) {
+    }
+}
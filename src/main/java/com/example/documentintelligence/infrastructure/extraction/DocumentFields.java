@@ -0,0 +1,65 @@
+package com.example.documentintelligence.infrastructure.extraction;
+
+import com.example.documentintelligence.domain.model.DocumentType;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The field paths of each document type, compiled into a {@link FieldPathTrie} once at startup.
+ * Turns the result of an extraction stage into the extracted data of the analysis and checks its completeness.
+ */
+@Component
+@Slf4j
+public class DocumentFields {
+
+    private final Map<DocumentType, FieldPathTrie> tries = new EnumMap<>(DocumentType.class);
+    private final ObjectMapper mapper = new ObjectMapper();
+
+    public DocumentFields() {
+        for (DocumentType type : DocumentType.values()) {
+            tries.put(type, new FieldPathTrie(type.getFields()));
+        }
+    }
+
+    /**
+     * @return Field paths expected for the document type
+     */
+    public List<String> getExpectedFields(DocumentType documentType) {
+        return documentType.getFields();
+    }
+
+    public FieldPathTrie forType(DocumentType documentType) {
+        return tries.get(documentType);
+    }
+
+    /**
+     * @param extracted Result of an extraction stage: a JSON tree, or the JSON text or map it was persisted as;
+     *                  null when nothing was extracted
+     * @return The expected fields nested by path, and those missing
+     */
+    public FieldPathTrie.Result extract(DocumentType documentType, Object extracted) {
+        return forType(documentType).walk(toTree(extracted));
+    }
+
+    private JsonNode toTree(Object extracted) {
+        if (extracted == null || extracted instanceof JsonNode) {
+            return (JsonNode) extracted;
+        }
+        if (extracted instanceof String json) {
+            try {
+                return mapper.readTree(json);
+            } catch (JsonProcessingException e) {
+                log.warn("Extraction result is not valid JSON: {}", e.getOriginalMessage());
+                return null;
+            }
+        }
+        return mapper.valueToTree(extracted);
+    }
+}
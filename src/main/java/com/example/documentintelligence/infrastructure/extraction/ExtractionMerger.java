@@ -0,0 +1,74 @@
+package com.example.documentintelligence.infrastructure.extraction;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.fasterxml.jackson.databind.node.NullNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Merges the JSON extracted from each chunk of a document into one result, following the document type's
+ * field paths. A scalar path takes the first value found in chunk order; a {@code [*]} list path
+ * concatenates the elements found in every chunk, without duplicates.
+ */
+public class ExtractionMerger {
+
+    private final FieldPathTrie fields;
+
+    /**
+     * @param fields Compiled field paths of the document type
+     */
+    public ExtractionMerger(FieldPathTrie fields) {
+        this.fields = fields;
+    }
+
+    /**
+     * @param partials Results extracted from each chunk, in chunk order
+     * @return Merged result containing every configured field path
+     */
+    public JsonNode merge(List<JsonNode> partials) {
+        return merge(partials, fields.root());
+    }
+
+    private JsonNode merge(List<JsonNode> values, FieldPathTrie.Node node) {
+        if (node.isList()) {
+            return mergeList(values);
+        }
+        if (node.isLeaf()) {
+            return values.stream()
+                    .filter(FieldPathTrie::isPresent)
+                    .findFirst()
+                    .orElse(NullNode.getInstance());
+        }
+        ObjectNode merged = JsonNodeFactory.instance.objectNode();
+        node.children().forEach((name, child) -> {
+            List<JsonNode> childValues = new ArrayList<>(values.size());
+            values.forEach(value -> childValues.add(value.path(name)));
+            merged.set(name, merge(childValues, child));
+        });
+        return merged;
+    }
+
+    private JsonNode mergeList(List<JsonNode> values) {
+        Set<JsonNode> elements = new LinkedHashSet<>();
+        for (JsonNode value : values) {
+            if (value.isArray()) {
+                value.forEach(element -> {
+                    if (FieldPathTrie.isPresent(element)) {
+                        elements.add(element);
+                    }
+                });
+            } else if (FieldPathTrie.isPresent(value)) {
+                elements.add(value);
+            }
+        }
+        ArrayNode merged = JsonNodeFactory.instance.arrayNode();
+        elements.forEach(merged::add);
+        return merged;
+    }
+}
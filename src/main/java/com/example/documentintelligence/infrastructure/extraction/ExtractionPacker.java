@@ -0,0 +1,141 @@
+package com.example.documentintelligence.infrastructure.extraction;
+
+import com.example.documentintelligence.domain.model.DocumentType;
+import com.fasterxml.jackson.databind.JsonNode;
+import lombok.extern.slf4j.Slf4j;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * Collects small extractions of the same group, usually a submission batch, into packs sent as a single
+ * completion. A pack is sent once it holds the maximum number of documents, once the next document would
+ * push it over its token budget, or once the first document has waited for the linger time.
+ */
+@Slf4j
+public class ExtractionPacker {
+
+    private final Duration linger;
+    private final int maxDocuments;
+    private final int maxTokens;
+    private final ScheduledExecutorService scheduler;
+    private final Function<List<PackedDocument>, CompletableFuture<List<Optional<JsonNode>>>> extractor;
+
+    // Open pack per group; guarded by itself
+    private final Map<String, Pack> open = new HashMap<>();
+
+    /**
+     * @param linger       Longest time a document waits for others to join its pack
+     * @param maxDocuments Documents per pack
+     * @param maxTokens    Sum of the document tokens a pack may hold
+     * @param scheduler    Scheduler sending packs whose linger time elapsed
+     * @param extractor    Extracts a pack, completing with one result per document in pack order
+     */
+    public ExtractionPacker(Duration linger, int maxDocuments, int maxTokens, ScheduledExecutorService scheduler,
+                            Function<List<PackedDocument>, CompletableFuture<List<Optional<JsonNode>>>> extractor) {
+        this.linger = linger;
+        this.maxDocuments = maxDocuments;
+        this.maxTokens = maxTokens;
+        this.scheduler = scheduler;
+        this.extractor = extractor;
+    }
+
+    /**
+     * Adds a document to the open pack of its group.
+     *
+     * @param group    Documents are only packed with others of the same group
+     * @param document Document to extract
+     * @return Future completed with the document's own extraction once its pack has been extracted
+     */
+    public CompletableFuture<Optional<JsonNode>> submit(String group, PackedDocument document) {
+        CompletableFuture<Optional<JsonNode>> result = new CompletableFuture<>();
+        Pack full = null;
+        Pack ready = null;
+        synchronized (open) {
+            Pack pack = open.get(group);
+            if (pack != null && pack.tokens + document.tokens() > maxTokens) {
+                open.remove(group);
+                full = pack;
+                pack = null;
+            }
+            if (pack == null) {
+                pack = new Pack();
+                open.put(group, pack);
+                Pack created = pack;
+                pack.lingerTimeout = scheduler.schedule(() -> sendOnLinger(group, created),
+                        linger.toMillis(), TimeUnit.MILLISECONDS);
+            }
+            pack.documents.add(document);
+            pack.results.add(result);
+            pack.tokens += document.tokens();
+            if (pack.documents.size() >= maxDocuments) {
+                open.remove(group);
+                ready = pack;
+            }
+        }
+        if (full != null) {
+            send(full);
+        }
+        if (ready != null) {
+            send(ready);
+        }
+        return result;
+    }
+
+    private void sendOnLinger(String group, Pack pack) {
+        synchronized (open) {
+            if (!open.remove(group, pack)) {
+                return;
+            }
+        }
+        send(pack);
+    }
+
+    private void send(Pack pack) {
+        pack.lingerTimeout.cancel(false);
+        log.debug("Sending pack of {} documents, {} tokens", pack.documents.size(), pack.tokens);
+        CompletableFuture<List<Optional<JsonNode>>> extraction;
+        try {
+            extraction = extractor.apply(pack.documents);
+        } catch (RuntimeException e) {
+            extraction = CompletableFuture.failedFuture(e);
+        }
+        extraction.whenComplete((extracted, error) -> {
+            for (int i = 0; i < pack.results.size(); i++) {
+                if (error != null) {
+                    pack.results.get(i).completeExceptionally(error);
+                } else {
+                    pack.results.get(i).complete(extracted.get(i));
+                }
+            }
+        });
+    }
+
+    /**
+     * A document waiting to be extracted as part of a pack.
+     *
+     * @param documentType Type of the document
+     * @param deployment   Chat deployment the document is extracted with, the same for every document of a pack
+     * @param fieldList    Fields to extract, one per line
+     * @param content      Content gathered by the previous steps
+     * @param tokens       Tokens the document adds to the packed prompt
+     */
+    public record PackedDocument(DocumentType documentType, String deployment, String fieldList, String content, int tokens) {
+    }
+
+    private static final class Pack {
+        private final List<PackedDocument> documents = new ArrayList<>();
+        private final List<CompletableFuture<Optional<JsonNode>>> results = new ArrayList<>();
+        private int tokens;
+        private ScheduledFuture<?> lingerTimeout;
+    }
+}
@@ -0,0 +1,219 @@
+package com.example.documentintelligence.infrastructure.extraction;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.fasterxml.jackson.databind.node.NullNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The field paths of a document type compiled into a trie, such as {@code a.b} or {@code a.items[*].name}.
+ * One walk of an extracted JSON tree keeps exactly the configured fields, builds the nested objects and lists
+ * they describe, and reports every field that is missing or has the wrong shape. Immutable and thread-safe.
+ */
+public final class FieldPathTrie {
+
+    private static final String LIST_SUFFIX = "[*]";
+
+    private final Node root = new Node("", "", false);
+
+    /**
+     * @param fieldPaths Field paths; a path may not also be the prefix of another, and a segment may not be
+     *                   used both as a list and as an object
+     */
+    public FieldPathTrie(List<String> fieldPaths) {
+        for (String path : fieldPaths) {
+            Node node = root;
+            for (String segment : path.split("\\.", -1)) {
+                boolean list = segment.endsWith(LIST_SUFFIX);
+                String name = list ? segment.substring(0, segment.length() - LIST_SUFFIX.length()) : segment;
+                if (name.isEmpty()) {
+                    throw new IllegalArgumentException("Empty segment in field path " + path);
+                }
+                if (node.terminal) {
+                    throw new IllegalArgumentException("Field path " + path + " extends the field " + node.path);
+                }
+                String parentPath = node.path;
+                node = node.children.computeIfAbsent(name, key -> new Node(key, parentPath.isEmpty() ? segment : parentPath + "." + segment, list));
+                if (node.list != list) {
+                    throw new IllegalArgumentException("Field path " + path + " uses " + name + " both as a list and as an object");
+                }
+            }
+            if (!node.children.isEmpty()) {
+                throw new IllegalArgumentException("Field path " + path + " is the prefix of another field path");
+            }
+            node.terminal = true;
+        }
+        root.compile();
+    }
+
+    Node root() {
+        return root;
+    }
+
+    /**
+     * Walks an extracted JSON tree once. Objects, lists and values follow the field paths; a list given as a
+     * single object is read as a list of one, and a leaf missing from its object is also looked up as a dotted
+     * key of the root, as models sometimes answer flat. Values that are empty, the text "null", or of the wrong
+     * shape count as missing.
+     *
+     * @param extracted Extracted JSON, or null when nothing was extracted
+     * @return The configured fields, with null for missing values and an empty array for missing lists,
+     * and the paths of the missing fields, with list elements numbered
+     */
+    public Result walk(JsonNode extracted) {
+        JsonNode source = extracted != null && extracted.isObject() ? extracted : NullNode.getInstance();
+        List<String> missing = new ArrayList<>();
+        ObjectNode data = walkObject(root, source, source, new StringBuilder(), missing);
+        return new Result(data, missing.isEmpty() ? List.of() : Collections.unmodifiableList(missing));
+    }
+
+    private ObjectNode walkObject(Node node, JsonNode value, JsonNode flatRoot, StringBuilder location, List<String> missing) {
+        ObjectNode object = JsonNodeFactory.instance.objectNode();
+        int length = location.length();
+        for (Node child : node.children.values()) {
+            if (length > 0) {
+                location.append('.');
+            }
+            location.append(child.name);
+            JsonNode childValue = value.get(child.name);
+            if (childValue == null && flatRoot != null && child.isLeaf()) {
+                childValue = flatRoot.get(child.path);
+            }
+            object.set(child.name, walk(child, childValue, flatRoot, location, missing));
+            location.setLength(length);
+        }
+        return object;
+    }
+
+    private JsonNode walk(Node node, JsonNode value, JsonNode flatRoot, StringBuilder location, List<String> missing) {
+        if (node.list) {
+            return walkList(node, value, location, missing);
+        }
+        if (node.isLeaf()) {
+            if (isPresentScalar(value)) {
+                return value;
+            }
+            missing.add(location.toString());
+            return NullNode.getInstance();
+        }
+        return walkObject(node, value != null && value.isObject() ? value : NullNode.getInstance(), flatRoot, location, missing);
+    }
+
+    private JsonNode walkList(Node node, JsonNode value, StringBuilder location, List<String> missing) {
+        ArrayNode list = JsonNodeFactory.instance.arrayNode();
+        if (value != null) {
+            int length = location.length();
+            for (JsonNode element : value.isArray() ? value : List.of(value)) {
+                if (node.isLeaf()) {
+                    if (isPresentScalar(element)) {
+                        list.add(element);
+                    }
+                } else if (element.isObject() && isPresent(element)) {
+                    location.append('[').append(list.size()).append(']');
+                    list.add(walkObject(node, element, null, location, missing));
+                    location.setLength(length);
+                }
+            }
+        }
+        if (list.isEmpty()) {
+            if (node.isLeaf()) {
+                missing.add(location + LIST_SUFFIX);
+            }
+            for (String suffix : node.suffixes) {
+                missing.add(location + LIST_SUFFIX + "." + suffix);
+            }
+        }
+        return list;
+    }
+
+    private static boolean isPresentScalar(JsonNode value) {
+        return value != null && value.isValueNode() && isPresent(value);
+    }
+
+    /**
+     * The prompt asks for "null" when a field is not found, so the text null counts as missing too.
+     */
+    static boolean isPresent(JsonNode value) {
+        if (value == null || value.isMissingNode() || value.isNull()) {
+            return false;
+        }
+        if (value.isTextual()) {
+            String text = value.asText().trim();
+            return !text.isEmpty() && !text.equalsIgnoreCase("null");
+        }
+        if (value.isContainerNode()) {
+            for (JsonNode child : value) {
+                if (isPresent(child)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Outcome of a walk.
+     *
+     * @param data          The configured fields, nested by path
+     * @param missingFields Paths of the fields missing from the extraction
+     */
+    public record Result(ObjectNode data, List<String> missingFields) {
+        public boolean isComplete() {
+            return missingFields.isEmpty();
+        }
+    }
+
+    static final class Node {
+        private final String name;
+        private final String path;
+        private final boolean list;
+        private final Map<String, Node> children = new LinkedHashMap<>();
+        private boolean terminal;
+        // Field paths below this node relative to it, reported when a list of objects is missing
+        private List<String> suffixes;
+
+        private Node(String name, String path, boolean list) {
+            this.name = name;
+            this.path = path;
+            this.list = list;
+        }
+
+        String name() {
+            return name;
+        }
+
+        boolean isList() {
+            return list;
+        }
+
+        boolean isLeaf() {
+            return children.isEmpty();
+        }
+
+        Map<String, Node> children() {
+            return children;
+        }
+
+        private void compile() {
+            List<String> collected = new ArrayList<>();
+            for (Node child : children.values()) {
+                child.compile();
+                String segment = child.list ? child.name + LIST_SUFFIX : child.name;
+                if (child.isLeaf()) {
+                    collected.add(segment);
+                } else {
+                    child.suffixes.forEach(suffix -> collected.add(segment + "." + suffix));
+                }
+            }
+            suffixes = List.copyOf(collected);
+        }
+    }
+}
@@ -0,0 +1,179 @@
+package com.example.documentintelligence.infrastructure.extraction;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.async.ByteArrayFeeder;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ContainerNode;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.Deque;
+
+/**
+ * Validates a JSON object as a completion streams in, fragment by fragment.
+ * Leading whitespace and a Markdown code fence are skipped; anything else before the root object, or any
+ * structural error inside it, fails immediately instead of after the whole completion has been paid for.
+ * Reading stops at the brace that closes the root object, so trailing text is never consumed.
+ * The JSON tree is built from the same tokens, so the completion never has to be parsed again.
+ * Not thread-safe; use one reader per completion.
+ */
+public class IncrementalJsonReader {
+
+    private static final String CODE_FENCE = "```json";
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
+
+    private final StringBuilder preamble = new StringBuilder();
+    private final ByteArrayOutputStream json = new ByteArrayOutputStream();
+    private JsonParser parser;
+    private ByteArrayFeeder feeder;
+    private final Deque<ContainerNode<?>> containers = new ArrayDeque<>();
+    private String fieldName;
+    private ObjectNode tree;
+    private boolean complete;
+
+    /**
+     * Feeds the next fragment of the completion.
+     *
+     * @param fragment Text streamed by the model
+     * @return true once the root object is closed; later fragments are ignored
+     * @throws MalformedCompletionException if the text cannot be, or cannot start, a JSON object
+     */
+    public boolean feed(String fragment) {
+        if (complete || fragment == null || fragment.isEmpty()) {
+            return complete;
+        }
+        String body = fragment;
+        if (parser == null) {
+            int start = fragment.indexOf('{');
+            preamble.append(start < 0 ? fragment : fragment.substring(0, start));
+            String leading = preamble.toString().strip();
+            if (!CODE_FENCE.startsWith(leading.toLowerCase())) {
+                throw new MalformedCompletionException("Completion does not start with a JSON object: " + abbreviate(leading));
+            }
+            if (start < 0) {
+                return false;
+            }
+            body = fragment.substring(start);
+            startParser();
+        }
+        return parse(body.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public boolean isComplete() {
+        return complete;
+    }
+
+    /**
+     * @return The root JSON object, without surrounding fences or trailing text
+     */
+    public String getJson() {
+        if (!complete) {
+            throw new IllegalStateException("JSON object is not complete");
+        }
+        return json.toString(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * @return The root JSON object as a tree
+     */
+    public ObjectNode getTree() {
+        if (!complete) {
+            throw new IllegalStateException("JSON object is not complete");
+        }
+        return tree;
+    }
+
+    private void startParser() {
+        try {
+            parser = JSON_FACTORY.createNonBlockingByteArrayParser();
+        } catch (IOException e) {
+            throw new IllegalStateException("Unable to create incremental JSON parser", e);
+        }
+        feeder = (ByteArrayFeeder) parser.getNonBlockingInputFeeder();
+    }
+
+    private boolean parse(byte[] bytes) {
+        long offsetBefore = parser.currentLocation().getByteOffset();
+        try {
+            feeder.feedInput(bytes, 0, bytes.length);
+            JsonToken token;
+            while ((token = parser.nextToken()) != null && token != JsonToken.NOT_AVAILABLE) {
+                if (!build(token)) {
+                    int consumed = (int) (parser.currentLocation().getByteOffset() - offsetBefore);
+                    json.write(bytes, 0, consumed);
+                    complete = true;
+                    parser.close();
+                    return true;
+                }
+            }
+        } catch (IOException e) {
+            throw new MalformedCompletionException("Completion is not valid JSON: " + e.getMessage(), e);
+        }
+        json.write(bytes, 0, bytes.length);
+        return false;
+    }
+
+    /**
+     * Adds the token to the tree.
+     *
+     * @return false once the root object is closed
+     */
+    private boolean build(JsonToken token) throws IOException {
+        JsonNodeFactory nodes = JsonNodeFactory.instance;
+        switch (token) {
+            case START_OBJECT -> {
+                ObjectNode object = nodes.objectNode();
+                if (tree == null) {
+                    tree = object;
+                } else {
+                    add(object);
+                }
+                containers.push(object);
+            }
+            case START_ARRAY -> {
+                ArrayNode array = nodes.arrayNode();
+                add(array);
+                containers.push(array);
+            }
+            case END_OBJECT, END_ARRAY -> {
+                containers.pop();
+                return !containers.isEmpty();
+            }
+            case FIELD_NAME -> fieldName = parser.currentName();
+            case VALUE_STRING -> add(nodes.textNode(parser.getText()));
+            case VALUE_NUMBER_INT -> add(switch (parser.getNumberType()) {
+                case INT -> nodes.numberNode(parser.getIntValue());
+                case LONG -> nodes.numberNode(parser.getLongValue());
+                default -> nodes.numberNode(parser.getBigIntegerValue());
+            });
+            case VALUE_NUMBER_FLOAT -> add(nodes.numberNode(parser.getDoubleValue()));
+            case VALUE_TRUE -> add(nodes.booleanNode(true));
+            case VALUE_FALSE -> add(nodes.booleanNode(false));
+            case VALUE_NULL -> add(nodes.nullNode());
+            default -> {
+            }
+        }
+        return true;
+    }
+
+    private void add(JsonNode value) {
+        if (containers.peek() instanceof ObjectNode object) {
+            object.set(fieldName, value);
+        } else if (containers.peek() instanceof ArrayNode array) {
+            array.add(value);
+        } else {
+            throw new MalformedCompletionException("Completion is not a JSON object");
+        }
+    }
+
+    private static String abbreviate(String text) {
+        return text.length() > 40 ? text.substring(0, 40) + "..." : text;
+    }
+}
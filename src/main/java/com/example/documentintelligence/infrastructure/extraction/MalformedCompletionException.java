@@ -0,0 +1,17 @@
+package com.example.documentintelligence.infrastructure.extraction;
+
+/**
+ * Signals that a model completion cannot be parsed as the expected JSON object.
+ */
+public class MalformedCompletionException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    public MalformedCompletionException(String message) {
+        super(message);
+    }
+
+    public MalformedCompletionException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
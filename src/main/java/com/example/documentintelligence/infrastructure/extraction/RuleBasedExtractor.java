@@ -0,0 +1,187 @@
+package com.example.documentintelligence.infrastructure.extraction;
+
+import com.example.documentintelligence.domain.model.DocumentType;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.time.format.ResolverStyle;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Predicate;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Extracts fields with rigid formats straight from the layout content, using patterns compiled once per
+ * document type and field path. A field only counts as filled when its pattern matches a single distinct,
+ * valid value, so anything ambiguous is left to the LLM. Document types with a field no rule covers are
+ * never extracted here.
+ */
+@Component
+public class RuleBasedExtractor {
+
+    private static final String NAME = "\\p{Lu}[\\p{Lu}'. ]*\\p{Lu}";
+    private static final String DATE = "\\d{2}/\\d{2}/\\d{4}";
+    private static final String NULL_VALUE = "null";
+    private static final DateTimeFormatter DATE_FORMAT = DateTimeFormatter.ofPattern("dd/MM/uuuu")
+            .withResolverStyle(ResolverStyle.STRICT);
+
+    private static final Pattern CPF_NUMBER = Pattern.compile("(?<![\\d.])(\\d{3}\\.\\d{3}\\.\\d{3}-\\d{2})(?![\\d-])");
+    private static final Pattern NOME = labelled("nome", NAME);
+    private static final Pattern NOME_SOCIAL = labelled("nome social", NAME);
+    private static final Pattern NOME_SOCIAL_LABEL = label("nome social");
+    private static final Pattern FILIACAO = Pattern.compile("(?m)^[ \\t]*(?iu:filia[çc][ãa]o)[ \\t]*:?[ \\t]*\\R"
+            + "[ \\t]*(" + NAME + ")[ \\t]*\\R[ \\t]*(" + NAME + ")[ \\t]*$");
+    private static final Pattern DATA_NASCIMENTO = labelled("data de nascimento", DATE);
+    private static final Pattern NATURALIDADE = labelled("naturalidade", "\\p{Lu}[\\p{Lu}' ]*[ ]?[-/][ ]?\\p{Lu}{2}");
+    private static final Pattern REGISTRO_GERAL = labelled("registro geral", "\\d{1,2}\\.?\\d{3}\\.?\\d{3}-?[\\dX]");
+    private static final Pattern DATA_EXPEDICAO = labelled("data de expedi[çc][ãa]o", DATE);
+
+    private static final String RG_PREFIX = "documentoIdentificacao.tipoDocumento.";
+
+    private final Map<DocumentType, Map<String, FieldRule>> rules = new EnumMap<>(DocumentType.class);
+
+    public RuleBasedExtractor() {
+        rules.put(DocumentType.CPF, Map.of(
+                "NOME", new FieldRule(NOME, 1, value -> true, null),
+                "NUMERO_CPF", new FieldRule(CPF_NUMBER, 1, RuleBasedExtractor::isValidCpf, null)));
+        rules.put(DocumentType.RG, Map.of(
+                RG_PREFIX + "nome", new FieldRule(NOME, 1, value -> true, null),
+                RG_PREFIX + "nomeSocial", new FieldRule(NOME_SOCIAL, 1, value -> true, NOME_SOCIAL_LABEL),
+                RG_PREFIX + "filiacao.pai", new FieldRule(FILIACAO, 1, value -> true, null),
+                RG_PREFIX + "filiacao.mae", new FieldRule(FILIACAO, 2, value -> true, null),
+                RG_PREFIX + "dataNascimento", new FieldRule(DATA_NASCIMENTO, 1, RuleBasedExtractor::isValidDate, null),
+                RG_PREFIX + "naturalidade", new FieldRule(NATURALIDADE, 1, value -> true, null),
+                RG_PREFIX + "numeroDocumento", new FieldRule(REGISTRO_GERAL, 1, value -> true, null),
+                RG_PREFIX + "dataExpedicao", new FieldRule(DATA_EXPEDICAO, 1, RuleBasedExtractor::isValidDate, null)));
+        rules.forEach((type, typeRules) -> {
+            if (!typeRules.keySet().containsAll(type.getFields())) {
+                throw new IllegalStateException("Rules for " + type + " do not cover all of its fields");
+            }
+        });
+    }
+
+    public boolean supports(DocumentType documentType) {
+        return rules.containsKey(documentType);
+    }
+
+    /**
+     * Applies the rules of the document type to the layout content.
+     *
+     * @return The fields filled, as a JSON object nested by field path like the LLM output,
+     *         and whether every field of the type was filled
+     */
+    public Extraction extract(DocumentType documentType, String content) {
+        Map<String, FieldRule> typeRules = rules.getOrDefault(documentType, Map.of());
+        Map<String, String> filled = new LinkedHashMap<>();
+        for (String field : documentType.getFields()) {
+            FieldRule rule = typeRules.get(field);
+            String value = rule != null ? rule.apply(content) : null;
+            if (value != null) {
+                filled.put(field, value);
+            }
+        }
+        ObjectNode json = JsonNodeFactory.instance.objectNode();
+        filled.forEach((field, value) -> put(json, field, value));
+        return new Extraction(json, filled.size(), documentType.getFields().size());
+    }
+
+    private static void put(ObjectNode root, String path, String value) {
+        String[] segments = path.split("\\.");
+        ObjectNode node = root;
+        for (int i = 0; i < segments.length - 1; i++) {
+            node = node.has(segments[i]) ? (ObjectNode) node.get(segments[i]) : node.putObject(segments[i]);
+        }
+        node.put(segments[segments.length - 1], value);
+    }
+
+    private static Pattern labelled(String label, String value) {
+        return Pattern.compile("(?m)^[ \\t]*(?iu:" + label + ")[ \\t]*(?::[ \\t]*|[ \\t]*\\R[ \\t]*)(" + value + ")[ \\t]*$");
+    }
+
+    private static Pattern label(String label) {
+        return Pattern.compile("(?m)^[ \\t]*(?iu:" + label + ")\\b");
+    }
+
+    private static boolean isValidDate(String value) {
+        try {
+            LocalDate.parse(value, DATE_FORMAT);
+            return true;
+        } catch (DateTimeParseException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Checks both CPF verification digits.
+     */
+    private static boolean isValidCpf(String value) {
+        String digits = value.replaceAll("\\D", "");
+        if (digits.length() != 11 || digits.chars().distinct().count() == 1) {
+            return false;
+        }
+        for (int check = 9; check <= 10; check++) {
+            int sum = 0;
+            for (int i = 0; i < check; i++) {
+                sum += (digits.charAt(i) - '0') * (check + 1 - i);
+            }
+            int digit = (sum * 10) % 11 % 10;
+            if (digit != digits.charAt(check) - '0') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Result of applying the rules of a document type.
+     *
+     * @param json   Filled fields, nested by field path
+     * @param filled Number of fields filled
+     * @param total  Number of fields of the document type
+     */
+    public record Extraction(ObjectNode json, int filled, int total) {
+        public boolean isComplete() {
+            return filled == total;
+        }
+    }
+
+    /**
+     * @param pattern     Pattern locating the value
+     * @param group       Capture group holding the value
+     * @param validator   Check a matched value must pass
+     * @param absentLabel For optional fields, the label whose absence means the field is confidently empty
+     */
+    private record FieldRule(Pattern pattern, int group, Predicate<String> validator, Pattern absentLabel) {
+
+        /**
+         * @return The single distinct valid value, "null" for an optional field whose label is absent,
+         *         or null when the field cannot be filled confidently
+         */
+        String apply(String content) {
+            Set<String> values = new LinkedHashSet<>();
+            Matcher matcher = pattern.matcher(content);
+            while (matcher.find()) {
+                String value = matcher.group(group).strip();
+                if (!validator.test(value)) {
+                    return null;
+                }
+                values.add(value);
+            }
+            if (values.size() == 1) {
+                return values.iterator().next();
+            }
+            if (values.isEmpty() && absentLabel != null && !absentLabel.matcher(content).find()) {
+                return NULL_VALUE;
+            }
+            return null;
+        }
+    }
+}
@@ -0,0 +1,33 @@
+package com.example.documentintelligence.infrastructure.extraction;
+
+import com.knuddels.jtokkit.Encodings;
+import com.knuddels.jtokkit.api.Encoding;
+import com.knuddels.jtokkit.api.IntArrayList;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Counts prompt tokens with the byte-pair encoding of the configured OpenAI deployment.
+ */
+@Component
+public class TokenCounter {
+
+    private final Encoding encoding;
+
+    public TokenCounter(@Value("${azure.openai.chunking.encoding:o200k_base}") String encodingName) {
+        this.encoding = Encodings.newLazyEncodingRegistry().getEncoding(encodingName)
+                .orElseThrow(() -> new IllegalStateException("Unknown token encoding: " + encodingName));
+    }
+
+    public int count(String text) {
+        return text == null || text.isEmpty() ? 0 : encoding.countTokensOrdinary(text);
+    }
+
+    IntArrayList encode(String text) {
+        return encoding.encodeOrdinary(text);
+    }
+
+    String decode(IntArrayList tokens) {
+        return encoding.decode(tokens);
+    }
+}
@@ -0,0 +1,182 @@
+package com.example.documentintelligence.infrastructure.metrics;
+
+import com.azure.core.util.Context;
+import com.example.documentintelligence.domain.model.AnalysisStatus;
+import com.example.documentintelligence.domain.model.DocumentType;
+import com.example.documentintelligence.domain.workflow.DocumentProcessingState;
+import com.example.documentintelligence.infrastructure.scheduling.JobClass;
+import com.example.documentintelligence.infrastructure.scheduling.SizeClass;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.function.ObjLongConsumer;
+
+/**
+ * Meters of the analysis pipeline, all tagged by document type: time spent queued for the executor and in
+ * each fair queue, per stage and end to end, payload sizes, prompt and completion tokens, Azure throttling
+ * and rejected completions. Meters are registered once at startup so recording never goes through the registry.
+ * Timers and summaries publish percentile histograms for dashboards.
+ */
+@Component
+public class PipelineMetrics {
+
+    /**
+     * Key under which the document type travels in the Azure call context, read back by the HTTP pipeline
+     * to tag throttled responses.
+     */
+    public static final String DOCUMENT_TYPE_KEY = "document-analysis.document-type";
+
+    private static final String UNKNOWN = "UNKNOWN";
+
+    private final MeterRegistry meterRegistry;
+    private final Map<DocumentType, Timer> queueWait = new EnumMap<>(DocumentType.class);
+    private final Map<DocumentType, Map<AnalysisStatus, Timer>> analysisDuration = new EnumMap<>(DocumentType.class);
+    private final Map<DocumentType, Map<DocumentProcessingState, Timer>> stageSuccess = new EnumMap<>(DocumentType.class);
+    private final Map<DocumentType, Map<DocumentProcessingState, Timer>> stageFailure = new EnumMap<>(DocumentType.class);
+    private final Map<DocumentType, DistributionSummary> payloadBytes = new EnumMap<>(DocumentType.class);
+    private final Map<DocumentType, DistributionSummary> pages = new EnumMap<>(DocumentType.class);
+    private final Map<DocumentType, DistributionSummary> promptTokens = new EnumMap<>(DocumentType.class);
+    private final Map<DocumentType, DistributionSummary> completionTokens = new EnumMap<>(DocumentType.class);
+    private final Map<DocumentType, Counter> invalidJson = new EnumMap<>(DocumentType.class);
+
+    public PipelineMetrics(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+        for (DocumentType type : DocumentType.values()) {
+            queueWait.put(type, timer("document.dispatch.queue.wait", "Time from dispatch until a worker starts the analysis", type)
+                    .register(meterRegistry));
+            Map<AnalysisStatus, Timer> durations = new EnumMap<>(AnalysisStatus.class);
+            for (AnalysisStatus status : EnumSet.of(AnalysisStatus.COMPLETED, AnalysisStatus.FAILED)) {
+                durations.put(status, timer("document.analysis.duration", "Time from dispatch until the analysis finished", type)
+                        .tag("status", status.name())
+                        .register(meterRegistry));
+            }
+            analysisDuration.put(type, durations);
+            stageSuccess.put(type, stageTimers(type, "success"));
+            stageFailure.put(type, stageTimers(type, "failure"));
+            payloadBytes.put(type, summary("document.payload.bytes", "Size of submitted documents", "bytes", type));
+            pages.put(type, summary("document.pages", "Page count of analyzed documents, when known", "pages", type));
+            promptTokens.put(type, summary("document.openai.prompt.tokens", "Prompt tokens per completion", "tokens", type));
+            completionTokens.put(type, summary("document.openai.completion.tokens", "Completion tokens per completion", "tokens", type));
+            invalidJson.put(type, Counter.builder("document.openai.invalid-json")
+                    .description("Completions rejected because they were not a valid JSON object")
+                    .tag("documentType", type.name())
+                    .register(meterRegistry));
+        }
+    }
+
+    public void recordQueueWait(DocumentType documentType, long nanos) {
+        queueWait.get(documentType).record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    public void recordAnalysis(DocumentType documentType, AnalysisStatus status, long nanos) {
+        analysisDuration.get(documentType).get(status).record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    public void recordStage(DocumentType documentType, DocumentProcessingState state, boolean success, long nanos) {
+        (success ? stageSuccess : stageFailure).get(documentType).get(state).record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    public void recordPayload(DocumentType documentType, long bytes) {
+        payloadBytes.get(documentType).record(bytes);
+    }
+
+    public void recordPages(DocumentType documentType, int pageCount) {
+        if (pageCount > 0) {
+            pages.get(documentType).record(pageCount);
+        }
+    }
+
+    public void recordTokens(DocumentType documentType, int prompt, int completion) {
+        promptTokens.get(documentType).record(prompt);
+        completionTokens.get(documentType).record(completion);
+    }
+
+    public void recordInvalidJson(DocumentType documentType) {
+        invalidJson.get(documentType).increment();
+    }
+
+    /**
+     * Registers the timers of the time jobs wait in a fair queue, one per job class.
+     *
+     * @param queue Name of the queue, tagging its timers
+     * @return Recorder to hand to the queue
+     */
+    public ObjLongConsumer<JobClass> schedulerQueueWait(String queue) {
+        List<DocumentType> types = new ArrayList<>(Arrays.asList(DocumentType.values()));
+        types.add(null);
+        Map<JobClass, Timer> timers = new HashMap<>();
+        for (DocumentType type : types) {
+            for (SizeClass size : SizeClass.values()) {
+                timers.put(new JobClass(type, size), Timer.builder("document.scheduler.queue.wait")
+                        .description("Time a job waited in a fair queue until it was served")
+                        .tag("queue", queue)
+                        .tag("documentType", type != null ? type.name() : UNKNOWN)
+                        .tag("size", size.name())
+                        .publishPercentileHistogram()
+                        .register(meterRegistry));
+            }
+        }
+        return (jobClass, nanos) -> timers.get(jobClass).record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Counts a throttled response of an Azure service.
+     *
+     * @param service      Name of the throttling service
+     * @param documentType Document type carried by the call context, if any
+     */
+    public void recordThrottled(String service, Optional<Object> documentType) {
+        Counter.builder("document.downstream.throttled")
+                .description("Responses throttled by an Azure service, including those retried")
+                .tag("service", service)
+                .tag("documentType", documentType.map(String::valueOf).orElse(UNKNOWN))
+                .register(meterRegistry)
+                .increment();
+    }
+
+    /**
+     * @return Azure call context carrying the document type, for calls whose throttling should be tagged with it
+     */
+    public static Context callContext(DocumentType documentType) {
+        return new Context(DOCUMENT_TYPE_KEY, documentType.name());
+    }
+
+    private Map<DocumentProcessingState, Timer> stageTimers(DocumentType type, String outcome) {
+        Map<DocumentProcessingState, Timer> timers = new EnumMap<>(DocumentProcessingState.class);
+        for (DocumentProcessingState state : DocumentProcessingState.values()) {
+            timers.put(state, timer("document.analysis.stage", "Time spent in a workflow stage", type)
+                    .tag("stage", state.name())
+                    .tag("outcome", outcome)
+                    .register(meterRegistry));
+        }
+        return timers;
+    }
+
+    private static Timer.Builder timer(String name, String description, DocumentType type) {
+        return Timer.builder(name)
+                .description(description)
+                .tag("documentType", type.name())
+                .publishPercentileHistogram();
+    }
+
+    private DistributionSummary summary(String name, String description, String unit, DocumentType type) {
+        return DistributionSummary.builder(name)
+                .description(description)
+                .baseUnit(unit)
+                .tag("documentType", type.name())
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+    }
+}
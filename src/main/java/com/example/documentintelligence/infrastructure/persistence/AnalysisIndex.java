@@ -0,0 +1,149 @@
+package com.example.documentintelligence.infrastructure.persistence;
+
+import com.example.documentintelligence.domain.model.AnalysisSnapshot;
+import com.example.documentintelligence.domain.model.AnalysisStatus;
+import com.example.documentintelligence.domain.model.DocumentType;
+import com.example.documentintelligence.domain.model.InvalidRequestException;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.concurrent.ConcurrentSkipListSet;
+
+/**
+ * Secondary indexes of the stored analyses by status, by document type, by both, and over all analyses,
+ * each ordered by analysis date. A query walks one index over a date range instead of scanning every
+ * analysis. Reads never lock; updates are made by the store holding its lock. An analysis is moved from one
+ * key to the next on each save, so a reader may briefly miss it or see it under its previous key; readers
+ * check the keys they find against the latest snapshot.
+ */
+final class AnalysisIndex {
+
+    private static final Comparator<Key> ORDER = Comparator.comparing(Key::analysisDate).thenComparing(Key::protocol);
+
+    private final NavigableSet<Key> all = new ConcurrentSkipListSet<>(ORDER);
+    private final Map<AnalysisStatus, NavigableSet<Key>> byStatus = new EnumMap<>(AnalysisStatus.class);
+    private final Map<DocumentType, NavigableSet<Key>> byType = new EnumMap<>(DocumentType.class);
+    private final Map<AnalysisStatus, Map<DocumentType, NavigableSet<Key>>> byStatusAndType = new EnumMap<>(AnalysisStatus.class);
+
+    AnalysisIndex() {
+        // Every set exists up front, so the maps are never modified and can be read without locking
+        for (AnalysisStatus status : AnalysisStatus.values()) {
+            byStatus.put(status, new ConcurrentSkipListSet<>(ORDER));
+            Map<DocumentType, NavigableSet<Key>> types = new EnumMap<>(DocumentType.class);
+            for (DocumentType type : DocumentType.values()) {
+                types.put(type, new ConcurrentSkipListSet<>(ORDER));
+            }
+            byStatusAndType.put(status, types);
+        }
+        for (DocumentType type : DocumentType.values()) {
+            byType.put(type, new ConcurrentSkipListSet<>(ORDER));
+        }
+    }
+
+    void add(AnalysisSnapshot snapshot) {
+        Key key = Key.of(snapshot);
+        all.add(key);
+        if (snapshot.getStatus() != null) {
+            byStatus.get(snapshot.getStatus()).add(key);
+        }
+        if (snapshot.getDocumentType() != null) {
+            byType.get(snapshot.getDocumentType()).add(key);
+        }
+        if (snapshot.getStatus() != null && snapshot.getDocumentType() != null) {
+            byStatusAndType.get(snapshot.getStatus()).get(snapshot.getDocumentType()).add(key);
+        }
+    }
+
+    void remove(AnalysisSnapshot snapshot) {
+        Key key = Key.of(snapshot);
+        all.remove(key);
+        if (snapshot.getStatus() != null) {
+            byStatus.get(snapshot.getStatus()).remove(key);
+        }
+        if (snapshot.getDocumentType() != null) {
+            byType.get(snapshot.getDocumentType()).remove(key);
+        }
+        if (snapshot.getStatus() != null && snapshot.getDocumentType() != null) {
+            byStatusAndType.get(snapshot.getStatus()).get(snapshot.getDocumentType()).remove(key);
+        }
+    }
+
+    /**
+     * Keys of the analyses with the given status and type, newest first.
+     *
+     * @param status Status to match, null for any
+     * @param type   Document type to match, null for any
+     * @param from   Earliest analysis date, inclusive; null for no lower bound
+     * @param to     Latest analysis date, exclusive; null for no upper bound
+     * @param after  Key the previous page ended with, null for the first page
+     */
+    Iterator<Key> newestFirst(AnalysisStatus status, DocumentType type, LocalDateTime from, LocalDateTime to, Key after) {
+        NavigableSet<Key> keys = status != null && type != null ? byStatusAndType.get(status).get(type)
+                : status != null ? byStatus.get(status)
+                : type != null ? byType.get(type)
+                : all;
+        if (from != null) {
+            keys = keys.tailSet(new Key(from, ""), true);
+        }
+        if (to != null) {
+            keys = keys.headSet(new Key(to, ""), false);
+        }
+        if (after != null) {
+            keys = keys.headSet(after, false);
+        }
+        return keys.descendingIterator();
+    }
+
+    /**
+     * Position of an analysis in the indexes. Analyses without a date sort before every other one.
+     */
+    record Key(LocalDateTime analysisDate, String protocol) {
+
+        private static final char SEPARATOR = '|';
+
+        static Key of(AnalysisSnapshot snapshot) {
+            return new Key(snapshot.getAnalysisDate() != null ? snapshot.getAnalysisDate() : LocalDateTime.MIN,
+                    snapshot.getProtocol());
+        }
+
+        boolean matches(AnalysisSnapshot snapshot) {
+            return equals(of(snapshot));
+        }
+
+        /**
+         * Opaque form of the key handed to clients as a page cursor.
+         */
+        String toCursor() {
+            return Base64.getUrlEncoder().withoutPadding()
+                    .encodeToString((analysisDate.toString() + SEPARATOR + protocol).getBytes(StandardCharsets.UTF_8));
+        }
+
+        /**
+         * @throws InvalidRequestException if the cursor was not produced by {@link #toCursor()}
+         */
+        static Key fromCursor(String cursor) {
+            String decoded;
+            try {
+                decoded = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            } catch (IllegalArgumentException e) {
+                throw new InvalidRequestException("Invalid cursor: " + cursor, e);
+            }
+            int separator = decoded.indexOf(SEPARATOR);
+            if (separator < 0) {
+                throw new InvalidRequestException("Invalid cursor: " + cursor);
+            }
+            try {
+                return new Key(LocalDateTime.parse(decoded.substring(0, separator)), decoded.substring(separator + 1));
+            } catch (DateTimeParseException e) {
+                throw new InvalidRequestException("Invalid cursor: " + cursor, e);
+            }
+        }
+    }
+}
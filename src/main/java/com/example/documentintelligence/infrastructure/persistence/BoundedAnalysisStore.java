@@ -0,0 +1,410 @@
+package com.example.documentintelligence.infrastructure.persistence;
+
+import com.example.documentintelligence.domain.model.AnalysisPage;
+import com.example.documentintelligence.domain.model.AnalysisQuery;
+import com.example.documentintelligence.domain.model.AnalysisSnapshot;
+import com.example.documentintelligence.domain.model.AnalysisStatus;
+import com.example.documentintelligence.domain.model.AnalysisSummary;
+import com.example.documentintelligence.domain.model.AnalysisUpdatedEvent;
+import com.example.documentintelligence.domain.model.DocumentAnalysis;
+import com.example.documentintelligence.domain.model.InvalidRequestException;
+import com.example.documentintelligence.domain.workflow.DocumentProcessingState;
+import com.fasterxml.jackson.databind.JsonNode;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Predicate;
+
+/**
+ * Memory-bounded store behind the document repositories.
+ * Every save publishes an immutable, versioned {@link AnalysisSnapshot} that status reads get without taking
+ * any lock, and announces it with an {@link AnalysisUpdatedEvent}. Analyses still being processed also keep
+ * the live object the pipeline updates. Once an analysis completes or fails only its snapshot is kept: the
+ * document payload is dropped and large step results are deflated. Finished analyses expire after the TTL,
+ * and the oldest ones are evicted whenever the estimated retained size exceeds the budget. Pending analyses
+ * are never evicted, and are kept out of the eviction order so each save only visits what it evicts.
+ * Snapshots are also indexed by status, document type and analysis date, so queries over them read a
+ * date range of one index instead of scanning the store.
+ */
+@Component
+@Slf4j
+public class BoundedAnalysisStore {
+
+    // Rough per-entry overhead of the map nodes, the snapshot and the analysis object graph
+    private static final long ENTRY_OVERHEAD_BYTES = 320;
+    // Rough size of the entry's keys and skip list nodes in the four secondary indexes
+    private static final long INDEX_OVERHEAD_BYTES = 4 * 80;
+    private static final long STRING_OVERHEAD_BYTES = 48;
+    private static final long JSON_NODE_OVERHEAD_BYTES = 32;
+
+    private final Duration ttl;
+    private final long maxRetainedBytes;
+    private final int compressionThreshold;
+    private final ApplicationEventPublisher eventPublisher;
+
+    private final Map<String, AnalysisSnapshot> snapshots = new ConcurrentHashMap<>();
+    // Protocols of each batch, in submission order; guarded by the entries lock for writes
+    private final Map<String, Set<String>> batches = new ConcurrentHashMap<>();
+    // Updated holding the entries lock, read without it
+    private final AnalysisIndex index = new AnalysisIndex();
+    // Ordered by last update; guarded by itself, which is the entries lock
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>();
+    // Finished protocols only, ordered by last update, so eviction starts with the analyses that finished first
+    private final LinkedHashSet<String> finishedOrder = new LinkedHashSet<>();
+    private long retainedBytes;
+
+    public BoundedAnalysisStore(@Value("${document-analysis.repository.ttl:P7D}") Duration ttl,
+                                @Value("${document-analysis.repository.max-retained-bytes:268435456}") long maxRetainedBytes,
+                                @Value("${document-analysis.repository.compression-threshold:1024}") int compressionThreshold,
+                                MeterRegistry meterRegistry,
+                                ApplicationEventPublisher eventPublisher) {
+        this.ttl = ttl;
+        this.eventPublisher = eventPublisher;
+        this.maxRetainedBytes = maxRetainedBytes;
+        this.compressionThreshold = compressionThreshold;
+        Gauge.builder("document.repository.retained.bytes", this, BoundedAnalysisStore::getRetainedBytes)
+                .description("Estimated heap retained by stored document analyses")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+        Gauge.builder("document.repository.entries", this, BoundedAnalysisStore::size)
+                .description("Document analyses held in memory")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Stores the analysis and publishes its next snapshot. Must be called by the thread that owns the
+     * analysis at that point, so the snapshot copies a consistent state.
+     */
+    public void put(DocumentAnalysis analysis) {
+        boolean finished = isFinished(analysis.getStatus());
+        Map<String, Object> stepResults = copyStepResults(analysis.getStepResults(), finished);
+        long bytes = ENTRY_OVERHEAD_BYTES + INDEX_OVERHEAD_BYTES + estimate(analysis.getExtractedData()) + estimate(analysis.getErrorMessage());
+        for (Map.Entry<String, Object> result : stepResults.entrySet()) {
+            bytes += estimate(result.getKey()) + estimate(result.getValue());
+        }
+        DocumentAnalysis live = finished ? null : analysis;
+        if (live != null) {
+            bytes += estimate(analysis.getBase64Document());
+        }
+
+        String protocol = analysis.getProtocol();
+        AnalysisSnapshot snapshot;
+        synchronized (entries) {
+            AnalysisSnapshot previous = snapshots.get(protocol);
+            snapshot = AnalysisSnapshot.builder()
+                    .protocol(protocol)
+                    .version(previous != null ? previous.getVersion() + 1 : 1)
+                    .documentType(analysis.getDocumentType())
+                    .batchId(analysis.getBatchId())
+                    .valid(analysis.isValid())
+                    .extractedData(analysis.getExtractedData())
+                    .missingFields(analysis.getMissingFields())
+                    .stepResults(stepResults)
+                    .analysisDate(analysis.getAnalysisDate())
+                    .currentState(analysis.getCurrentState())
+                    .completedStages(Collections.unmodifiableSet(copyOf(analysis.getCompletedStages())))
+                    .stageTimings(Collections.unmodifiableMap(copyOf(analysis.getStageTimings())))
+                    .status(analysis.getStatus())
+                    .errorMessage(analysis.getErrorMessage())
+                    .build();
+            Entry replaced = entries.remove(protocol);
+            if (replaced != null) {
+                retainedBytes -= replaced.retainedBytes();
+                finishedOrder.remove(protocol);
+            }
+            entries.put(protocol, new Entry(live, analysis.getContentHash(), analysis.getPageCount(), bytes));
+            if (finished) {
+                finishedOrder.add(protocol);
+            }
+            snapshots.put(protocol, snapshot);
+            if (previous != null) {
+                index.remove(previous);
+            }
+            index.add(snapshot);
+            if (analysis.getBatchId() != null) {
+                batches.computeIfAbsent(analysis.getBatchId(), id -> Collections.synchronizedSet(new LinkedHashSet<>()))
+                        .add(protocol);
+            }
+            retainedBytes += bytes;
+            evict();
+        }
+        eventPublisher.publishEvent(new AnalysisUpdatedEvent(snapshot));
+    }
+
+    /**
+     * Lock-free read of the latest published snapshot.
+     */
+    public Optional<AnalysisSnapshot> getSnapshot(String protocol) {
+        AnalysisSnapshot snapshot = snapshots.get(protocol);
+        if (snapshot == null || isExpired(snapshot)) {
+            return Optional.empty();
+        }
+        return Optional.of(snapshot);
+    }
+
+    /**
+     * Returns the live analysis while it is pending, or a new analysis rebuilt from its snapshot once finished.
+     */
+    public Optional<DocumentAnalysis> get(String protocol) {
+        Entry entry;
+        AnalysisSnapshot snapshot;
+        synchronized (entries) {
+            entry = entries.get(protocol);
+            snapshot = snapshots.get(protocol);
+        }
+        if (entry == null || snapshot == null || isExpired(snapshot)) {
+            return Optional.empty();
+        }
+        return Optional.of(entry.live() != null ? entry.live() : materialize(snapshot, entry));
+    }
+
+    /**
+     * Reads the latest snapshots of every analysis in a batch, in submission order, without taking the store lock.
+     * Expired or evicted analyses are left out.
+     */
+    public List<AnalysisSnapshot> getBatchSnapshots(String batchId) {
+        Set<String> protocols = batches.get(batchId);
+        if (protocols == null) {
+            return List.of();
+        }
+        List<String> members;
+        synchronized (protocols) {
+            members = new ArrayList<>(protocols);
+        }
+        List<AnalysisSnapshot> matching = new ArrayList<>(members.size());
+        for (String protocol : members) {
+            getSnapshot(protocol).ifPresent(matching::add);
+        }
+        return matching;
+    }
+
+    /**
+     * Reads one page of the analyses matching the query from the secondary indexes, newest first, without
+     * taking the store lock. Expired analyses are left out.
+     *
+     * @throws InvalidRequestException if the query cursor is malformed
+     */
+    public AnalysisPage query(AnalysisQuery query) {
+        AnalysisIndex.Key after = query.cursor() != null ? AnalysisIndex.Key.fromCursor(query.cursor()) : null;
+        Iterator<AnalysisIndex.Key> keys = index.newestFirst(query.status(), query.documentType(),
+                query.analyzedFrom(), query.analyzedTo(), after);
+        List<AnalysisSummary> page = new ArrayList<>(Math.min(query.limit(), 1024));
+        AnalysisIndex.Key last = null;
+        while (page.size() < query.limit() && keys.hasNext()) {
+            AnalysisIndex.Key key = keys.next();
+            AnalysisSnapshot snapshot = snapshots.get(key.protocol());
+            // Skips keys left behind by a concurrent save, which moves the analysis to its new key
+            if (snapshot != null && key.matches(snapshot) && !isExpired(snapshot)) {
+                page.add(AnalysisSummary.of(snapshot));
+            }
+            last = key;
+        }
+        return new AnalysisPage(page, last != null && keys.hasNext() ? last.toCursor() : null);
+    }
+
+    /**
+     * Returns the analyses with the given status, oldest first, read through the status index.
+     */
+    public List<DocumentAnalysis> findAll(AnalysisStatus status) {
+        List<DocumentAnalysis> matching = new ArrayList<>();
+        Iterator<AnalysisIndex.Key> keys = index.newestFirst(status, null, null, null, null);
+        while (keys.hasNext()) {
+            AnalysisIndex.Key key = keys.next();
+            AnalysisSnapshot snapshot = snapshots.get(key.protocol());
+            if (snapshot != null && snapshot.getStatus() == status) {
+                get(key.protocol()).ifPresent(matching::add);
+            }
+        }
+        Collections.reverse(matching);
+        return matching;
+    }
+
+    public List<DocumentAnalysis> findAll(Predicate<AnalysisStatus> status) {
+        List<DocumentAnalysis> matching = new ArrayList<>();
+        List<String> protocols;
+        synchronized (entries) {
+            protocols = new ArrayList<>(entries.keySet());
+        }
+        for (String protocol : protocols) {
+            AnalysisSnapshot snapshot = snapshots.get(protocol);
+            if (snapshot != null && status.test(snapshot.getStatus())) {
+                get(protocol).ifPresent(matching::add);
+            }
+        }
+        return matching;
+    }
+
+    /**
+     * Lock-free scan of the latest published snapshots; expired analyses are left out.
+     */
+    public List<AnalysisSnapshot> findSnapshots(Predicate<AnalysisSnapshot> filter) {
+        List<AnalysisSnapshot> matching = new ArrayList<>();
+        for (AnalysisSnapshot snapshot : snapshots.values()) {
+            if (!isExpired(snapshot) && filter.test(snapshot)) {
+                matching.add(snapshot);
+            }
+        }
+        return matching;
+    }
+
+    public long getRetainedBytes() {
+        synchronized (entries) {
+            return retainedBytes;
+        }
+    }
+
+    public int size() {
+        return snapshots.size();
+    }
+
+    /**
+     * Drops expired analyses, then the least recently finished ones until the store fits its budget.
+     * Must be called holding the entries lock.
+     */
+    private void evict() {
+        Iterator<String> iterator = finishedOrder.iterator();
+        while (iterator.hasNext()) {
+            String protocol = iterator.next();
+            if (!isExpired(snapshots.get(protocol)) && retainedBytes <= maxRetainedBytes) {
+                break;
+            }
+            iterator.remove();
+            Entry entry = entries.remove(protocol);
+            AnalysisSnapshot evicted = snapshots.remove(protocol);
+            if (evicted != null) {
+                index.remove(evicted);
+            }
+            if (evicted != null && evicted.getBatchId() != null) {
+                removeFromBatch(evicted.getBatchId(), protocol);
+            }
+            retainedBytes -= entry.retainedBytes();
+            log.debug("Evicted analysis {} from memory", protocol);
+        }
+    }
+
+    private void removeFromBatch(String batchId, String protocol) {
+        Set<String> protocols = batches.get(batchId);
+        if (protocols != null) {
+            protocols.remove(protocol);
+            if (protocols.isEmpty()) {
+                batches.remove(batchId);
+            }
+        }
+    }
+
+    private boolean isExpired(AnalysisSnapshot snapshot) {
+        return isFinished(snapshot.getStatus()) && snapshot.getAnalysisDate() != null
+                && snapshot.getAnalysisDate().plus(ttl).isBefore(LocalDateTime.now());
+    }
+
+    private Map<String, Object> copyStepResults(Map<String, Object> stepResults, boolean compress) {
+        if (stepResults == null || stepResults.isEmpty()) {
+            return Collections.emptyMap();
+        }
+        Map<String, Object> copy = new HashMap<>(stepResults.size() * 2);
+        stepResults.forEach((key, value) -> copy.put(key,
+                compress && value instanceof String text && text.length() >= compressionThreshold
+                        ? CompressedText.of(text)
+                        : value));
+        return Collections.unmodifiableMap(copy);
+    }
+
+    private static DocumentAnalysis materialize(AnalysisSnapshot snapshot, Entry entry) {
+        Map<String, Object> stepResults = new HashMap<>();
+        snapshot.getStepResults().forEach((key, value) ->
+                stepResults.put(key, value instanceof CompressedText compressed ? compressed.decompress() : value));
+        return DocumentAnalysis.builder()
+                .protocol(snapshot.getProtocol())
+                .documentType(snapshot.getDocumentType())
+                .batchId(snapshot.getBatchId())
+                .valid(snapshot.isValid())
+                .contentHash(entry.contentHash())
+                .pageCount(entry.pageCount())
+                .extractedData(snapshot.getExtractedData())
+                .missingFields(snapshot.getMissingFields())
+                .stepResults(stepResults)
+                .analysisDate(snapshot.getAnalysisDate())
+                .currentState(snapshot.getCurrentState())
+                .completedStages(copyOf(snapshot.getCompletedStages()))
+                .stageTimings(copyOf(snapshot.getStageTimings()))
+                .status(snapshot.getStatus())
+                .errorMessage(snapshot.getErrorMessage())
+                .build();
+    }
+
+    private static Set<DocumentProcessingState> copyOf(Set<DocumentProcessingState> stages) {
+        Set<DocumentProcessingState> copy = EnumSet.noneOf(DocumentProcessingState.class);
+        if (stages != null) {
+            copy.addAll(stages);
+        }
+        return copy;
+    }
+
+    private static Map<DocumentProcessingState, Long> copyOf(Map<DocumentProcessingState, Long> timings) {
+        Map<DocumentProcessingState, Long> copy = new EnumMap<>(DocumentProcessingState.class);
+        if (timings != null) {
+            copy.putAll(timings);
+        }
+        return copy;
+    }
+
+    private static long estimate(Object value) {
+        if (value instanceof String text) {
+            return STRING_OVERHEAD_BYTES + text.length();
+        }
+        if (value instanceof CompressedText compressed) {
+            return STRING_OVERHEAD_BYTES + compressed.data().length;
+        }
+        if (value instanceof JsonNode node) {
+            return estimate(node);
+        }
+        return value == null ? 0 : STRING_OVERHEAD_BYTES;
+    }
+
+    private static long estimate(JsonNode node) {
+        long bytes = JSON_NODE_OVERHEAD_BYTES;
+        if (node.isObject()) {
+            for (Iterator<Map.Entry<String, JsonNode>> fields = node.fields(); fields.hasNext(); ) {
+                Map.Entry<String, JsonNode> field = fields.next();
+                bytes += STRING_OVERHEAD_BYTES + field.getKey().length() + estimate(field.getValue());
+            }
+        } else if (node.isArray()) {
+            for (JsonNode element : node) {
+                bytes += estimate(element);
+            }
+        } else if (node.isTextual()) {
+            bytes += STRING_OVERHEAD_BYTES + node.textValue().length();
+        }
+        return bytes;
+    }
+
+    private static boolean isFinished(AnalysisStatus status) {
+        return status == AnalysisStatus.COMPLETED || status == AnalysisStatus.FAILED;
+    }
+
+    /**
+     * Bookkeeping for a stored analysis: the live object while it is pending, plus the fields that are not
+     * part of its snapshot.
+     */
+    private record Entry(DocumentAnalysis live, String contentHash, Integer pageCount, long retainedBytes) {
+    }
+}
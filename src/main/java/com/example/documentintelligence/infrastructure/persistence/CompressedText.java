@@ -0,0 +1,56 @@
+package com.example.documentintelligence.infrastructure.persistence;
+
+import com.fasterxml.jackson.annotation.JsonValue;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * UTF-8 text deflated at the fastest level; layout content typically shrinks four to eight times.
+ * Serializes to JSON as the original text.
+ */
+public record CompressedText(byte[] data, int length) {
+
+    public static CompressedText of(String text) {
+        byte[] raw = text.getBytes(StandardCharsets.UTF_8);
+        Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+        try {
+            deflater.setInput(raw);
+            deflater.finish();
+            ByteArrayOutputStream out = new ByteArrayOutputStream(Math.max(64, raw.length / 4));
+            byte[] buffer = new byte[8192];
+            while (!deflater.finished()) {
+                out.write(buffer, 0, deflater.deflate(buffer));
+            }
+            return new CompressedText(out.toByteArray(), raw.length);
+        } finally {
+            deflater.end();
+        }
+    }
+
+    @JsonValue
+    public String decompress() {
+        Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(data);
+            byte[] raw = new byte[length];
+            int read = 0;
+            while (read < length && !inflater.finished()) {
+                read += inflater.inflate(raw, read, length - read);
+            }
+            return new String(raw, 0, read, StandardCharsets.UTF_8);
+        } catch (DataFormatException e) {
+            throw new IllegalStateException("Corrupt compressed step result", e);
+        } finally {
+            inflater.end();
+        }
+    }
+
+    @Override
+    public String toString() {
+        return decompress();
+    }
+}
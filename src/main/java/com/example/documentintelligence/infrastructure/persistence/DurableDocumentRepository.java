@@ -0,0 +1,276 @@
+package com.example.documentintelligence.infrastructure.persistence;
+
+import com.example.documentintelligence.domain.model.AnalysisPage;
+import com.example.documentintelligence.domain.model.AnalysisQuery;
+import com.example.documentintelligence.domain.model.AnalysisSnapshot;
+import com.example.documentintelligence.domain.model.AnalysisStatus;
+import com.example.documentintelligence.domain.model.DocumentAnalysis;
+import com.example.documentintelligence.domain.port.DocumentRepositoryPort;
+import com.example.documentintelligence.domain.workflow.StageGraph;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Repository;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Predicate;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Stream;
+
+/**
+ * Document repository that survives restarts. Every save and checkpoint is appended to a memory-mapped
+ * {@link SegmentedLog}; reads are served from the memory-bounded {@link BoundedAnalysisStore}. A snapshot of
+ * all analyses is written periodically so startup only replays the segments appended since, and older segments
+ * are deleted.
+ */
+@Repository
+@ConditionalOnProperty(name = "document-analysis.repository.type", havingValue = "durable")
+@Slf4j
+public class DurableDocumentRepository implements DocumentRepositoryPort {
+
+    private static final String SNAPSHOT_PREFIX = "snapshot-";
+    private static final String SNAPSHOT_SUFFIX = ".jsonl";
+    private static final int PROTOCOL_LOCKS = 64;
+
+    private final BoundedAnalysisStore storage;
+    private final StageGraph stages;
+    private final ObjectMapper mapper = JsonMapper.builder().findAndAddModules().build();
+    private final AtomicLong appendsSinceSnapshot = new AtomicLong();
+    private final Path directory;
+    private final SegmentedLog recordLog;
+    private final ScheduledExecutorService maintenance;
+    private final boolean syncEveryWrite;
+    // Saves hold the read lock from append to put, so a roll only seals segments whose records are all stored
+    private final ReadWriteLock rollLock = new ReentrantReadWriteLock();
+    // Saves of one protocol reach the log and the store in the same order
+    private final Object[] protocolLocks = new Object[PROTOCOL_LOCKS];
+
+    public DurableDocumentRepository(BoundedAnalysisStore storage,
+                                     StageGraph stages,
+                                     @Value("${document-analysis.repository.durable.directory:data/repository}") String directory,
+                                     @Value("${document-analysis.repository.durable.segment-size:67108864}") int segmentSize,
+                                     @Value("${document-analysis.repository.durable.sync-interval:PT1S}") Duration syncInterval,
+                                     @Value("${document-analysis.repository.durable.snapshot-interval:PT5M}") Duration snapshotInterval) {
+        this.storage = storage;
+        this.stages = stages;
+        this.directory = Path.of(directory);
+        try {
+            Files.createDirectories(this.directory);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Unable to create repository directory " + directory, e);
+        }
+        for (int i = 0; i < PROTOCOL_LOCKS; i++) {
+            protocolLocks[i] = new Object();
+        }
+        this.recordLog = new SegmentedLog(this.directory, segmentSize);
+        recover();
+
+        this.maintenance = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "document-repository-maintenance");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.syncEveryWrite = syncInterval.isZero();
+        if (!syncEveryWrite) {
+            maintenance.scheduleWithFixedDelay(this::sync, syncInterval.toMillis(), syncInterval.toMillis(), TimeUnit.MILLISECONDS);
+        }
+        maintenance.scheduleWithFixedDelay(this::snapshotIfChanged, snapshotInterval.toMillis(), snapshotInterval.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public void save(DocumentAnalysis analysis) {
+        rollLock.readLock().lock();
+        try {
+            synchronized (protocolLocks[Math.floorMod(analysis.getProtocol().hashCode(), PROTOCOL_LOCKS)]) {
+                append(analysis);
+                storage.put(analysis);
+            }
+        } finally {
+            rollLock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public void checkpoint(DocumentAnalysis analysis) {
+        save(analysis);
+    }
+
+    @Override
+    public Optional<DocumentAnalysis> findByProtocol(String protocol) {
+        return storage.get(protocol);
+    }
+
+    @Override
+    public Optional<AnalysisSnapshot> findSnapshot(String protocol) {
+        return storage.getSnapshot(protocol);
+    }
+
+    @Override
+    public List<AnalysisSnapshot> findSnapshotsByBatch(String batchId) {
+        return storage.getBatchSnapshots(batchId);
+    }
+
+    @Override
+    public List<DocumentAnalysis> findByStatus(AnalysisStatus status) {
+        return storage.findAll(status);
+    }
+
+    @Override
+    public List<AnalysisSnapshot> findSnapshots(Predicate<AnalysisSnapshot> filter) {
+        return storage.findSnapshots(filter);
+    }
+
+    @Override
+    public AnalysisPage query(AnalysisQuery query) {
+        return storage.query(query);
+    }
+
+    /**
+     * Writes all analyses to a new snapshot and deletes the segments and snapshots it supersedes.
+     * The snapshot covers every segment before the one started here: the roll waits for saves in progress, so
+     * every record in those segments is already in the store. Records appended while the snapshot is being
+     * written land in the new segment and are replayed on top of it.
+     */
+    public synchronized void snapshot() {
+        long coveredUpTo;
+        rollLock.writeLock().lock();
+        try {
+            coveredUpTo = recordLog.roll();
+        } finally {
+            rollLock.writeLock().unlock();
+        }
+        appendsSinceSnapshot.set(0);
+        Path snapshot = snapshotPath(coveredUpTo);
+        try {
+            Path tmp = Files.createTempFile(directory, SNAPSHOT_PREFIX, ".tmp");
+            try (BufferedWriter writer = Files.newBufferedWriter(tmp, StandardCharsets.UTF_8)) {
+                for (DocumentAnalysis analysis : storage.findAll(status -> true)) {
+                    writer.write(mapper.writeValueAsString(StoredAnalysis.from(analysis, stages)));
+                    writer.newLine();
+                }
+            }
+            Files.move(tmp, snapshot, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            log.warn("Failed to write repository snapshot: {}", e.getMessage());
+            return;
+        }
+        recordLog.deleteBefore(coveredUpTo);
+        snapshotIds().stream().filter(id -> id < coveredUpTo).forEach(id -> deleteQuietly(snapshotPath(id)));
+        log.info("Wrote repository snapshot of {} analyses", storage.size());
+    }
+
+    @PreDestroy
+    public void close() {
+        maintenance.shutdownNow();
+        recordLog.close();
+    }
+
+    private void append(DocumentAnalysis analysis) {
+        try {
+            recordLog.append(mapper.writeValueAsBytes(StoredAnalysis.from(analysis, stages)));
+            if (syncEveryWrite) {
+                recordLog.force();
+            }
+            appendsSinceSnapshot.incrementAndGet();
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Unable to serialize analysis " + analysis.getProtocol(), e);
+        }
+    }
+
+    private void recover() {
+        long started = System.nanoTime();
+        long fromSegment = 0;
+        List<Long> snapshots = snapshotIds();
+        if (!snapshots.isEmpty()) {
+            fromSegment = snapshots.get(snapshots.size() - 1);
+            loadSnapshot(snapshotPath(fromSegment));
+        }
+        long loaded = storage.size();
+        long replayed = recordLog.replayAndOpen(fromSegment, this::apply);
+        recordLog.deleteBefore(fromSegment);
+        log.info("Recovered {} analyses ({} from snapshot, {} log records replayed) in {} ms",
+                storage.size(), loaded, replayed, Duration.ofNanos(System.nanoTime() - started).toMillis());
+    }
+
+    private void loadSnapshot(Path snapshot) {
+        try (BufferedReader reader = Files.newBufferedReader(snapshot, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                storage.put(mapper.readValue(line, StoredAnalysis.class).toDomain());
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Unable to read repository snapshot " + snapshot, e);
+        }
+    }
+
+    private void apply(byte[] record) {
+        try {
+            storage.put(mapper.readValue(record, StoredAnalysis.class).toDomain());
+        } catch (IOException e) {
+            log.warn("Skipping unreadable repository record: {}", e.getMessage());
+        }
+    }
+
+    private void sync() {
+        try {
+            recordLog.force();
+        } catch (RuntimeException e) {
+            log.warn("Failed to sync repository log: {}", e.getMessage());
+        }
+    }
+
+    private void snapshotIfChanged() {
+        if (appendsSinceSnapshot.get() == 0) {
+            return;
+        }
+        try {
+            snapshot();
+        } catch (RuntimeException e) {
+            log.warn("Repository snapshot failed: {}", e.getMessage());
+        }
+    }
+
+    private List<Long> snapshotIds() {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.map(path -> path.getFileName().toString())
+                    .filter(name -> name.startsWith(SNAPSHOT_PREFIX) && name.endsWith(SNAPSHOT_SUFFIX))
+                    .map(name -> name.substring(SNAPSHOT_PREFIX.length(), name.length() - SNAPSHOT_SUFFIX.length()))
+                    .map(Long::parseLong)
+                    .sorted()
+                    .toList();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Unable to list repository snapshots in " + directory, e);
+        }
+    }
+
+    private Path snapshotPath(long coveredUpTo) {
+        return directory.resolve(String.format("%s%020d%s", SNAPSHOT_PREFIX, coveredUpTo, SNAPSHOT_SUFFIX));
+    }
+
+    private static void deleteQuietly(Path file) {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            log.warn("Failed to delete {}: {}", file, e.getMessage());
+        }
+    }
+}
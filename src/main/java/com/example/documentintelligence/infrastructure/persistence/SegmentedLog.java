@@ -0,0 +1,183 @@
+package com.example.documentintelligence.infrastructure.persistence;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+/**
+ * Append-only record log stored in fixed-size, memory-mapped segment files.
+ * Each record is written as its length, a CRC32 of the payload and the payload itself; a zero length marks
+ * the end of a segment. Appends go to the page cache through the mapping, so they survive a process crash
+ * as soon as they are written, and survive a host crash once {@link #force()} has run.
+ * Segments are never appended to after a restart: the log always continues in a new segment.
+ */
+@Slf4j
+class SegmentedLog implements AutoCloseable {
+
+    private static final String SEGMENT_PREFIX = "segment-";
+    private static final String SEGMENT_SUFFIX = ".log";
+    private static final int HEADER_BYTES = Integer.BYTES * 2;
+
+    private final Path directory;
+    private final int segmentSize;
+
+    private long segmentId;
+    private MappedByteBuffer segment;
+
+    SegmentedLog(Path directory, int segmentSize) {
+        this.directory = directory;
+        this.segmentSize = segmentSize;
+    }
+
+    /**
+     * Reads every intact record of the segments numbered {@code fromSegment} or above, in append order,
+     * then opens a fresh segment for appends. A torn or corrupt record ends the replay of its segment.
+     *
+     * @param fromSegment First segment to replay
+     * @param consumer    Receives each record payload
+     * @return Number of records replayed
+     */
+    synchronized long replayAndOpen(long fromSegment, Consumer<byte[]> consumer) {
+        long records = 0;
+        long lastSegment = fromSegment - 1;
+        for (long id : segmentIds()) {
+            lastSegment = Math.max(lastSegment, id);
+            if (id >= fromSegment) {
+                records += replaySegment(id, consumer);
+            }
+        }
+        openSegment(lastSegment + 1);
+        return records;
+    }
+
+    /**
+     * Appends a record, rolling to a new segment when the current one is full.
+     */
+    synchronized void append(byte[] payload) {
+        int recordSize = HEADER_BYTES + payload.length;
+        if (segment.remaining() < recordSize + Integer.BYTES) {
+            roll(recordSize + Integer.BYTES);
+        }
+        CRC32 crc = new CRC32();
+        crc.update(payload);
+        int start = segment.position();
+        segment.position(start + Integer.BYTES);
+        segment.putInt((int) crc.getValue());
+        segment.put(payload);
+        // Length goes in last so a torn write is never mistaken for a complete record
+        segment.putInt(start, payload.length);
+    }
+
+    /**
+     * Starts a new segment and returns its id; every earlier segment is then sealed.
+     */
+    synchronized long roll() {
+        roll(0);
+        return segmentId;
+    }
+
+    synchronized void force() {
+        if (segment != null) {
+            segment.force();
+        }
+    }
+
+    /**
+     * Deletes sealed segments numbered below {@code segmentId}.
+     */
+    void deleteBefore(long segmentId) {
+        for (long id : segmentIds()) {
+            if (id < segmentId) {
+                try {
+                    Files.deleteIfExists(segmentPath(id));
+                } catch (IOException e) {
+                    log.warn("Failed to delete log segment {}: {}", id, e.getMessage());
+                }
+            }
+        }
+    }
+
+    @Override
+    public synchronized void close() {
+        force();
+        segment = null;
+    }
+
+    private void roll(int minimumSize) {
+        force();
+        openSegment(segmentId + 1, minimumSize);
+    }
+
+    private void openSegment(long id) {
+        openSegment(id, 0);
+    }
+
+    private void openSegment(long id, int minimumSize) {
+        try (FileChannel channel = FileChannel.open(segmentPath(id),
+                StandardOpenOption.CREATE_NEW, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            segment = channel.map(FileChannel.MapMode.READ_WRITE, 0, Math.max(segmentSize, minimumSize));
+            segmentId = id;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Unable to open log segment " + id, e);
+        }
+    }
+
+    private long replaySegment(long id, Consumer<byte[]> consumer) {
+        long records = 0;
+        try (FileChannel channel = FileChannel.open(segmentPath(id), StandardOpenOption.READ)) {
+            ByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            while (buffer.remaining() >= HEADER_BYTES) {
+                int length = buffer.getInt();
+                if (length == 0) {
+                    break;
+                }
+                int checksum = buffer.getInt();
+                if (length < 0 || length > buffer.remaining()) {
+                    log.warn("Truncated record in log segment {} at offset {}", id, buffer.position() - HEADER_BYTES);
+                    break;
+                }
+                byte[] payload = new byte[length];
+                buffer.get(payload);
+                CRC32 crc = new CRC32();
+                crc.update(payload);
+                if ((int) crc.getValue() != checksum) {
+                    log.warn("Corrupt record in log segment {} at offset {}", id, buffer.position() - length - HEADER_BYTES);
+                    break;
+                }
+                consumer.accept(payload);
+                records++;
+            }
+        } catch (IOException | BufferUnderflowException e) {
+            log.warn("Stopped replaying log segment {}: {}", id, e.getMessage());
+        }
+        return records;
+    }
+
+    private List<Long> segmentIds() {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.map(path -> path.getFileName().toString())
+                    .filter(name -> name.startsWith(SEGMENT_PREFIX) && name.endsWith(SEGMENT_SUFFIX))
+                    .map(name -> Long.parseLong(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length())))
+                    .sorted()
+                    .toList();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Unable to list log segments in " + directory, e);
+        }
+    }
+
+    private Path segmentPath(long id) {
+        return directory.resolve(String.format("%s%020d%s", SEGMENT_PREFIX, id, SEGMENT_SUFFIX));
+    }
+}
@@ -0,0 +1,105 @@
+package com.example.documentintelligence.infrastructure.persistence;
+
+import com.example.documentintelligence.domain.model.AnalysisStatus;
+import com.example.documentintelligence.domain.model.DocumentAnalysis;
+import com.example.documentintelligence.domain.model.DocumentType;
+import com.example.documentintelligence.domain.workflow.DocumentProcessingState;
+import com.example.documentintelligence.domain.workflow.StageGraph;
+
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Persistent form of a {@link DocumentAnalysis}, as written to the log and to snapshots.
+ * The document payload is only kept until the stages reading it have completed; from then on the
+ * checkpointed step results are all a resumed analysis needs. Records written before completed stages
+ * were tracked are read as having completed every stage before their current state.
+ */
+record StoredAnalysis(String protocol,
+                      DocumentType documentType,
+                      boolean valid,
+                      String batchId,
+                      String base64Document,
+                      String documentFile,
+                      String contentHash,
+                      Integer pageCount,
+                      Object extractedData,
+                      List<String> missingFields,
+                      Map<String, Object> stepResults,
+                      LocalDateTime analysisDate,
+                      DocumentProcessingState currentState,
+                      Set<DocumentProcessingState> completedStages,
+                      Map<DocumentProcessingState, Long> stageTimings,
+                      AnalysisStatus status,
+                      String errorMessage) {
+
+    /**
+     * @param stages Workflow graph telling which stages read the document
+     */
+    static StoredAnalysis from(DocumentAnalysis analysis, StageGraph stages) {
+        boolean needsPayload = analysis.getStatus() == AnalysisStatus.PENDING
+                && stages.needsDocument(analysis.getCompletedStages());
+        return new StoredAnalysis(
+                analysis.getProtocol(),
+                analysis.getDocumentType(),
+                analysis.isValid(),
+                analysis.getBatchId(),
+                needsPayload ? analysis.getBase64Document() : null,
+                needsPayload && analysis.getDocumentFile() != null ? analysis.getDocumentFile().toString() : null,
+                analysis.getContentHash(),
+                analysis.getPageCount(),
+                analysis.getExtractedData(),
+                analysis.getMissingFields(),
+                analysis.getStepResults() != null ? new HashMap<>(analysis.getStepResults()) : null,
+                analysis.getAnalysisDate(),
+                analysis.getCurrentState(),
+                copyOf(analysis.getCompletedStages()),
+                timingsOf(analysis.getStageTimings()),
+                analysis.getStatus(),
+                analysis.getErrorMessage());
+    }
+
+    DocumentAnalysis toDomain() {
+        return DocumentAnalysis.builder()
+                .protocol(protocol)
+                .documentType(documentType)
+                .valid(valid)
+                .batchId(batchId)
+                .base64Document(base64Document)
+                .documentFile(documentFile != null ? Path.of(documentFile) : null)
+                .contentHash(contentHash)
+                .pageCount(pageCount)
+                .extractedData(extractedData)
+                .missingFields(missingFields)
+                .stepResults(stepResults != null ? new HashMap<>(stepResults) : new HashMap<>())
+                .analysisDate(analysisDate)
+                .currentState(currentState)
+                .completedStages(completedStages != null ? copyOf(completedStages) : DocumentProcessingState.completedBefore(currentState))
+                .stageTimings(timingsOf(stageTimings))
+                .status(status)
+                .errorMessage(errorMessage)
+                .build();
+    }
+
+    private static Map<DocumentProcessingState, Long> timingsOf(Map<DocumentProcessingState, Long> timings) {
+        Map<DocumentProcessingState, Long> copy = new EnumMap<>(DocumentProcessingState.class);
+        if (timings != null) {
+            copy.putAll(timings);
+        }
+        return copy;
+    }
+
+    private static Set<DocumentProcessingState> copyOf(Set<DocumentProcessingState> stages) {
+        Set<DocumentProcessingState> copy = EnumSet.noneOf(DocumentProcessingState.class);
+        if (stages != null) {
+            copy.addAll(stages);
+        }
+        return copy;
+    }
+}
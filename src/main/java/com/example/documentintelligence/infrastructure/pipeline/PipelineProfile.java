@@ -0,0 +1,49 @@
+package com.example.documentintelligence.infrastructure.pipeline;
+
+import com.example.documentintelligence.domain.model.DocumentType;
+import com.example.documentintelligence.domain.workflow.DocumentProcessingState;
+
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Resolved pipeline of a document type: the processing states it runs and the models it uses.
+ *
+ * @param documentType              Type the profile applies to
+ * @param stages                    Processing states to run
+ * @param layoutModel               Document Intelligence model
+ * @param deploymentId              Chat deployment for the extraction
+ * @param shortDocumentDeploymentId Chat deployment for short documents, null to always use deploymentId
+ * @param shortDocumentMaxTokens    Content tokens up to which a document is short
+ */
+public record PipelineProfile(DocumentType documentType,
+                              Set<DocumentProcessingState> stages,
+                              String layoutModel,
+                              String deploymentId,
+                              String shortDocumentDeploymentId,
+                              int shortDocumentMaxTokens) {
+
+    public boolean runs(DocumentProcessingState state) {
+        return stages.contains(state);
+    }
+
+    /**
+     * Stable digest of everything in the profile that affects the analysis result, so results produced
+     * under another configuration are not reused.
+     */
+    public String fingerprint() {
+        String stageNames = stages.stream().map(Enum::name).sorted().collect(Collectors.joining(","));
+        String settings = String.join("|", stageNames, layoutModel, deploymentId,
+                String.valueOf(shortDocumentDeploymentId), String.valueOf(shortDocumentMaxTokens));
+        return Integer.toHexString(settings.hashCode());
+    }
+
+    /**
+     * Chat deployment for a document whose content takes the given number of tokens.
+     */
+    public String deploymentFor(int contentTokens) {
+        return shortDocumentDeploymentId != null && contentTokens <= shortDocumentMaxTokens
+                ? shortDocumentDeploymentId
+                : deploymentId;
+    }
+}
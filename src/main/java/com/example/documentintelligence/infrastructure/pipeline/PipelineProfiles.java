@@ -0,0 +1,67 @@
+package com.example.documentintelligence.infrastructure.pipeline;
+
+import com.example.documentintelligence.domain.model.DocumentType;
+import com.example.documentintelligence.domain.workflow.DocumentProcessingState;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Resolves the pipeline profile of every document type once at startup, filling what a profile leaves
+ * unset from the service-wide configuration.
+ */
+@Component
+@Slf4j
+public class PipelineProfiles {
+
+    private final Map<DocumentType, PipelineProfile> profiles = new EnumMap<>(DocumentType.class);
+
+    /**
+     * @throws IllegalStateException if a profile drops the Document Intelligence state every other state depends on
+     */
+    public PipelineProfiles(PipelineProperties properties,
+                            @Value("${azure.document-intelligence.layout-model:prebuilt-layout}") String layoutModel,
+                            @Value("${azure.openai.deployment-id}") String deploymentId,
+                            @Value("${azure.openai.short-document.deployment-id:}") String shortDocumentDeploymentId,
+                            @Value("${azure.openai.short-document.max-tokens:1000}") int shortDocumentMaxTokens) {
+        for (DocumentType type : DocumentType.values()) {
+            PipelineProperties.Profile overrides = properties.getProfiles().getOrDefault(type, new PipelineProperties.Profile());
+            Set<DocumentProcessingState> stages = overrides.getStages() == null || overrides.getStages().isEmpty()
+                    ? EnumSet.allOf(DocumentProcessingState.class)
+                    : EnumSet.copyOf(overrides.getStages());
+            if (!stages.contains(DocumentProcessingState.getInitialState())) {
+                throw new IllegalStateException("Pipeline profile of " + type + " must run " + DocumentProcessingState.getInitialState());
+            }
+            PipelineProperties.ShortDocument shortDocument = overrides.getShortDocument();
+            PipelineProfile profile = new PipelineProfile(type,
+                    Collections.unmodifiableSet(stages),
+                    StringUtils.hasText(overrides.getLayoutModel()) ? overrides.getLayoutModel() : layoutModel,
+                    StringUtils.hasText(overrides.getDeploymentId()) ? overrides.getDeploymentId() : deploymentId,
+                    firstNonBlank(shortDocument.getDeploymentId(), shortDocumentDeploymentId),
+                    shortDocument.getMaxTokens() != null ? shortDocument.getMaxTokens() : shortDocumentMaxTokens);
+            profiles.put(type, profile);
+            log.info("Pipeline profile for {}: stages {}, layout model {}, deployment {}{}", type, profile.stages(),
+                    profile.layoutModel(), profile.deploymentId(), profile.shortDocumentDeploymentId() != null
+                            ? ", " + profile.shortDocumentDeploymentId() + " up to " + profile.shortDocumentMaxTokens() + " tokens"
+                            : "");
+        }
+    }
+
+    public PipelineProfile forType(DocumentType documentType) {
+        return profiles.get(documentType);
+    }
+
+    private static String firstNonBlank(String first, String second) {
+        if (StringUtils.hasText(first)) {
+            return first;
+        }
+        return StringUtils.hasText(second) ? second : null;
+    }
+}
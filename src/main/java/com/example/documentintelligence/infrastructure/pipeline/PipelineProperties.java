@@ -0,0 +1,53 @@
+package com.example.documentintelligence.infrastructure.pipeline;
+
+import com.example.documentintelligence.domain.model.DocumentType;
+import com.example.documentintelligence.domain.workflow.DocumentProcessingState;
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Per document type overrides of the analysis pipeline, bound from {@code document-analysis.pipeline.profiles}.
+ * Anything a profile leaves unset falls back to the service-wide configuration.
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "document-analysis.pipeline")
+public class PipelineProperties {
+
+    private Map<DocumentType, Profile> profiles = new HashMap<>();
+
+    @Data
+    public static class Profile {
+        /**
+         * Processing states to run, always including AZURE_DOCUMENT_INTELLIGENCE. All states when unset.
+         */
+        private Set<DocumentProcessingState> stages;
+
+        /**
+         * Document Intelligence model, e.g. prebuilt-idDocument.
+         */
+        private String layoutModel;
+
+        /**
+         * Chat deployment for the extraction.
+         */
+        private String deploymentId;
+
+        private ShortDocument shortDocument = new ShortDocument();
+    }
+
+    @Data
+    public static class ShortDocument {
+        /**
+         * Smaller, faster chat deployment for documents whose content fits in maxTokens.
+         */
+        private String deploymentId;
+
+        private Integer maxTokens;
+    }
+}
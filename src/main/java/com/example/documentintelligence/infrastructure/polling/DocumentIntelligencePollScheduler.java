@@ -0,0 +1,269 @@
+package com.example.documentintelligence.infrastructure.polling;
+
+import com.azure.core.http.HttpHeaderName;
+import com.azure.core.http.HttpMethod;
+import com.azure.core.http.HttpPipeline;
+import com.azure.core.http.HttpRequest;
+import com.azure.core.http.HttpResponse;
+import com.azure.core.util.BinaryData;
+import com.azure.core.util.Context;
+import com.example.documentintelligence.infrastructure.concurrency.ThrottledException;
+import com.example.documentintelligence.infrastructure.concurrency.ThrottlingPolicy;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs Document Intelligence analyze operations without parking a thread per document.
+ * Operations are started with a non-blocking request, then every in-flight operation is polled from a
+ * small shared scheduler. Poll intervals adapt to the completion times observed for documents of a
+ * similar page count, so short documents are picked up quickly and long ones are not polled needlessly.
+ */
+@Component
+@Slf4j
+public class DocumentIntelligencePollScheduler {
+
+    private static final HttpHeaderName OPERATION_LOCATION = HttpHeaderName.fromString("Operation-Location");
+    private static final double ESTIMATE_WEIGHT = 0.2;
+    private static final int TOO_MANY_REQUESTS = 429;
+
+    private final HttpPipeline pipeline;
+    private final String endpoint;
+    private final String apiVersion;
+    private final Duration minInterval;
+    private final Duration maxInterval;
+    private final Duration initialEstimatePerPage;
+    private final Duration timeout;
+    private final ScheduledExecutorService scheduler;
+
+    private final Map<String, PendingOperation> inFlight = new ConcurrentHashMap<>();
+    private final Map<Integer, Double> completionEstimates = new ConcurrentHashMap<>();
+    private final ObjectMapper mapper = new ObjectMapper();
+
+    public DocumentIntelligencePollScheduler(@Qualifier("documentIntelligencePipeline") HttpPipeline pipeline,
+                                             @Value("${azure.document-intelligence.endpoint}") String endpoint,
+                                             @Value("${azure.document-intelligence.api-version:2024-11-30}") String apiVersion,
+                                             @Value("${azure.document-intelligence.polling.threads:2}") int threads,
+                                             @Value("${azure.document-intelligence.polling.min-interval:PT0.5S}") Duration minInterval,
+                                             @Value("${azure.document-intelligence.polling.max-interval:PT10S}") Duration maxInterval,
+                                             @Value("${azure.document-intelligence.polling.initial-estimate-per-page:PT1S}") Duration initialEstimatePerPage,
+                                             @Value("${azure.document-intelligence.polling.timeout:PT10M}") Duration timeout,
+                                             MeterRegistry meterRegistry) {
+        this.pipeline = pipeline;
+        this.endpoint = endpoint.endsWith("/") ? endpoint.substring(0, endpoint.length() - 1) : endpoint;
+        this.apiVersion = apiVersion;
+        this.minInterval = minInterval;
+        this.maxInterval = maxInterval;
+        this.initialEstimatePerPage = initialEstimatePerPage;
+        this.timeout = timeout;
+        this.scheduler = Executors.newScheduledThreadPool(threads, pollerThreadFactory());
+
+        Gauge.builder("document.intelligence.operations.in-flight", inFlight, Map::size)
+                .description("Document Intelligence operations waiting for Azure to finish")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Starts an analyze operation and polls it until Azure finishes.
+     *
+     * @param modelId   Document Intelligence model
+     * @param body      Analyze request body ({@code {"base64Source":"..."}})
+     * @param pages     Page range to analyze, or null for the whole document
+     * @param pageCount Estimated pages covered by the request, used to pace polling; zero when unknown
+     * @param context   Context handed to the HTTP pipeline with the analyze request and every poll
+     * @return Future completed with the analyze result JSON
+     */
+    public CompletableFuture<JsonNode> analyze(String modelId, BinaryData body, String pages, int pageCount, Context context) {
+        String url = endpoint + "/documentintelligence/documentModels/" + modelId + ":analyze?api-version=" + apiVersion
+                + (pages != null ? "&pages=" + pages : "");
+        HttpRequest request = new HttpRequest(HttpMethod.POST, url)
+                .setHeader(HttpHeaderName.CONTENT_TYPE, "application/json")
+                .setBody(body);
+
+        CompletableFuture<JsonNode> result = new CompletableFuture<>();
+        send(request, context).whenComplete((response, error) -> {
+            if (error != null) {
+                result.completeExceptionally(error);
+                return;
+            }
+            if (response.statusCode() == TOO_MANY_REQUESTS) {
+                result.completeExceptionally(new ThrottledException("Document Intelligence throttled analyze request",
+                        response.retryAfter()));
+                return;
+            }
+            if (response.statusCode() != 202 || response.operationLocation() == null) {
+                result.completeExceptionally(new IllegalStateException("Document Intelligence rejected analyze request with status "
+                        + response.statusCode() + ": " + new String(response.body())));
+                return;
+            }
+            PendingOperation operation = new PendingOperation(response.operationLocation(), Math.max(pageCount, 0), System.nanoTime(),
+                    context, result);
+            inFlight.put(operation.id(), operation);
+            log.debug("Started Document Intelligence operation {}, pages: {}, in flight: {}",
+                    operation.id(), pages != null ? pages : "all", inFlight.size());
+            schedulePoll(operation, null);
+        });
+        return result;
+    }
+
+    public int getInFlightCount() {
+        return inFlight.size();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        scheduler.shutdownNow();
+        inFlight.values().forEach(operation ->
+                operation.result().completeExceptionally(new IllegalStateException("Poll scheduler shut down")));
+        inFlight.clear();
+    }
+
+    private void schedulePoll(PendingOperation operation, Duration retryAfter) {
+        Duration delay = nextPollDelay(operation);
+        if (retryAfter != null && retryAfter.compareTo(delay) > 0) {
+            delay = retryAfter;
+        }
+        scheduler.schedule(() -> poll(operation), delay.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    private void poll(PendingOperation operation) {
+        if (operation.elapsed().compareTo(timeout) > 0) {
+            fail(operation, new IllegalStateException("Document Intelligence operation " + operation.id()
+                    + " did not finish within " + timeout));
+            return;
+        }
+        HttpRequest request = new HttpRequest(HttpMethod.GET, operation.operationLocation());
+        send(request, operation.context()).whenCompleteAsync((response, error) -> {
+            if (error != null) {
+                fail(operation, error);
+            } else {
+                handlePollResult(operation, response);
+            }
+        }, scheduler);
+    }
+
+    /**
+     * Sends a request and buffers the response, so no blocking read ever happens on the HTTP client threads.
+     */
+    private CompletableFuture<BufferedResponse> send(HttpRequest request, Context context) {
+        return pipeline.send(request, context)
+                .flatMap(response -> response.getBodyAsByteArray()
+                        .defaultIfEmpty(new byte[0])
+                        .map(responseBody -> new BufferedResponse(response.getStatusCode(),
+                                response.getHeaderValue(OPERATION_LOCATION), ThrottlingPolicy.retryAfter(response), responseBody))
+                        .doFinally(signal -> response.close()))
+                .toFuture();
+    }
+
+    private void handlePollResult(PendingOperation operation, BufferedResponse pollResult) {
+        if (pollResult.statusCode() == TOO_MANY_REQUESTS) {
+            schedulePoll(operation, pollResult.retryAfter());
+            return;
+        }
+        if (pollResult.statusCode() != 200) {
+            fail(operation, new IllegalStateException("Polling Document Intelligence operation " + operation.id()
+                    + " failed with status " + pollResult.statusCode() + ": " + new String(pollResult.body())));
+            return;
+        }
+        JsonNode details;
+        try {
+            details = mapper.readTree(pollResult.body());
+        } catch (IOException e) {
+            fail(operation, e);
+            return;
+        }
+        String status = details.path("status").asText();
+        switch (status) {
+            case "succeeded" -> {
+                inFlight.remove(operation.id());
+                recordCompletion(operation);
+                log.debug("Document Intelligence operation {} succeeded after {} ms", operation.id(), operation.elapsed().toMillis());
+                operation.result().complete(details.path("analyzeResult"));
+            }
+            case "failed", "canceled" -> fail(operation, new IllegalStateException("Document Intelligence operation "
+                    + operation.id() + " " + status + ": " + details.path("error").path("message").asText()));
+            default -> schedulePoll(operation, pollResult.retryAfter());
+        }
+    }
+
+    private void fail(PendingOperation operation, Throwable error) {
+        inFlight.remove(operation.id());
+        log.warn("Document Intelligence operation {} failed: {}", operation.id(), error.getMessage());
+        operation.result().completeExceptionally(error);
+    }
+
+    /**
+     * Waits until the operation is expected to be done, then polls at a fraction of the expected duration
+     * once it is overdue. Both are clamped to the configured interval bounds.
+     */
+    private Duration nextPollDelay(PendingOperation operation) {
+        long expectedMillis = expectedDuration(operation.pageCount());
+        long remainingMillis = expectedMillis - operation.elapsed().toMillis();
+        long delayMillis = remainingMillis > 0 ? remainingMillis : expectedMillis / 5;
+        delayMillis = Math.max(minInterval.toMillis(), Math.min(maxInterval.toMillis(), delayMillis));
+        return Duration.ofMillis(delayMillis);
+    }
+
+    private long expectedDuration(int pageCount) {
+        Double estimate = completionEstimates.get(pageBucket(pageCount));
+        if (estimate != null) {
+            return estimate.longValue();
+        }
+        return initialEstimatePerPage.toMillis() * Math.max(pageCount, 1);
+    }
+
+    private void recordCompletion(PendingOperation operation) {
+        double observed = operation.elapsed().toMillis();
+        completionEstimates.merge(pageBucket(operation.pageCount()), observed,
+                (previous, latest) -> previous + ESTIMATE_WEIGHT * (latest - previous));
+    }
+
+    /**
+     * Groups page counts into power-of-two buckets: 1, 2-3, 4-7, 8-15, ...
+     */
+    private static int pageBucket(int pageCount) {
+        return 32 - Integer.numberOfLeadingZeros(Math.max(pageCount, 1));
+    }
+
+    private static ThreadFactory pollerThreadFactory() {
+        AtomicInteger counter = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, "doc-intelligence-poller-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    private record PendingOperation(String operationLocation, int pageCount, long startedAtNanos, Context context,
+                                    CompletableFuture<JsonNode> result) {
+        String id() {
+            int query = operationLocation.indexOf('?');
+            String path = query >= 0 ? operationLocation.substring(0, query) : operationLocation;
+            return path.substring(path.lastIndexOf('/') + 1);
+        }
+
+        Duration elapsed() {
+            return Duration.ofNanos(System.nanoTime() - startedAtNanos);
+        }
+    }
+
+    private record BufferedResponse(int statusCode, String operationLocation, Duration retryAfter, byte[] body) {
+    }
+}
@@ -0,0 +1,22 @@
+package com.example.documentintelligence.infrastructure.scheduling;
+
+import java.util.concurrent.Executor;
+
+/**
+ * Executor told the class of the job each task belongs to, so it can share its workers fairly between classes.
+ */
+public interface ClassifiedExecutor extends Executor {
+
+    /**
+     * @return Executor queueing its tasks under the given class
+     */
+    Executor forClass(JobClass jobClass);
+
+    /**
+     * Wraps an executor that runs tasks in its own order, ignoring their class. The wrapper is destroyed
+     * with the executor when the executor is a disposable bean.
+     */
+    static ClassifiedExecutor unclassified(Executor executor) {
+        return new UnclassifiedExecutor(executor);
+    }
+}
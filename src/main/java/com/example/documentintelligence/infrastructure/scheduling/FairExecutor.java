@@ -0,0 +1,104 @@
+package com.example.documentintelligence.infrastructure.scheduling;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Fixed pool of worker threads taking their tasks from a {@link FairQueue} instead of the first-come
+ * first-served queue of a thread pool, so the tasks of one class of jobs cannot hold up every other class
+ * queued behind them. Every task costs the same; tasks given without a class are {@link JobClass#UNCLASSIFIED}.
+ */
+@Slf4j
+public class FairExecutor implements ClassifiedExecutor, DisposableBean {
+
+    private final FairQueue<Runnable> queue;
+    private final List<Thread> workers = new ArrayList<>();
+    private boolean shutdown;
+
+    /**
+     * @param threadNamePrefix Prefix of the worker thread names, followed by their number
+     * @param threads          Worker threads, all started right away
+     * @param queue            Queue the workers take their tasks from
+     */
+    public FairExecutor(String threadNamePrefix, int threads, FairQueue<Runnable> queue) {
+        if (threads < 1) {
+            throw new IllegalArgumentException("Fair executor needs at least one thread");
+        }
+        this.queue = queue;
+        for (int i = 1; i <= threads; i++) {
+            Thread worker = new Thread(this::work, threadNamePrefix + i);
+            workers.add(worker);
+            worker.start();
+        }
+    }
+
+    @Override
+    public void execute(Runnable task) {
+        execute(JobClass.UNCLASSIFIED, task);
+    }
+
+    @Override
+    public Executor forClass(JobClass jobClass) {
+        return task -> execute(jobClass, task);
+    }
+
+    /**
+     * @throws RejectedExecutionException if the executor is shut down
+     */
+    public synchronized void execute(JobClass jobClass, Runnable task) {
+        if (shutdown) {
+            throw new RejectedExecutionException("Executor is shut down");
+        }
+        queue.add(jobClass, 1, task);
+        notify();
+    }
+
+    public synchronized int getQueueSize() {
+        return queue.size();
+    }
+
+    /**
+     * Drops the waiting tasks and interrupts the workers, like the shutdown of a thread pool that does not
+     * wait for its tasks.
+     */
+    @Override
+    public void destroy() {
+        synchronized (this) {
+            shutdown = true;
+            while (queue.poll() != null) {
+                // Discarded
+            }
+            notifyAll();
+        }
+        workers.forEach(Thread::interrupt);
+    }
+
+    private void work() {
+        while (true) {
+            Runnable task;
+            synchronized (this) {
+                while (queue.isEmpty() && !shutdown) {
+                    try {
+                        wait();
+                    } catch (InterruptedException e) {
+                        // Only shutdown stops a worker, checked by the loop
+                    }
+                }
+                if (shutdown) {
+                    return;
+                }
+                task = queue.poll();
+            }
+            try {
+                task.run();
+            } catch (Throwable e) {
+                log.error("Uncaught error in task on {}", Thread.currentThread().getName(), e);
+            }
+        }
+    }
+}
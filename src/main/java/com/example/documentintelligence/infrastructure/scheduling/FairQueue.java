@@ -0,0 +1,138 @@
+package com.example.documentintelligence.infrastructure.scheduling;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.ObjLongConsumer;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * Queue shared by jobs of several classes, served by start-time fair queueing: while several classes have
+ * jobs waiting, each is served in proportion to its weight, and jobs of one class are served in arrival order.
+ * A job's cost (one task, a number of tokens) is charged to its class, so a class of expensive jobs is served
+ * less often. A job that has waited longer than the maximum wait is served ahead of its turn, whatever its
+ * class, so a job of a low weight is not held for long behind a burst of a higher one. Overdue jobs take at most
+ * every other turn, so under sustained overload, when every job is overdue, the queue does not fall back to
+ * arrival order.
+ * Not thread-safe; owners hold their own lock.
+ *
+ * @param <T> Type of the queued jobs
+ */
+public final class FairQueue<T> {
+
+    private final ToDoubleFunction<JobClass> weights;
+    private final long maxWaitNanos;
+    private final ObjLongConsumer<JobClass> waitRecorder;
+
+    private final Map<JobClass, Flow<T>> flows = new LinkedHashMap<>();
+    private double virtualTime;
+    private int size;
+    // Flow served next, kept until the queue changes so peek and poll agree
+    private Flow<T> selected;
+    private boolean selectedOverdue;
+    private boolean lastOverdue;
+
+    /**
+     * @param weights      Share of each class; must be positive
+     * @param maxWait      Wait after which a job is served before any fairer one, null to never age jobs
+     * @param waitRecorder Receives the class and nanoseconds waited of every job served
+     */
+    public FairQueue(ToDoubleFunction<JobClass> weights, Duration maxWait, ObjLongConsumer<JobClass> waitRecorder) {
+        this.weights = weights;
+        this.maxWaitNanos = maxWait == null ? Long.MAX_VALUE : maxWait.toNanos();
+        this.waitRecorder = waitRecorder;
+    }
+
+    /**
+     * @param cost Service the job takes, in the unit of its owner
+     */
+    public void add(JobClass jobClass, double cost, T job) {
+        Flow<T> flow = flows.computeIfAbsent(jobClass, Flow::new);
+        double start = Math.max(virtualTime, flow.lastFinish);
+        flow.lastFinish = start + cost / weights.applyAsDouble(jobClass);
+        flow.entries.add(new Entry<>(job, start, System.nanoTime()));
+        size++;
+        selected = null;
+    }
+
+    /**
+     * @return Job served next, null if the queue is empty
+     */
+    public T peek() {
+        Flow<T> flow = select();
+        return flow == null ? null : flow.entries.peek().job();
+    }
+
+    /**
+     * Removes the job served next, the one {@link #peek()} returned if the queue has not changed since.
+     *
+     * @return The job, null if the queue is empty
+     */
+    public T poll() {
+        Flow<T> flow = select();
+        if (flow == null) {
+            return null;
+        }
+        Entry<T> entry = flow.entries.poll();
+        size--;
+        lastOverdue = selectedOverdue;
+        selected = null;
+        virtualTime = Math.max(virtualTime, entry.start());
+        waitRecorder.accept(flow.jobClass, System.nanoTime() - entry.enqueuedAt());
+        return entry.job();
+    }
+
+    /**
+     * Records a job its owner served without queueing it, because nothing was waiting.
+     */
+    public void served(JobClass jobClass) {
+        waitRecorder.accept(jobClass, 0);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    private Flow<T> select() {
+        if (selected != null || size == 0) {
+            return selected;
+        }
+        Flow<T> fairest = null;
+        Flow<T> oldest = null;
+        for (Flow<T> flow : flows.values()) {
+            Entry<T> head = flow.entries.peek();
+            if (head == null) {
+                continue;
+            }
+            if (fairest == null || head.start() < fairest.entries.peek().start()) {
+                fairest = flow;
+            }
+            if (oldest == null || head.enqueuedAt() - oldest.entries.peek().enqueuedAt() < 0) {
+                oldest = flow;
+            }
+        }
+        selectedOverdue = oldest != fairest && !lastOverdue
+                && System.nanoTime() - oldest.entries.peek().enqueuedAt() > maxWaitNanos;
+        selected = selectedOverdue ? oldest : fairest;
+        return selected;
+    }
+
+    private static final class Flow<T> {
+        private final JobClass jobClass;
+        private final Deque<Entry<T>> entries = new ArrayDeque<>();
+        private double lastFinish;
+
+        Flow(JobClass jobClass) {
+            this.jobClass = jobClass;
+        }
+    }
+
+    private record Entry<T>(T job, double start, long enqueuedAt) {
+    }
+}
@@ -0,0 +1,17 @@
+package com.example.documentintelligence.infrastructure.scheduling;
+
+import com.example.documentintelligence.domain.model.DocumentType;
+
+/**
+ * Class a job is queued under in a {@link FairQueue}: the type and size of the document it works on.
+ *
+ * @param documentType Type of the document, null when the job serves documents of several types
+ * @param size         Size of the document
+ */
+public record JobClass(DocumentType documentType, SizeClass size) {
+
+    /**
+     * Class of work not tied to one document, and of every job while fair scheduling is disabled.
+     */
+    public static final JobClass UNCLASSIFIED = new JobClass(null, SizeClass.MEDIUM);
+}
@@ -0,0 +1,131 @@
+package com.example.documentintelligence.infrastructure.scheduling;
+
+import com.example.documentintelligence.domain.model.DocumentAnalysis;
+import com.example.documentintelligence.domain.model.DocumentType;
+import com.example.documentintelligence.infrastructure.metrics.PipelineMetrics;
+import com.example.documentintelligence.infrastructure.spool.DocumentSpool;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Classifies analysis jobs by document type and size, and builds the {@link FairQueue}s they wait in for the
+ * analysis workers and the Azure limits. Small documents get a larger share than large ones, so a long
+ * matricula no longer holds up every short document queued behind it; the maximum wait keeps the large ones
+ * moving. Size is decided by page count when known, otherwise by payload size. While disabled every job is
+ * {@link JobClass#UNCLASSIFIED} and the queues serve in arrival order.
+ */
+@Component
+@Slf4j
+public class SchedulingPolicy {
+
+    private final boolean enabled;
+    private final int smallMaxPages;
+    private final int largeMinPages;
+    private final long smallMaxBytes;
+    private final long largeMinBytes;
+    private final Map<SizeClass, Double> weights = new EnumMap<>(SizeClass.class);
+    private final Duration maxWait;
+    private final PipelineMetrics metrics;
+
+    public SchedulingPolicy(@Value("${document-analysis.scheduling.enabled:true}") boolean enabled,
+                            @Value("${document-analysis.scheduling.small.max-pages:5}") int smallMaxPages,
+                            @Value("${document-analysis.scheduling.small.max-bytes:1048576}") long smallMaxBytes,
+                            @Value("${document-analysis.scheduling.large.min-pages:50}") int largeMinPages,
+                            @Value("${document-analysis.scheduling.large.min-bytes:10485760}") long largeMinBytes,
+                            @Value("${document-analysis.scheduling.weights.small:8}") double smallWeight,
+                            @Value("${document-analysis.scheduling.weights.medium:3}") double mediumWeight,
+                            @Value("${document-analysis.scheduling.weights.large:1}") double largeWeight,
+                            @Value("${document-analysis.scheduling.max-wait:PT30S}") Duration maxWait,
+                            PipelineMetrics metrics) {
+        if (smallWeight <= 0 || mediumWeight <= 0 || largeWeight <= 0) {
+            throw new IllegalArgumentException("Scheduling weights must be positive");
+        }
+        this.enabled = enabled;
+        this.smallMaxPages = smallMaxPages;
+        this.smallMaxBytes = smallMaxBytes;
+        this.largeMinPages = largeMinPages;
+        this.largeMinBytes = largeMinBytes;
+        this.weights.put(SizeClass.SMALL, smallWeight);
+        this.weights.put(SizeClass.MEDIUM, mediumWeight);
+        this.weights.put(SizeClass.LARGE, largeWeight);
+        this.maxWait = maxWait;
+        this.metrics = metrics;
+        if (enabled) {
+            log.info("Fair scheduling enabled with weights {} and a maximum wait of {} ms", weights, maxWait.toMillis());
+        }
+    }
+
+    /**
+     * Class of the jobs of an analysis. Its size may change once the page count becomes known, so
+     * jobs are classified when they are queued.
+     */
+    public JobClass classify(DocumentAnalysis analysis) {
+        if (!enabled) {
+            return JobClass.UNCLASSIFIED;
+        }
+        return new JobClass(analysis.getDocumentType(), sizeOf(analysis));
+    }
+
+    /**
+     * Class of a job serving several small documents at once, such as a packed completion.
+     *
+     * @param documentType Type of all the documents, null if they are of several types
+     */
+    public JobClass classifyShared(DocumentType documentType) {
+        if (!enabled) {
+            return JobClass.UNCLASSIFIED;
+        }
+        return new JobClass(documentType, SizeClass.SMALL);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public double weight(JobClass jobClass) {
+        return weights.get(jobClass.size());
+    }
+
+    /**
+     * @param name Name of the queue, tagging its wait metrics
+     * @return New empty queue weighted by this policy
+     */
+    public <T> FairQueue<T> newQueue(String name) {
+        return new FairQueue<>(this::weight, maxWait, metrics.schedulerQueueWait(name));
+    }
+
+    private SizeClass sizeOf(DocumentAnalysis analysis) {
+        if (analysis.getPageCount() != null && analysis.getPageCount() > 0) {
+            int pages = analysis.getPageCount();
+            return pages <= smallMaxPages ? SizeClass.SMALL : pages >= largeMinPages ? SizeClass.LARGE : SizeClass.MEDIUM;
+        }
+        long bytes = payloadBytes(analysis);
+        if (bytes < 0) {
+            return SizeClass.MEDIUM;
+        }
+        return bytes <= smallMaxBytes ? SizeClass.SMALL : bytes >= largeMinBytes ? SizeClass.LARGE : SizeClass.MEDIUM;
+    }
+
+    /**
+     * Approximate size of the document, from its base64 form; -1 when the document is not held anymore.
+     */
+    private static long payloadBytes(DocumentAnalysis analysis) {
+        if (analysis.getBase64Document() != null) {
+            return analysis.getBase64Document().length() / 4 * 3;
+        }
+        if (analysis.getDocumentFile() != null) {
+            try {
+                return DocumentSpool.documentSize(analysis.getDocumentFile());
+            } catch (IOException e) {
+                return -1;
+            }
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,11 @@
+package com.example.documentintelligence.infrastructure.scheduling;
+
+/**
+ * Size of a document relative to the thresholds of the {@link SchedulingPolicy}, deciding the share of the
+ * analysis workers and Azure limits its jobs get.
+ */
+public enum SizeClass {
+    SMALL,
+    MEDIUM,
+    LARGE
+}
@@ -0,0 +1,31 @@
+package com.example.documentintelligence.infrastructure.scheduling;
+
+import org.springframework.beans.factory.DisposableBean;
+
+import java.util.concurrent.Executor;
+
+final class UnclassifiedExecutor implements ClassifiedExecutor, DisposableBean {
+
+    private final Executor delegate;
+
+    UnclassifiedExecutor(Executor delegate) {
+        this.delegate = delegate;
+    }
+
+    @Override
+    public void execute(Runnable task) {
+        delegate.execute(task);
+    }
+
+    @Override
+    public Executor forClass(JobClass jobClass) {
+        return delegate;
+    }
+
+    @Override
+    public void destroy() throws Exception {
+        if (delegate instanceof DisposableBean disposable) {
+            disposable.destroy();
+        }
+    }
+}
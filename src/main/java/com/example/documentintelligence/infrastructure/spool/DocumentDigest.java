@@ -0,0 +1,43 @@
+package com.example.documentintelligence.infrastructure.spool;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.HexFormat;
+
+/**
+ * What the spool learns of a streamed upload, read from a document submitted as base64: its hash, size and
+ * page count. The document is decoded a chunk at a time, so it never exists decoded as a whole on the heap.
+ *
+ * @param contentHash SHA-256 of the raw document bytes, hex encoded
+ * @param size        Size of the raw document in bytes
+ * @param pageCount   Estimated page count, zero when unknown
+ */
+public record DocumentDigest(String contentHash, long size, int pageCount) {
+
+    // A multiple of 4, so every chunk but the last is whole base64 quanta
+    private static final int CHUNK_CHARS = 64 * 1024;
+
+    /**
+     * @throws IllegalArgumentException if the document is not valid base64
+     */
+    public static DocumentDigest of(String base64Document) {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+        PdfPageCounter pageCounter = new PdfPageCounter();
+        Base64.Decoder decoder = Base64.getDecoder();
+        long size = 0;
+        for (int start = 0; start < base64Document.length(); start += CHUNK_CHARS) {
+            String chunk = base64Document.substring(start, Math.min(start + CHUNK_CHARS, base64Document.length()));
+            byte[] bytes = decoder.decode(chunk);
+            digest.update(bytes);
+            pageCounter.update(bytes, 0, bytes.length);
+            size += bytes.length;
+        }
+        return new DocumentDigest(HexFormat.of().formatHex(digest.digest()), size, pageCounter.getPageCount());
+    }
+}
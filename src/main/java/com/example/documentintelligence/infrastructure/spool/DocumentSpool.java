@@ -0,0 +1,215 @@
+package com.example.documentintelligence.infrastructure.spool;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.multipart.MaxUploadSizeExceededException;
+
+import java.io.BufferedOutputStream;
+import java.io.FilterInputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.HexFormat;
+import java.util.List;
+
+/**
+ * Streams uploaded documents to disk without materializing them on the heap.
+ * The spool file is written directly in the shape of the Document Intelligence analyze request
+ * ({@code {"base64Source":"..."}}), so it can be handed to Azure as a file-backed body as-is.
+ * Documents larger than the upload limit are rejected while they stream, whichever endpoint they came from,
+ * so a client cannot fill the spool disk. Spool files outlive restarts: pending analyses of streamed uploads
+ * resume from them, so the directory is never cleaned on startup and must be on persistent storage.
+ */
+@Component
+@Slf4j
+public class DocumentSpool {
+
+    private static final byte[] BODY_PREFIX = "{\"base64Source\":\"".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] BODY_SUFFIX = "\"}".getBytes(StandardCharsets.US_ASCII);
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final Path directory;
+    private final long maxBytes;
+
+    public DocumentSpool(@Value("${document-analysis.spool.directory:data/spool}") String directory,
+                         @Value("${document-analysis.upload.max-bytes:52428800}") long maxBytes) {
+        this.directory = Path.of(directory);
+        this.maxBytes = maxBytes;
+        try {
+            Files.createDirectories(this.directory);
+        } catch (IOException e) {
+            throw new IllegalStateException("Cannot create spool directory: " + directory, e);
+        }
+        log.info("Spooling uploaded documents to {}", this.directory);
+    }
+
+    /**
+     * Streams a document to a new spool file, hashing the raw bytes and counting PDF pages on the way.
+     *
+     * @param content Raw document bytes; not closed by this method
+     * @return The spooled document
+     * @throws MaxUploadSizeExceededException if the document is larger than the upload limit
+     * @throws UncheckedIOException if the document cannot be written
+     */
+    public SpooledDocument spool(InputStream content) {
+        Path file = null;
+        try {
+            file = Files.createTempFile(directory, "doc-", ".json");
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            PdfPageCounter pageCounter = new PdfPageCounter();
+            DigestInputStream input = new DigestInputStream(
+                    new PageCountingInputStream(new LimitedInputStream(content, maxBytes), pageCounter), digest);
+            long size;
+            try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(file), BUFFER_SIZE)) {
+                out.write(BODY_PREFIX);
+                try (OutputStream base64 = Base64.getEncoder().wrap(new NonClosingOutputStream(out))) {
+                    size = input.transferTo(base64);
+                }
+                out.write(BODY_SUFFIX);
+            }
+            String contentHash = HexFormat.of().formatHex(digest.digest());
+            log.debug("Spooled document to {}, size: {} bytes, pages: {}", file, size, pageCounter.getPageCount());
+            return new SpooledDocument(file, contentHash, size, pageCounter.getPageCount());
+        } catch (IOException e) {
+            delete(file);
+            throw new UncheckedIOException("Failed to spool document", e);
+        } catch (NoSuchAlgorithmException e) {
+            delete(file);
+            throw new IllegalStateException("SHA-256 not available", e);
+        } catch (RuntimeException e) {
+            delete(file);
+            throw e;
+        }
+    }
+
+    /**
+     * Analyze request body of a document held in memory as base64, in the shape of a spool file. The document
+     * is copied once into a buffer of its own instead of into a concatenated request string.
+     *
+     * @return Buffers making up the body, in order
+     */
+    public static List<ByteBuffer> requestBody(String base64Document) {
+        return List.of(ByteBuffer.wrap(BODY_PREFIX).asReadOnlyBuffer(),
+                ByteBuffer.wrap(base64Document.getBytes(StandardCharsets.US_ASCII)),
+                ByteBuffer.wrap(BODY_SUFFIX).asReadOnlyBuffer());
+    }
+
+    /**
+     * Approximate size of the document held in a spool file: the analyze request around it is left out and
+     * the length of its base64 form turned back into bytes.
+     *
+     * @throws IOException if the file cannot be read
+     */
+    public static long documentSize(Path file) throws IOException {
+        long base64Length = Files.size(file) - BODY_PREFIX.length - BODY_SUFFIX.length;
+        return Math.max(base64Length, 0) / 4 * 3;
+    }
+
+    /**
+     * Removes a spool file once it is no longer needed. Missing files are ignored.
+     *
+     * @param file Spool file to remove, may be null
+     */
+    public void delete(Path file) {
+        if (file == null) {
+            return;
+        }
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            log.warn("Failed to delete spool file {}: {}", file, e.getMessage());
+        }
+    }
+
+    /**
+     * Lets the base64 encoder flush its final quantum on close without closing the spool file.
+     */
+    private static final class NonClosingOutputStream extends FilterOutputStream {
+        NonClosingOutputStream(OutputStream out) {
+            super(out);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+        }
+
+        @Override
+        public void close() throws IOException {
+            flush();
+        }
+    }
+
+    private static final class LimitedInputStream extends FilterInputStream {
+        private final long maxBytes;
+        private long read;
+
+        LimitedInputStream(InputStream in, long maxBytes) {
+            super(in);
+            this.maxBytes = maxBytes;
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = in.read();
+            if (b >= 0) {
+                count(1);
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int count = in.read(b, off, len);
+            if (count > 0) {
+                count(count);
+            }
+            return count;
+        }
+
+        private void count(int bytes) {
+            read += bytes;
+            if (read > maxBytes) {
+                throw new MaxUploadSizeExceededException(maxBytes);
+            }
+        }
+    }
+
+    private static final class PageCountingInputStream extends FilterInputStream {
+        private final PdfPageCounter pageCounter;
+
+        PageCountingInputStream(InputStream in, PdfPageCounter pageCounter) {
+            super(in);
+            this.pageCounter = pageCounter;
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = in.read();
+            if (b >= 0) {
+                pageCounter.update(new byte[]{(byte) b}, 0, 1);
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int read = in.read(b, off, len);
+            if (read > 0) {
+                pageCounter.update(b, off, read);
+            }
+            return read;
+        }
+    }
+}
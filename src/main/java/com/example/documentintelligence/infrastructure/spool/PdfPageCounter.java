@@ -0,0 +1,261 @@
+package com.example.documentintelligence.infrastructure.spool;
+
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Reads the page count of a PDF as bytes stream past, from the {@code /Count} of the page tree the document
+ * catalog points to: trailer {@code /Root}, catalog {@code /Pages}, page tree {@code /Count}. Later
+ * definitions of an object replace earlier ones and the last {@code /Root} wins, so documents saved with
+ * incremental updates report their current pages rather than every page object ever written.
+ * The count is a best effort: PDFs that keep their catalog or page tree inside compressed object streams,
+ * or whose page tree cannot be told apart, report zero pages, which callers treat as "unknown".
+ */
+public class PdfPageCounter {
+
+    private static final byte[] PDF_HEADER = {'%', 'P', 'D', 'F', '-'};
+    private static final byte[] END_STREAM = "endstream".getBytes(StandardCharsets.US_ASCII);
+    private static final int MAX_TOKEN = 32;
+
+    private long position;
+    private boolean pdf = true;
+
+    private static final String TYPE = "/Type";
+    private static final String[] KEYWORDS = {"obj", "endobj", "stream", "/Parent", TYPE, "/Count", "/Pages", "/Root"};
+
+    // Only the tokens of the page tree are turned into strings, so the bulk of a document allocates nothing
+    private final byte[] token = new byte[MAX_TOKEN];
+    private int tokenLength;
+    private boolean inComment;
+    private int endStreamMatched = -1;
+    private int previousNumber = -1;
+    private int beforePreviousNumber = -1;
+    private String pendingKey;
+
+    // Object being read, null between objects
+    private Integer objectNumber;
+    private String objectType;
+    private int objectCount = -1;
+    private int objectPages = -1;
+    private boolean objectHasParent;
+
+    private int root = -1;
+    // Page tree nodes by object number, with their count and whether they have a parent
+    private final Map<Integer, int[]> pageTrees = new HashMap<>();
+    // Catalog object numbers and the page tree each points to
+    private final Map<Integer, Integer> catalogs = new HashMap<>();
+
+    /**
+     * Counts the pages of a complete document held in memory.
+     *
+     * @param document Raw document bytes
+     * @return Page count, or zero when unknown
+     */
+    public static int count(byte[] document) {
+        PdfPageCounter counter = new PdfPageCounter();
+        counter.update(document, 0, document.length);
+        return counter.getPageCount();
+    }
+
+    public void update(byte[] buffer, int offset, int length) {
+        for (int i = offset; i < offset + length && pdf; i++) {
+            update(buffer[i]);
+        }
+    }
+
+    /**
+     * @return Page count, or zero if the document is not a PDF or its page tree was not found
+     */
+    public int getPageCount() {
+        if (!pdf) {
+            return 0;
+        }
+        Integer catalogPages = catalogs.get(root);
+        int[] tree = catalogPages != null ? pageTrees.get(catalogPages) : null;
+        if (tree != null) {
+            return Math.max(tree[0], 0);
+        }
+        // No trailer or catalog seen: only a single page tree root is trusted
+        int[] onlyRoot = null;
+        for (int[] node : pageTrees.values()) {
+            if (node[1] == 0) {
+                if (onlyRoot != null) {
+                    return 0;
+                }
+                onlyRoot = node;
+            }
+        }
+        return onlyRoot != null ? Math.max(onlyRoot[0], 0) : 0;
+    }
+
+    private void update(byte b) {
+        if (position < PDF_HEADER.length && b != PDF_HEADER[(int) position]) {
+            pdf = false;
+        }
+        position++;
+
+        if (endStreamMatched >= 0) {
+            skipStream(b);
+        } else if (inComment) {
+            inComment = b != '\n' && b != '\r';
+        } else if (isWhitespace(b)) {
+            endToken();
+        } else if (b == '%') {
+            endToken();
+            inComment = true;
+        } else if (b == '/' || isDelimiter(b)) {
+            endToken();
+            if (b == '/') {
+                token[tokenLength++] = b;
+            }
+        } else if (tokenLength < MAX_TOKEN) {
+            token[tokenLength++] = b;
+        }
+    }
+
+    /**
+     * Skips stream data, which may hold anything, up to the {@code endstream} keyword.
+     */
+    private void skipStream(byte b) {
+        if (b == END_STREAM[endStreamMatched]) {
+            if (++endStreamMatched == END_STREAM.length) {
+                endStreamMatched = -1;
+            }
+        } else {
+            endStreamMatched = b == END_STREAM[0] ? 1 : 0;
+        }
+    }
+
+    private void endToken() {
+        if (tokenLength == 0) {
+            return;
+        }
+        int number = number();
+        String current = number < 0 ? keyword() : null;
+        tokenLength = 0;
+        onToken(current, number);
+        beforePreviousNumber = previousNumber;
+        previousNumber = number;
+    }
+
+    /**
+     * @param current Keyword or name of interest, null for any other token
+     * @param number  Value of an integer token, -1 for any other token
+     */
+    private void onToken(String current, int number) {
+        if (pendingKey != null) {
+            String key = pendingKey;
+            pendingKey = null;
+            if (onValue(key, current, number)) {
+                return;
+            }
+        }
+        if (current == null) {
+            return;
+        }
+        switch (current) {
+            case "obj" -> {
+                if (beforePreviousNumber >= 0 && previousNumber >= 0) {
+                    objectNumber = beforePreviousNumber;
+                    objectType = null;
+                    objectCount = -1;
+                    objectPages = -1;
+                    objectHasParent = false;
+                }
+            }
+            case "endobj" -> endObject();
+            case "stream" -> endStreamMatched = 0;
+            case "/Parent" -> objectHasParent = true;
+            case TYPE, "/Count", "/Pages", "/Root" -> pendingKey = current;
+            default -> {
+                // The type of an object that is not part of the page tree
+            }
+        }
+    }
+
+    /**
+     * @return Whether the token was the value of the key; if not it is handled as a token of its own
+     */
+    private boolean onValue(String key, String value, int number) {
+        if (key.equals(TYPE)) {
+            objectType = value;
+            return true;
+        }
+        if (number < 0) {
+            return false;
+        }
+        switch (key) {
+            case "/Count" -> objectCount = number;
+            case "/Pages" -> objectPages = number;
+            case "/Root" -> root = number;
+            default -> {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void endObject() {
+        if (objectNumber == null) {
+            return;
+        }
+        pageTrees.remove(objectNumber);
+        catalogs.remove(objectNumber);
+        if ("/Pages".equals(objectType)) {
+            pageTrees.put(objectNumber, new int[]{objectCount, objectHasParent ? 1 : 0});
+        } else if ("/Catalog".equals(objectType) && objectPages >= 0) {
+            catalogs.put(objectNumber, objectPages);
+        }
+        objectNumber = null;
+    }
+
+    private int number() {
+        if (tokenLength > 9) {
+            return -1;
+        }
+        int value = 0;
+        for (int i = 0; i < tokenLength; i++) {
+            if (token[i] < '0' || token[i] > '9') {
+                return -1;
+            }
+            value = value * 10 + token[i] - '0';
+        }
+        return value;
+    }
+
+    /**
+     * @return The token if it is a keyword of the page tree or follows {@code /Type}, otherwise null
+     */
+    private String keyword() {
+        if (TYPE.equals(pendingKey)) {
+            return new String(token, 0, tokenLength, StandardCharsets.ISO_8859_1);
+        }
+        for (String keyword : KEYWORDS) {
+            if (matches(keyword)) {
+                return keyword;
+            }
+        }
+        return null;
+    }
+
+    private boolean matches(String keyword) {
+        if (keyword.length() != tokenLength) {
+            return false;
+        }
+        for (int i = 0; i < tokenLength; i++) {
+            if (token[i] != keyword.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean isDelimiter(byte b) {
+        return b == '(' || b == ')' || b == '<' || b == '>' || b == '[' || b == ']' || b == '{' || b == '}';
+    }
+
+    private static boolean isWhitespace(byte b) {
+        return b == ' ' || b == '\n' || b == '\r' || b == '\t' || b == '\f' || b == 0;
+    }
+}
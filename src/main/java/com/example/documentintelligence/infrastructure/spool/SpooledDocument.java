@@ -0,0 +1,14 @@
+package com.example.documentintelligence.infrastructure.spool;
+
+import java.nio.file.Path;
+
+/**
+ * A document streamed to the spool directory.
+ *
+ * @param path        File holding the Document Intelligence analyze request body for the document
+ * @param contentHash SHA-256 of the raw document bytes, hex encoded
+ * @param size        Size of the raw document in bytes
+ * @param pageCount   Estimated page count, zero when unknown
+ */
+public record SpooledDocument(Path path, String contentHash, long size, int pageCount) {
+}
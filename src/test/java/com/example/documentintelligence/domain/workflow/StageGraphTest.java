@@ -0,0 +1,93 @@
+package com.example.documentintelligence.domain.workflow;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static com.example.documentintelligence.domain.workflow.DocumentProcessingState.AZURE_DOCUMENT_INTELLIGENCE;
+import static com.example.documentintelligence.domain.workflow.DocumentProcessingState.AZURE_OPENAI;
+import static com.example.documentintelligence.domain.workflow.DocumentProcessingState.DOCUMENT_QUALITY;
+import static com.example.documentintelligence.domain.workflow.DocumentProcessingState.RULE_BASED_EXTRACTION;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class StageGraphTest {
+
+    private static final AnalysisStage LAYOUT = new AnalysisStage(AZURE_DOCUMENT_INTELLIGENCE, Set.of(), null, true);
+    private static final AnalysisStage QUALITY = new AnalysisStage(DOCUMENT_QUALITY, Set.of(), null, true);
+    private static final AnalysisStage RULES = new AnalysisStage(RULE_BASED_EXTRACTION,
+            Set.of(AZURE_DOCUMENT_INTELLIGENCE), null, false);
+    private static final AnalysisStage OPENAI = new AnalysisStage(AZURE_OPENAI,
+            Set.of(AZURE_DOCUMENT_INTELLIGENCE, RULE_BASED_EXTRACTION), RULE_BASED_EXTRACTION, false);
+
+    @Test
+    void ordersStagesAfterTheirDependenciesWhateverTheDeclarationOrder() {
+        StageGraph graph = new StageGraph(List.of(OPENAI, RULES, QUALITY, LAYOUT));
+
+        List<DocumentProcessingState> order = graph.order();
+
+        assertThat(order).containsExactlyInAnyOrder(DocumentProcessingState.values());
+        assertThat(order.indexOf(AZURE_DOCUMENT_INTELLIGENCE)).isLessThan(order.indexOf(RULE_BASED_EXTRACTION));
+        assertThat(order.indexOf(RULE_BASED_EXTRACTION)).isLessThan(order.indexOf(AZURE_OPENAI));
+    }
+
+    @Test
+    void readyOnceEveryDependencyCompleted() {
+        StageGraph graph = new StageGraph(List.of(LAYOUT, QUALITY, RULES, OPENAI));
+
+        assertThat(graph.isReady(DOCUMENT_QUALITY, Set.of())).isTrue();
+        assertThat(graph.isReady(AZURE_OPENAI, Set.of(AZURE_DOCUMENT_INTELLIGENCE))).isFalse();
+        assertThat(graph.isReady(AZURE_OPENAI, Set.of(AZURE_DOCUMENT_INTELLIGENCE, RULE_BASED_EXTRACTION))).isTrue();
+    }
+
+    @Test
+    void skipsAStageWhoseOutputWasAlreadyProduced() {
+        StageGraph graph = new StageGraph(List.of(LAYOUT, QUALITY, RULES, OPENAI));
+
+        assertThat(graph.isSkipped(AZURE_OPENAI, Map.of())).isFalse();
+        assertThat(graph.isSkipped(AZURE_OPENAI, Map.of(RULE_BASED_EXTRACTION.getQualifierName(), "{}"))).isTrue();
+    }
+
+    @Test
+    void needsTheDocumentUntilEveryStageReadingItCompleted() {
+        StageGraph graph = new StageGraph(List.of(LAYOUT, QUALITY, RULES, OPENAI));
+
+        assertThat(graph.needsDocument(Set.of(AZURE_DOCUMENT_INTELLIGENCE))).isTrue();
+        assertThat(graph.needsDocument(Set.of(AZURE_DOCUMENT_INTELLIGENCE, DOCUMENT_QUALITY))).isFalse();
+    }
+
+    @Test
+    void downstreamIncludesDependentsAndStagesSkippedBecauseOfIt() {
+        StageGraph graph = new StageGraph(List.of(LAYOUT, QUALITY, RULES, OPENAI));
+
+        assertThat(graph.downstreamOf(AZURE_DOCUMENT_INTELLIGENCE))
+                .isEqualTo(EnumSet.of(AZURE_DOCUMENT_INTELLIGENCE, RULE_BASED_EXTRACTION, AZURE_OPENAI));
+        assertThat(graph.downstreamOf(RULE_BASED_EXTRACTION)).isEqualTo(EnumSet.of(RULE_BASED_EXTRACTION, AZURE_OPENAI));
+        assertThat(graph.downstreamOf(DOCUMENT_QUALITY)).isEqualTo(EnumSet.of(DOCUMENT_QUALITY));
+    }
+
+    @Test
+    void rejectsAStageWithoutAnalyzer() {
+        assertThatThrownBy(() -> new StageGraph(List.of(LAYOUT, RULES, OPENAI)))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining(DOCUMENT_QUALITY.name());
+    }
+
+    @Test
+    void rejectsAStageDeclaredTwice() {
+        assertThatThrownBy(() -> new StageGraph(List.of(LAYOUT, QUALITY, RULES, OPENAI, QUALITY)))
+                .isInstanceOf(IllegalStateException.class);
+    }
+
+    @Test
+    void rejectsACycle() {
+        AnalysisStage layoutAfterOpenAI = new AnalysisStage(AZURE_DOCUMENT_INTELLIGENCE, Set.of(AZURE_OPENAI), null, true);
+
+        assertThatThrownBy(() -> new StageGraph(List.of(layoutAfterOpenAI, QUALITY, RULES, OPENAI)))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining("cycle");
+    }
+}
@@ -0,0 +1,236 @@
+package com.example.documentintelligence.infrastructure.adapter;
+
+import com.example.documentintelligence.application.DocumentDispatcher;
+import com.example.documentintelligence.domain.model.AnalysisStatus;
+import com.example.documentintelligence.domain.model.DocumentAnalysis;
+import com.example.documentintelligence.domain.model.DocumentType;
+import com.example.documentintelligence.domain.port.DocumentAnalyzerPort;
+import com.example.documentintelligence.domain.workflow.AnalysisStage;
+import com.example.documentintelligence.domain.workflow.DocumentProcessingState;
+import com.example.documentintelligence.domain.workflow.StageGraph;
+import com.example.documentintelligence.infrastructure.config.AsyncConfig;
+import com.example.documentintelligence.infrastructure.config.AsyncConfig.ExecutorMode;
+import com.example.documentintelligence.infrastructure.metrics.PipelineMetrics;
+import com.example.documentintelligence.infrastructure.persistence.BoundedAnalysisStore;
+import com.example.documentintelligence.infrastructure.pipeline.PipelineProfiles;
+import com.example.documentintelligence.infrastructure.pipeline.PipelineProperties;
+import com.example.documentintelligence.infrastructure.scheduling.ClassifiedExecutor;
+import com.example.documentintelligence.infrastructure.scheduling.SchedulingPolicy;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.function.UnaryOperator;
+
+import static com.example.documentintelligence.domain.workflow.AnalyzerQualifiers.AZURE_DOCUMENT_INTELLIGENCE_ANALYZER;
+import static com.example.documentintelligence.domain.workflow.AnalyzerQualifiers.AZURE_OPENAI_ANALYZER;
+import static com.example.documentintelligence.domain.workflow.AnalyzerQualifiers.DOCUMENT_QUALITY_ANALYZER;
+import static com.example.documentintelligence.domain.workflow.AnalyzerQualifiers.RULE_BASED_ANALYZER;
+import static org.assertj.core.api.Assertions.assertThat;
+
+class DocumentAnalyzerTest {
+
+    private final ExecutorService pool = Executors.newFixedThreadPool(4);
+    private final Map<DocumentProcessingState, DocumentAnalysis> inputs = new ConcurrentHashMap<>();
+    private ClassifiedExecutor configured;
+
+    @AfterEach
+    void shutDown() throws Exception {
+        pool.shutdownNow();
+        if (configured instanceof DisposableBean disposable) {
+            disposable.destroy();
+        }
+    }
+
+    @Test
+    void parallelStagesWorkOnTheirOwnCopiesAndAreMerged() {
+        CyclicBarrier bothRunning = new CyclicBarrier(2);
+        DocumentAnalyzer analyzer = analyzer(
+                stage(AzureDocumentIntelligenceAnalyzer.STAGE, analysis -> {
+                    await(bothRunning);
+                    analysis.getStepResults().put(AZURE_DOCUMENT_INTELLIGENCE_ANALYZER, "layout");
+                    return analysis;
+                }),
+                stage(DocumentQualityAnalyzer.STAGE, analysis -> {
+                    await(bothRunning);
+                    analysis.getStepResults().put(DOCUMENT_QUALITY_ANALYZER, "quality");
+                    return analysis;
+                }),
+                stage(RuleBasedAnalyzer.STAGE, analysis -> {
+                    analysis.getStepResults().put(RULE_BASED_ANALYZER,
+                            "rules from " + analysis.getStepResults().get(AZURE_DOCUMENT_INTELLIGENCE_ANALYZER));
+                    return analysis;
+                }),
+                stage(AzureOpenAIAnalyzer.STAGE, analysis -> {
+                    analysis.getStepResults().put(AZURE_OPENAI_ANALYZER, "not expected");
+                    return analysis;
+                }));
+        DocumentAnalysis submitted = analysis();
+
+        DocumentAnalysis analyzed = analyzer.analyzeDocument(submitted).join();
+
+        assertThat(analyzed.getStepResults()).containsOnly(
+                Map.entry(AZURE_DOCUMENT_INTELLIGENCE_ANALYZER, "layout"),
+                Map.entry(DOCUMENT_QUALITY_ANALYZER, "quality"),
+                Map.entry(RULE_BASED_ANALYZER, "rules from layout"));
+        assertThat(analyzed.getCompletedStages()).containsExactlyInAnyOrder(DocumentProcessingState.values());
+        assertThat(analyzed.getCurrentState()).isNull();
+        assertThat(inputs).doesNotContainKey(DocumentProcessingState.AZURE_OPENAI);
+        assertThat(inputs.get(DocumentProcessingState.AZURE_DOCUMENT_INTELLIGENCE))
+                .isNotSameAs(submitted)
+                .isNotSameAs(inputs.get(DocumentProcessingState.DOCUMENT_QUALITY));
+        assertThat(inputs.get(DocumentProcessingState.AZURE_DOCUMENT_INTELLIGENCE).getStepResults())
+                .isNotSameAs(inputs.get(DocumentProcessingState.DOCUMENT_QUALITY).getStepResults());
+    }
+
+    @Test
+    void carriesThePageCountOverFromTheStageThatReadIt() {
+        DocumentAnalyzer analyzer = analyzer(
+                stage(AzureDocumentIntelligenceAnalyzer.STAGE, analysis -> {
+                    analysis.setPageCount(12);
+                    analysis.getStepResults().put(AZURE_DOCUMENT_INTELLIGENCE_ANALYZER, "layout");
+                    return analysis;
+                }),
+                stage(DocumentQualityAnalyzer.STAGE, UnaryOperator.identity()),
+                stage(RuleBasedAnalyzer.STAGE, UnaryOperator.identity()),
+                stage(AzureOpenAIAnalyzer.STAGE, analysis -> {
+                    analysis.getStepResults().put(AZURE_OPENAI_ANALYZER, "fields");
+                    return analysis;
+                }));
+
+        DocumentAnalysis analyzed = analyzer.analyzeDocument(analysis()).join();
+
+        assertThat(analyzed.getPageCount()).isEqualTo(12);
+        assertThat(analyzed.getStepResults()).containsEntry(AZURE_OPENAI_ANALYZER, "fields");
+    }
+
+    @Test
+    void failsTheAnalysisWithTheErrorOfAStageThatFailed() {
+        DocumentAnalyzer analyzer = analyzer(
+                stage(AzureDocumentIntelligenceAnalyzer.STAGE, analysis -> {
+                    analysis.getStepResults().put(AZURE_DOCUMENT_INTELLIGENCE_ANALYZER, "layout");
+                    return analysis;
+                }),
+                stage(DocumentQualityAnalyzer.STAGE, UnaryOperator.identity()),
+                stage(RuleBasedAnalyzer.STAGE, analysis -> analysis.updateStatus(AnalysisStatus.FAILED, "no rules")),
+                stage(AzureOpenAIAnalyzer.STAGE, UnaryOperator.identity()));
+
+        DocumentAnalysis analyzed = analyzer.analyzeDocument(analysis()).join();
+
+        assertThat(analyzed.getStatus()).isEqualTo(AnalysisStatus.FAILED);
+        assertThat(analyzed.getErrorMessage()).isEqualTo("no rules");
+        assertThat(analyzed.getCurrentState()).isEqualTo(DocumentProcessingState.RULE_BASED_EXTRACTION);
+        assertThat(inputs).doesNotContainKey(DocumentProcessingState.AZURE_OPENAI);
+    }
+
+    @ParameterizedTest
+    @ValueSource(booleans = {false, true})
+    void completesABurstAtFullDispatchCapacity(boolean fair) {
+        int capacity = 100;
+        PipelineMetrics metrics = new PipelineMetrics(new SimpleMeterRegistry());
+        SchedulingPolicy policy = schedulingPolicy(fair, metrics);
+        AsyncConfig config = new AsyncConfig();
+        ReflectionTestUtils.setField(config, "mode", ExecutorMode.POOL);
+        ReflectionTestUtils.setField(config, "corePoolSize", 4);
+        ReflectionTestUtils.setField(config, "maxPoolSize", 4);
+        configured = config.documentAnalysisExecutor(policy);
+        UnaryOperator<DocumentAnalysis> slowStage = analysis -> {
+            sleep();
+            return analysis;
+        };
+        DocumentAnalyzer analyzer = analyzer(configured, policy, metrics,
+                stage(AzureDocumentIntelligenceAnalyzer.STAGE, slowStage),
+                stage(DocumentQualityAnalyzer.STAGE, slowStage),
+                stage(RuleBasedAnalyzer.STAGE, slowStage),
+                stage(AzureOpenAIAnalyzer.STAGE, slowStage));
+        DocumentDispatcher dispatcher = new DocumentDispatcher(configured, capacity, Duration.ofSeconds(5),
+                new SimpleMeterRegistry());
+
+        List<CompletableFuture<DocumentAnalysis>> analyzed = new ArrayList<>();
+        for (int i = 0; i < capacity; i++) {
+            DocumentAnalysis document = analysis().toBuilder().protocol("P-" + i).build();
+            CompletableFuture<DocumentAnalysis> result = new CompletableFuture<>();
+            analyzed.add(result);
+            dispatcher.reserve();
+            dispatcher.dispatch(policy.classify(document),
+                    () -> analyzer.analyzeDocument(document).whenComplete((analysis, error) -> result.complete(analysis)));
+        }
+
+        assertThat(analyzed).allSatisfy(result ->
+                assertThat(result.orTimeout(30, TimeUnit.SECONDS).join().getStatus()).isNotEqualTo(AnalysisStatus.FAILED));
+    }
+
+    private DocumentAnalyzer analyzer(DocumentAnalyzerPort... analyzers) {
+        PipelineMetrics metrics = new PipelineMetrics(new SimpleMeterRegistry());
+        return analyzer(ClassifiedExecutor.unclassified(pool), schedulingPolicy(false, metrics), metrics, analyzers);
+    }
+
+    private DocumentAnalyzer analyzer(ClassifiedExecutor executor, SchedulingPolicy policy, PipelineMetrics metrics,
+                                      DocumentAnalyzerPort... analyzers) {
+        List<DocumentAnalyzerPort> beans = List.of(analyzers);
+        StageGraph stages = new StageGraph(beans.stream().map(DocumentAnalyzerPort::stage).toList());
+        BoundedAnalysisStore store = new BoundedAnalysisStore(Duration.ofDays(7), Long.MAX_VALUE, 1024,
+                new SimpleMeterRegistry(), event -> { });
+        return new DocumentAnalyzer(beans, stages, executor, new InMemoryDocumentRepository(store),
+                new PipelineProfiles(new PipelineProperties(), "prebuilt-layout", "extraction", "", 1000),
+                metrics, policy);
+    }
+
+    private static SchedulingPolicy schedulingPolicy(boolean enabled, PipelineMetrics metrics) {
+        return new SchedulingPolicy(enabled, 5, 1 << 20, 50, 10 << 20, 8, 3, 1, Duration.ofSeconds(30), metrics);
+    }
+
+    private DocumentAnalyzerPort stage(AnalysisStage stage, UnaryOperator<DocumentAnalysis> analyze) {
+        return new DocumentAnalyzerPort() {
+            @Override
+            public AnalysisStage stage() {
+                return stage;
+            }
+
+            @Override
+            public DocumentAnalysis analyzeDocument(DocumentAnalysis currentAnalysis) {
+                inputs.put(stage.state(), currentAnalysis);
+                return analyze.apply(currentAnalysis);
+            }
+        };
+    }
+
+    private static void sleep() {
+        try {
+            Thread.sleep(2);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void await(CyclicBarrier barrier) {
+        try {
+            barrier.await(5, TimeUnit.SECONDS);
+        } catch (Exception e) {
+            throw new IllegalStateException("Parallel stage did not start", e);
+        }
+    }
+
+    private static DocumentAnalysis analysis() {
+        return DocumentAnalysis.builder()
+                .protocol("P-1")
+                .documentType(DocumentType.CPF)
+                .base64Document("JVBERi0=")
+                .build();
+    }
+}
@@ -0,0 +1,65 @@
+package com.example.documentintelligence.infrastructure.api;
+
+import com.example.documentintelligence.domain.model.AnalysisSnapshot;
+import com.example.documentintelligence.domain.model.AnalysisStatus;
+import com.example.documentintelligence.domain.model.DocumentType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.MediaType;
+import org.springframework.mock.http.MockHttpOutputMessage;
+
+import java.io.IOException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class AnalysisSnapshotConverterTest {
+
+    private final AnalysisSnapshotConverter converter = new AnalysisSnapshotConverter(new ObjectMapper(), 2);
+
+    @Test
+    void servesThePendingJsonOfAVersionUntilTheAnalysisChanges() throws IOException {
+        MockHttpOutputMessage first = write(snapshot("P-1", 1, AnalysisStatus.PENDING, "first"));
+
+        assertThat(first.getHeaders().getContentLength()).isEqualTo(first.getBodyAsBytes().length);
+        assertThat(write(snapshot("P-1", 1, AnalysisStatus.PENDING, "second")).getBodyAsString()).contains("first");
+        assertThat(write(snapshot("P-1", 2, AnalysisStatus.PENDING, "second")).getBodyAsString()).contains("second");
+    }
+
+    @Test
+    void serializesFinishedAnalysesOnEveryRead() throws IOException {
+        write(snapshot("P-1", 1, AnalysisStatus.PENDING, "pending"));
+
+        assertThat(write(snapshot("P-1", 1, AnalysisStatus.COMPLETED, "first")).getBodyAsString()).contains("first");
+        MockHttpOutputMessage second = write(snapshot("P-1", 1, AnalysisStatus.COMPLETED, "second"));
+
+        assertThat(second.getBodyAsString()).contains("second");
+        assertThat(second.getHeaders().getContentLength()).isEqualTo(-1);
+    }
+
+    @Test
+    void keepsOnlyTheMostRecentlyReadPendingAnalyses() throws IOException {
+        write(snapshot("P-1", 1, AnalysisStatus.PENDING, "first"));
+        write(snapshot("P-2", 1, AnalysisStatus.PENDING, "first"));
+        write(snapshot("P-1", 1, AnalysisStatus.PENDING, "ignored"));
+        write(snapshot("P-3", 1, AnalysisStatus.PENDING, "first"));
+
+        assertThat(write(snapshot("P-1", 1, AnalysisStatus.PENDING, "second")).getBodyAsString()).contains("first");
+        assertThat(write(snapshot("P-2", 1, AnalysisStatus.PENDING, "second")).getBodyAsString()).contains("second");
+    }
+
+    private MockHttpOutputMessage write(AnalysisSnapshot snapshot) throws IOException {
+        MockHttpOutputMessage message = new MockHttpOutputMessage();
+        converter.write(snapshot, MediaType.APPLICATION_JSON, message);
+        return message;
+    }
+
+    private static AnalysisSnapshot snapshot(String protocol, long version, AnalysisStatus status, String errorMessage) {
+        return AnalysisSnapshot.builder()
+                .protocol(protocol)
+                .version(version)
+                .documentType(DocumentType.CPF)
+                .status(status)
+                .errorMessage(errorMessage)
+                .build();
+    }
+}
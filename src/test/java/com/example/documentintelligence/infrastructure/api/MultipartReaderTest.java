@@ -0,0 +1,118 @@
+package com.example.documentintelligence.infrastructure.api;
+
+import com.example.documentintelligence.domain.model.InvalidRequestException;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.multipart.MaxUploadSizeExceededException;
+
+import java.io.ByteArrayInputStream;
+import java.io.EOFException;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class MultipartReaderTest {
+
+    private static final String CONTENT_TYPE = "multipart/form-data; boundary=XyZ";
+
+    @Test
+    void readsFieldsAndFileInOrder() throws IOException {
+        byte[] file = new byte[200_000];
+        new Random(7).nextBytes(file);
+        MultipartReader reader = new MultipartReader(trickle(body(file)), CONTENT_TYPE, Long.MAX_VALUE);
+
+        MultipartReader.Part type = reader.next();
+        assertThat(type.name()).isEqualTo("documentType");
+        assertThat(type.text()).isEqualTo("CPF");
+
+        MultipartReader.Part upload = reader.next();
+        assertThat(upload.name()).isEqualTo("file");
+        assertThat(upload.content().readAllBytes()).isEqualTo(file);
+
+        assertThat(reader.next().name()).isEqualTo("note");
+        assertThat(reader.next()).isNull();
+    }
+
+    @Test
+    void skipsPartsNotRead() throws IOException {
+        MultipartReader reader = new MultipartReader(trickle(body(new byte[100_000])), CONTENT_TYPE, Long.MAX_VALUE);
+
+        reader.next();
+        reader.next();
+
+        assertThat(reader.next().text()).isEqualTo("last");
+    }
+
+    @Test
+    void keepsBytesThatOnlyStartLikeTheBoundary() throws IOException {
+        byte[] file = "a\r\n--XyNot the boundary\r\n--X".getBytes(StandardCharsets.ISO_8859_1);
+        MultipartReader reader = new MultipartReader(trickle(body(file)), CONTENT_TYPE, Long.MAX_VALUE);
+
+        reader.next();
+
+        assertThat(reader.next().content().readAllBytes()).isEqualTo(file);
+    }
+
+    @Test
+    void rejectsPartsLargerThanTheLimit() throws IOException {
+        MultipartReader reader = new MultipartReader(trickle(body(new byte[10_000])), CONTENT_TYPE, 1_000);
+        reader.next();
+        InputStream file = reader.next().content();
+
+        assertThatThrownBy(file::readAllBytes).isInstanceOf(MaxUploadSizeExceededException.class);
+    }
+
+    @Test
+    void failsOnATruncatedBody() throws IOException {
+        byte[] body = body(new byte[1_000]);
+        byte[] truncated = java.util.Arrays.copyOf(body, 600);
+        MultipartReader reader = new MultipartReader(new ByteArrayInputStream(truncated), CONTENT_TYPE, Long.MAX_VALUE);
+        reader.next();
+        InputStream file = reader.next().content();
+
+        assertThatThrownBy(file::readAllBytes).isInstanceOf(EOFException.class);
+    }
+
+    @Test
+    void requiresABoundary() {
+        assertThatThrownBy(() -> new MultipartReader(InputStream.nullInputStream(), "multipart/form-data", 1))
+                .isInstanceOf(InvalidRequestException.class);
+    }
+
+    private static byte[] body(byte[] file) {
+        String head = "preamble\r\n--XyZ\r\n"
+                + "Content-Disposition: form-data; name=\"documentType\"\r\n\r\n"
+                + "CPF\r\n--XyZ\r\n"
+                + "Content-Disposition: form-data; name=\"file\"; filename=\"doc.pdf\"\r\n"
+                + "Content-Type: application/pdf\r\n\r\n";
+        String tail = "\r\n--XyZ\r\n"
+                + "Content-Disposition: form-data; name=\"note\"\r\n\r\n"
+                + "last\r\n--XyZ--\r\n";
+        byte[] headBytes = head.getBytes(StandardCharsets.ISO_8859_1);
+        byte[] tailBytes = tail.getBytes(StandardCharsets.ISO_8859_1);
+        byte[] body = new byte[headBytes.length + file.length + tailBytes.length];
+        System.arraycopy(headBytes, 0, body, 0, headBytes.length);
+        System.arraycopy(file, 0, body, headBytes.length, file.length);
+        System.arraycopy(tailBytes, 0, body, headBytes.length + file.length, tailBytes.length);
+        return body;
+    }
+
+    /**
+     * Hands out the body a few bytes at a time, so boundaries fall across reads.
+     */
+    private static InputStream trickle(byte[] body) {
+        return new FilterInputStream(new ByteArrayInputStream(body)) {
+            private int next;
+
+            @Override
+            public int read(byte[] b, int off, int len) throws IOException {
+                next = next % 7 + 1;
+                return super.read(b, off, Math.min(len, next * 997));
+            }
+        };
+    }
+}
@@ -0,0 +1,73 @@
+package com.example.documentintelligence.infrastructure.cache;
+
+import com.example.documentintelligence.domain.model.DocumentAnalysis;
+import com.example.documentintelligence.domain.model.DocumentType;
+import com.example.documentintelligence.infrastructure.pipeline.PipelineProfiles;
+import com.example.documentintelligence.infrastructure.pipeline.PipelineProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Function;
+
+import static com.example.documentintelligence.domain.workflow.AnalyzerQualifiers.RULE_BASED_ANALYZER;
+import static org.assertj.core.api.Assertions.assertThat;
+
+class AnalysisResultCacheTest {
+
+    private final AnalysisResultCache cache = new AnalysisResultCache(true, 10, Duration.ofHours(1), "",
+            new PipelineProfiles(new PipelineProperties(), "prebuilt-layout", "extraction", "", 1000),
+            new SimpleMeterRegistry());
+
+    private final List<CompletableFuture<DocumentAnalysis>> runs = new CopyOnWriteArrayList<>();
+    private final Function<DocumentAnalysis, CompletableFuture<DocumentAnalysis>> analyzer = analysis -> {
+        CompletableFuture<DocumentAnalysis> run = new CompletableFuture<>();
+        runs.add(run);
+        return run.thenApply(ignored -> {
+            analysis.getStepResults().put(RULE_BASED_ANALYZER, "extracted");
+            return analysis;
+        });
+    };
+
+    @Test
+    void sharesOneRunBetweenSubmissionsOfTheSameContent() {
+        var first = cache.analyze(analysis("P-1"), analyzer);
+        var second = cache.analyze(analysis("P-2"), analyzer);
+
+        assertThat(runs).hasSize(1);
+        runs.get(0).complete(null);
+
+        assertThat(first.join().getStepResults()).containsEntry(RULE_BASED_ANALYZER, "extracted");
+        assertThat(second.join().getStepResults()).containsEntry(RULE_BASED_ANALYZER, "extracted");
+    }
+
+    @Test
+    void electsOneNewLeaderWhenTheSharedRunFails() {
+        var leader = cache.analyze(analysis("P-0"), analyzer);
+        List<CompletableFuture<DocumentAnalysis>> waiters = new ArrayList<>();
+        for (int i = 1; i <= 5; i++) {
+            waiters.add(cache.analyze(analysis("P-" + i), analyzer));
+        }
+
+        runs.get(0).completeExceptionally(new IllegalStateException("service unavailable"));
+
+        assertThat(leader).isCompletedExceptionally();
+        assertThat(runs).hasSize(2);
+        runs.get(1).complete(null);
+        assertThat(waiters).allSatisfy(waiter ->
+                assertThat(waiter.join().getStepResults()).containsEntry(RULE_BASED_ANALYZER, "extracted"));
+        assertThat(runs).hasSize(2);
+    }
+
+    private static DocumentAnalysis analysis(String protocol) {
+        return DocumentAnalysis.builder()
+                .protocol(protocol)
+                .documentType(DocumentType.CPF)
+                .contentHash("abc123")
+                .build();
+    }
+}
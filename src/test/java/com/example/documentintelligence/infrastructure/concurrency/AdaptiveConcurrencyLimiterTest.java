@@ -0,0 +1,110 @@
+package com.example.documentintelligence.infrastructure.concurrency;
+
+import com.example.documentintelligence.infrastructure.scheduling.FairQueue;
+import com.example.documentintelligence.infrastructure.scheduling.JobClass;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class AdaptiveConcurrencyLimiterTest {
+
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor();
+
+    @AfterEach
+    void stopScheduler() {
+        scheduler.shutdownNow();
+    }
+
+    @Test
+    void holdsCallsBeyondTheLimitUntilSlotsAreReleased() {
+        AdaptiveConcurrencyLimiter limiter = limiter(1, 2);
+        List<CompletableFuture<String>> calls = new ArrayList<>();
+        AtomicInteger started = new AtomicInteger();
+
+        for (int i = 0; i < 3; i++) {
+            CompletableFuture<String> call = new CompletableFuture<>();
+            calls.add(call);
+            limiter.executeAsync(JobClass.UNCLASSIFIED, () -> {
+                started.incrementAndGet();
+                return call;
+            });
+        }
+
+        assertThat(started).hasValue(2);
+        assertThat(limiter.getQueueLength()).isEqualTo(1);
+        calls.get(0).complete("done");
+        assertThat(started).hasValue(3);
+        assertThat(limiter.getInFlight()).isEqualTo(2);
+    }
+
+    @Test
+    void completesWithTheOutcomeOfTheCall() {
+        AdaptiveConcurrencyLimiter limiter = limiter(1, 2);
+
+        CompletableFuture<String> ok = limiter.executeAsync(JobClass.UNCLASSIFIED, () -> CompletableFuture.completedFuture("ok"));
+        CompletableFuture<String> failed = limiter.executeAsync(JobClass.UNCLASSIFIED,
+                () -> CompletableFuture.failedFuture(new IllegalStateException("boom")));
+
+        assertThat(ok).isCompletedWithValue("ok");
+        assertThat(failed).isCompletedExceptionally();
+        assertThat(limiter.getInFlight()).isZero();
+    }
+
+    @Test
+    void halvesOnceForABurstOfThrottling() {
+        AdaptiveConcurrencyLimiter limiter = limiter(1, 8);
+
+        limiter.onThrottled(Duration.ofSeconds(10));
+        limiter.onThrottled(Duration.ofSeconds(10));
+
+        assertThat(limiter.getLimit()).isEqualTo(4);
+    }
+
+    @Test
+    void neverDropsBelowTheMinimum() {
+        AdaptiveConcurrencyLimiter limiter = limiter(3, 4);
+
+        limiter.onThrottled(Duration.ZERO);
+        limiter.onThrottled(Duration.ZERO);
+
+        assertThat(limiter.getLimit()).isEqualTo(3);
+    }
+
+    @Test
+    void growsBackByAboutOneSlotPerRoundOfSuccesses() {
+        AdaptiveConcurrencyLimiter limiter = limiter(1, 8);
+        limiter.onThrottled(Duration.ZERO);
+
+        for (int i = 0; i < 5; i++) {
+            limiter.onSuccess();
+        }
+
+        assertThat(limiter.getLimit()).isEqualTo(5);
+    }
+
+    @Test
+    void holdsNewCallsWhilePaused() throws Exception {
+        AdaptiveConcurrencyLimiter limiter = limiter(1, 2);
+        limiter.onThrottled(Duration.ofMillis(200));
+
+        CompletableFuture<String> call = limiter.executeAsync(JobClass.UNCLASSIFIED, () -> CompletableFuture.completedFuture("ok"));
+
+        assertThat(call).isNotDone();
+        assertThat(call.get(2, TimeUnit.SECONDS)).isEqualTo("ok");
+    }
+
+    private AdaptiveConcurrencyLimiter limiter(int min, int max) {
+        return new AdaptiveConcurrencyLimiter("test", min, max, scheduler,
+                new FairQueue<>(jobClass -> 1, null, (jobClass, nanos) -> { }));
+    }
+}
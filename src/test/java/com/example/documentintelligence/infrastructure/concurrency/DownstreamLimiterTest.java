@@ -0,0 +1,74 @@
+package com.example.documentintelligence.infrastructure.concurrency;
+
+import com.example.documentintelligence.infrastructure.scheduling.FairQueue;
+import com.example.documentintelligence.infrastructure.scheduling.JobClass;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class DownstreamLimiterTest {
+
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor();
+
+    @AfterEach
+    void stopScheduler() {
+        scheduler.shutdownNow();
+    }
+
+    @Test
+    void retriesThrottledCallWithoutReportingItAgain() throws Exception {
+        DownstreamLimiter limiter = limiter(3);
+        AtomicInteger attempts = new AtomicInteger();
+
+        CompletableFuture<String> result = limiter.executeAsync(JobClass.UNCLASSIFIED, 1, () -> attempts.incrementAndGet() == 1
+                ? CompletableFuture.failedFuture(new ThrottledException("throttled", Duration.ZERO))
+                : CompletableFuture.completedFuture("ok"));
+
+        assertThat(result.get(2, TimeUnit.SECONDS)).isEqualTo("ok");
+        assertThat(attempts).hasValue(2);
+        // The pipeline policy reports throttling; the retry alone must neither halve the limit nor drain the bucket
+        assertThat(limiter.getConcurrency().getLimit()).isEqualTo(4);
+        assertThat(limiter.getRateLimit().getAvailableTokens()).isGreaterThan(90);
+    }
+
+    @Test
+    void reportedThrottlingDrainsAndHalvesOnce() {
+        DownstreamLimiter limiter = limiter(3);
+
+        limiter.onThrottled(Duration.ofSeconds(10));
+
+        assertThat(limiter.getConcurrency().getLimit()).isEqualTo(2);
+        assertThat(limiter.getRateLimit().getAvailableTokens()).isLessThan(1);
+    }
+
+    @Test
+    void failsOnceRetriesAreExhausted() {
+        DownstreamLimiter limiter = limiter(1);
+        AtomicInteger attempts = new AtomicInteger();
+
+        CompletableFuture<String> result = limiter.executeAsync(JobClass.UNCLASSIFIED, 1, () -> {
+            attempts.incrementAndGet();
+            return CompletableFuture.failedFuture(new ThrottledException("throttled", Duration.ZERO));
+        });
+
+        assertThatThrownBy(() -> result.get(2, TimeUnit.SECONDS)).hasCauseInstanceOf(ThrottledException.class);
+        assertThat(attempts).hasValue(2);
+    }
+
+    private DownstreamLimiter limiter(int maxThrottledRetries) {
+        TokenBucket rateLimit = new TokenBucket(100, 100, Duration.ofSeconds(1), scheduler,
+                new FairQueue<>(jobClass -> 1, null, (jobClass, nanos) -> { }));
+        AdaptiveConcurrencyLimiter concurrency = new AdaptiveConcurrencyLimiter("test", 1, 4, scheduler,
+                new FairQueue<>(jobClass -> 1, null, (jobClass, nanos) -> { }));
+        return new DownstreamLimiter("test", rateLimit, concurrency, maxThrottledRetries, Duration.ofMillis(10));
+    }
+}
@@ -0,0 +1,104 @@
+package com.example.documentintelligence.infrastructure.concurrency;
+
+import com.azure.core.http.HttpHeaders;
+import com.azure.core.http.HttpMethod;
+import com.azure.core.http.HttpPipeline;
+import com.azure.core.http.HttpPipelineBuilder;
+import com.azure.core.http.HttpRequest;
+import com.azure.core.http.HttpResponse;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.util.ArrayDeque;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ThrottleAwareRetryStrategyTest {
+
+    @Test
+    void returnsThrottledResponsesWithoutRetrying() {
+        var attempts = new AtomicInteger();
+        var pipeline = pipeline(attempts, 429, 200);
+
+        assertThat(send(pipeline)).isEqualTo(429);
+        assertThat(attempts).hasValue(1);
+    }
+
+    @Test
+    void stillRetriesUnavailableResponses() {
+        var attempts = new AtomicInteger();
+        var pipeline = pipeline(attempts, 503, 200);
+
+        assertThat(send(pipeline)).isEqualTo(200);
+        assertThat(attempts).hasValue(2);
+    }
+
+    private static HttpPipeline pipeline(AtomicInteger attempts, Integer... statusCodes) {
+        Queue<Integer> responses = new ArrayDeque<>(List.of(statusCodes));
+        return new HttpPipelineBuilder()
+                .policies(ThrottleAwareRetryStrategy.retryPolicy())
+                .httpClient(request -> {
+                    attempts.incrementAndGet();
+                    return Mono.just(new StatusResponse(request, responses.remove()));
+                })
+                .build();
+    }
+
+    private static int send(HttpPipeline pipeline) {
+        return pipeline.send(new HttpRequest(HttpMethod.GET, "https://example.com/"))
+                .map(HttpResponse::getStatusCode)
+                .block();
+    }
+
+    private static class StatusResponse extends HttpResponse {
+
+        private final int statusCode;
+
+        StatusResponse(HttpRequest request, int statusCode) {
+            super(request);
+            this.statusCode = statusCode;
+        }
+
+        @Override
+        public int getStatusCode() {
+            return statusCode;
+        }
+
+        @Override
+        @Deprecated
+        public String getHeaderValue(String name) {
+            return null;
+        }
+
+        @Override
+        public HttpHeaders getHeaders() {
+            return new HttpHeaders();
+        }
+
+        @Override
+        public Flux<ByteBuffer> getBody() {
+            return Flux.empty();
+        }
+
+        @Override
+        public Mono<byte[]> getBodyAsByteArray() {
+            return Mono.just(new byte[0]);
+        }
+
+        @Override
+        public Mono<String> getBodyAsString() {
+            return Mono.just("");
+        }
+
+        @Override
+        public Mono<String> getBodyAsString(Charset charset) {
+            return Mono.just("");
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package com.example.documentintelligence.infrastructure.concurrency;
+
+import com.example.documentintelligence.domain.model.DocumentType;
+import com.example.documentintelligence.infrastructure.scheduling.FairQueue;
+import com.example.documentintelligence.infrastructure.scheduling.JobClass;
+import com.example.documentintelligence.infrastructure.scheduling.SizeClass;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TokenBucketTest {
+
+    private static final JobClass LARGE = new JobClass(DocumentType.REGISTRO_MATRICULA, SizeClass.LARGE);
+    private static final JobClass SMALL = new JobClass(DocumentType.CPF, SizeClass.SMALL);
+
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor();
+
+    @AfterEach
+    void stopScheduler() {
+        scheduler.shutdownNow();
+    }
+
+    @Test
+    void servesBurstUpToCapacityRightAway() {
+        TokenBucket bucket = bucket(10, Duration.ofHours(1));
+
+        assertThat(bucket.acquire(SMALL, 4)).isDone();
+        assertThat(bucket.acquire(SMALL, 6)).isDone();
+        assertThat(bucket.acquire(SMALL, 1)).isNotDone();
+    }
+
+    @Test
+    void completesWaitingCallerOnceRefilled() throws Exception {
+        TokenBucket bucket = bucket(10, Duration.ofMillis(100));
+        bucket.acquire(SMALL, 10);
+
+        CompletableFuture<Void> waiting = bucket.acquire(SMALL, 5);
+
+        assertThat(waiting).isNotDone();
+        waiting.get(2, TimeUnit.SECONDS);
+    }
+
+    @Test
+    void capsCostAboveCapacity() throws Exception {
+        TokenBucket bucket = bucket(10, Duration.ofMillis(100));
+
+        assertThat(bucket.acquire(SMALL, 1_000)).isDone();
+        assertThat(bucket.getAvailableTokens()).isLessThan(1);
+    }
+
+    @Test
+    void drainEmptiesTheBucket() {
+        TokenBucket bucket = bucket(10, Duration.ofHours(1));
+
+        bucket.drain();
+
+        assertThat(bucket.getAvailableTokens()).isLessThan(1e-3);
+        assertThat(bucket.acquire(SMALL, 1)).isNotDone();
+    }
+
+    @Test
+    void callersArrivingWhileOthersWaitQueueBehindThem() {
+        TokenBucket bucket = bucket(10, Duration.ofHours(1));
+        bucket.acquire(LARGE, 8);
+        CompletableFuture<Void> first = bucket.acquire(LARGE, 8);
+
+        // Enough tokens are left for this one, but it must not overtake the waiting caller
+        CompletableFuture<Void> second = bucket.acquire(SMALL, 1);
+
+        assertThat(first).isNotDone();
+        assertThat(second).isNotDone();
+    }
+
+    private TokenBucket bucket(double capacity, Duration period) {
+        return new TokenBucket(capacity, capacity, period, scheduler,
+                new FairQueue<>(jobClass -> jobClass.size() == SizeClass.SMALL ? 8 : 1, null, (jobClass, nanos) -> { }));
+    }
+}
@@ -0,0 +1,101 @@
+package com.example.documentintelligence.infrastructure.extraction;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class FieldPathTrieTest {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+    private static final FieldPathTrie TRIE = new FieldPathTrie(List.of(
+            "NOME", "ENDERECO.CIDADE", "ENDERECO.UF", "PROPRIETARIOS[*].NOME", "PROPRIETARIOS[*].CPF", "TAGS[*]"));
+
+    @Test
+    void keepsOnlyTheConfiguredFields() throws Exception {
+        FieldPathTrie.Result result = TRIE.walk(json("""
+                {"NOME": "Ana", "IDADE": 30,
+                 "ENDERECO": {"CIDADE": "Recife", "UF": "PE", "CEP": "50000-000"},
+                 "PROPRIETARIOS": [{"NOME": "Ana", "CPF": "123", "RG": "9"}],
+                 "TAGS": ["a", "b"]}
+                """));
+
+        assertThat(result.isComplete()).isTrue();
+        assertThat(result.data()).isEqualTo(json("""
+                {"NOME": "Ana", "ENDERECO": {"CIDADE": "Recife", "UF": "PE"},
+                 "PROPRIETARIOS": [{"NOME": "Ana", "CPF": "123"}], "TAGS": ["a", "b"]}
+                """));
+    }
+
+    @Test
+    void reportsMissingFieldsWithNumberedListElements() throws Exception {
+        FieldPathTrie.Result result = TRIE.walk(json("""
+                {"NOME": "null", "ENDERECO": {"CIDADE": " "},
+                 "PROPRIETARIOS": [{"NOME": "Ana"}, {"CPF": "456"}]}
+                """));
+
+        assertThat(result.missingFields()).containsExactly(
+                "NOME", "ENDERECO.CIDADE", "ENDERECO.UF", "PROPRIETARIOS[0].CPF", "PROPRIETARIOS[1].NOME", "TAGS[*]");
+        assertThat(result.data().get("NOME").isNull()).isTrue();
+        assertThat(result.data().get("TAGS")).isEmpty();
+    }
+
+    @Test
+    void reportsEveryFieldOfAMissingListOfObjects() throws Exception {
+        FieldPathTrie.Result result = TRIE.walk(json("""
+                {"NOME": "Ana", "ENDERECO": {"CIDADE": "Recife", "UF": "PE"},
+                 "PROPRIETARIOS": [{"NOME": null}], "TAGS": ["a"]}
+                """));
+
+        assertThat(result.missingFields()).containsExactly("PROPRIETARIOS[*].NOME", "PROPRIETARIOS[*].CPF");
+        assertThat(result.data().get("PROPRIETARIOS")).isEmpty();
+    }
+
+    @Test
+    void readsASingleObjectAsAListOfOne() throws Exception {
+        FieldPathTrie.Result result = TRIE.walk(json("""
+                {"PROPRIETARIOS": {"NOME": "Ana", "CPF": "123"}, "TAGS": "a"}
+                """));
+
+        assertThat(result.data().get("PROPRIETARIOS")).isEqualTo(json("[{\"NOME\": \"Ana\", \"CPF\": \"123\"}]"));
+        assertThat(result.data().get("TAGS")).isEqualTo(json("[\"a\"]"));
+    }
+
+    @Test
+    void looksUpFlatDottedKeysOfTheRoot() throws Exception {
+        FieldPathTrie.Result result = TRIE.walk(json("""
+                {"ENDERECO.CIDADE": "Recife", "ENDERECO": {"UF": "PE"}}
+                """));
+
+        assertThat(result.data().get("ENDERECO")).isEqualTo(json("{\"CIDADE\": \"Recife\", \"UF\": \"PE\"}"));
+        assertThat(result.missingFields()).doesNotContain("ENDERECO.CIDADE", "ENDERECO.UF");
+    }
+
+    @Test
+    void reportsEveryFieldMissingWhenNothingWasExtracted() {
+        FieldPathTrie.Result result = TRIE.walk(null);
+
+        assertThat(result.missingFields()).containsExactly("NOME", "ENDERECO.CIDADE", "ENDERECO.UF",
+                "PROPRIETARIOS[*].NOME", "PROPRIETARIOS[*].CPF", "TAGS[*]");
+    }
+
+    @Test
+    void rejectsConflictingFieldPaths() {
+        assertThatThrownBy(() -> new FieldPathTrie(List.of("A.B", "A")))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> new FieldPathTrie(List.of("A", "A.B")))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> new FieldPathTrie(List.of("A[*].B", "A.C")))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> new FieldPathTrie(List.of("A..B")))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private static JsonNode json(String json) throws Exception {
+        return MAPPER.readTree(json);
+    }
+}
@@ -0,0 +1,81 @@
+package com.example.documentintelligence.infrastructure.extraction;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class IncrementalJsonReaderTest {
+
+    private static final String JSON = "{\"NOME\":\"José da Silva\",\"DOCUMENTO\":{\"NUMERO\":123,\"VALIDO\":true},"
+            + "\"TAGS\":[\"a\",null,1.5],\"GRANDE\":12345678901234567890}";
+
+    @Test
+    void buildsTheTreeFromSingleCharacterFragments() {
+        IncrementalJsonReader reader = new IncrementalJsonReader();
+        boolean complete = false;
+        for (int i = 0; i < JSON.length(); i++) {
+            assertThat(complete).isFalse();
+            complete = reader.feed(JSON.substring(i, i + 1));
+        }
+
+        assertThat(complete).isTrue();
+        assertThat(reader.getJson()).isEqualTo(JSON);
+        assertThat(reader.getTree().path("NOME").asText()).isEqualTo("José da Silva");
+        assertThat(reader.getTree().path("DOCUMENTO").path("NUMERO").asInt()).isEqualTo(123);
+        assertThat(reader.getTree().path("DOCUMENTO").path("VALIDO").asBoolean()).isTrue();
+        assertThat(reader.getTree().path("TAGS").get(1).isNull()).isTrue();
+        assertThat(reader.getTree().path("TAGS").get(2).asDouble()).isEqualTo(1.5);
+        assertThat(reader.getTree().path("GRANDE").bigIntegerValue()).hasToString("12345678901234567890");
+    }
+
+    @Test
+    void skipsACodeFenceSplitAcrossFragments() {
+        IncrementalJsonReader reader = new IncrementalJsonReader();
+
+        reader.feed("  ``");
+        reader.feed("`js");
+        reader.feed("on\n{\"A\":");
+        boolean complete = reader.feed("1}\n```");
+
+        assertThat(complete).isTrue();
+        assertThat(reader.getJson()).isEqualTo("{\"A\":1}");
+    }
+
+    @Test
+    void stopsAtTheBraceClosingTheRootObject() {
+        IncrementalJsonReader reader = new IncrementalJsonReader();
+
+        assertThat(reader.feed("{\"A\":{\"B\":2}} and some words {")).isTrue();
+        assertThat(reader.feed("not json at all")).isTrue();
+
+        assertThat(reader.getJson()).isEqualTo("{\"A\":{\"B\":2}}");
+    }
+
+    @Test
+    void failsAsSoonAsTextPrecedesTheObject() {
+        IncrementalJsonReader reader = new IncrementalJsonReader();
+
+        assertThatThrownBy(() -> reader.feed("Aqui está o JSON: {"))
+                .isInstanceOf(MalformedCompletionException.class)
+                .hasMessageContaining("does not start with a JSON object");
+    }
+
+    @Test
+    void failsOnAStructuralErrorBeforeTheEnd() {
+        IncrementalJsonReader reader = new IncrementalJsonReader();
+        reader.feed("{\"A\":1,");
+
+        assertThatThrownBy(() -> reader.feed("]"))
+                .isInstanceOf(MalformedCompletionException.class);
+    }
+
+    @Test
+    void doesNotExposeAnIncompleteObject() {
+        IncrementalJsonReader reader = new IncrementalJsonReader();
+        reader.feed("{\"A\":");
+
+        assertThat(reader.isComplete()).isFalse();
+        assertThatThrownBy(reader::getTree).isInstanceOf(IllegalStateException.class);
+    }
+}
@@ -0,0 +1,179 @@
+package com.example.documentintelligence.infrastructure.persistence;
+
+import com.example.documentintelligence.domain.model.AnalysisPage;
+import com.example.documentintelligence.domain.model.AnalysisQuery;
+import com.example.documentintelligence.domain.model.AnalysisStatus;
+import com.example.documentintelligence.domain.model.AnalysisSummary;
+import com.example.documentintelligence.domain.model.DocumentAnalysis;
+import com.example.documentintelligence.domain.model.DocumentType;
+import com.example.documentintelligence.domain.model.InvalidRequestException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class BoundedAnalysisStoreTest {
+
+    // Retained size of an analysis with no payload, data or step results
+    private static final long EMPTY_ENTRY_BYTES = 640;
+
+    @Test
+    void evictsTheLeastRecentlyFinishedAnalysisFirst() {
+        BoundedAnalysisStore store = store(Duration.ofDays(7), 3 * EMPTY_ENTRY_BYTES);
+        store.put(analysis("F-1", AnalysisStatus.COMPLETED, LocalDateTime.now()));
+        store.put(analysis("F-2", AnalysisStatus.COMPLETED, LocalDateTime.now()));
+        store.put(analysis("F-3", AnalysisStatus.FAILED, LocalDateTime.now()));
+        store.put(analysis("F-1", AnalysisStatus.COMPLETED, LocalDateTime.now()));
+
+        store.put(analysis("F-4", AnalysisStatus.COMPLETED, LocalDateTime.now()));
+
+        assertThat(store.getSnapshot("F-2")).isEmpty();
+        assertThat(store.getSnapshot("F-1")).isPresent();
+        assertThat(store.getSnapshot("F-3")).isPresent();
+        assertThat(store.getSnapshot("F-4")).isPresent();
+        assertThat(store.getRetainedBytes()).isEqualTo(3 * EMPTY_ENTRY_BYTES);
+    }
+
+    @Test
+    void neverEvictsPendingAnalyses() {
+        BoundedAnalysisStore store = store(Duration.ofDays(7), 2 * EMPTY_ENTRY_BYTES);
+        store.put(analysis("P-1", AnalysisStatus.PENDING, null));
+        store.put(analysis("P-2", AnalysisStatus.PENDING, null));
+        store.put(analysis("F-1", AnalysisStatus.COMPLETED, LocalDateTime.now()));
+        store.put(analysis("P-3", AnalysisStatus.PENDING, null));
+
+        assertThat(store.getSnapshot("F-1")).isEmpty();
+        assertThat(store.get("P-1")).isPresent();
+        assertThat(store.get("P-2")).isPresent();
+        assertThat(store.get("P-3")).isPresent();
+        assertThat(store.size()).isEqualTo(3);
+    }
+
+    @Test
+    void evictsAPendingAnalysisOnceItFinishes() {
+        BoundedAnalysisStore store = store(Duration.ofDays(7), 2 * EMPTY_ENTRY_BYTES);
+        store.put(analysis("P-1", AnalysisStatus.PENDING, null));
+        store.put(analysis("F-1", AnalysisStatus.COMPLETED, LocalDateTime.now()));
+        store.put(analysis("P-1", AnalysisStatus.COMPLETED, LocalDateTime.now()));
+
+        store.put(analysis("P-2", AnalysisStatus.PENDING, null));
+
+        assertThat(store.getSnapshot("F-1")).isEmpty();
+        assertThat(store.getSnapshot("P-1")).isPresent();
+        assertThat(store.size()).isEqualTo(2);
+    }
+
+    @Test
+    void dropsExpiredAnalysesOnTheNextSave() {
+        BoundedAnalysisStore store = store(Duration.ofHours(1), Long.MAX_VALUE);
+        store.put(analysis("F-1", AnalysisStatus.COMPLETED, LocalDateTime.now().minusHours(2)));
+        store.put(analysis("F-2", AnalysisStatus.COMPLETED, LocalDateTime.now()));
+
+        assertThat(store.getSnapshot("F-1")).isEmpty();
+        assertThat(store.size()).isEqualTo(1);
+        assertThat(store.getRetainedBytes()).isEqualTo(EMPTY_ENTRY_BYTES);
+    }
+
+    @Test
+    void pagesThroughMatchingAnalysesNewestFirst() {
+        BoundedAnalysisStore store = store(Duration.ofDays(7), Long.MAX_VALUE);
+        LocalDateTime start = LocalDateTime.now().minusMinutes(10);
+        for (int i = 0; i < 5; i++) {
+            store.put(analysis("C-" + i, AnalysisStatus.COMPLETED, start.plusMinutes(i)));
+            store.put(analysis("F-" + i, AnalysisStatus.FAILED, start.plusMinutes(i)));
+        }
+
+        List<String> protocols = new ArrayList<>();
+        List<String> cursors = new ArrayList<>();
+        String cursor = null;
+        do {
+            AnalysisPage page = store.query(new AnalysisQuery(AnalysisStatus.COMPLETED, null, null, null, cursor, 2));
+            page.analyses().forEach(summary -> protocols.add(summary.getProtocol()));
+            cursor = page.nextCursor();
+            cursors.add(cursor);
+        } while (cursor != null);
+
+        assertThat(protocols).containsExactly("C-4", "C-3", "C-2", "C-1", "C-0");
+        assertThat(cursors).hasSize(3).last().isNull();
+    }
+
+    @Test
+    void pageAfterACursorIsNotShiftedByLaterSaves() {
+        BoundedAnalysisStore store = store(Duration.ofDays(7), Long.MAX_VALUE);
+        LocalDateTime start = LocalDateTime.now().minusMinutes(10);
+        for (int i = 0; i < 4; i++) {
+            store.put(analysis("C-" + i, AnalysisStatus.COMPLETED, start.plusMinutes(i)));
+        }
+        AnalysisPage first = store.query(new AnalysisQuery(null, null, null, null, null, 2));
+
+        store.put(analysis("C-9", AnalysisStatus.COMPLETED, start.plusMinutes(9)));
+        AnalysisPage second = store.query(new AnalysisQuery(null, null, null, null, first.nextCursor(), 2));
+
+        assertThat(first.analyses()).extracting(AnalysisSummary::getProtocol).containsExactly("C-3", "C-2");
+        assertThat(second.analyses()).extracting(AnalysisSummary::getProtocol).containsExactly("C-1", "C-0");
+        assertThat(second.nextCursor()).isNull();
+    }
+
+    @Test
+    void filtersByTypeAndDateRange() {
+        BoundedAnalysisStore store = store(Duration.ofDays(7), Long.MAX_VALUE);
+        LocalDateTime start = LocalDateTime.now().minusMinutes(10);
+        for (int i = 0; i < 4; i++) {
+            store.put(analysis("C-" + i, AnalysisStatus.COMPLETED, start.plusMinutes(i)));
+        }
+        store.put(DocumentAnalysis.builder()
+                .protocol("R-2")
+                .documentType(DocumentType.RG)
+                .status(AnalysisStatus.COMPLETED)
+                .analysisDate(start.plusMinutes(2))
+                .build());
+
+        AnalysisPage page = store.query(new AnalysisQuery(null, DocumentType.CPF,
+                start.plusMinutes(1), start.plusMinutes(3), null, 10));
+
+        assertThat(page.analyses()).extracting(AnalysisSummary::getProtocol).containsExactly("C-2", "C-1");
+        assertThat(page.nextCursor()).isNull();
+    }
+
+    @Test
+    void movesAReSavedAnalysisToItsNewKey() {
+        BoundedAnalysisStore store = store(Duration.ofDays(7), Long.MAX_VALUE);
+        LocalDateTime start = LocalDateTime.now().minusMinutes(10);
+        store.put(analysis("A-1", AnalysisStatus.PENDING, start));
+        store.put(analysis("A-1", AnalysisStatus.COMPLETED, start.plusMinutes(1)));
+
+        assertThat(store.query(new AnalysisQuery(AnalysisStatus.PENDING, null, null, null, null, 10)).analyses())
+                .isEmpty();
+        assertThat(store.query(new AnalysisQuery(null, null, null, null, null, 10)).analyses())
+                .extracting(AnalysisSummary::getStatus).containsExactly(AnalysisStatus.COMPLETED);
+    }
+
+    @Test
+    void rejectsAMalformedCursor() {
+        BoundedAnalysisStore store = store(Duration.ofDays(7), Long.MAX_VALUE);
+
+        assertThatThrownBy(() -> store.query(new AnalysisQuery(null, null, null, null, "bm90LWEtY3Vyc29y", 10)))
+                .isInstanceOf(InvalidRequestException.class);
+        assertThatThrownBy(() -> store.query(new AnalysisQuery(null, null, null, null, "not base64!", 10)))
+                .isInstanceOf(InvalidRequestException.class);
+    }
+
+    private static BoundedAnalysisStore store(Duration ttl, long maxRetainedBytes) {
+        return new BoundedAnalysisStore(ttl, maxRetainedBytes, 1024, new SimpleMeterRegistry(), event -> { });
+    }
+
+    private static DocumentAnalysis analysis(String protocol, AnalysisStatus status, LocalDateTime analysisDate) {
+        return DocumentAnalysis.builder()
+                .protocol(protocol)
+                .documentType(DocumentType.CPF)
+                .status(status)
+                .analysisDate(analysisDate)
+                .build();
+    }
+}
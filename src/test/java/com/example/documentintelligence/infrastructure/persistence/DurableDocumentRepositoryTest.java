@@ -0,0 +1,172 @@
+package com.example.documentintelligence.infrastructure.persistence;
+
+import com.example.documentintelligence.domain.model.AnalysisStatus;
+import com.example.documentintelligence.domain.model.DocumentAnalysis;
+import com.example.documentintelligence.domain.model.DocumentType;
+import com.example.documentintelligence.domain.workflow.StageGraph;
+import com.example.documentintelligence.infrastructure.adapter.AzureDocumentIntelligenceAnalyzer;
+import com.example.documentintelligence.infrastructure.adapter.AzureOpenAIAnalyzer;
+import com.example.documentintelligence.infrastructure.adapter.DocumentQualityAnalyzer;
+import com.example.documentintelligence.infrastructure.adapter.RuleBasedAnalyzer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class DurableDocumentRepositoryTest {
+
+    private static final StageGraph STAGES = new StageGraph(List.of(AzureDocumentIntelligenceAnalyzer.STAGE,
+            DocumentQualityAnalyzer.STAGE, RuleBasedAnalyzer.STAGE, AzureOpenAIAnalyzer.STAGE));
+
+    @TempDir
+    Path directory;
+
+    private final List<DurableDocumentRepository> opened = new ArrayList<>();
+
+    @AfterEach
+    void closeRepositories() {
+        opened.forEach(DurableDocumentRepository::close);
+    }
+
+    @Test
+    void recoversSavesFromTheLog() {
+        DurableDocumentRepository repository = open();
+        repository.save(analysis("P-1", AnalysisStatus.PENDING));
+        repository.save(analysis("P-2", AnalysisStatus.PENDING));
+        repository.save(analysis("P-1", AnalysisStatus.COMPLETED));
+        repository.close();
+
+        DurableDocumentRepository recovered = open();
+
+        assertThat(recovered.findByProtocol("P-1")).map(DocumentAnalysis::getStatus).contains(AnalysisStatus.COMPLETED);
+        assertThat(recovered.findByProtocol("P-2")).map(DocumentAnalysis::getStatus).contains(AnalysisStatus.PENDING);
+    }
+
+    @Test
+    void recoversFromSnapshotAndLaterSegments() throws IOException {
+        DurableDocumentRepository repository = open();
+        repository.save(analysis("P-1", AnalysisStatus.PENDING));
+        repository.save(analysis("P-2", AnalysisStatus.PENDING));
+        repository.snapshot();
+        repository.save(analysis("P-2", AnalysisStatus.FAILED));
+        repository.save(analysis("P-3", AnalysisStatus.PENDING));
+        repository.close();
+
+        assertThat(files("snapshot-")).hasSize(1);
+        DurableDocumentRepository recovered = open();
+
+        assertThat(recovered.findByProtocol("P-1")).map(DocumentAnalysis::getStatus).contains(AnalysisStatus.PENDING);
+        assertThat(recovered.findByProtocol("P-2")).map(DocumentAnalysis::getStatus).contains(AnalysisStatus.FAILED);
+        assertThat(recovered.findByProtocol("P-3")).isPresent();
+    }
+
+    @Test
+    void snapshotDeletesOnlySupersededSegmentsAndSnapshots() throws IOException {
+        DurableDocumentRepository repository = open();
+        repository.save(analysis("P-1", AnalysisStatus.PENDING));
+        repository.snapshot();
+        repository.save(analysis("P-2", AnalysisStatus.PENDING));
+        repository.snapshot();
+
+        assertThat(files("snapshot-")).hasSize(1);
+        assertThat(files("segment-")).hasSize(1);
+    }
+
+    @Test
+    void keepsSavesRacingWithSnapshots() throws Exception {
+        DurableDocumentRepository repository = open();
+        int writers = 4;
+        int savesPerWriter = 200;
+        ExecutorService pool = Executors.newFixedThreadPool(writers);
+        try {
+            List<Future<?>> saves = new ArrayList<>();
+            for (int w = 0; w < writers; w++) {
+                int writer = w;
+                saves.add(pool.submit(() -> {
+                    for (int i = 0; i < savesPerWriter; i++) {
+                        repository.save(analysis("P-" + writer + "-" + i, AnalysisStatus.PENDING));
+                    }
+                }));
+            }
+            while (!saves.stream().allMatch(Future::isDone)) {
+                repository.snapshot();
+            }
+            for (Future<?> save : saves) {
+                save.get();
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+        repository.snapshot();
+        repository.close();
+
+        DurableDocumentRepository recovered = open();
+
+        for (int w = 0; w < writers; w++) {
+            for (int i = 0; i < savesPerWriter; i++) {
+                assertThat(recovered.findByProtocol("P-" + w + "-" + i)).as("P-%d-%d", w, i).isPresent();
+            }
+        }
+    }
+
+    @Test
+    void stopsReplayAtATornRecord() throws IOException {
+        DurableDocumentRepository repository = open();
+        repository.save(analysis("P-1", AnalysisStatus.PENDING));
+        repository.save(analysis("P-2", AnalysisStatus.PENDING));
+        repository.close();
+
+        Path segment = files("segment-").get(0);
+        byte[] bytes = Files.readAllBytes(segment);
+        // Flip a payload byte of the second record so its checksum no longer matches
+        int secondRecord = Integer.BYTES * 2 + readInt(bytes, 0);
+        bytes[secondRecord + Integer.BYTES * 2] ^= 0x7f;
+        Files.write(segment, bytes);
+
+        DurableDocumentRepository recovered = open();
+
+        assertThat(recovered.findByProtocol("P-1")).isPresent();
+        assertThat(recovered.findByProtocol("P-2")).isEmpty();
+    }
+
+    private DurableDocumentRepository open() {
+        BoundedAnalysisStore store = new BoundedAnalysisStore(Duration.ofDays(7), Long.MAX_VALUE, 1024,
+                new SimpleMeterRegistry(), event -> { });
+        DurableDocumentRepository repository = new DurableDocumentRepository(store, STAGES, directory.toString(), 1 << 16,
+                Duration.ofHours(1), Duration.ofHours(1));
+        opened.add(repository);
+        return repository;
+    }
+
+    private List<Path> files(String prefix) throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(file -> file.getFileName().toString().startsWith(prefix)).toList();
+        }
+    }
+
+    private static int readInt(byte[] bytes, int offset) {
+        return ((bytes[offset] & 0xff) << 24) | ((bytes[offset + 1] & 0xff) << 16)
+                | ((bytes[offset + 2] & 0xff) << 8) | (bytes[offset + 3] & 0xff);
+    }
+
+    private static DocumentAnalysis analysis(String protocol, AnalysisStatus status) {
+        return DocumentAnalysis.builder()
+                .protocol(protocol)
+                .documentType(DocumentType.CPF)
+                .status(status)
+                .build();
+    }
+}
@@ -0,0 +1,137 @@
+package com.example.documentintelligence.infrastructure.scheduling;
+
+import com.example.documentintelligence.domain.model.DocumentType;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.function.ToDoubleFunction;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class FairQueueTest {
+
+    private static final JobClass SMALL = new JobClass(DocumentType.CPF, SizeClass.SMALL);
+    private static final JobClass LARGE = new JobClass(DocumentType.REGISTRO_MATRICULA, SizeClass.LARGE);
+
+    @Test
+    void servesOneClassInArrivalOrder() {
+        FairQueue<String> queue = new FairQueue<>(jobClass -> 1, null, (jobClass, nanos) -> { });
+        queue.add(SMALL, 1, "a");
+        queue.add(SMALL, 1, "b");
+        queue.add(SMALL, 1, "c");
+
+        assertThat(drain(queue)).containsExactly("a", "b", "c");
+        assertThat(queue.poll()).isNull();
+    }
+
+    @Test
+    void sharesTurnsByWeight() {
+        FairQueue<String> queue = new FairQueue<>(weights(3, 1), null, (jobClass, nanos) -> { });
+        for (int i = 0; i < 8; i++) {
+            queue.add(SMALL, 1, "S" + i);
+            queue.add(LARGE, 1, "L" + i);
+        }
+
+        List<String> firstTurns = drain(queue).subList(0, 8);
+
+        assertThat(firstTurns).filteredOn(job -> job.startsWith("S")).containsExactly("S0", "S1", "S2", "S3", "S4", "S5");
+        assertThat(firstTurns).filteredOn(job -> job.startsWith("L")).containsExactly("L0", "L1");
+    }
+
+    @Test
+    void chargesTheCostOfEachJobToItsClass() {
+        FairQueue<String> queue = new FairQueue<>(jobClass -> 1, null, (jobClass, nanos) -> { });
+        for (int i = 0; i < 8; i++) {
+            queue.add(LARGE, 4, "L" + i);
+            queue.add(SMALL, 1, "S" + i);
+        }
+
+        List<String> firstTurns = drain(queue).subList(0, 5);
+
+        assertThat(firstTurns).containsExactly("L0", "S0", "S1", "S2", "S3");
+    }
+
+    @Test
+    void newClassStartsAtTheCurrentVirtualTime() {
+        FairQueue<String> queue = new FairQueue<>(jobClass -> 1, null, (jobClass, nanos) -> { });
+        for (int i = 0; i < 4; i++) {
+            queue.add(LARGE, 1, "L" + i);
+        }
+        queue.poll();
+        queue.poll();
+        queue.add(SMALL, 1, "S0");
+        queue.add(SMALL, 1, "S1");
+
+        // A class that was idle does not get the turns it missed: it alternates with the busy one
+        assertThat(drain(queue)).containsExactly("S0", "L2", "S1", "L3");
+    }
+
+    @Test
+    void pollRemovesThePeekedJob() {
+        FairQueue<String> queue = new FairQueue<>(weights(3, 1), null, (jobClass, nanos) -> { });
+        queue.add(LARGE, 1, "L0");
+        queue.add(SMALL, 1, "S0");
+        queue.add(SMALL, 1, "S1");
+
+        while (!queue.isEmpty()) {
+            String peeked = queue.peek();
+            assertThat(queue.poll()).isEqualTo(peeked);
+        }
+        assertThat(queue.size()).isZero();
+    }
+
+    @Test
+    void servesOverdueJobsEveryOtherTurn() throws InterruptedException {
+        FairQueue<String> queue = new FairQueue<>(weights(100, 1), Duration.ZERO, (jobClass, nanos) -> { });
+        for (int i = 0; i < 3; i++) {
+            queue.add(LARGE, 1, "L" + i);
+        }
+        for (int i = 0; i < 4; i++) {
+            queue.add(SMALL, 1, "S" + i);
+        }
+        Thread.sleep(2);
+
+        assertThat(drain(queue)).containsExactly("L0", "L1", "S0", "L2", "S1", "S2", "S3");
+    }
+
+    @Test
+    void holdsLowWeightJobsBehindAHigherOneWithoutAging() {
+        FairQueue<String> queue = new FairQueue<>(weights(100, 1), null, (jobClass, nanos) -> { });
+        for (int i = 0; i < 3; i++) {
+            queue.add(LARGE, 1, "L" + i);
+        }
+        for (int i = 0; i < 4; i++) {
+            queue.add(SMALL, 1, "S" + i);
+        }
+
+        assertThat(drain(queue)).containsExactly("L0", "S0", "S1", "S2", "S3", "L1", "L2");
+    }
+
+    @Test
+    void recordsTheWaitOfEveryJobServed() {
+        List<JobClass> recorded = new ArrayList<>();
+        FairQueue<String> queue = new FairQueue<>(jobClass -> 1, null, (jobClass, nanos) -> recorded.add(jobClass));
+        queue.add(SMALL, 1, "S0");
+        queue.add(LARGE, 1, "L0");
+        drain(queue);
+        queue.served(SMALL);
+
+        assertThat(recorded).containsExactly(SMALL, LARGE, SMALL);
+    }
+
+    private static ToDoubleFunction<JobClass> weights(double small, double large) {
+        Map<JobClass, Double> weights = Map.of(SMALL, small, LARGE, large);
+        return weights::get;
+    }
+
+    private static List<String> drain(FairQueue<String> queue) {
+        List<String> served = new ArrayList<>();
+        for (String job = queue.poll(); job != null; job = queue.poll()) {
+            served.add(job);
+        }
+        return served;
+    }
+}
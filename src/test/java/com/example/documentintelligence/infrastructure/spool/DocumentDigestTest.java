@@ -0,0 +1,67 @@
+package com.example.documentintelligence.infrastructure.spool;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.HexFormat;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class DocumentDigestTest {
+
+    private static final String TWO_PAGES = """
+            %PDF-1.4
+            1 0 obj << /Type /Catalog /Pages 2 0 R >> endobj
+            2 0 obj << /Type /Pages /Kids [3 0 R 4 0 R] /Count 2 >> endobj
+            3 0 obj << /Type /Page /Parent 2 0 R >> endobj
+            4 0 obj << /Type /Page /Parent 2 0 R >> endobj
+            """;
+
+    @Test
+    void readsADocumentSpanningSeveralChunks() throws Exception {
+        byte[] filler = new byte[200_000];
+        Arrays.fill(filler, (byte) ' ');
+        byte[] document = concat(TWO_PAGES.getBytes(StandardCharsets.US_ASCII), filler,
+                "trailer << /Root 1 0 R >>\n%%EOF\n".getBytes(StandardCharsets.US_ASCII));
+
+        DocumentDigest digest = DocumentDigest.of(Base64.getEncoder().encodeToString(document));
+
+        assertThat(digest.size()).isEqualTo(document.length);
+        assertThat(digest.pageCount()).isEqualTo(2);
+        assertThat(digest.contentHash())
+                .isEqualTo(HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(document)));
+    }
+
+    @Test
+    void matchesTheSpoolOfTheSameDocument(@TempDir Path directory) {
+        byte[] document = TWO_PAGES.getBytes(StandardCharsets.US_ASCII);
+
+        DocumentDigest digest = DocumentDigest.of(Base64.getEncoder().encodeToString(document));
+        SpooledDocument spooled = new DocumentSpool(directory.toString(), Long.MAX_VALUE)
+                .spool(new ByteArrayInputStream(document));
+
+        assertThat(digest).isEqualTo(new DocumentDigest(spooled.contentHash(), spooled.size(), spooled.pageCount()));
+    }
+
+    @Test
+    void rejectsInvalidBase64() {
+        assertThatThrownBy(() -> DocumentDigest.of("not base64!")).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private static byte[] concat(byte[]... parts) {
+        byte[] joined = new byte[Arrays.stream(parts).mapToInt(part -> part.length).sum()];
+        int offset = 0;
+        for (byte[] part : parts) {
+            System.arraycopy(part, 0, joined, offset, part.length);
+            offset += part.length;
+        }
+        return joined;
+    }
+}
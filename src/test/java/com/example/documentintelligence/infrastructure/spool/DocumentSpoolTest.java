@@ -0,0 +1,73 @@
+package com.example.documentintelligence.infrastructure.spool;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.web.multipart.MaxUploadSizeExceededException;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Base64;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class DocumentSpoolTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void writesTheDocumentAsAnAnalyzeRequest() throws Exception {
+        DocumentSpool spool = new DocumentSpool(directory.toString(), Long.MAX_VALUE);
+        byte[] document = "%PDF-1.4 not really a pdf".getBytes(StandardCharsets.US_ASCII);
+
+        SpooledDocument spooled = spool.spool(new ByteArrayInputStream(document));
+
+        assertThat(Files.readString(spooled.path()))
+                .isEqualTo("{\"base64Source\":\"" + Base64.getEncoder().encodeToString(document) + "\"}");
+        assertThat(spooled.size()).isEqualTo(document.length);
+    }
+
+    @Test
+    void buildsTheSameRequestBodyForADocumentHeldInMemory() throws Exception {
+        DocumentSpool spool = new DocumentSpool(directory.toString(), Long.MAX_VALUE);
+        byte[] document = "%PDF-1.4 not really a pdf".getBytes(StandardCharsets.US_ASCII);
+        SpooledDocument spooled = spool.spool(new ByteArrayInputStream(document));
+
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+        for (ByteBuffer buffer : DocumentSpool.requestBody(Base64.getEncoder().encodeToString(document))) {
+            byte[] bytes = new byte[buffer.remaining()];
+            buffer.get(bytes);
+            body.write(bytes);
+        }
+
+        assertThat(body.toByteArray()).isEqualTo(Files.readAllBytes(spooled.path()));
+    }
+
+    @Test
+    void estimatesTheDocumentSizeFromTheSpoolFile() throws Exception {
+        DocumentSpool spool = new DocumentSpool(directory.toString(), Long.MAX_VALUE);
+        byte[] document = new byte[3 * 1000];
+
+        SpooledDocument spooled = spool.spool(new ByteArrayInputStream(document));
+
+        assertThat(DocumentSpool.documentSize(spooled.path())).isEqualTo(document.length);
+    }
+
+    @Test
+    void rejectsADocumentLargerThanTheUploadLimitAndRemovesItsFile() throws Exception {
+        DocumentSpool spool = new DocumentSpool(directory.toString(), 1000);
+
+        assertThat(spool.spool(new ByteArrayInputStream(new byte[1000])).size()).isEqualTo(1000);
+        assertThatThrownBy(() -> spool.spool(new ByteArrayInputStream(new byte[1001])))
+                .isInstanceOf(MaxUploadSizeExceededException.class);
+        try (Stream<Path> files = Files.list(directory)) {
+            assertThat(files).hasSize(1);
+        }
+    }
+}
@@ -0,0 +1,120 @@
+package com.example.documentintelligence.infrastructure.spool;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class PdfPageCounterTest {
+
+    private static final String THREE_PAGES = """
+            %PDF-1.4
+            1 0 obj << /Type /Catalog /Pages 2 0 R >> endobj
+            2 0 obj << /Type /Pages /Kids [3 0 R 4 0 R 5 0 R] /Count 3 >> endobj
+            3 0 obj << /Type /Page /Parent 2 0 R >> endobj
+            4 0 obj << /Type /Page /Parent 2 0 R >> endobj
+            5 0 obj << /Type /Page /Parent 2 0 R /Contents 6 0 R >> endobj
+            6 0 obj << /Length 30 >>
+            stream
+            /Type /Page /Type /Pages /Count 99
+            endstream
+            endobj
+            xref
+            trailer << /Size 7 /Root 1 0 R >>
+            startxref
+            0
+            %%EOF
+            """;
+
+    @Test
+    void readsCountOfThePageTreeTheCatalogPointsTo() {
+        assertThat(count(THREE_PAGES)).isEqualTo(3);
+    }
+
+    @Test
+    void incrementalUpdateRemovingPagesReportsTheCurrentCount() {
+        String updated = THREE_PAGES + """
+                2 0 obj << /Type /Pages /Kids [3 0 R] /Count 1 >> endobj
+                xref
+                trailer << /Size 7 /Root 1 0 R /Prev 0 >>
+                startxref
+                0
+                %%EOF
+                """;
+
+        assertThat(count(updated)).isEqualTo(1);
+    }
+
+    @Test
+    void incrementalUpdateAddingPagesUnderANewTreeFollowsTheLastRoot() {
+        String updated = THREE_PAGES + """
+                7 0 obj << /Type /Catalog /Pages 8 0 R >> endobj
+                8 0 obj << /Type /Pages /Kids [3 0 R 4 0 R 5 0 R 9 0 R] /Count 4 >> endobj
+                9 0 obj << /Type /Page /Parent 8 0 R >> endobj
+                xref
+                trailer << /Size 10 /Root 7 0 R /Prev 0 >>
+                startxref
+                0
+                %%EOF
+                """;
+
+        assertThat(count(updated)).isEqualTo(4);
+    }
+
+    @Test
+    void ignoresNestedPageTreeNodes() {
+        String nested = """
+                %PDF-1.4
+                1 0 obj << /Type /Catalog /Pages 2 0 R >> endobj
+                2 0 obj << /Type /Pages /Kids [3 0 R 4 0 R] /Count 12 >> endobj
+                3 0 obj << /Type /Pages /Parent 2 0 R /Count 10 >> endobj
+                4 0 obj << /Type /Pages /Parent 2 0 R /Count 2 >> endobj
+                trailer << /Root 1 0 R >>
+                """;
+
+        assertThat(count(nested)).isEqualTo(12);
+    }
+
+    @Test
+    void fallsBackToASinglePageTreeRootWithoutATrailer() {
+        String truncated = THREE_PAGES.substring(0, THREE_PAGES.indexOf("xref"));
+
+        assertThat(count(truncated)).isEqualTo(3);
+    }
+
+    @Test
+    void reportsUnknownWhenThePageTreeIsCompressed() {
+        String compressed = """
+                %PDF-1.5
+                5 0 obj << /Type /ObjStm /N 3 /First 20 /Length 10 >>
+                stream
+                xxxxxxxxxx
+                endstream
+                endobj
+                6 0 obj << /Type /XRef /Root 1 0 R >> endobj
+                """;
+
+        assertThat(count(compressed)).isZero();
+    }
+
+    @Test
+    void reportsUnknownForAnythingButAPdf() {
+        assertThat(count("<html>/Type /Pages /Count 3</html>")).isZero();
+    }
+
+    @Test
+    void countsTheSameWhenFedInSmallChunks() {
+        byte[] document = THREE_PAGES.getBytes(StandardCharsets.ISO_8859_1);
+        PdfPageCounter counter = new PdfPageCounter();
+        for (int offset = 0; offset < document.length; offset += 3) {
+            counter.update(document, offset, Math.min(3, document.length - offset));
+        }
+
+        assertThat(counter.getPageCount()).isEqualTo(3);
+    }
+
+    private static int count(String document) {
+        return PdfPageCounter.count(document.getBytes(StandardCharsets.ISO_8859_1));
+    }
+}